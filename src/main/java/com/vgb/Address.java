@@ -6,6 +6,8 @@ package com.vgb;
  */
 public class Address {
 
+	private static final RowLayout LAYOUT = RowLayout.compile("%15s %s, \n %s %s");
+
 	private String street;
 	private String city;
 	private String state;
@@ -45,6 +47,7 @@ public class Address {
 
 	@Override
 	public String toString() {
-		return String.format("%15s %s, \n %s %s", this.getStreet(), this.getCity(), this.getState(), this.getZip());
+		return LAYOUT.row().text(this.getStreet()).text(this.getCity()).text(this.getState()).text(this.getZip())
+				.toString();
 	}
 }
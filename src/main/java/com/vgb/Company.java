@@ -8,6 +8,8 @@ import java.util.UUID;
 public class Company {
 
 	
+	private static final RowLayout LAYOUT = RowLayout.compile("%s (%s) \n %s \n \n %30s");
+
 	private UUID uuid;
 	private String name;
 	private Person contact;
@@ -64,8 +66,8 @@ public class Company {
 	@Override
 	public String toString() {
 		String contactStr = (this.getContact() != null) ? this.getContact().toString() : "N/A";
-		return String.format("%s (%s) \n %s \n \n %30s", this.getName(), this.getUuid(),
-				contactStr, this.getAddress().toString());
+		return LAYOUT.row().text(this.getName()).uuid(this.getUuid()).text(contactStr)
+				.text(this.getAddress().toString()).toString();
 	}
 
 
@@ -0,0 +1,271 @@
+package com.vgb;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe sorted list with the same comparator-based API as
+ * {@link SortedListBST}, backed by a lock-free skip list.
+ * <p>
+ * add, remove, getFirst and getLast run in expected O(log n) and never block.
+ * Iterators are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException}, see every element that
+ * was present when they were created and not removed since, and may or may
+ * not see elements added afterwards. {@link #size()} is exact when the list is
+ * not being modified.
+ * </p>
+ * <p>
+ * As in {@link SortedListBST}, elements that compare equal are all kept, in
+ * the order they were added. The comparator must be safe to call from several
+ * threads at once.
+ * </p>
+ *
+ * @param <T> The type of elements stored in the list
+ */
+public class ConcurrentSortedList<T> implements Iterable<T> {
+
+	/**
+	 * An element tagged with its insertion sequence, which orders elements the
+	 * comparator considers equal.
+	 */
+	private static final class Entry<T> {
+		private final T data;
+		private final long sequence;
+
+		private Entry(T data, long sequence) {
+			this.data = data;
+			this.sequence = sequence;
+		}
+	}
+
+	private final Comparator<T> comparator;
+	private final ConcurrentSkipListSet<Entry<T>> entries;
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * Constructs a new sorted list with the specified comparator.
+	 *
+	 * @param comparator The comparator that defines the ordering of elements
+	 */
+	public ConcurrentSortedList(Comparator<T> comparator) {
+		this.comparator = comparator;
+		this.entries = new ConcurrentSkipListSet<>((e1, e2) -> {
+			int result = comparator.compare(e1.data, e2.data);
+			return (result != 0) ? result : Long.compare(e1.sequence, e2.sequence);
+		});
+	}
+
+	/**
+	 * Adds an element to the list, maintaining the sorted order.
+	 *
+	 * @param element The element to add
+	 */
+	public void add(T element) {
+		if (element == null) {
+			throw new IllegalArgumentException("Cannot add null element to ConcurrentSortedList");
+		}
+
+		entries.add(new Entry<>(element, sequence.getAndIncrement()));
+		size.incrementAndGet();
+	}
+
+	/**
+	 * Adds all elements from the provided array to the list. Other threads may
+	 * see some of the elements before the call returns.
+	 *
+	 * @param elements Array of elements to add
+	 */
+	public void addAll(T[] elements) {
+		if (elements == null) {
+			throw new IllegalArgumentException("Cannot add null array to ConcurrentSortedList");
+		}
+
+		for (T element : elements) {
+			add(element);
+		}
+	}
+
+	/**
+	 * Removes the earliest added element that compares equal to the specified
+	 * element, if there is one.
+	 *
+	 * @param element The element to remove
+	 * @return true if an element was found and removed, false otherwise
+	 */
+	public boolean remove(T element) {
+		if (element == null) {
+			return false;
+		}
+
+		Entry<T> probe = new Entry<>(element, Long.MIN_VALUE);
+		while (true) {
+			Entry<T> match = entries.ceiling(probe);
+			if (match == null || comparator.compare(element, match.data) != 0) {
+				return false;
+			}
+			if (entries.remove(match)) {
+				size.decrementAndGet();
+				return true;
+			}
+			// Another thread removed the match first; look for the next one
+		}
+	}
+
+	/**
+	 * Returns whether the list holds an element that compares equal to the
+	 * specified element.
+	 *
+	 * @param element The element to look for
+	 * @return true if there is an equal element
+	 */
+	public boolean contains(T element) {
+		if (element == null) {
+			return false;
+		}
+
+		Entry<T> match = entries.ceiling(new Entry<>(element, Long.MIN_VALUE));
+		return match != null && comparator.compare(element, match.data) == 0;
+	}
+
+	/**
+	 * Returns the element at the specified index. Unlike {@link SortedListBST}
+	 * this walks the list, so it costs O(index).
+	 *
+	 * @param index The index of the element to return
+	 * @return The element at the specified index
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public T get(int index) {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException("Index: " + index);
+		}
+
+		int i = 0;
+		for (Entry<T> entry : entries) {
+			if (i++ == index) {
+				return entry.data;
+			}
+		}
+		throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + i);
+	}
+
+	/**
+	 * Returns the first element in the list (smallest according to comparator).
+	 *
+	 * @return The first element
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public T getFirst() {
+		try {
+			return entries.first().data;
+		} catch (NoSuchElementException e) {
+			throw new NoSuchElementException("The list is empty");
+		}
+	}
+
+	/**
+	 * Returns the last element in the list (largest according to comparator).
+	 *
+	 * @return The last element
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public T getLast() {
+		try {
+			return entries.last().data;
+		} catch (NoSuchElementException e) {
+			throw new NoSuchElementException("The list is empty");
+		}
+	}
+
+	/**
+	 * Returns the number of elements in the list.
+	 *
+	 * @return The number of elements
+	 */
+	public int size() {
+		return Math.max(size.get(), 0);
+	}
+
+	/**
+	 * Returns whether the list is empty.
+	 *
+	 * @return true if the list is empty, false otherwise
+	 */
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Removes all elements from the list. Elements added concurrently may
+	 * survive.
+	 */
+	public void clear() {
+		while (entries.pollFirst() != null) {
+			size.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Copies the current contents into a {@link SortedListBST} with the same
+	 * comparator, for reports that need positional access or paging.
+	 *
+	 * @return A sorted snapshot of the list
+	 */
+	public SortedListBST<T> snapshot() {
+		List<T> elements = new ArrayList<>(size());
+		for (T element : this) {
+			elements.add(element);
+		}
+		return SortedListBST.fromSorted(comparator, elements);
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements in sorted order.
+	 *
+	 * @return An iterator over the elements
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		Iterator<Entry<T>> it = entries.iterator();
+
+		return new Iterator<T>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public T next() {
+				return it.next().data;
+			}
+		};
+	}
+
+	/**
+	 * Returns a string representation of the list.
+	 *
+	 * @return A string representation of the list
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+
+		Iterator<T> it = iterator();
+		while (it.hasNext()) {
+			sb.append(it.next());
+			if (it.hasNext()) {
+				sb.append(", ");
+			}
+		}
+
+		sb.append("]");
+		return sb.toString();
+	}
+}
@@ -8,6 +8,8 @@ import java.util.UUID;
 public class Contract extends Item {
 	
 	  
+	  private static final RowLayout LAYOUT = RowLayout.compile("%s (Contract) %s \n %70s $%s $%s $%12s\n %s \n ");
+
 	  private double contractprice;
 
 	  /**
@@ -36,23 +38,18 @@ public class Contract extends Item {
 	    }
 
 	    @Override
-	    public double getTaxes() {
-	        return 0;
+	    public LineType getLineType() {
+	        return LineType.CONTRACT;
 	    }
 
 	    @Override
-	    public double getTotal() {
-	        return contractprice;
+	    protected LineTotals calculateTotals() {
+	        return new LineTotals(contractprice, 0, contractprice);
 	    }
-
-		@Override
-		public double getSubTotal() {
-			return contractprice;
-		}
 		
 		@Override
 		public String toString() {
-			return String.format("%s (Contract) %s \n %70s $%s $%s $%12s\n %s \n ", this.getUUID(), this.getName(), " ",
-					this.getSubTotal(), this.getTaxes(), this.getTotal(), this.getCustomer().getName());
+			return LAYOUT.row().uuid(this.getUUID()).text(this.getName()).text(" ").number(this.getSubTotal())
+					.number(this.getTaxes()).number(this.getTotal()).text(this.getCustomer().getName()).toString();
 		}
 	}
@@ -2,24 +2,82 @@ package com.vgb;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 /**
  * 
  * Converts data to JSON and XML files using gson and XML stream
  * Outputs to output folder
  * 
+ * The write methods stream entities one at a time straight to an
+ * OutputStream, so an export of any size runs in constant memory. The
+ * converters are configured once in the static initializer and only read
+ * afterwards, so exports may run on several threads at once.
+ * 
  */
 public class DataConverter {
 
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Gson gson = gsonBuilder().setPrettyPrinting().create();
+    private static final Gson compactGson = gsonBuilder().create();
     private static final XStream xStream = new XStream();
 
+    private static final String XML_ROOT = "data";
+    private static final String XML_ENTRY = "entry";
+
     static {
-        xStream.alias("data", Map.class);
-        xStream.alias("entry", Map.Entry.class);
+        xStream.alias(XML_ROOT, Map.class);
+        xStream.alias(XML_ENTRY, Map.Entry.class);
+    }
+
+    /**
+     * Writes dates as ISO strings ({@code 2025-01-31}); java.time cannot be
+     * read reflectively on current JDKs.
+     */
+    private static class LocalDateAdapter extends TypeAdapter<LocalDate> {
+        @Override
+        public void write(JsonWriter out, LocalDate value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.toString());
+            }
+        }
+
+        @Override
+        public LocalDate read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return LocalDate.parse(in.nextString());
+        }
+    }
+
+    private static GsonBuilder gsonBuilder() {
+        return new GsonBuilder().registerTypeAdapter(LocalDate.class, new LocalDateAdapter());
     }
 
     public static String convertToJson(Map<UUID, ?> data) {
@@ -30,4 +88,214 @@ public class DataConverter {
         return xStream.toXML(data);
     }
 
-}
\ No newline at end of file
+    /**
+     * Opens a JSON writer on the target stream, which is the caller's stream
+     * or a gzip stream wrapping it.
+     */
+    private static JsonWriter open(OutputStream target, Gson converter) throws IOException {
+        return converter.newJsonWriter(writer(target));
+    }
+
+    /**
+     * Flushes everything written and ends the gzip stream, leaving the
+     * caller's stream open.
+     */
+    private static void finish(JsonWriter writer, OutputStream target, OutputStream out) throws IOException {
+        writer.flush();
+        if (target instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+    }
+
+    private static void writeValue(Gson converter, Object value, JsonWriter writer) {
+        if (value == null) {
+            converter.toJson(null, Object.class, writer);
+        } else {
+            converter.toJson(value, value.getClass(), writer);
+        }
+    }
+
+    /**
+     * Writes entities as a JSON array, one at a time. Each entity is written
+     * with all the data it refers to, as {@link #convertToJson(Map)} does.
+     * The stream is flushed but not closed.
+     *
+     * @param entities The entities to write
+     * @param out      Where the JSON is written
+     * @param pretty   Indent the output; otherwise it is written compactly
+     * @param gzip     Gzip the output
+     * @throws IOException If writing fails
+     */
+    public static void writeJson(Iterator<?> entities, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Gson converter = pretty ? gson : compactGson;
+        JsonWriter writer = open(target, converter);
+        writer.beginArray();
+        while (entities.hasNext()) {
+            writeValue(converter, entities.next(), writer);
+        }
+        writer.endArray();
+        finish(writer, target, out);
+    }
+
+    /**
+     * Writes entities as a JSON array, one at a time.
+     *
+     * @param entities The entities to write
+     * @param out      Where the JSON is written
+     * @param pretty   Indent the output; otherwise it is written compactly
+     * @param gzip     Gzip the output
+     * @throws IOException If writing fails
+     * @see #writeJson(Iterator, OutputStream, boolean, boolean)
+     */
+    public static void writeJson(Stream<?> entities, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        writeJson(entities.iterator(), out, pretty, gzip);
+    }
+
+    /**
+     * Writes a map as a JSON object keyed by UUID, one entry at a time. Pretty
+     * output is the same as {@link #convertToJson(Map)}.
+     *
+     * @param data   The entities by UUID
+     * @param out    Where the JSON is written
+     * @param pretty Indent the output; otherwise it is written compactly
+     * @param gzip   Gzip the output
+     * @throws IOException If writing fails
+     */
+    public static void writeJson(Map<UUID, ?> data, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Gson converter = pretty ? gson : compactGson;
+        JsonWriter writer = open(target, converter);
+        writer.beginObject();
+        for (Map.Entry<UUID, ?> entry : data.entrySet()) {
+            writer.name(String.valueOf(entry.getKey()));
+            writeValue(converter, entry.getValue(), writer);
+        }
+        writer.endObject();
+        finish(writer, target, out);
+    }
+
+    /**
+     * Writes every invoice item of a session as a JSON array, each with its
+     * invoice and its item data nested.
+     *
+     * @param session The session to export
+     * @param out     Where the JSON is written
+     * @param pretty  Indent the output; otherwise it is written compactly
+     * @param gzip    Gzip the output
+     * @throws IOException If writing fails
+     */
+    public static void writeInvoiceItemsJson(ReportSession session, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        writeJson(session.getInvoiceItems().values().stream().flatMap(List::stream).filter(Objects::nonNull), out,
+                pretty, gzip);
+    }
+
+    private static Writer writer(OutputStream target) {
+        return new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static HierarchicalStreamWriter openXml(OutputStream target, boolean pretty) {
+        return pretty ? new PrettyPrintWriter(writer(target)) : new CompactWriter(writer(target));
+    }
+
+    /**
+     * Flushes everything written and ends the gzip stream, leaving the
+     * caller's stream open.
+     */
+    private static void finish(HierarchicalStreamWriter writer, OutputStream target, OutputStream out)
+            throws IOException {
+        writer.flush();
+        if (target instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) target).finish();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes entities as XML, one element per entity under a {@code data}
+     * root. Each entity is marshalled on its own, so references between
+     * entities are written out in full instead of as XStream references.
+     * The stream is flushed but not closed.
+     *
+     * @param entities The entities to write
+     * @param out      Where the XML is written
+     * @param pretty   Indent the output; otherwise it is written compactly
+     * @param gzip     Gzip the output
+     * @throws IOException If writing fails
+     */
+    public static void writeXml(Iterator<?> entities, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        HierarchicalStreamWriter writer = openXml(target, pretty);
+        writer.startNode(XML_ROOT);
+        while (entities.hasNext()) {
+            xStream.marshal(entities.next(), writer);
+        }
+        writer.endNode();
+        finish(writer, target, out);
+    }
+
+    /**
+     * Writes entities as XML, one element per entity.
+     *
+     * @param entities The entities to write
+     * @param out      Where the XML is written
+     * @param pretty   Indent the output; otherwise it is written compactly
+     * @param gzip     Gzip the output
+     * @throws IOException If writing fails
+     * @see #writeXml(Iterator, OutputStream, boolean, boolean)
+     */
+    public static void writeXml(Stream<?> entities, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        writeXml(entities.iterator(), out, pretty, gzip);
+    }
+
+    /**
+     * Writes a map as XML, one {@code entry} element at a time, in the same
+     * shape as {@link #convertToXml(Map)}. Each entry is marshalled on its
+     * own, so the output only differs where an object is shared between
+     * entries: it is written out again rather than referenced.
+     *
+     * @param data   The entities by UUID
+     * @param out    Where the XML is written
+     * @param pretty Indent the output; otherwise it is written compactly
+     * @param gzip   Gzip the output
+     * @throws IOException If writing fails
+     */
+    public static void writeXml(Map<UUID, ?> data, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        HierarchicalStreamWriter writer = openXml(target, pretty);
+        writer.startNode(xStream.getMapper().serializedClass(data.getClass()));
+        for (Map.Entry<UUID, ?> entry : data.entrySet()) {
+            writer.startNode(XML_ENTRY);
+            xStream.marshal(entry.getKey(), writer);
+            xStream.marshal(entry.getValue(), writer);
+            writer.endNode();
+        }
+        writer.endNode();
+        finish(writer, target, out);
+    }
+
+    /**
+     * Writes every invoice item of a session as XML, each with its invoice
+     * and its item data nested.
+     *
+     * @param session The session to export
+     * @param out     Where the XML is written
+     * @param pretty  Indent the output; otherwise it is written compactly
+     * @param gzip    Gzip the output
+     * @throws IOException If writing fails
+     */
+    public static void writeInvoiceItemsXml(ReportSession session, OutputStream out, boolean pretty, boolean gzip)
+            throws IOException {
+        writeXml(session.getInvoiceItems().values().stream().flatMap(List::stream).filter(Objects::nonNull), out,
+                pretty, gzip);
+    }
+
+}
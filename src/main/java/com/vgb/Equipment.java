@@ -9,6 +9,7 @@ public class Equipment extends Item {
 
 	private String modelName;
 	private static final double TAX_RATE = 0.0525;
+	private static final RowLayout LAYOUT = RowLayout.compile("%s (Purchase) \n %s-%s \n %70s $%s $%s $%s");
 
 	/**
 	 * Constructs an Equipment based on the given attributes
@@ -29,24 +30,21 @@ public class Equipment extends Item {
 	}
 
 	@Override
-	public double getTaxes() {
-		return roundToCent(super.getPrice() * TAX_RATE);
+	public LineType getLineType() {
+		return LineType.PURCHASE;
 	}
 
 	@Override
-	public double getTotal() {
-		return roundToCent(super.getPrice() + this.getTaxes());
-	}
-
-	@Override
-	public double getSubTotal() {
-		return super.getPrice();
+	protected LineTotals calculateTotals() {
+		double subTotal = super.getPrice();
+		double taxes = roundToCent(subTotal * TAX_RATE);
+		return new LineTotals(subTotal, taxes, roundToCent(subTotal + taxes));
 	}
 
 	@Override
 	public String toString() {
-		return String.format("%s (Purchase) \n %s-%s \n %70s $%s $%s $%s", this.getUUID(), this.getModelName(),
-				this.getName(), " ", this.getSubTotal(), this.getTaxes(), this.getTotal());
+		return LAYOUT.row().uuid(this.getUUID()).text(this.getModelName()).text(this.getName()).text(" ")
+				.number(this.getSubTotal()).number(this.getTaxes()).number(this.getTotal()).toString();
 	}
 
 }
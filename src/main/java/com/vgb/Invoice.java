@@ -1,6 +1,10 @@
 package com.vgb;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import java.util.UUID;
@@ -9,11 +13,18 @@ import java.util.UUID;
  */
 public class Invoice {
 
+	private static final RowLayout TOTALS_LAYOUT = RowLayout
+			.compile("\nInvoice Total %57s -------------------------" + " \n %70s $%s $%s $%s\n");
+	private static final RowLayout LAYOUT = RowLayout
+			.compile("Invoice ID: %s \n \n" + "Customer: %s \n" + "Salesperson: %s \n");
+
 	private UUID invoiceUUID;
     private Company customer;
     private Person salesperson;
     private LocalDate invoiceDate;
-    private List<InvoiceItem> invoiceItems;
+    private transient List<InvoiceItem> invoiceItems;
+    private transient List<InvoiceItem> itemsView;
+    private transient InvoiceTotals totals;
     
     /**
      * Constructs an Invoice based on the given attributes
@@ -39,7 +50,7 @@ public class Invoice {
 	 */
 	public Invoice(Invoice invoice, List<InvoiceItem> invoiceItem) {
 		this(invoice.getInvoiceUUID(), invoice.getCustomer(), invoice.getSalesperson(), invoice.getInvoiceDate());
-		this.invoiceItems = invoiceItem;
+		setInvoiceItems(invoiceItem);
 	}
 	
 	
@@ -57,74 +68,139 @@ public class Invoice {
 	}
 
 
+	/**
+	 * Returns the items carried by this invoice. The list is a read only view
+	 * that follows later changes; use {@link #addInvoiceItem(InvoiceItem)} or
+	 * {@link #setInvoiceItems(List)} so the cached totals are refreshed.
+	 */
 	public List<InvoiceItem> getInvoiceItems() {
-		return invoiceItems;
+		return itemsView;
+	}
+
+	/**
+	 * Replaces the items of this invoice with a copy of the given list, so
+	 * later changes to that list do not affect the invoice.
+	 * @param invoiceItem items of this invoice, null entries are ignored
+	 */
+	public void setInvoiceItems(List<InvoiceItem> invoiceItem) {
+		setItems((invoiceItem == null) ? null : new ArrayList<>(invoiceItem));
+	}
+
+	/**
+	 * Adds an item to this invoice
+	 * @param invoiceItem item to add
+	 */
+	public void addInvoiceItem(InvoiceItem invoiceItem) {
+		if (invoiceItems == null) {
+			setItems(new ArrayList<>());
+		}
+		invoiceItems.add(invoiceItem);
+		totals = null;
+	}
+
+	private void setItems(List<InvoiceItem> items) {
+		this.invoiceItems = items;
+		this.itemsView = (items == null) ? null : Collections.unmodifiableList(items);
+		this.totals = null;
+	}
+
+	/**
+	 * Returns the totals of the items carried by this invoice, computed in one
+	 * pass and cached until the items change.
+	 */
+	public InvoiceTotals getTotals() {
+		InvoiceTotals result = totals;
+		if (result == null) {
+			result = InvoiceTotals.of(invoiceItems);
+			totals = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Totals of the given items, served from the cache when they are this
+	 * invoice's own list, as returned by {@link #getInvoiceItems()}.
+	 */
+	private InvoiceTotals totalsOf(List<InvoiceItem> invoiceItem) {
+		if (invoiceItem != null && (invoiceItem == invoiceItems || invoiceItem == itemsView)) {
+			return getTotals();
+		}
+		return InvoiceTotals.of(invoiceItem);
 	}
 
 	/**
 	 * Returns the sum of Totals in an invoice
 	 */
 	public double grandTotal(List<InvoiceItem> invoiceItem){
-		
-		double total = 0.0;
-		for(InvoiceItem i : invoiceItem) {
-			if(i != null) {
-			total += i.getItem().getTotal();
-			}
-		}
-		
-		return total;
-		
+		return Money.toDollars(grandTotalCents(invoiceItem));
+	}
+
+	/**
+	 * Returns the sum of Totals in an invoice, in cents
+	 */
+	public long grandTotalCents(List<InvoiceItem> invoiceItem){
+		return totalsOf(invoiceItem).getTotalCents();
 	}
 	
 	/**
 	 * Returns the sum of SubTotals in an invoice
 	 */
 	public double grandSubTotal(List<InvoiceItem> invoiceItem){
-		
-		double total = 0.0;
-		for(InvoiceItem i : invoiceItem) {
-			if (i != null) {
-			total += i.getItem().getSubTotal();
-			}
-		}
-		
-		return total;
-		
+		return Money.toDollars(grandSubTotalCents(invoiceItem));
 	}
+
+	/**
+	 * Returns the sum of SubTotals in an invoice, in cents
+	 */
+	public long grandSubTotalCents(List<InvoiceItem> invoiceItem){
+		return totalsOf(invoiceItem).getSubTotalCents();
+	}
+
 	/**
 	 * Returns the sum of taxes in an invoice
 	 */
 	public double grandTaxTotal(List<InvoiceItem> invoiceItem){
-	
-	double total = 0.0;
-	for(InvoiceItem i : invoiceItem) {
-		if(i != null) {
-		total += i.getItem().getTaxes();
-		}
+		return Money.toDollars(grandTaxTotalCents(invoiceItem));
+	}
+
+	/**
+	 * Returns the sum of taxes in an invoice, in cents
+	 */
+	public long grandTaxTotalCents(List<InvoiceItem> invoiceItem){
+		return totalsOf(invoiceItem).getTaxesCents();
 	}
-	
-	return total;
-	
-}
 
 	public String itemList(List<InvoiceItem> invoiceItem) {
 		StringBuilder report = new StringBuilder();
+		try {
+			appendItemList(invoiceItem, report);
+		} catch (IOException e) {
+			// A StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Writes each item followed by the invoice totals
+	 * @param invoiceItem items of this invoice
+	 * @param out where the list is written
+	 * @throws IOException if writing fails
+	 */
+	public void appendItemList(List<InvoiceItem> invoiceItem, Appendable out) throws IOException {
 
 	for(InvoiceItem it : invoiceItem) {
 		if(it != null) {
-		report.append( it.getItem().toString());
+		out.append( it.getItem().toString());
 	}
 
 }
 
-	report.append(String.format("\nInvoice Total %57s -------------------------"
-		+ " \n %70s $%s $%s $%s\n", " ",
-		" ",grandSubTotal(invoiceItem),
-		grandTaxTotal(invoiceItem),
-		grandTotal(invoiceItem)));
-
-		return report.toString();
+	InvoiceTotals itemTotals = totalsOf(invoiceItem);
+	TOTALS_LAYOUT.row().text(" ")
+		.text(" ").number(itemTotals.getSubTotal())
+		.number(itemTotals.getTaxes())
+		.number(itemTotals.getTotal()).appendTo(out);
 					
 }
 
@@ -146,10 +222,8 @@ public class Invoice {
 	public String toString() {
 		String contactStr = (this.getSalesperson() != null) ? this.getSalesperson().toString() : "N/A";
 		
-		return String.format("Invoice ID: %s \n \n"
-				+ "Customer: %s \n"
-				+ "Salesperson: %s \n", this.getInvoiceUUID(), this.getCustomer().toString(),
-				contactStr);
+		return LAYOUT.row().uuid(this.getInvoiceUUID()).text(this.getCustomer().toString())
+				.text(contactStr).toString();
 	}
     
 	
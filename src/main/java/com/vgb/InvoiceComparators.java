@@ -3,6 +3,7 @@ package com.vgb;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides comparators for sorting invoices and companies.
@@ -10,19 +11,38 @@ import java.util.Map;
 public class InvoiceComparators {
 
 	/**
-	 * Comparator for sorting invoices by total amount (highest to lowest)
+	 * Comparator for sorting invoices by total amount (highest to lowest).
+	 * Each invoice total is computed once, when the comparator is created or
+	 * the first time an invoice is compared. The comparator can be shared
+	 * between threads (for example by a {@link ConcurrentSortedList}) as long
+	 * as the invoiceItems map is safe to read concurrently.
 	 */
 	public static class InvoiceByTotalComparator implements Comparator<Invoice> {
 		private final Map<Invoice, List<InvoiceItem>> invoiceItems;
+		private final Map<Invoice, Double> totals;
 
 		public InvoiceByTotalComparator(Map<Invoice, List<InvoiceItem>> invoiceItems) {
 			this.invoiceItems = invoiceItems;
+			this.totals = new ConcurrentHashMap<>();
+			for (Invoice invoice : invoiceItems.keySet()) {
+				total(invoice);
+			}
+		}
+
+		private double total(Invoice invoice) {
+			Double total = totals.get(invoice);
+			if (total == null) {
+				List<InvoiceItem> items = invoiceItems.get(invoice);
+				total = (items == null) ? 0.0 : invoice.grandTotal(items);
+				totals.put(invoice, total);
+			}
+			return total;
 		}
 
 		@Override
 		public int compare(Invoice inv1, Invoice inv2) {
-			double total1 = inv1.grandTotal(invoiceItems.get(inv1));
-			double total2 = inv2.grandTotal(invoiceItems.get(inv2));
+			double total1 = total(inv1);
+			double total2 = total(inv2);
 
 			int result = Double.compare(total2, total1);
 
@@ -6,12 +6,23 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vgb.database.BulkImporter;
 import com.vgb.database.ConnectionFactory;
+import com.vgb.database.ConnectionPool.ConnectionSource;
+import com.vgb.database.ImportResult;
+import com.vgb.database.InvoiceLine;
+import com.vgb.database.InvoiceWriteResult;
+import com.vgb.database.InvoiceWriter;
+import com.vgb.database.KeyCache;
+import com.vgb.database.KeyCache.Table;
+import com.vgb.database.SqlErrors;
 
 /**
  * This is a collection of utility methods that define a general API for
@@ -22,11 +33,38 @@ public class InvoiceData {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(InvoiceData.class);;
 
+	/**
+	 * Most surrogate keys cached per table.
+	 */
+	private static final int KEY_CACHE_SIZE = 10_000;
+
+	/**
+	 * Surrogate keys of the persons, companies, items and invoices written or
+	 * looked up so far, so foreign keys are bound directly instead of through
+	 * a subselect on the UUID.
+	 */
+	private static final KeyCache KEYS = new KeyCache(KEY_CACHE_SIZE);
+
+	private static volatile ConnectionSource connections = ConnectionFactory::getConnection;
+
+	/**
+	 * Sets where the methods of this class get their connections, so they can
+	 * run against a stand-in database. The key cache is cleared, since it
+	 * belongs to the previous database.
+	 *
+	 * @param source Source of connections, or null for
+	 *               {@link ConnectionFactory#getConnection()}
+	 */
+	static void setConnectionSource(ConnectionSource source) {
+		connections = (source == null) ? ConnectionFactory::getConnection : source;
+		KEYS.clear();
+	}
+
 	/**
 	 * Removes all records from all tables in the database.
 	 */
 	public static void clearDatabase() {
-		try (Connection conn = ConnectionFactory.getConnection()) {
+		try (Connection conn = connections.open()) {
 
 			try (Statement disableFK = conn.createStatement()) {
 				disableFK.execute("SET FOREIGN_KEY_CHECKS = 0");
@@ -54,6 +92,7 @@ public class InvoiceData {
 				enableFK.execute("SET FOREIGN_KEY_CHECKS = 1");
 			}
 
+			KEYS.clear();
 			LOGGER.info("Database cleared...");
 
 		} catch (SQLException e) {
@@ -70,32 +109,18 @@ public class InvoiceData {
 	 * @param phone
 	 */
 	public static void addPerson(UUID personUuid, String firstName, String lastName, String phone) {
-
-		try (Connection conn = ConnectionFactory.getConnection()) {
-			if (!checkPerson(personUuid, conn)) {
-
-				try (PreparedStatement stmt = conn.prepareStatement("""
-						INSERT INTO Person (uuid, firstName, lastName, phoneNumber)
-						VALUES (?, ?, ?, ?)
-						""")) {
-					stmt.setString(1, personUuid.toString());
-					stmt.setString(2, firstName);
-					stmt.setString(3, lastName);
-					stmt.setString(4, phone);
-					stmt.executeUpdate();
-
-					stmt.close();
-				} catch (SQLException e) {
-					LOGGER.info("Error occurred adding person to database", e);
-				}
-			} else {
+		try (Connection conn = connections.open()) {
+			int personId = insertNew(conn, """
+					INSERT INTO Person (uuid, firstName, lastName, phoneNumber)
+					VALUES (?, ?, ?, ?)
+					""", personUuid.toString(), firstName, lastName, phone);
+			if (personId == 0) {
 				LOGGER.info("Person already exists");
+			} else {
+				KEYS.put(Table.PERSON, personUuid, personId);
 			}
-
-			ConnectionFactory.closeConnection(conn);
-
 		} catch (SQLException e) {
-			LOGGER.info("Error occured creating connection ", e);
+			LOGGER.info("Error occurred adding person to database", e);
 		}
 
 	}
@@ -108,29 +133,19 @@ public class InvoiceData {
 	 * @param email
 	 */
 	public static void addEmail(UUID personUuid, String email) {
+		try (Connection conn = connections.open()) {
 
-		try (Connection conn = ConnectionFactory.getConnection()) {
-
-			if (checkPerson(personUuid, conn)) {
-				try (PreparedStatement stmt = conn.prepareStatement("""
-						          INSERT INTO Email(address,personId) VALUES (?,
-						(select personId from Person where uuid = ? ));
-						          """)) {
-					stmt.setString(1, email);
-					stmt.setString(2, personUuid.toString());
-					stmt.executeUpdate();
-
-					stmt.close();
-				} catch (SQLException e) {
-					LOGGER.error("Error occurred adding email to database", e);
-				}
-			} else {
+			int personId = KEYS.resolve(Table.PERSON, personUuid, conn);
+			if (personId == 0) {
 				LOGGER.warn("Person does not exist under UUID: {} ", personUuid.toString());
+				return;
 			}
-
-			ConnectionFactory.closeConnection(conn);
+			insert(conn, """
+					INSERT INTO Email (address, personId)
+					VALUES (?, ?)
+					""", email, personId);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Error occurred adding email to database", e);
 		}
 
 	}
@@ -149,86 +164,73 @@ public class InvoiceData {
 	 */
 	public static void addCompany(UUID companyUuid, UUID contactUuid, String name, String street, String city,
 			String state, String zip) {
+		String insertCompany = """
+				INSERT INTO Company (uuid, companyName, addressId, personId)
+				SELECT ?, ?, a.addressId, ?
+				FROM Address a
+				JOIN State s ON a.stateId = s.stateId
+				JOIN ZipCode z ON a.zipId = z.zipId
+				WHERE a.street = ?
+				  AND a.city = ?
+				  AND s.stateCode = ?
+				  AND z.zip = ?
+				LIMIT 1
+				""";
 
-		try (Connection conn = ConnectionFactory.getConnection()) {
-
-			
-			if (!checkCompany(companyUuid, conn)) {
-				if (checkPerson(contactUuid, conn)) {
-					if (!checkAddress(street, city, state, zip, conn)) {
-
-						if (!checkState(state, conn)) {
-							try (PreparedStatement ps = conn.prepareStatement("""
-									INSERT INTO State(stateCode) VALUES (?);
-									""")) {
-
-								ps.setString(1, state);
-								ps.executeUpdate();
-
-								ps.close();
-
-							} catch (SQLException e) {
-								LOGGER.error("Error adding State", e);
-							}
-						}
-
-						if (!checkZip(zip, conn)) {
-							try (PreparedStatement ps = conn.prepareStatement("""
-									INSERT INTO ZipCode (zip) VALUES (?);
-									""")) {
-
-								ps.setString(1, zip);
-								ps.executeUpdate();
-								ps.close();
-
-							} catch (SQLException e) {
-								LOGGER.error("Error adding Zip code", e);
-							}
-						}
-
-						try (PreparedStatement stmt = conn.prepareStatement("""
-
-								INSERT INTO Address (street, city, stateId, zipId) VALUES
-								(?,?,
-								(SELECT stateId FROM State WHERE stateCode = ? LIMIT 1),
-								(SELECT zipId FROM ZipCode WHERE zip = ? LIMIT 1) );
-								""")) {
-
-							stmt.setString(1, street);
-							stmt.setString(2, city);
-							stmt.setString(3, state);
-							stmt.setString(4, zip);
-							stmt.executeUpdate();
-							stmt.close();
-						} catch (SQLException e) {
-							LOGGER.error("Error occure adding address for company", e);
-						}
-					}
-					try (PreparedStatement stmt = conn.prepareStatement("""
-							INSERT INTO Company (uuid,companyName,addressId,personId) Values (?, ?,
-							(select addressId from Address where street = ? LIMIT 1),
-								(select personId from Person where uuid = ? ));
-							""")) {
-
-						stmt.setString(1, companyUuid.toString());
-						stmt.setString(2, name);
-						stmt.setString(3, street);
-						stmt.setString(4, contactUuid.toString());
-						stmt.executeUpdate();
-
-						stmt.close();
-					} catch (SQLException e) {
-						LOGGER.error("Error occurred adding company to database", e);
-					}
+		try (Connection conn = connections.open()) {
+
+			int personId = KEYS.resolve(Table.PERSON, contactUuid, conn);
+			if (personId == 0) {
+				if (checkCompany(companyUuid, conn)) {
+					LOGGER.warn("Company already exist under UUID: {}", companyUuid.toString());
 				} else {
 					LOGGER.warn("Contact does not exist under UUID: {} ", contactUuid.toString());
 				}
+				return;
+			}
+
+			int companyId = insertNew(conn, insertCompany, companyUuid.toString(), name, personId, street, city,
+					state, zip);
+			if (companyId == 0) {
+				if (checkCompany(companyUuid, conn)) {
+					LOGGER.warn("Company already exist under UUID: {}", companyUuid.toString());
+					return;
+				}
+
+				// The address is new, and so may be its state and zip code
+				insert(conn, """
+						INSERT INTO State (stateCode)
+						SELECT ? FROM DUAL
+						WHERE NOT EXISTS (SELECT stateId FROM State WHERE stateCode = ?)
+						""", state, state);
+				insert(conn, """
+						INSERT INTO ZipCode (zip)
+						SELECT ? FROM DUAL
+						WHERE NOT EXISTS (SELECT zipId FROM ZipCode WHERE zip = ?)
+						""", zip, zip);
+				insert(conn, """
+						INSERT INTO Address (street, city, stateId, zipId)
+						SELECT ?, ?, s.stateId, z.zipId
+						FROM State s
+						CROSS JOIN ZipCode z
+						WHERE s.stateCode = ?
+						  AND z.zip = ?
+						  AND NOT EXISTS (SELECT addressId FROM Address a
+						      WHERE a.street = ? AND a.city = ? AND a.stateId = s.stateId AND a.zipId = z.zipId)
+						LIMIT 1
+						""", street, city, state, zip, street, city);
+
+				companyId = insertNew(conn, insertCompany, companyUuid.toString(), name, personId, street, city,
+						state, zip);
+			}
+
+			if (companyId == 0) {
+				LOGGER.error("Error occurred adding company {} to database", companyUuid);
 			} else {
-				LOGGER.warn("Company already exist under UUID: {}", companyUuid.toString());
+				KEYS.put(Table.COMPANY, companyUuid, companyId);
 			}
-			ConnectionFactory.closeConnection(conn);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection", e);
+			LOGGER.error("Error occurred adding company to database", e);
 		}
 
 	}
@@ -242,33 +244,18 @@ public class InvoiceData {
 	 * @param retailPrice
 	 */
 	public static void addEquipment(UUID equipmentUuid, String name, String modelNumber, double retailPrice) {
-
-		try (Connection conn = ConnectionFactory.getConnection()) {
-			if (!checkItem(equipmentUuid, conn)) {
-
-				try (PreparedStatement stmt = conn.prepareStatement("""
-						INSERT INTO Item(uuid, itemName,itemType, itemPrice, model)
-						VALUES (?, ?, ?, ?, ?)
-						""")) {
-
-					stmt.setString(1, equipmentUuid.toString());
-					stmt.setString(2, name);
-					stmt.setString(3, "E");
-					stmt.setDouble(4, retailPrice);
-					stmt.setString(5, modelNumber);
-					stmt.executeUpdate();
-
-					stmt.close();
-
-				} catch (SQLException e) {
-					LOGGER.error("addEquipment failed", e);
-				}
-			} else {
+		try (Connection conn = connections.open()) {
+			int itemId = insertNew(conn, """
+					INSERT INTO Item(uuid, itemName,itemType, itemPrice, model)
+					VALUES (?, ?, ?, ?, ?)
+					""", equipmentUuid.toString(), name, "E", retailPrice, modelNumber);
+			if (itemId == 0) {
 				LOGGER.info("Equipment Already exists");
+			} else {
+				KEYS.put(Table.ITEM, equipmentUuid, itemId);
 			}
-			ConnectionFactory.closeConnection(conn);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("addEquipment failed", e);
 		}
 
 	}
@@ -282,32 +269,18 @@ public class InvoiceData {
 	 * @param pricePerUnit
 	 */
 	public static void addMaterial(UUID materialUuid, String name, String unit, double pricePerUnit) {
-		try (Connection conn = ConnectionFactory.getConnection()) {
-			if (!checkItem(materialUuid, conn)) {
-
-				try (PreparedStatement stmt = conn.prepareStatement("""
-						INSERT INTO Item(uuid, itemName,itemPrice, itemType, unit, unitPrice)
-						VALUES (?, ?, ?, ?, ?, ?)
-						""")) {
-
-					stmt.setString(1, materialUuid.toString());
-					stmt.setString(2, name);
-					stmt.setDouble(3, pricePerUnit);
-					stmt.setString(4, "M");
-					stmt.setString(5, unit);
-					stmt.setDouble(6, pricePerUnit);
-					stmt.executeUpdate();
-
-					stmt.close();
-				} catch (SQLException e) {
-					LOGGER.error("addMaterial failed", e);
-				}
-			} else {
+		try (Connection conn = connections.open()) {
+			int itemId = insertNew(conn, """
+					INSERT INTO Item(uuid, itemName,itemPrice, itemType, unit, unitPrice)
+					VALUES (?, ?, ?, ?, ?, ?)
+					""", materialUuid.toString(), name, pricePerUnit, "M", unit, pricePerUnit);
+			if (itemId == 0) {
 				LOGGER.info("Material Already exists");
+			} else {
+				KEYS.put(Table.ITEM, materialUuid, itemId);
 			}
-			ConnectionFactory.closeConnection(conn);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("addMaterial failed", e);
 		}
 
 	}
@@ -321,39 +294,27 @@ public class InvoiceData {
 	 * @param pricePerUnit
 	 */
 	public static void addContract(UUID contractUuid, String name, UUID servicerUuid) {
-		try (Connection conn = ConnectionFactory.getConnection()) {
-
-			if (checkItem(contractUuid, conn)) {
-				LOGGER.info("Contract Already exists");
-				return;
-			}
+		try (Connection conn = connections.open()) {
 
-			if (!checkCompany(servicerUuid, conn)) {
+			int customerId = KEYS.resolve(Table.COMPANY, servicerUuid, conn);
+			if (customerId == 0) {
 				LOGGER.info("Company Does not exists {}", servicerUuid);
 			}
 
 			String insertContract = """
 					INSERT INTO Item(uuid, itemName,itemPrice, itemType, customerId)
-					VALUES (?, ?, ?, ?, (SELECT companyId FROM Company WHERE uuid = ?))
+					VALUES (?, ?, ?, ?, ?)
 					""";
 
-			try (PreparedStatement stmt = conn.prepareStatement(insertContract)) {
-
-				stmt.setString(1, contractUuid.toString());
-				stmt.setString(2, name);
-				stmt.setDouble(3, 0);
-				stmt.setString(4, "C");
-				stmt.setString(5, servicerUuid.toString());
-				stmt.executeUpdate();
-
-				stmt.close();
-			} catch (SQLException e) {
-				LOGGER.error("addContract failed", e);
+			int itemId = insertNew(conn, insertContract, contractUuid.toString(), name, 0.0, "C",
+					customerId == 0 ? null : customerId);
+			if (itemId == 0) {
+				LOGGER.info("Contract Already exists");
+			} else {
+				KEYS.put(Table.ITEM, contractUuid, itemId);
 			}
-
-			ConnectionFactory.closeConnection(conn);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("addContract failed", e);
 		}
 
 	}
@@ -367,47 +328,34 @@ public class InvoiceData {
 	 * @param date
 	 */
 	public static void addInvoice(UUID invoiceUuid, UUID customerUuid, UUID salesPersonUuid, LocalDate date) {
+		try (Connection conn = connections.open()) {
 
-		try (Connection conn = ConnectionFactory.getConnection()) {
-
-			if (checkInvoice(invoiceUuid, conn)) {
-				LOGGER.info("Invoice with UUID {} already exists", invoiceUuid);
-				return;
-			}
-
-			if (!checkCompany(customerUuid, conn) || !checkPerson(salesPersonUuid, conn)) {
-				LOGGER.info("At least one of the given UUIDs does not exist: \n Customer: {} | SalesPerson: {}",
-						customerUuid, salesPersonUuid);
+			int companyId = KEYS.resolve(Table.COMPANY, customerUuid, conn);
+			int salesPersonId = KEYS.resolve(Table.PERSON, salesPersonUuid, conn);
+			if (companyId == 0 || salesPersonId == 0) {
+				if (checkInvoice(invoiceUuid, conn)) {
+					LOGGER.info("Invoice with UUID {} already exists", invoiceUuid);
+				} else {
+					LOGGER.info("At least one of the given UUIDs does not exist: \n Customer: {} | SalesPerson: {}",
+							customerUuid, salesPersonUuid);
+				}
 				return;
 			}
 
 			String insertInvoice = """
 					    INSERT INTO Invoice (uuid, companyId, salesPersonId, invoiceDate)
-					    VALUES (
-					        ?,
-					        (SELECT companyId FROM Company WHERE uuid = ?),
-					        (SELECT personId FROM Person WHERE uuid = ?),
-					        ?
-					    )
+					    VALUES (?, ?, ?, ?)
 					""";
 
-			try (PreparedStatement ps = conn.prepareStatement(insertInvoice)) {
-
-				ps.setString(1, invoiceUuid.toString());
-				ps.setString(2, customerUuid.toString());
-				ps.setString(3, salesPersonUuid.toString());
-				ps.setString(4, date.toString());
-				ps.executeUpdate();
-
-				ps.close();
-
-			} catch (SQLException e) {
-				LOGGER.error("Failed to add Invoice to database", e);
+			int invoiceId = insertNew(conn, insertInvoice, invoiceUuid.toString(), companyId, salesPersonId,
+					date.toString());
+			if (invoiceId == 0) {
+				LOGGER.info("Invoice with UUID {} already exists", invoiceUuid);
+			} else {
+				KEYS.put(Table.INVOICE, invoiceUuid, invoiceId);
 			}
-
-			ConnectionFactory.closeConnection(conn);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Failed to add Invoice to database", e);
 		}
 
 	}
@@ -419,40 +367,24 @@ public class InvoiceData {
 	 * @param itemUuid
 	 */
 	public static void addEquipmentPurchaseToInvoice(UUID invoiceUuid, UUID itemUuid) {
-
-		try (Connection conn = ConnectionFactory.getConnection()) {
-
-			if (!checkInvoice(invoiceUuid, conn) || !checkItem(itemUuid, conn)) {
+		String insertPurchase = """
+				INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId)
+				VALUES (?, ?, ?, ?)
+				""";
+
+		try (Connection conn = connections.open()) {
+			int invoiceId = KEYS.resolve(Table.INVOICE, invoiceUuid, conn);
+			int itemId = KEYS.resolve(Table.ITEM, itemUuid, conn);
+			if (invoiceId == 0 || itemId == 0) {
 				LOGGER.info(
 						"At least one of the UUIDs entered does not exist \n" + " Invoice UUID : {} \nItem UUID: {}",
 						invoiceUuid, itemUuid);
 				return;
 			}
 
-			String insertPurchase = """
-					INSERT INTO InvoiceItem (uuid, invoiceId,typeEquipment,itemId)
-					VALUES (?,
-					(SELECT invoiceId FROM Invoice WHERE uuid = ?), ?,
-					(SELECT itemId FROM Item WHERE uuid = ?))
-					""";
-
-			try (PreparedStatement stmt = conn.prepareStatement(insertPurchase)) {
-
-				stmt.setString(1, UUID.randomUUID().toString());
-				stmt.setString(2, invoiceUuid.toString());
-				stmt.setString(3, "P");
-				stmt.setString(4, itemUuid.toString());
-				stmt.executeUpdate();
-
-				stmt.close();
-
-			} catch (SQLException e) {
-				LOGGER.error("Failed to insert Purchase Invoice item to Database", e);
-			}
-
-			ConnectionFactory.closeConnection(conn);
+			insert(conn, insertPurchase, UUID.randomUUID().toString(), invoiceId, "P", itemId);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Failed to insert Purchase Invoice item to Database", e);
 		}
 
 	}
@@ -466,48 +398,29 @@ public class InvoiceData {
 	 * @param end
 	 */
 	public static void addEquipmentLeaseToInvoice(UUID invoiceUuid, UUID itemUuid, LocalDate start, LocalDate end) {
-		try (Connection conn = ConnectionFactory.getConnection()) {
+		if (start == null || end == null) {
+			LOGGER.warn("Lease dates cannor be null");
+			return;
+		}
+
+		String insertLease = """
+				INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, startDate, endDate)
+				VALUES (?, ?, ?, ?, ?, ?)
+				""";
 
-			if (!checkInvoice(invoiceUuid, conn) || !checkItem(itemUuid, conn)) {
+		try (Connection conn = connections.open()) {
+			int invoiceId = KEYS.resolve(Table.INVOICE, invoiceUuid, conn);
+			int itemId = KEYS.resolve(Table.ITEM, itemUuid, conn);
+			if (invoiceId == 0 || itemId == 0) {
 				LOGGER.warn(
 						"At least one of the UUIDs entered does not exist \n" + " Invoice UUID : {} \nItem UUID: {}",
 						invoiceUuid, itemUuid);
 				return;
 			}
 
-			if (start == null || end == null) {
-				LOGGER.warn("Lease dates cannor be null");
-				return;
-			}
-
-			String insertLease = """
-						INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, startDate, endDate)
-					VALUES (?,
-					    (SELECT invoiceId FROM Invoice WHERE uuid = ?),
-					    ?,
-					    (SELECT itemId FROM Item WHERE uuid = ?),
-					    ?, ?)
-					""";
-
-			try (PreparedStatement stmt = conn.prepareStatement(insertLease)) {
-
-				stmt.setString(1, UUID.randomUUID().toString());
-				stmt.setString(2, invoiceUuid.toString());
-				stmt.setString(3, "L");
-				stmt.setString(4, itemUuid.toString());
-				stmt.setString(5, start.toString());
-				stmt.setString(6, end.toString());
-				stmt.executeUpdate();
-
-				stmt.close();
-
-			} catch (SQLException e) {
-				LOGGER.error("Failed to insert Lease Invoice item to Database", e);
-			}
-
-			ConnectionFactory.closeConnection(conn);
+			insert(conn, insertLease, UUID.randomUUID().toString(), invoiceId, "L", itemId, start.toString(), end.toString());
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Failed to insert Lease Invoice item to Database", e);
 		}
 
 	}
@@ -520,45 +433,29 @@ public class InvoiceData {
 	 * @param numberOfHours
 	 */
 	public static void addEquipmentRentalToInvoice(UUID invoiceUuid, UUID itemUuid, double numberOfHours) {
-		try (Connection conn = ConnectionFactory.getConnection()) {
+		if (numberOfHours == 0) {
+			LOGGER.warn("Number of hours for rental cannot be 0");
+			return;
+		}
 
-			if (!checkInvoice(invoiceUuid, conn) || !checkItem(itemUuid, conn)) {
+		String insertRental = """
+				INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, numberOfHours)
+				VALUES (?, ?, ?, ?, ?)
+				""";
+
+		try (Connection conn = connections.open()) {
+			int invoiceId = KEYS.resolve(Table.INVOICE, invoiceUuid, conn);
+			int itemId = KEYS.resolve(Table.ITEM, itemUuid, conn);
+			if (invoiceId == 0 || itemId == 0) {
 				LOGGER.warn(
 						"At least one of the UUIDs entered does not exist \n" + " Invoice UUID : {} \nItem UUID: {}",
 						invoiceUuid, itemUuid);
 				return;
 			}
 
-			if (numberOfHours == 0) {
-				LOGGER.warn("Number of hours for rental cannot be 0");
-				return;
-			}
-
-			String insertRental = """
-					INSERT INTO InvoiceItem (uuid, invoiceId,typeEquipment,itemId, numberOfHours)
-					VALUES (?,
-					(SELECT invoiceId FROM Invoice WHERE uuid = ?), ?,
-					(SELECT itemId FROM Item WHERE uuid = ?),?)
-					""";
-
-			try (PreparedStatement stmt = conn.prepareStatement(insertRental)) {
-
-				stmt.setString(1, UUID.randomUUID().toString());
-				stmt.setString(2, invoiceUuid.toString());
-				stmt.setString(3, "R");
-				stmt.setString(4, itemUuid.toString());
-				stmt.setDouble(5, numberOfHours);
-				stmt.executeUpdate();
-
-				stmt.close();
-
-			} catch (SQLException e) {
-				LOGGER.error("Failed to insert Rental Invoice item to Database", e);
-			}
-
-			ConnectionFactory.closeConnection(conn);
+			insert(conn, insertRental, UUID.randomUUID().toString(), invoiceId, "R", itemId, numberOfHours);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Failed to insert Rental Invoice item to Database", e);
 		}
 
 	}
@@ -571,44 +468,28 @@ public class InvoiceData {
 	 * @param numberOfUnits
 	 */
 	public static void addMaterialToInvoice(UUID invoiceUuid, UUID itemUuid, int numberOfUnits) {
-		try (Connection conn = ConnectionFactory.getConnection()) {
+		if (numberOfUnits == 0) {
+			LOGGER.warn("Quantity cannot be 0");
+		}
+
+		String insertMaterial = """
+				INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, quantity)
+				VALUES (?, ?, ?, ?, ?)
+				""";
 
-			if (!checkInvoice(invoiceUuid, conn) || !checkItem(itemUuid, conn)) {
-				LOGGER.info("At least one of the UUIDs entered does not exist \n Invoice UUID : {} \nItem UUID: {}",
+		try (Connection conn = connections.open()) {
+			int invoiceId = KEYS.resolve(Table.INVOICE, invoiceUuid, conn);
+			int itemId = KEYS.resolve(Table.ITEM, itemUuid, conn);
+			if (invoiceId == 0 || itemId == 0) {
+				LOGGER.info(
+						"At least one of the UUIDs entered does not exist \n" + " Invoice UUID : {} \nItem UUID: {}",
 						invoiceUuid, itemUuid);
 				return;
 			}
 
-			if (numberOfUnits == 0) {
-				LOGGER.warn("Quantity cannot be 0");
-			}
-
-			String insertMaterial = """
-					INSERT INTO InvoiceItem (uuid, invoiceId,typeEquipment,itemId, quantity)
-					VALUES (?,
-					(SELECT invoiceId FROM Invoice WHERE uuid = ?), ?,
-					(SELECT itemId FROM Item WHERE uuid = ?), ?)
-
-					""";
-
-			try (PreparedStatement stmt = conn.prepareStatement(insertMaterial)) {
-
-				stmt.setString(1, UUID.randomUUID().toString());
-				stmt.setString(2, invoiceUuid.toString());
-				stmt.setString(3, "M");
-				stmt.setString(4, itemUuid.toString());
-				stmt.setInt(5, numberOfUnits);
-				stmt.executeUpdate();
-
-				stmt.close();
-
-			} catch (SQLException e) {
-				LOGGER.error("Failed to insert Material Invoice item to Database", e);
-			}
-
-			ConnectionFactory.closeConnection(conn);
+			insert(conn, insertMaterial, UUID.randomUUID().toString(), invoiceId, "M", itemId, numberOfUnits);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Failed to insert Material Invoice item to Database", e);
 		}
 
 	}
@@ -621,93 +502,154 @@ public class InvoiceData {
 	 * @param amount
 	 */
 	public static void addContractToInvoice(UUID invoiceUuid, UUID itemUuid, double amount) {
-		try (Connection conn = ConnectionFactory.getConnection()) {
-
-			if (!checkInvoice(invoiceUuid, conn) || !checkItem(itemUuid, conn)) {
+		String insertContract = """
+				INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, price)
+				VALUES (?, ?, ?, ?, ?)
+				""";
+
+		try (Connection conn = connections.open()) {
+			int invoiceId = KEYS.resolve(Table.INVOICE, invoiceUuid, conn);
+			int itemId = KEYS.resolve(Table.ITEM, itemUuid, conn);
+			if (invoiceId == 0 || itemId == 0) {
 				LOGGER.info(
 						"At least one of the UUIDs entered does not exist \n" + " Invoice UUID : {} \nItem UUID: {}",
 						invoiceUuid, itemUuid);
 				return;
 			}
 
-			String insertContract = """
-					INSERT INTO InvoiceItem (uuid, invoiceId,typeEquipment,itemId, price)
-					VALUES (?,
-					(SELECT invoiceId FROM Invoice WHERE uuid = ?), ?,
-					(SELECT itemId FROM Item WHERE uuid = ?),
-					?)
-					""";
-
-			try (PreparedStatement stmt = conn.prepareStatement(insertContract)) {
+			insert(conn, insertContract, UUID.randomUUID().toString(), invoiceId, "C", itemId, amount);
+		} catch (SQLException e) {
+			LOGGER.error("Failed to insert Contract Invoice item to Database", e);
+		}
 
-				stmt.setString(1, UUID.randomUUID().toString());
-				stmt.setString(2, invoiceUuid.toString());
-				stmt.setString(3, "C");
-				stmt.setString(4, itemUuid.toString());
-				stmt.setDouble(5, amount);
-				stmt.executeUpdate();
+	}
 
-				stmt.close();
+	/**
+	 * Adds an invoice together with its lines in one transaction on one
+	 * connection. The header and every line are validated first; if any of
+	 * them is invalid, or the invoice already exists, nothing is written.
+	 *
+	 * @param invoiceUuid
+	 * @param customerUuid
+	 * @param salesPersonUuid
+	 * @param date
+	 * @param lines           The invoice's lines, made with the
+	 *                        {@link InvoiceLine} factory methods
+	 * @return Whether the invoice was written and the outcome of each line
+	 */
+	public static InvoiceWriteResult addInvoiceWithItems(UUID invoiceUuid, UUID customerUuid, UUID salesPersonUuid,
+			LocalDate date, List<InvoiceLine> lines) {
+		InvoiceWriter writer = new InvoiceWriter(KEYS);
+		try (Connection conn = connections.open()) {
+			InvoiceWriteResult result = writer.write(conn, invoiceUuid, customerUuid, salesPersonUuid, date, lines);
+			if (!result.isWritten()) {
+				LOGGER.warn("Invoice {} not written: {}", invoiceUuid, result);
+			}
+			return result;
+		} catch (SQLException e) {
+			LOGGER.error("Failed to add Invoice {} with its items to database", invoiceUuid, e);
+			return InvoiceWriteResult.failed(lines, "Write failed: " + e.getMessage());
+		}
+	}
 
-			} catch (SQLException e) {
-				LOGGER.error("Failed to insert Contract Invoice item to Database", e);
-			}
+	/**
+	 * Imports persons (with their emails), companies (with their addresses),
+	 * catalog items, invoices and invoice items in batches of
+	 * {@link BulkImporter#DEFAULT_BATCH_SIZE} rows.
+	 *
+	 * @param persons
+	 * @param companies
+	 * @param items
+	 * @param invoices
+	 * @param invoiceItems
+	 * @return What was imported and which rows failed
+	 * @see #importData(Collection, Collection, Collection, Collection,
+	 *      Collection, int)
+	 */
+	public static ImportResult importData(Collection<Person> persons, Collection<Company> companies,
+			Collection<Item> items, Collection<Invoice> invoices, Collection<InvoiceItem> invoiceItems) {
+		return importData(persons, companies, items, invoices, invoiceItems, BulkImporter.DEFAULT_BATCH_SIZE);
+	}
 
-			ConnectionFactory.closeConnection(conn);
+	/**
+	 * Imports persons (with their emails), companies (with their addresses),
+	 * catalog items, invoices and invoice items in batches, one transaction
+	 * per batch. References between the entities are resolved in memory. Rows
+	 * that already exist are skipped, and rows that cannot be imported are
+	 * reported in the result without stopping the rest of the import.
+	 *
+	 * @param persons
+	 * @param companies
+	 * @param items
+	 * @param invoices
+	 * @param invoiceItems
+	 * @param batchSize    Rows sent and committed per batch
+	 * @return What was imported and which rows failed
+	 */
+	public static ImportResult importData(Collection<Person> persons, Collection<Company> companies,
+			Collection<Item> items, Collection<Invoice> invoices, Collection<InvoiceItem> invoiceItems,
+			int batchSize) {
+		BulkImporter importer = new BulkImporter(batchSize);
+		try (Connection conn = connections.open()) {
+			return importer.importAll(conn, persons, companies, items, invoices, invoiceItems);
 		} catch (SQLException e) {
-			LOGGER.error("Bad Connection");
+			LOGGER.error("Bulk import failed", e);
+			return importer.getResult();
 		}
-
 	}
 
 	/**
-	 * Checks to see if a person exists in the database
-	 * 
-	 * @param personUuid
+	 * Runs a single insert statement and returns the generated key of the new
+	 * row. Rows that may already exist are written with
+	 * {@link #insertNew(Connection, String, Object...)}, and a company's
+	 * address is joined in with {@code INSERT ... SELECT}, which inserts
+	 * nothing when the address is missing; so a write takes one round trip and
+	 * the {@code check*} methods only run to explain why nothing was inserted.
+	 *
 	 * @param conn
-	 * @return returns True if a person exist
+	 * @param sql
+	 * @param params Parameter values, in order
+	 * @return The generated key of the inserted row, or 0 if no row was
+	 *         inserted
+	 * @throws SQLException
 	 */
-	private static boolean checkPerson(UUID personUuid, Connection conn) {
-		try (PreparedStatement stmt = conn.prepareStatement("SELECT uuid FROM Person WHERE uuid = ?")) {
-			stmt.setString(1, personUuid.toString());
-			try (ResultSet rs = stmt.executeQuery()) {
-				return rs.next();
+	private static int insert(Connection conn, String sql, Object... params) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			if (ps.executeUpdate() == 0) {
+				return 0;
+			}
+			try (ResultSet keys = ps.getGeneratedKeys()) {
+				if (!keys.next()) {
+					throw new SQLException("No key generated for: " + sql);
+				}
+				return keys.getInt(1);
 			}
-		} catch (SQLException e) {
-			LOGGER.warn("Error checking if person exists", e);
-			return false;
 		}
 	}
 
 	/**
-	 * Validates whether and address exist in database
-	 * 
-	 * @param street
-	 * @param city
+	 * Runs a single insert statement like
+	 * {@link #insert(Connection, String, Object...)}, treating a duplicate key
+	 * as the row already existing; see {@link SqlErrors#isDuplicateKey}.
+	 *
 	 * @param conn
-	 * @return True if address exist
+	 * @param sql
+	 * @param params Parameter values, in order
+	 * @return The generated key of the inserted row, or 0 if no row was
+	 *         inserted because it already exists
+	 * @throws SQLException
 	 */
-	private static boolean checkAddress(String street, String city, String state, String zip, Connection conn) {
-		try (PreparedStatement stmt = conn.prepareStatement("""
-				SELECT addressId
-				FROM Address a
-				JOIN State s ON a.stateId = s.stateId
-				JOIN ZipCode z ON z.zipId = a.zipId
-				WHERE a.street = ?
-				  AND a.city = ?
-				  AND s.stateCode = ?
-				  AND z.zip = ?
-					LIMIT 1""")) {
-			stmt.setString(1, street);
-			stmt.setString(2, city);
-			stmt.setString(3, state);
-			stmt.setString(4, zip);
-			try (ResultSet rs = stmt.executeQuery()) {
-				return rs.next();
-			}
+	private static int insertNew(Connection conn, String sql, Object... params) throws SQLException {
+		try {
+			return insert(conn, sql, params);
 		} catch (SQLException e) {
-			LOGGER.warn("Error checking if person exists", e);
-			return false;
+			if (SqlErrors.isDuplicateKey(e)) {
+				return 0;
+			}
+			throw e;
 		}
 	}
 
@@ -730,28 +672,6 @@ public class InvoiceData {
 		}
 	}
 
-	/**
-	 * Validates whether an Item exists in database
-	 * 
-	 * @param itemUuid
-	 * @param conn
-	 * @return True if item exists
-	 */
-	private static boolean checkItem(UUID itemUuid, Connection conn) {
-		try (PreparedStatement stmt = conn.prepareStatement("""
-				SELECT uuid FROM Item WHERE uuid = ?
-				""")) {
-			stmt.setString(1, itemUuid.toString());
-
-			try (ResultSet rs = stmt.executeQuery()) {
-				return rs.next();
-			}
-		} catch (SQLException e) {
-			LOGGER.warn("Error checking equipment", e);
-		}
-		return false;
-	}
-
 	/**
 	 * Validates whether an Invoice exists in Database
 	 * 
@@ -774,34 +694,4 @@ public class InvoiceData {
 		return false;
 	}
 
-	private static boolean checkState(String stateCode, Connection conn) {
-		try (PreparedStatement stmt = conn.prepareStatement("""
-				SELECT stateId FROM State WHERE stateCode = ? LIMIT 1
-				""")) {
-			stmt.setString(1, stateCode);
-
-			try (ResultSet rs = stmt.executeQuery()) {
-				return rs.next();
-			}
-		} catch (SQLException e) {
-			LOGGER.warn("Error checking stateId", e);
-		}
-		return false;
-	}
-
-	private static boolean checkZip(String zipCode, Connection conn) {
-		try (PreparedStatement stmt = conn.prepareStatement("""
-				SELECT zipId FROM ZipCode WHERE zip = ? LIMIT 1
-				""")) {
-			stmt.setString(1, zipCode);
-
-			try (ResultSet rs = stmt.executeQuery()) {
-				return rs.next();
-			}
-		} catch (SQLException e) {
-			LOGGER.warn("Error checking zipCode", e);
-		}
-		return false;
-	}
-
 }
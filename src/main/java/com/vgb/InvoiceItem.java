@@ -11,10 +11,19 @@ public class InvoiceItem {
 	private Item item;
 	
 	
+	/**
+	 * Constructs a line item and prices it once, so reports read the stored
+	 * subtotal, taxes and total instead of recomputing them.
+	 * @param invoice invoice the line belongs to
+	 * @param item item on the line
+	 */
 	public InvoiceItem(Invoice invoice, Item item) {
 		super();
 		this.invoice = invoice;
 		this.item = item;
+		if (item != null) {
+			item.getLineTotals();
+		}
 	}
 
 
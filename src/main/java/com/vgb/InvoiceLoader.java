@@ -2,14 +2,13 @@ package com.vgb;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.UUID;
 
 import com.vgb.factory.CompanyLoader;
+import com.vgb.factory.CsvReader;
 import com.vgb.factory.PersonLoader;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.LocalDate;
 
 /**
@@ -19,76 +18,94 @@ public class InvoiceLoader {
 
 	public static final String FILE_PATH = "data/Invoices.csv";
 
+	/**
+	 * Loads the invoices, reading Persons.csv and Companies.csv once each for
+	 * the salespeople and customers.
+	 *
+	 * @return Invoices by UUID
+	 */
 	public static Map<UUID, Invoice> loadInvoice() {
-
 		Map<UUID, Person> person = PersonLoader.loadPerson();
-		Map<UUID, Company> company = CompanyLoader.loadCompany();
+		return loadInvoice(person, CompanyLoader.loadCompany(person));
+	}
+
+	/**
+	 * Loads the invoices, taking salespeople and customers from maps that are
+	 * already loaded.
+	 *
+	 * @param person  Persons by UUID
+	 * @param company Companies by UUID
+	 * @return Invoices by UUID
+	 */
+	public static Map<UUID, Invoice> loadInvoice(Map<UUID, Person> person, Map<UUID, Company> company) {
 
 		Map<UUID, Invoice> invoices = new HashMap<>();
-		String line = null;
-		try (Scanner s = new Scanner(new File(FILE_PATH))) {
-			s.nextLine();
-
-			while (s.hasNext()) {
-
-				line = s.nextLine();
-
-				if (!line.trim().isEmpty()) {
-					Invoice inv = null;
-					String parts[] = line.split(",");
-					UUID invoiceuuid = null;
-					UUID salesPersonuid;
-					UUID customerUuid;
-
-					String invoiceidstr = parts[0];
-					String customeridstr = parts[1];
-					String salespersonidstr = parts[2];
-
-					LocalDate invoiceDate = LocalDate.parse(parts[3]);
-
-					Person salesPerson = null;
-					Company customer = null;
-
-					try {
-						invoiceuuid = UUID.fromString(invoiceidstr);
-					} catch (IllegalArgumentException e) {
-						System.err.print("Something went wrong uuid :(" + invoiceidstr);
-						e.printStackTrace();
-					}
-
-					try {
-						customerUuid = UUID.fromString(customeridstr);
-						customer = company.get(customerUuid);
-						if (customer == null) {
-							System.err.println("Missing customer for UUID: " + customerUuid);
-						}
-					} catch (IllegalArgumentException e) {
-						System.err.println("Customer uuid: " + customeridstr);
-						continue;
-					}
-
-					try {
-						salesPersonuid = UUID.fromString(salespersonidstr);
-						salesPerson = person.get(salesPersonuid);
-						if (salesPerson == null) {
-							System.err.println("❗ Missing salesperson for UUID: " + salesPersonuid);
-							continue;
-						}
-					} catch (IllegalArgumentException e) {
-						System.err.println("SalesPerson uuid: " + salespersonidstr);
-					}
-
-					inv = new Invoice(invoiceuuid, customer, salesPerson, invoiceDate);
-					invoices.put(invoiceuuid, inv);
-				}
+		try (CsvReader csv = CsvReader.open(FILE_PATH)) {
+			csv.next();
 
+			while (csv.next()) {
+				addInvoice(csv, person, company, invoices);
 			}
-			s.close();
 
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return invoices;
 	}
 
+	/**
+	 * Builds an invoice from the reader's current record and adds it to the
+	 * map. Records with an unknown salesperson or an unreadable customer are
+	 * skipped.
+	 *
+	 * @param csv      Reader positioned on an invoice record
+	 * @param person   Persons by UUID
+	 * @param company  Companies by UUID
+	 * @param invoices Invoices by UUID, added to
+	 */
+	public static void addInvoice(CsvReader csv, Map<UUID, Person> person, Map<UUID, Company> company,
+			Map<UUID, Invoice> invoices) {
+		Invoice inv = null;
+		UUID invoiceuuid = null;
+		UUID salesPersonuid;
+		UUID customerUuid;
+
+		LocalDate invoiceDate = csv.getDate(3);
+
+		Person salesPerson = null;
+		Company customer = null;
+
+		try {
+			invoiceuuid = csv.getUuid(0);
+		} catch (IllegalArgumentException e) {
+			System.err.print("Something went wrong uuid :(" + csv.getString(0));
+			e.printStackTrace();
+		}
+
+		try {
+			customerUuid = csv.getUuid(1);
+			customer = company.get(customerUuid);
+			if (customer == null) {
+				System.err.println("Missing customer for UUID: " + customerUuid);
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println("Customer uuid: " + csv.getString(1));
+			return;
+		}
+
+		try {
+			salesPersonuid = csv.getUuid(2);
+			salesPerson = person.get(salesPersonuid);
+			if (salesPerson == null) {
+				System.err.println("❗ Missing salesperson for UUID: " + salesPersonuid);
+				return;
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println("SalesPerson uuid: " + csv.getString(2));
+		}
+
+		inv = new Invoice(invoiceuuid, customer, salesPerson, invoiceDate);
+		invoices.put(invoiceuuid, inv);
+	}
+
 }
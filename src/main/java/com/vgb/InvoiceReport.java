@@ -1,5 +1,12 @@
 package com.vgb;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -8,126 +15,311 @@ import java.util.Map;
  * Contains Printing functions for the three reports
  */
 public class InvoiceReport {
+	/**
+	 * Size of the character buffer used when writing a report to an
+	 * OutputStream.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final RowLayout INVOICE_ROW = RowLayout.compile("%-40s %-30s $%10.2f\n");
+	private static final RowLayout COMPANY_ROW = RowLayout.compile("%-40s %-20d $%10.2f\n");
+	private static final RowLayout PAGE_TITLE = RowLayout.compile("| %-71s |\n");
+	private static final String INVOICE_HEADER = RowLayout.compile("%-40s %-30s %s\n").row().text("Invoice")
+			.text("Customer").text("Total").toString();
+	private static final String COMPANY_HEADER = RowLayout.compile("%-40s %-20s %s\n").row().text("Customer")
+			.text("Number of Invoices").text("Total").toString();
+	private static final String ITEM_HEADER = RowLayout.compile("\n %70s %s %s %s \n").row().text(" ")
+			.text("SUBTOTAL").text("TAX").text("TOTAL").toString();
+
+	/**
+	 * A report section written to an Appendable.
+	 */
+	@FunctionalInterface
+	private interface Section {
+		void write(Appendable out) throws IOException;
+	}
+
+	/**
+	 * Renders a section into a String, for the String returning methods.
+	 */
+	private static String render(Section section) {
+		StringBuilder report = new StringBuilder();
+		try {
+			section.write(report);
+		} catch (IOException e) {
+			// A StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Writes a section to an OutputStream as UTF-8 through a bounded buffer.
+	 * The stream is flushed but left open.
+	 */
+	private static void write(Section section, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+		section.write(writer);
+		writer.flush();
+	}
+
 	/**
 	 * Prints Invoice Summary report ordered by total (highest to lowest)
 	 */
 	public static String printInvoiceSummaryByTotal() {
-		StringBuilder report = new StringBuilder();
+		return printInvoiceSummaryByTotal(ReportSession.load());
+	}
 
-		report.append("+-------------------------------------------------------------------------+\n");
-		report.append("| Invoices by Total                                                       |\n");
-		report.append("+-------------------------------------------------------------------------+\n");
-		report.append(String.format("%-40s %-30s %s\n", "Invoice", "Customer", "Total"));
+	/**
+	 * Prints Invoice Summary report ordered by total (highest to lowest)
+	 * 
+	 * @param session The loaded report data
+	 */
+	public static String printInvoiceSummaryByTotal(ReportSession session) {
+		return render(out -> writeInvoiceSummaryByTotal(session, out));
+	}
 
-		Map<Invoice, List<InvoiceItem>> invoiceItems = ReportUtils.populateInvoice();
+	/**
+	 * Writes Invoice Summary report ordered by total (highest to lowest)
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Where the report is written, row by row
+	 * @throws IOException If writing fails
+	 */
+	public static void writeInvoiceSummaryByTotal(ReportSession session, Appendable out) throws IOException {
+		out.append("+-------------------------------------------------------------------------+\n");
+		out.append("| Invoices by Total                                                       |\n");
+		out.append("+-------------------------------------------------------------------------+\n");
+		out.append(INVOICE_HEADER);
+
+		SortedListBST<Invoice> sortedInvoices = ReportUtils.getInvoicesByTotal(session);
+		appendInvoicesByTotal(out, sortedInvoices, session.getInvoiceItems());
+	}
 
-		SortedListBST<Invoice> sortedInvoices = ReportUtils.getInvoicesByTotal();
+	/**
+	 * Prints one page of the Invoice Summary report ordered by total (highest to
+	 * lowest). The sorted invoices are kept in the session, so only the first
+	 * page sorts them.
+	 * 
+	 * @param session  The loaded report data
+	 * @param page     Page number, starting at 1
+	 * @param pageSize Number of invoices per page
+	 */
+	public static String printInvoiceSummaryByTotal(ReportSession session, int page, int pageSize) {
+		if (page < 1 || pageSize < 1) {
+			throw new IllegalArgumentException("Page and page size must be positive");
+		}
 
-		for (Invoice invoice : sortedInvoices) {
+		return render(out -> {
+			SortedListBST<Invoice> sortedInvoices = session.getInvoicesByTotal();
+			int from = (int) Math.min((long) (page - 1) * pageSize, sortedInvoices.size());
+			int to = (int) Math.min((long) from + pageSize, sortedInvoices.size());
+			int pages = (sortedInvoices.size() + pageSize - 1) / pageSize;
+
+			out.append("+-------------------------------------------------------------------------+\n");
+			PAGE_TITLE.row().text("Invoices by Total (page " + page + " of " + pages + ")").appendTo(out);
+			out.append("+-------------------------------------------------------------------------+\n");
+			out.append(INVOICE_HEADER);
+
+			appendInvoicesByTotal(out, sortedInvoices.subList(from, to), session.getInvoiceItems());
+		});
+	}
+
+	private static void appendInvoicesByTotal(Appendable out, Iterable<Invoice> invoices,
+			Map<Invoice, List<InvoiceItem>> invoiceItems) throws IOException {
+		for (Invoice invoice : invoices) {
 			List<InvoiceItem> items = invoiceItems.get(invoice);
 			if (items == null)
 				items = new ArrayList<>();
 			double total = invoice.grandTotal(items);
 
-			report.append(String.format("%-40s %-30s $%10.2f\n", invoice.getInvoiceUUID(),
-					invoice.getCustomer().getName(), total));
+			INVOICE_ROW.row().uuid(invoice.getInvoiceUUID()).text(invoice.getCustomer().getName()).money(total)
+					.appendTo(out);
 		}
-
-		return report.toString();
 	}
 
 	/**
 	 * Prints Invoice Summary report ordered by customer name
 	 */
 	public static String printInvoiceSummaryByCustomer() {
-		StringBuilder report = new StringBuilder();
+		return printInvoiceSummaryByCustomer(ReportSession.load());
+	}
+
+	/**
+	 * Prints Invoice Summary report ordered by customer name
+	 * 
+	 * @param session The loaded report data
+	 */
+	public static String printInvoiceSummaryByCustomer(ReportSession session) {
+		return render(out -> writeInvoiceSummaryByCustomer(session, out));
+	}
 
-		report.append("+-------------------------------------------------------------------------+\n");
-		report.append("| Invoices by Customer                                                    |\n");
-		report.append("+-------------------------------------------------------------------------+\n");
-		report.append(String.format("%-40s %-30s %s\n", "Invoice", "Customer", "Total"));
+	/**
+	 * Writes Invoice Summary report ordered by customer name
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Where the report is written, row by row
+	 * @throws IOException If writing fails
+	 */
+	public static void writeInvoiceSummaryByCustomer(ReportSession session, Appendable out) throws IOException {
+		out.append("+-------------------------------------------------------------------------+\n");
+		out.append("| Invoices by Customer                                                    |\n");
+		out.append("+-------------------------------------------------------------------------+\n");
+		out.append(INVOICE_HEADER);
 
-		Map<Invoice, List<InvoiceItem>> invoiceItems = ReportUtils.populateInvoice();
+		Map<Invoice, List<InvoiceItem>> invoiceItems = session.getInvoiceItems();
 
-		SortedListBST<Invoice> sortedInvoices = ReportUtils.getInvoicesByCustomerName();
+		SortedListBST<Invoice> sortedInvoices = ReportUtils.getInvoicesByCustomerName(session);
 
 		for (Invoice invoice : sortedInvoices) {
 			List<InvoiceItem> items = invoiceItems.get(invoice);
 			double total = invoice.grandTotal(items);
 
-			report.append(String.format("%-40s %-30s $%10.2f\n", invoice.getInvoiceUUID(),
-					invoice.getCustomer().getName(), total));
+			INVOICE_ROW.row().uuid(invoice.getInvoiceUUID()).text(invoice.getCustomer().getName()).money(total)
+					.appendTo(out);
 		}
-
-		return report.toString();
 	}
 
 	/**
 	 * Prints company summary report ordered by total invoice amount
 	 */
 	public static String printCompanySummary() {
-		StringBuilder report = new StringBuilder();
+		return printCompanySummary(ReportSession.load());
+	}
 
-		report.append("+-------------------------------------------------------------------------+\n");
-		report.append("| Customer Invoice Totals                                                 |\n");
-		report.append("+-------------------------------------------------------------------------+\n");
-		report.append(String.format("%-40s %-20s %s\n", "Customer", "Number of Invoices", "Total"));
+	/**
+	 * Prints company summary report ordered by total invoice amount
+	 * 
+	 * @param session The loaded report data
+	 */
+	public static String printCompanySummary(ReportSession session) {
+		return render(out -> writeCompanySummary(session, out));
+	}
+
+	/**
+	 * Writes company summary report ordered by total invoice amount
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Where the report is written, row by row
+	 * @throws IOException If writing fails
+	 */
+	public static void writeCompanySummary(ReportSession session, Appendable out) throws IOException {
+		out.append("+-------------------------------------------------------------------------+\n");
+		out.append("| Customer Invoice Totals                                                 |\n");
+		out.append("+-------------------------------------------------------------------------+\n");
+		out.append(COMPANY_HEADER);
 
-		Map<Company, Double> companyTotals = ReportUtils.calculateCompanyTotals();
-		Map<Company, Integer> companyInvoiceCounts = ReportUtils.calculateCompanyInvoiceCount();
+		Map<Company, Double> companyTotals = ReportUtils.calculateCompanyTotals(session);
+		Map<Company, Integer> companyInvoiceCounts = ReportUtils.calculateCompanyInvoiceCount(session);
 
-		SortedListBST<Company> sortedCompanies = ReportUtils.getCompaniesByTotal();
+		SortedListBST<Company> sortedCompanies = ReportUtils.getCompaniesByTotal(companyTotals);
 
 		for (Company company : sortedCompanies) {
 			double totalAmount = companyTotals.getOrDefault(company, 0.0);
 			int invoiceCount = companyInvoiceCounts.getOrDefault(company, 0);
 
-			report.append(String.format("%-40s %-20d $%10.2f\n", company.getName(), invoiceCount, totalAmount));
+			COMPANY_ROW.row().text(company.getName()).integer(invoiceCount).money(totalAmount).appendTo(out);
 		}
+	}
 
-		return report.toString();
+	/**
+	 * Prints all three required summary reports from a single load of the data
+	 */
+	public static String printAllSummaryReports() {
+		return printAllSummaryReports(ReportSession.load());
 	}
 
 	/**
 	 * Prints all three required summary reports
+	 * 
+	 * @param session The loaded report data
 	 */
-	public static String printAllSummaryReports() {
-		StringBuilder report = new StringBuilder();
+	public static String printAllSummaryReports(ReportSession session) {
+		return render(out -> writeAllSummaryReports(session, out));
+	}
 
-		report.append(printInvoiceSummaryByTotal());
-		report.append("\n\n");
-		report.append(printInvoiceSummaryByCustomer());
-		report.append("\n\n");
-		report.append(printCompanySummary());
+	/**
+	 * Writes all three required summary reports
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Where the reports are written, row by row
+	 * @throws IOException If writing fails
+	 */
+	public static void writeAllSummaryReports(ReportSession session, Appendable out) throws IOException {
+		writeInvoiceSummaryByTotal(session, out);
+		out.append("\n\n");
+		writeInvoiceSummaryByCustomer(session, out);
+		out.append("\n\n");
+		writeCompanySummary(session, out);
+	}
 
-		return report.toString();
+	/**
+	 * Writes all three required summary reports to a stream as UTF-8. Memory
+	 * use is bounded by the buffer, not by the size of the report. The stream
+	 * is flushed but not closed.
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Stream the reports are written to
+	 * @throws IOException If writing fails
+	 */
+	public static void streamAllSummaryReports(ReportSession session, OutputStream out) throws IOException {
+		write(o -> writeAllSummaryReports(session, o), out);
 	}
 
 	public static String printInvoice() {
+		return printInvoice(ReportSession.load());
+	}
 
-		StringBuilder report = new StringBuilder();
+	/**
+	 * Prints every invoice with its items
+	 * 
+	 * @param session The loaded report data
+	 */
+	public static String printInvoice(ReportSession session) {
+		return render(out -> writeInvoice(session, out));
+	}
 
-		Map<Invoice, List<InvoiceItem>> invoicesReport = ReportUtils.populateInvoice();
+	/**
+	 * Writes every invoice with its items
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Where the report is written, invoice by invoice
+	 * @throws IOException If writing fails
+	 */
+	public static void writeInvoice(ReportSession session, Appendable out) throws IOException {
+		Map<Invoice, List<InvoiceItem>> invoicesReport = session.getInvoiceItems();
 
 		for (Map.Entry<Invoice, List<InvoiceItem>> pair : invoicesReport.entrySet()) {
 			List<InvoiceItem> items = pair.getValue();
 
-			report.append(pair.getKey().toString());
-			report.append(String.format("Items(%s)", pair.getValue().size()));
-			report.append("\n----------------------------------------------------------------------\n");
+			out.append(pair.getKey().toString());
+			out.append("Items(").append(Integer.toString(pair.getValue().size())).append(")");
+			out.append("\n----------------------------------------------------------------------\n");
 
-			report.append(String.format("\n %70s %s %s %s \n", " ", "SUBTOTAL", "TAX", "TOTAL"));
+			out.append(ITEM_HEADER);
 
-			report.append(pair.getKey().itemList(items));
-			report.append("\n+=====================================================================+ \n");
+			pair.getKey().appendItemList(items, out);
+			out.append("\n+=====================================================================+ \n");
 		}
-		return report.toString();
+	}
 
+	/**
+	 * Writes every invoice with its items to a stream as UTF-8. Memory use is
+	 * bounded by the buffer, not by the number of invoices. The stream is
+	 * flushed but not closed.
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Stream the report is written to
+	 * @throws IOException If writing fails
+	 */
+	public static void streamInvoice(ReportSession session, OutputStream out) throws IOException {
+		write(o -> writeInvoice(session, o), out);
 	}
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 
-		System.out.println(InvoiceReport.printAllSummaryReports());
+		streamAllSummaryReports(ReportSession.load(), System.out);
+		System.out.println();
 
 	}
 
@@ -0,0 +1,101 @@
+package com.vgb;
+
+import java.util.List;
+
+/**
+ * Subtotal, taxes, total and line counts of an invoice, gathered in a single
+ * pass over its items.
+ */
+public final class InvoiceTotals {
+
+	/**
+	 * Totals of an invoice without items.
+	 */
+	public static final InvoiceTotals EMPTY = new InvoiceTotals(0, 0, 0, new int[LineType.values().length]);
+
+	private final long subTotalCents;
+	private final long taxesCents;
+	private final long totalCents;
+	private final int[] lineCounts;
+
+	private InvoiceTotals(long subTotalCents, long taxesCents, long totalCents, int[] lineCounts) {
+		this.subTotalCents = subTotalCents;
+		this.taxesCents = taxesCents;
+		this.totalCents = totalCents;
+		this.lineCounts = lineCounts;
+	}
+
+	/**
+	 * Sums the given invoice items. Null entries are skipped.
+	 * 
+	 * @param invoiceItems items of one invoice, may be null
+	 * @return the totals of the items
+	 */
+	public static InvoiceTotals of(List<InvoiceItem> invoiceItems) {
+		if (invoiceItems == null || invoiceItems.isEmpty()) {
+			return EMPTY;
+		}
+
+		long subTotal = 0;
+		long taxes = 0;
+		long total = 0;
+		int[] lineCounts = new int[LineType.values().length];
+		for (InvoiceItem invoiceItem : invoiceItems) {
+			if (invoiceItem == null) {
+				continue;
+			}
+			Item item = invoiceItem.getItem();
+			LineTotals line = item.getLineTotals();
+			subTotal += line.getSubTotalCents();
+			taxes += line.getTaxesCents();
+			total += line.getTotalCents();
+			lineCounts[item.getLineType().ordinal()]++;
+		}
+
+		return new InvoiceTotals(subTotal, taxes, total, lineCounts);
+	}
+
+	public long getSubTotalCents() {
+		return subTotalCents;
+	}
+
+	public long getTaxesCents() {
+		return taxesCents;
+	}
+
+	public long getTotalCents() {
+		return totalCents;
+	}
+
+	public double getSubTotal() {
+		return Money.toDollars(subTotalCents);
+	}
+
+	public double getTaxes() {
+		return Money.toDollars(taxesCents);
+	}
+
+	public double getTotal() {
+		return Money.toDollars(totalCents);
+	}
+
+	/**
+	 * @param type kind of line
+	 * @return number of lines of that kind
+	 */
+	public int getLineCount(LineType type) {
+		return lineCounts[type.ordinal()];
+	}
+
+	/**
+	 * @return number of lines on the invoice
+	 */
+	public int getLineCount() {
+		int count = 0;
+		for (int lineCount : lineCounts) {
+			count += lineCount;
+		}
+		return count;
+	}
+
+}
@@ -1,7 +1,5 @@
 package com.vgb;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.UUID;
 /**
  * Represents an abstract item in the system.
@@ -13,6 +11,7 @@ public abstract class Item implements Expenses{
 	private String name;
 	private double price;
 	private Company customer;
+	private transient LineTotals lineTotals;
 	
 	/**
 	 * Constructs an Item based on the given attributes
@@ -55,11 +54,71 @@ public abstract class Item implements Expenses{
 	 * @return rounded price
 	 */
 	protected double roundToCent(double value) {
-        return BigDecimal.valueOf(value)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
+        return Money.round(value);
     }
 
+	/**
+	 * Prices the item. Called once per item; the result is kept and served by
+	 * the subtotal, tax and total getters.
+	 * @return the computed subtotal, taxes and total
+	 */
+	protected abstract LineTotals calculateTotals();
+
+	/**
+	 * @return the kind of invoice line this item is
+	 */
+	public abstract LineType getLineType();
+
+	/**
+	 * Returns the priced amounts of this item, computing them on first use.
+	 * Items are immutable, so the result never goes stale.
+	 * @return subtotal, taxes and total
+	 */
+	public LineTotals getLineTotals() {
+		LineTotals totals = lineTotals;
+		if (totals == null) {
+			totals = calculateTotals();
+			lineTotals = totals;
+		}
+		return totals;
+	}
+
+	@Override
+	public double getSubTotal() {
+		return getLineTotals().getSubTotal();
+	}
+
+	@Override
+	public double getTaxes() {
+		return getLineTotals().getTaxes();
+	}
+
+	@Override
+	public double getTotal() {
+		return getLineTotals().getTotal();
+	}
+
+	/**
+	 * @return subtotal rounded to whole cents
+	 */
+	public long getSubTotalCents() {
+		return getLineTotals().getSubTotalCents();
+	}
+
+	/**
+	 * @return taxes rounded to whole cents
+	 */
+	public long getTaxesCents() {
+		return getLineTotals().getTaxesCents();
+	}
+
+	/**
+	 * @return total rounded to whole cents
+	 */
+	public long getTotalCents() {
+		return getLineTotals().getTotalCents();
+	}
+
 
 	public Company getCustomer() {
 		return customer;
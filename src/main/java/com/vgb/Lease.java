@@ -13,6 +13,8 @@ public class Lease extends Equipment {
 	private LocalDate startDate;
 	private LocalDate endDate;
 	private static final double FLAT_TAX = 1500.00;
+	private static final RowLayout LAYOUT = RowLayout
+			.compile("\n %s (Lease) \n" + "%20s | %s - %s (%s) days \n %70s $%s $%s $%s \n");
 
 	/**
 	 * Constructs a Lease Object based on the given attributes
@@ -36,23 +38,16 @@ public class Lease extends Equipment {
 	}
 
 	@Override
-	public double getSubTotal() {
-		double years = calculateDays() / 365.0;
-		return roundToCent((years / 5) * super.getPrice() * 1.5);
-	}
-
-	@Override
-	public double getTaxes() {
-
-		if (getSubTotal() > 12500.00) {
-			return FLAT_TAX;
-		}
-		return 0;
+	public LineType getLineType() {
+		return LineType.LEASE;
 	}
 
 	@Override
-	public double getTotal() {
-		return roundToCent(getSubTotal() + getTaxes());
+	protected LineTotals calculateTotals() {
+		double years = calculateDays() / 365.0;
+		double subTotal = roundToCent((years / 5) * super.getPrice() * 1.5);
+		double taxes = (subTotal > 12500.00) ? FLAT_TAX : 0;
+		return new LineTotals(subTotal, taxes, roundToCent(subTotal + taxes));
 	}
 
 	public LocalDate getStartDate() {
@@ -65,9 +60,9 @@ public class Lease extends Equipment {
 
 	@Override
 	public String toString() {
-		return String.format("\n %s (Lease) \n" + "%20s | %s - %s (%s) days \n %70s $%s $%s $%s \n", this.getUUID(),
-				this.getName(), this.getStartDate(), this.getEndDate(), this.calculateDays(), " ", this.getSubTotal(),
-				this.getTaxes(), this.getTotal());
+		return LAYOUT.row().uuid(this.getUUID()).text(this.getName()).value(this.getStartDate())
+				.value(this.getEndDate()).number(this.calculateDays()).text(" ").number(this.getSubTotal())
+				.number(this.getTaxes()).number(this.getTotal()).toString();
 	}
 
 }
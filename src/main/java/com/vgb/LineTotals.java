@@ -0,0 +1,59 @@
+package com.vgb;
+
+/**
+ * The priced amounts of one item: subtotal, taxes and total, computed once.
+ * <p>
+ * The dollar values are exactly what the item reports and prints; the cent
+ * values are the same amounts rounded to whole cents for summing.
+ * </p>
+ */
+public final class LineTotals {
+
+	private final double subTotal;
+	private final double taxes;
+	private final double total;
+	private final long subTotalCents;
+	private final long taxesCents;
+	private final long totalCents;
+
+	/**
+	 * Constructs the totals of one item
+	 * 
+	 * @param subTotal amount before taxes
+	 * @param taxes    taxes on the item
+	 * @param total    amount including taxes
+	 */
+	public LineTotals(double subTotal, double taxes, double total) {
+		this.subTotal = subTotal;
+		this.taxes = taxes;
+		this.total = total;
+		this.subTotalCents = Money.toCents(subTotal);
+		this.taxesCents = Money.toCents(taxes);
+		this.totalCents = Money.toCents(total);
+	}
+
+	public double getSubTotal() {
+		return subTotal;
+	}
+
+	public double getTaxes() {
+		return taxes;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	public long getSubTotalCents() {
+		return subTotalCents;
+	}
+
+	public long getTaxesCents() {
+		return taxesCents;
+	}
+
+	public long getTotalCents() {
+		return totalCents;
+	}
+
+}
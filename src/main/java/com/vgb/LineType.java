@@ -0,0 +1,34 @@
+package com.vgb;
+
+/**
+ * The kinds of line an invoice can carry, with the codes used for them in the
+ * InvoiceItem table.
+ */
+public enum LineType {
+	PURCHASE('P'), LEASE('L'), RENTAL('R'), MATERIAL('M'), CONTRACT('C');
+
+	private final char code;
+
+	private LineType(char code) {
+		this.code = code;
+	}
+
+	public char getCode() {
+		return code;
+	}
+
+	/**
+	 * @param code A line type code
+	 * @return The line type with that code
+	 * @throws IllegalArgumentException If no line type has that code
+	 */
+	public static LineType fromCode(char code) {
+		for (LineType type : values()) {
+			if (type.code == code) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown line type code: " + code);
+	}
+
+}
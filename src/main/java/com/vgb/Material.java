@@ -10,6 +10,8 @@ public class Material extends Item {
 	private String unit;
 	private double quantity;
 	private final static double TAX_RATE = 0.0715;
+	private static final RowLayout LAYOUT = RowLayout
+			.compile("\n %s (Material) %s \n %20s @ $ %s/per %s \n %70s $%s $%s $%s \n ");
 
 	/**
 	 * Constructs a Material object based on the given attributes
@@ -42,19 +44,15 @@ public class Material extends Item {
 	}
 
 	@Override
-	public double getSubTotal() {
-		return super.getPrice() * this.getQuantity();
+	public LineType getLineType() {
+		return LineType.MATERIAL;
 	}
 
 	@Override
-	public double getTaxes() {
-
-		return roundToCent(getSubTotal() * TAX_RATE);
-	}
-
-	@Override
-	public double getTotal() {
-		return roundToCent(getSubTotal() + getTaxes());
+	protected LineTotals calculateTotals() {
+		double subTotal = super.getPrice() * this.getQuantity();
+		double taxes = roundToCent(subTotal * TAX_RATE);
+		return new LineTotals(subTotal, taxes, roundToCent(subTotal + taxes));
 	}
 
 	public double getQuantity() {
@@ -63,9 +61,9 @@ public class Material extends Item {
 
 	@Override
 	public String toString() {
-		return String.format("\n %s (Material) %s \n %20s @ $ %s/per %s \n %70s $%s $%s $%s \n ", this.getUUID(),
-				this.getName(), this.getQuantity(), this.getPrice(), this.getUnit(), " ", this.getSubTotal(),
-				this.getTaxes(), this.getTotal());
+		return LAYOUT.row().uuid(this.getUUID()).text(this.getName()).number(this.getQuantity())
+				.number(this.getPrice()).text(this.getUnit()).text(" ").number(this.getSubTotal())
+				.number(this.getTaxes()).number(this.getTotal()).toString();
 	}
 
 }
@@ -0,0 +1,72 @@
+package com.vgb;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money helpers. Amounts are held as a {@code long} number of
+ * cents, so sums are exact and no objects are allocated.
+ * <p>
+ * {@link #toCents(double)} rounds exactly like
+ * {@code BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP)}, which is
+ * what {@link Item#roundToCent(double)} used before. That is, the value is
+ * rounded half up (away from zero) as it prints, so 1.005 becomes 1.01 even
+ * though the nearest double is slightly below 1.005.
+ * </p>
+ */
+public class Money {
+
+	/**
+	 * Above this magnitude a double no longer resolves tenths of a cent and the
+	 * BigDecimal path is used instead.
+	 */
+	private static final double FAST_LIMIT = 1e13;
+
+	/**
+	 * Rounds a dollar amount to the nearest cent, half up.
+	 *
+	 * @param dollars Amount in dollars
+	 * @return Amount in cents
+	 * @throws NumberFormatException if the amount is NaN or infinite
+	 */
+	public static long toCents(double dollars) {
+		if (!(Math.abs(dollars) < FAST_LIMIT)) {
+			return BigDecimal.valueOf(dollars).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+		}
+		if (dollars < 0) {
+			return -toCents(-dollars);
+		}
+
+		long cents = (long) Math.floor(dollars * 100 + 0.5);
+		// The product above is inexact, so settle on the cent whose half-up
+		// interval [cents - 0.5, cents + 0.5) holds the value. Each boundary is
+		// computed as the double nearest to it, which is exactly what the value
+		// must be compared against for it to print at or above the boundary.
+		while (dollars >= (2 * cents + 1) / 200.0) {
+			cents++;
+		}
+		while (cents > 0 && dollars < (2 * cents - 1) / 200.0) {
+			cents--;
+		}
+		return cents;
+	}
+
+	/**
+	 * @param cents Amount in cents
+	 * @return The nearest double to the amount in dollars
+	 */
+	public static double toDollars(long cents) {
+		return cents / 100.0;
+	}
+
+	/**
+	 * Rounds a dollar amount to the nearest cent, half up, without allocating.
+	 *
+	 * @param dollars Amount in dollars
+	 * @return The rounded amount in dollars
+	 */
+	public static double round(double dollars) {
+		return toDollars(toCents(dollars));
+	}
+
+}
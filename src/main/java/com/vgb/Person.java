@@ -8,6 +8,8 @@ import java.util.UUID;
  */
 public class Person {
 	
+	private static final RowLayout LAYOUT = RowLayout.compile("%s, %s (%s) \n %30s \n %s");
+
 	private UUID uuid;
 	private String firstName;
 	private String lastName;
@@ -53,8 +55,8 @@ public class Person {
 	
 	@Override
 	public String toString() {
-		return String.format("%s, %s (%s) \n %30s \n %s", this.getLastName(), this.getFirstName(),
-				this.getUuid(), this.getEmails(), this.getPhone());
+		return LAYOUT.row().text(this.getLastName()).text(this.getFirstName()).uuid(this.getUuid())
+				.value(this.getEmails()).text(this.getPhone()).toString();
 	}
 	
 	
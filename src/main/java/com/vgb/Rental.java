@@ -9,6 +9,8 @@ public class Rental extends Equipment {
 
 	private double hours;
 	private static final double TAX = 0.0438;
+	private static final RowLayout LAYOUT = RowLayout
+			.compile("\n %s (Rental) %s-%s \n %s hours @ %s/per hour \n %70s $%s $%s $%s \n");
 
 	/**
 	 * Constructs a Rental object with given attributes
@@ -34,19 +36,15 @@ public class Rental extends Equipment {
 	}
 
 	@Override
-	public double getTaxes() {
-		return roundToCent(getSubTotal() * TAX);
-
-	}
-
-	@Override
-	public double getSubTotal() {
-		return roundToCent(getHours() * calculateRate());
+	public LineType getLineType() {
+		return LineType.RENTAL;
 	}
 
 	@Override
-	public double getTotal() {
-		return roundToCent(getTaxes() + getSubTotal());
+	protected LineTotals calculateTotals() {
+		double subTotal = roundToCent(getHours() * calculateRate());
+		double taxes = roundToCent(subTotal * TAX);
+		return new LineTotals(subTotal, taxes, roundToCent(taxes + subTotal));
 	}
 
 	public double getHours() {
@@ -54,8 +52,8 @@ public class Rental extends Equipment {
 	}
 
 	public String toString() {
-		return String.format("\n %s (Rental) %s-%s \n %s hours @ %s/per hour \n %70s $%s $%s $%s \n", this.getUUID(),
-				this.getName(), this.getModelName(), this.getHours(), this.calculateRate(), " ", this.getSubTotal(),
-				this.getTaxes(), this.getTotal());
+		return LAYOUT.row().uuid(this.getUUID()).text(this.getName()).text(this.getModelName())
+				.number(this.getHours()).number(this.calculateRate()).text(" ").number(this.getSubTotal())
+				.number(this.getTaxes()).number(this.getTotal()).toString();
 	}
 }
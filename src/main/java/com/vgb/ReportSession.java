@@ -0,0 +1,111 @@
+package com.vgb;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.database.ConnectionFactory;
+import com.vgb.database.InvoiceGraphLoader;
+
+/**
+ * Snapshot of the invoices, their items and all companies, loaded once and
+ * shared by every report generated from it.
+ */
+public class ReportSession {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportSession.class);
+
+	private final Map<Invoice, List<InvoiceItem>> invoiceItems;
+	private final Map<UUID, Company> companies;
+	private SortedListBST<Invoice> invoicesByTotal;
+
+	/**
+	 * Creates a session over already loaded data. Each invoice is handed its
+	 * list of items, and the session keeps the invoice's read only view of it,
+	 * so the totals are computed once and shared by every report.
+	 *
+	 * @param invoiceItems invoiceItems per Invoice
+	 * @param companies    every company keyed by UUID
+	 */
+	public ReportSession(Map<Invoice, List<InvoiceItem>> invoiceItems, Map<UUID, Company> companies) {
+		super();
+		this.invoiceItems = new LinkedHashMap<>();
+		this.companies = companies;
+		for (Map.Entry<Invoice, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
+			Invoice invoice = entry.getKey();
+			invoice.setInvoiceItems(entry.getValue());
+			this.invoiceItems.put(invoice, invoice.getInvoiceItems());
+		}
+	}
+
+	/**
+	 * Creates a session from invoices and their items keyed by invoice UUID.
+	 * As with the database, invoices without any items are mapped to a list
+	 * holding a single {@code null}.
+	 *
+	 * @param invoices     every invoice keyed by UUID
+	 * @param invoiceItems invoiceItems keyed by invoice UUID
+	 * @param companies    every company keyed by UUID
+	 * @return A session over the given data
+	 */
+	public static ReportSession of(Map<UUID, Invoice> invoices, Map<UUID, List<InvoiceItem>> invoiceItems,
+			Map<UUID, Company> companies) {
+		Map<Invoice, List<InvoiceItem>> sessionItems = new LinkedHashMap<>();
+		for (Map.Entry<UUID, Invoice> entry : invoices.entrySet()) {
+			List<InvoiceItem> list = invoiceItems.get(entry.getKey());
+			sessionItems.put(entry.getValue(), (list == null) ? new ArrayList<>(Collections.singletonList(null)) : list);
+		}
+		return new ReportSession(sessionItems, companies);
+	}
+
+	/**
+	 * Loads the invoice graph and the companies from the database in a single
+	 * pass.
+	 *
+	 * @return A session over the current database contents
+	 */
+	public static ReportSession load() {
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
+
+		try (Connection conn = ConnectionFactory.getConnection()) {
+			loader.load(conn);
+			return new ReportSession(loader.getInvoiceItems(), loader.getCompanies());
+		} catch (SQLException e) {
+			LOGGER.error("Loading report data failed", e);
+		}
+
+		return new ReportSession(new HashMap<>(), new HashMap<>());
+	}
+
+	public Map<Invoice, List<InvoiceItem>> getInvoiceItems() {
+		return invoiceItems;
+	}
+
+	public Map<UUID, Company> getCompanies() {
+		return companies;
+	}
+
+	/**
+	 * The invoices ordered by total, sorted on first use and shared by every
+	 * later call so that paging through a report does not sort again. Callers
+	 * must not modify the returned tree.
+	 *
+	 * @return The invoices sorted by total (highest to lowest)
+	 */
+	synchronized SortedListBST<Invoice> getInvoicesByTotal() {
+		if (invoicesByTotal == null) {
+			invoicesByTotal = ReportUtils.getInvoicesByTotal(this);
+		}
+		return invoicesByTotal;
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.vgb;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -11,9 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vgb.database.ConnectionFactory;
-import com.vgb.database.DataLoader;
-import com.vgb.factory.LoadCompany;
-import com.vgb.factory.LoadInvoiceItem;
+import com.vgb.database.InvoiceGraphLoader;
 
 /**
  * Utility class to populate and calculate totals of the invoices
@@ -22,30 +22,21 @@ public class ReportUtils {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ReportUtils.class);
 
+	private static final RowLayout COMPANY_ROW = RowLayout.compile("%s \n %70s %s %8s $%s\n");
+	private static final RowLayout COMPANY_TOTAL_ROW = RowLayout.compile("%95s" + "\n%70s %s %8s $%s\n");
+
 	/**
-	 * Distributes Invoices and invoiceItems to another map comparing UUID Strings
+	 * Loads every invoice together with its invoiceItems using a fixed number of
+	 * set based queries
 	 * 
 	 * @return matched invoiceItems per Invoice
 	 */
 	public static Map<Invoice, List<InvoiceItem>> populateInvoice() {
-		DataLoader dl = new DataLoader();
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
 
 		Map<Invoice, List<InvoiceItem>> invoiceItemMap = null;
 		try (Connection conn = ConnectionFactory.getConnection()) {
-			invoiceItemMap = dl.groupData("""
-					SELECT invoiceItemId,
-					    i.uuid,
-					    i.invoiceId,
-					    invItem.itemId,
-					    typeEquipment,
-					    price,
-					    startDate,
-					    endDate,
-					    quantity,
-					    numberOfHours
-					    FROM Invoice i LEFT JOIN InvoiceItem invItem
-					    ON i.invoiceId = invItem.invoiceId
-					""", new LoadInvoiceItem(), conn);
+			invoiceItemMap = loader.load(conn);
 		} catch (SQLException e) {
 			LOGGER.error("Populating invoice connection error", e);
 		}
@@ -59,16 +50,21 @@ public class ReportUtils {
 	 * @return A sorted list of invoices by total amount.
 	 */
 	public static SortedListBST<Invoice> getInvoicesByTotal() {
-		Map<Invoice, List<InvoiceItem>> invoiceItems = populateInvoice();
-
-		SortedListBST<Invoice> sortedInvoices = new SortedListBST<>(
-				new InvoiceComparators.InvoiceByTotalComparator(invoiceItems));
+		return getInvoicesByTotal(ReportSession.load());
+	}
 
-		for (Invoice invoice : invoiceItems.keySet()) {
-			sortedInvoices.add(invoice);
-		}
+	/**
+	 * Gets invoices sorted by total (highest to lowest). The order is computed
+	 * by {@link SortKeys} and the tree is built from it in linear time.
+	 * 
+	 * @param session The loaded report data
+	 * @return A sorted list of invoices by total amount.
+	 */
+	public static SortedListBST<Invoice> getInvoicesByTotal(ReportSession session) {
+		Map<Invoice, List<InvoiceItem>> invoiceItems = session.getInvoiceItems();
 
-		return sortedInvoices;
+		return SortedListBST.fromSorted(new InvoiceComparators.InvoiceByTotalComparator(invoiceItems),
+				SortKeys.invoicesByTotal(invoiceItems).toList());
 	}
 
 	/**
@@ -77,16 +73,19 @@ public class ReportUtils {
 	 * @return A sorted list of invoices by customer name.
 	 */
 	public static SortedListBST<Invoice> getInvoicesByCustomerName() {
-		Map<Invoice, List<InvoiceItem>> invoiceItems = populateInvoice();
-
-		SortedListBST<Invoice> sortedInvoices = new SortedListBST<>(
-				new InvoiceComparators.InvoiceByCustomerNameComparator());
+		return getInvoicesByCustomerName(ReportSession.load());
+	}
 
-		for (Invoice invoice : invoiceItems.keySet()) {
-			sortedInvoices.add(invoice);
-		}
+	/**
+	 * Gets invoices sorted by customer name.
+	 * 
+	 * @param session The loaded report data
+	 * @return A sorted list of invoices by customer name.
+	 */
+	public static SortedListBST<Invoice> getInvoicesByCustomerName(ReportSession session) {
+		Map<Invoice, List<InvoiceItem>> invoiceItems = session.getInvoiceItems();
 
-		return sortedInvoices;
+		return SortedListBST.of(new InvoiceComparators.InvoiceByCustomerNameComparator(), invoiceItems.keySet());
 	}
 
 	/**
@@ -95,27 +94,25 @@ public class ReportUtils {
 	 * @return Map of Company to total invoice amount.
 	 */
 	public static Map<Company, Double> calculateCompanyTotals() {
-		Map<Invoice, List<InvoiceItem>> invoiceItems = populateInvoice();
-
-		DataLoader dl = new DataLoader();
-		Map<UUID, Company> companies = null;
+		return calculateCompanyTotals(ReportSession.load());
+	}
 
-		try (Connection conn = ConnectionFactory.getConnection()) {
-			companies = dl.loadData("""
-					SELECT uuid, companyName, personId, addressId
-					FROM Company
-					""", new LoadCompany(), conn);
-		} catch (SQLException e) {
-			LOGGER.error("Bad Connection", e);
-		}
+	/**
+	 * Calculates the total amount per company.
+	 * 
+	 * @param session The loaded report data
+	 * @return Map of Company to total invoice amount.
+	 */
+	public static Map<Company, Double> calculateCompanyTotals(ReportSession session) {
+		Map<UUID, Company> companies = session.getCompanies();
 
-		Map<Company, Double> companyInvoiceTotals = new HashMap<>();
+		Map<Company, Long> companyInvoiceCents = new HashMap<>();
 
 		for (Company company : companies.values()) {
-			companyInvoiceTotals.put(company, 0.0);
+			companyInvoiceCents.put(company, 0L);
 		}
 
-		for (Map.Entry<Invoice, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
+		for (Map.Entry<Invoice, List<InvoiceItem>> entry : session.getInvoiceItems().entrySet()) {
 			Invoice invoice = entry.getKey();
 			List<InvoiceItem> items = entry.getValue();
 
@@ -124,8 +121,13 @@ public class ReportUtils {
 			if (company == null)
 				continue;
 
-			double invoiceTotal = invoice.grandTotal(items);
-			companyInvoiceTotals.put(company, companyInvoiceTotals.getOrDefault(company, 0.0) + invoiceTotal);
+			long invoiceTotal = invoice.grandTotalCents(items);
+			companyInvoiceCents.merge(company, invoiceTotal, Long::sum);
+		}
+
+		Map<Company, Double> companyInvoiceTotals = new HashMap<>();
+		for (Map.Entry<Company, Long> entry : companyInvoiceCents.entrySet()) {
+			companyInvoiceTotals.put(entry.getKey(), Money.toDollars(entry.getValue()));
 		}
 
 		return companyInvoiceTotals;
@@ -137,16 +139,19 @@ public class ReportUtils {
 	 * @return A sorted list of companies by total invoice amount.
 	 */
 	public static SortedListBST<Company> getCompaniesByTotal() {
-		Map<Company, Double> companyTotals = calculateCompanyTotals();
-
-		SortedListBST<Company> sortedCompanies = new SortedListBST<>(
-				new InvoiceComparators.CompanyByTotalComparator(companyTotals));
-
-		for (Company company : companyTotals.keySet()) {
-			sortedCompanies.add(company);
-		}
+		return getCompaniesByTotal(calculateCompanyTotals());
+	}
 
-		return sortedCompanies;
+	/**
+	 * Gets companies sorted by total invoice amount. The order is computed by
+	 * {@link SortKeys} and the tree is built from it in linear time.
+	 * 
+	 * @param companyTotals Totals computed by {@link #calculateCompanyTotals(ReportSession)}
+	 * @return A sorted list of companies by total invoice amount.
+	 */
+	public static SortedListBST<Company> getCompaniesByTotal(Map<Company, Double> companyTotals) {
+		return SortedListBST.fromSorted(new InvoiceComparators.CompanyByTotalComparator(companyTotals),
+				SortKeys.companiesByTotal(companyTotals).toList());
 	}
 
 	/**
@@ -155,18 +160,17 @@ public class ReportUtils {
 	 * @return Map of Company to the number of invoices.
 	 */
 	public static Map<Company, Integer> calculateCompanyInvoiceCount() {
-		Map<Invoice, List<InvoiceItem>> invoiceItems = populateInvoice();
-		DataLoader dl = new DataLoader();
+		return calculateCompanyInvoiceCount(ReportSession.load());
+	}
 
-		Map<UUID, Company> companies = null;
-		try (Connection conn = ConnectionFactory.getConnection()) {
-			companies = dl.loadData("""
-					SELECT uuid, companyName, personId, addressId
-					FROM Company
-					    """, new LoadCompany(), conn);
-		} catch (SQLException e) {
-			LOGGER.error("calculating company bad connection");
-		}
+	/**
+	 * Calculates the count of invoices per company.
+	 * 
+	 * @param session The loaded report data
+	 * @return Map of Company to the number of invoices.
+	 */
+	public static Map<Company, Integer> calculateCompanyInvoiceCount(ReportSession session) {
+		Map<UUID, Company> companies = session.getCompanies();
 
 		Map<Company, Integer> companyInvoiceCounts = new HashMap<>();
 
@@ -174,9 +178,7 @@ public class ReportUtils {
 			companyInvoiceCounts.put(company, 0);
 		}
 
-		for (Map.Entry<Invoice, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
-			Invoice invoice = entry.getKey();
-
+		for (Invoice invoice : session.getInvoiceItems().keySet()) {
 			Company company = companies.get(invoice.getCustomer().getUuid());
 			if (company == null)
 				continue;
@@ -193,27 +195,53 @@ public class ReportUtils {
 	 * @return Formatted string with company summary information
 	 */
 	public static String companySummary() {
+		return companySummary(ReportSession.load());
+	}
+
+	/**
+	 * Generates a company summary report of company totals and counts for each
+	 * company.
+	 * 
+	 * @param session The loaded report data
+	 * @return Formatted string with company summary information
+	 */
+	public static String companySummary(ReportSession session) {
 		StringBuilder report = new StringBuilder();
+		try {
+			companySummary(session, report);
+		} catch (IOException e) {
+			// A StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return report.toString();
+	}
 
-		Map<Company, Double> companyTotals = calculateCompanyTotals();
-		Map<Company, Integer> count = calculateCompanyInvoiceCount();
+	/**
+	 * Writes a company summary report of company totals and counts for each
+	 * company.
+	 * 
+	 * @param session The loaded report data
+	 * @param out     Where the report is written, row by row
+	 * @throws IOException If writing fails
+	 */
+	public static void companySummary(ReportSession session, Appendable out) throws IOException {
+		Map<Company, Double> companyTotals = calculateCompanyTotals(session);
+		Map<Company, Integer> count = calculateCompanyInvoiceCount(session);
 
-		SortedListBST<Company> sortedCompanies = getCompaniesByTotal();
+		SortedListBST<Company> sortedCompanies = getCompaniesByTotal(companyTotals);
 
 		for (Company company : sortedCompanies) {
 			double totalAmount = companyTotals.get(company);
 			int invoiceCount = count.getOrDefault(company, 0);
 
-			report.append(
-					String.format("%s \n %70s %s %8s $%s\n", company.getName(), " ", invoiceCount, "", totalAmount));
+			COMPANY_ROW.row().text(company.getName()).text(" ").integer(invoiceCount).text("").number(totalAmount)
+					.appendTo(out);
 		}
 
 		double companyTotal = Math.round(companyTotals.values().stream().mapToDouble(d -> d).sum());
 		int invoiceCountTotal = count.values().stream().mapToInt(d -> d).sum();
-		report.append(String.format("%95s" + "\n%70s %s %8s $%s\n", "------------------------", " ", invoiceCountTotal,
-				" ", companyTotal));
-
-		return report.toString();
+		COMPANY_TOTAL_ROW.row().text("------------------------").text(" ").integer(invoiceCountTotal).text(" ")
+				.number(companyTotal).appendTo(out);
 	}
 
 }
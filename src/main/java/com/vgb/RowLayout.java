@@ -0,0 +1,414 @@
+package com.vgb;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A fixed-width row layout compiled once from a {@link String#format} style
+ * pattern and rendered many times without parsing or boxing.
+ * <p>
+ * The pattern supports the subset of format specifiers the reports use:
+ * {@code %s}, {@code %d} and {@code %.2f}, each with an optional {@code -}
+ * (left align) flag and width. A row is rendered by filling the fields in
+ * order:
+ * </p>
+ *
+ * <pre>
+ * private static final RowLayout ROW = RowLayout.compile("%-40s %-30s $%10.2f\n");
+ * ROW.row().uuid(uuid).text(name).money(total).appendTo(out);
+ * </pre>
+ * <p>
+ * Numbers and UUIDs are written straight into a reusable per-thread char
+ * buffer. The result is identical to {@code String.format} with the same
+ * pattern and arguments in an English locale: {@link Row#number(double)}
+ * prints like {@link Double#toString(double)} and {@link Row#money(double)}
+ * rounds half up like {@code %.2f}.
+ * </p>
+ */
+public final class RowLayout {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * {@link Row#number(double)} writes whole-cent amounts below this magnitude
+	 * itself; {@link Double#toString(double)} switches to exponent notation at
+	 * 10^7.
+	 */
+	private static final double PLAIN_NUMBER_LIMIT = 1e7;
+
+	private final String pattern;
+	private final String[] literals;
+	private final char[] conversions;
+	private final int[] widths;
+	private final boolean[] leftAligned;
+	private final ThreadLocal<Row> rows = ThreadLocal.withInitial(Row::new);
+
+	private RowLayout(String pattern, List<String> literals, List<Character> conversions, List<Integer> widths,
+			List<Boolean> leftAligned) {
+		this.pattern = pattern;
+		this.literals = literals.toArray(new String[0]);
+		this.conversions = new char[conversions.size()];
+		this.widths = new int[widths.size()];
+		this.leftAligned = new boolean[leftAligned.size()];
+		for (int i = 0; i < this.conversions.length; i++) {
+			this.conversions[i] = conversions.get(i);
+			this.widths[i] = widths.get(i);
+			this.leftAligned[i] = leftAligned.get(i);
+		}
+	}
+
+	/**
+	 * Compiles a pattern into a layout.
+	 *
+	 * @param pattern A format pattern using {@code %s}, {@code %d} and
+	 *                {@code %.2f} with optional {@code -} flag and width
+	 * @return The compiled layout
+	 * @throws IllegalArgumentException if the pattern uses anything else
+	 */
+	public static RowLayout compile(String pattern) {
+		List<String> literals = new ArrayList<>();
+		List<Character> conversions = new ArrayList<>();
+		List<Integer> widths = new ArrayList<>();
+		List<Boolean> leftAligned = new ArrayList<>();
+
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i++);
+			if (c != '%') {
+				literal.append(c);
+				continue;
+			}
+
+			boolean left = false;
+			if (i < pattern.length() && pattern.charAt(i) == '-') {
+				left = true;
+				i++;
+			}
+			int width = 0;
+			while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+				width = width * 10 + (pattern.charAt(i++) - '0');
+			}
+			boolean cents = false;
+			if (pattern.startsWith(".2", i)) {
+				cents = true;
+				i += 2;
+			}
+			if (i >= pattern.length()) {
+				throw new IllegalArgumentException("Incomplete format specifier in: " + pattern);
+			}
+
+			char conversion = pattern.charAt(i++);
+			if ((conversion != 's' && conversion != 'd' && conversion != 'f') || cents != (conversion == 'f')
+					|| (left && width == 0)) {
+				throw new IllegalArgumentException("Unsupported format specifier in: " + pattern);
+			}
+
+			literals.add(literal.toString());
+			literal.setLength(0);
+			conversions.add(conversion);
+			widths.add(width);
+			leftAligned.add(left);
+		}
+		literals.add(literal.toString());
+
+		return new RowLayout(pattern, literals, conversions, widths, leftAligned);
+	}
+
+	/**
+	 * Starts a new row. The returned row is reused by the next call on the same
+	 * thread, so it must be finished before another row of this layout is
+	 * started.
+	 *
+	 * @return An empty row
+	 */
+	public Row row() {
+		Row row = rows.get();
+		row.reset();
+		return row;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	/**
+	 * A row being rendered. Each field method fills the next field of the
+	 * layout.
+	 */
+	public final class Row {
+		private char[] buffer = new char[256];
+		private int length;
+		private int field;
+		private int fieldStart;
+
+		private void reset() {
+			length = 0;
+			field = 0;
+		}
+
+		private void ensureCapacity(int extra) {
+			if (length + extra > buffer.length) {
+				char[] larger = new char[Math.max(buffer.length * 2, length + extra)];
+				System.arraycopy(buffer, 0, larger, 0, length);
+				buffer = larger;
+			}
+		}
+
+		private void put(char c) {
+			ensureCapacity(1);
+			buffer[length++] = c;
+		}
+
+		private void put(CharSequence s) {
+			int n = s.length();
+			ensureCapacity(n);
+			if (s instanceof String) {
+				((String) s).getChars(0, n, buffer, length);
+				length += n;
+			} else {
+				for (int i = 0; i < n; i++) {
+					buffer[length++] = s.charAt(i);
+				}
+			}
+		}
+
+		/**
+		 * Writes the literal text before the next field and checks its
+		 * conversion.
+		 */
+		private void begin(String accepted) {
+			if (field >= conversions.length) {
+				throw new IllegalStateException("Too many fields for layout: " + pattern);
+			}
+			if (accepted.indexOf(conversions[field]) < 0) {
+				throw new IllegalArgumentException(
+						"Field " + field + " of layout " + pattern + " is %" + conversions[field]);
+			}
+			put(literals[field]);
+			fieldStart = length;
+		}
+
+		/**
+		 * Pads the value just written to the field width.
+		 */
+		private Row end() {
+			int width = widths[field];
+			int written = length - fieldStart;
+			if (written < width) {
+				int pad = width - written;
+				ensureCapacity(pad);
+				if (leftAligned[field]) {
+					for (int i = 0; i < pad; i++) {
+						buffer[length++] = ' ';
+					}
+				} else {
+					System.arraycopy(buffer, fieldStart, buffer, fieldStart + pad, written);
+					for (int i = 0; i < pad; i++) {
+						buffer[fieldStart + i] = ' ';
+					}
+					length += pad;
+				}
+			}
+			field++;
+			return this;
+		}
+
+		/**
+		 * Fills a {@code %s} field with text.
+		 *
+		 * @param value The text, printed as "null" when null
+		 * @return This row
+		 */
+		public Row text(CharSequence value) {
+			begin("s");
+			put(value == null ? "null" : value);
+			return end();
+		}
+
+		/**
+		 * Fills a {@code %s} field with any object's {@code toString()}.
+		 *
+		 * @param value The value, printed as "null" when null
+		 * @return This row
+		 */
+		public Row value(Object value) {
+			begin("s");
+			put(String.valueOf(value));
+			return end();
+		}
+
+		/**
+		 * Fills a {@code %s} field with a UUID in its canonical form.
+		 *
+		 * @param value The UUID
+		 * @return This row
+		 */
+		public Row uuid(UUID value) {
+			begin("s");
+			if (value == null) {
+				put("null");
+			} else {
+				ensureCapacity(36);
+				long msb = value.getMostSignificantBits();
+				long lsb = value.getLeastSignificantBits();
+				putHex(msb >>> 32, 8);
+				buffer[length++] = '-';
+				putHex(msb >>> 16, 4);
+				buffer[length++] = '-';
+				putHex(msb, 4);
+				buffer[length++] = '-';
+				putHex(lsb >>> 48, 4);
+				buffer[length++] = '-';
+				putHex(lsb, 12);
+			}
+			return end();
+		}
+
+		private void putHex(long bits, int digits) {
+			for (int i = digits - 1; i >= 0; i--) {
+				buffer[length + i] = HEX[(int) (bits & 0xF)];
+				bits >>>= 4;
+			}
+			length += digits;
+		}
+
+		/**
+		 * Fills a {@code %s} or {@code %d} field with a whole number.
+		 *
+		 * @param value The number
+		 * @return This row
+		 */
+		public Row integer(long value) {
+			begin("sd");
+			putLong(value);
+			return end();
+		}
+
+		private void putLong(long value) {
+			if (value == Long.MIN_VALUE) {
+				put(Long.toString(value));
+				return;
+			}
+			if (value < 0) {
+				put('-');
+				value = -value;
+			}
+			ensureCapacity(19);
+			int start = length;
+			do {
+				buffer[length++] = (char) ('0' + value % 10);
+				value /= 10;
+			} while (value != 0);
+			for (int i = start, j = length - 1; i < j; i++, j--) {
+				char swap = buffer[i];
+				buffer[i] = buffer[j];
+				buffer[j] = swap;
+			}
+		}
+
+		/**
+		 * Fills a {@code %s} field with a double, printed like
+		 * {@link Double#toString(double)}.
+		 *
+		 * @param value The number
+		 * @return This row
+		 */
+		public Row number(double value) {
+			begin("s");
+			long cents = 0;
+			boolean plain = value == 0 ? Double.doubleToRawLongBits(value) == 0
+					: Math.abs(value) >= 1e-3 && Math.abs(value) < PLAIN_NUMBER_LIMIT
+							&& Money.toDollars(cents = Money.toCents(value)) == value;
+			if (!plain) {
+				put(Double.toString(value));
+				return end();
+			}
+
+			// A whole-cent amount prints as its shortest decimal: at least one
+			// fraction digit, no trailing zeros
+			if (cents < 0) {
+				put('-');
+				cents = -cents;
+			}
+			putLong(cents / 100);
+			put('.');
+			int fraction = (int) (cents % 100);
+			if (fraction % 10 == 0) {
+				put((char) ('0' + fraction / 10));
+			} else {
+				put((char) ('0' + fraction / 10));
+				put((char) ('0' + fraction % 10));
+			}
+			return end();
+		}
+
+		/**
+		 * Fills a {@code %.2f} field with an amount rounded half up to cents.
+		 *
+		 * @param value The amount
+		 * @return This row
+		 */
+		public Row money(double value) {
+			begin("f");
+			if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e13) {
+				put(String.format("%.2f", value));
+				return end();
+			}
+
+			long cents = Money.toCents(Math.abs(value));
+			if (Double.doubleToRawLongBits(value) < 0) {
+				put('-');
+			}
+			putLong(cents / 100);
+			put('.');
+			int fraction = (int) (cents % 100);
+			put((char) ('0' + fraction / 10));
+			put((char) ('0' + fraction % 10));
+			return end();
+		}
+
+		/**
+		 * Writes the finished row to the given output.
+		 *
+		 * @param out Where the row is written
+		 * @throws IOException If writing fails
+		 */
+		public void appendTo(Appendable out) throws IOException {
+			finish();
+			if (out instanceof StringBuilder) {
+				((StringBuilder) out).append(buffer, 0, length);
+			} else if (out instanceof Writer) {
+				((Writer) out).write(buffer, 0, length);
+			} else {
+				out.append(CharBuffer.wrap(buffer, 0, length));
+			}
+		}
+
+		/**
+		 * @return The finished row as a String
+		 */
+		@Override
+		public String toString() {
+			finish();
+			return new String(buffer, 0, length);
+		}
+
+		private void finish() {
+			if (field < conversions.length) {
+				throw new IllegalStateException("Only " + field + " of " + conversions.length
+						+ " fields filled for layout: " + pattern);
+			}
+			if (field == conversions.length) {
+				put(literals[field]);
+				field++;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.vgb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A sorted view over invoices or companies that computes each sort key once.
+ * <p>
+ * Totals and UUIDs are copied into primitive arrays up front and an index
+ * permutation is merge sorted on those arrays, so no comparison recomputes a
+ * total or touches a boxed value. The resulting order is the same as sorting
+ * with the matching comparator in {@link InvoiceComparators}.
+ * </p>
+ *
+ * @param <T> Type of the sorted elements
+ */
+public class SortKeys<T> {
+
+	private final Object[] elements;
+	private final double[] keys;
+	private final long[] mostSigBits;
+	private final long[] leastSigBits;
+	private final boolean descending;
+	private final boolean unsignedUuid;
+	private final int[] order;
+
+	private SortKeys(Object[] elements, double[] keys, UUID[] uuids, boolean descending, boolean unsignedUuid) {
+		this.elements = elements;
+		this.keys = keys;
+		this.descending = descending;
+		this.unsignedUuid = unsignedUuid;
+		this.mostSigBits = new long[uuids.length];
+		this.leastSigBits = new long[uuids.length];
+		for (int i = 0; i < uuids.length; i++) {
+			mostSigBits[i] = uuids[i].getMostSignificantBits();
+			leastSigBits[i] = uuids[i].getLeastSignificantBits();
+		}
+		this.order = sort();
+	}
+
+	/**
+	 * Orders invoices by total, highest first, then by UUID. Same order as
+	 * {@link InvoiceComparators.InvoiceByTotalComparator}.
+	 *
+	 * @param invoiceItems invoiceItems per Invoice
+	 * @return The sorted view
+	 */
+	public static SortKeys<Invoice> invoicesByTotal(Map<Invoice, List<InvoiceItem>> invoiceItems) {
+		int n = invoiceItems.size();
+		Object[] elements = new Object[n];
+		double[] keys = new double[n];
+		UUID[] uuids = new UUID[n];
+
+		int i = 0;
+		for (Map.Entry<Invoice, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
+			Invoice invoice = entry.getKey();
+			elements[i] = invoice;
+			keys[i] = (entry.getValue() == null) ? 0.0 : invoice.grandTotal(entry.getValue());
+			uuids[i] = invoice.getInvoiceUUID();
+			i++;
+		}
+
+		return new SortKeys<>(elements, keys, uuids, true, false);
+	}
+
+	/**
+	 * Orders companies by total, lowest first, then by UUID string. Same order as
+	 * {@link InvoiceComparators.CompanyByTotalComparator}.
+	 *
+	 * @param companyTotals total invoice amount per company
+	 * @return The sorted view
+	 */
+	public static SortKeys<Company> companiesByTotal(Map<Company, Double> companyTotals) {
+		int n = companyTotals.size();
+		Object[] elements = new Object[n];
+		double[] keys = new double[n];
+		UUID[] uuids = new UUID[n];
+
+		int i = 0;
+		for (Map.Entry<Company, Double> entry : companyTotals.entrySet()) {
+			elements[i] = entry.getKey();
+			keys[i] = (entry.getValue() == null) ? 0.0 : entry.getValue();
+			uuids[i] = entry.getKey().getUuid();
+			i++;
+		}
+
+		return new SortKeys<>(elements, keys, uuids, false, true);
+	}
+
+	/**
+	 * @return Number of elements in the view
+	 */
+	public int size() {
+		return order.length;
+	}
+
+	/**
+	 * @param index Position in sorted order
+	 * @return The element at that position
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		return (T) elements[order[index]];
+	}
+
+	/**
+	 * @param index Position in sorted order
+	 * @return The precomputed key of the element at that position
+	 */
+	public double getKey(int index) {
+		return keys[order[index]];
+	}
+
+	/**
+	 * @return The elements in sorted order
+	 */
+	public List<T> toList() {
+		List<T> result = new ArrayList<>(order.length);
+		for (int i = 0; i < order.length; i++) {
+			result.add(get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * @param collection Collection the sorted elements are appended to
+	 */
+	public void addTo(Collection<? super T> collection) {
+		for (int i = 0; i < order.length; i++) {
+			collection.add(get(i));
+		}
+	}
+
+	private int compare(int a, int b) {
+		int result = descending ? Double.compare(keys[b], keys[a]) : Double.compare(keys[a], keys[b]);
+		if (result != 0) {
+			return result;
+		}
+
+		if (unsignedUuid) {
+			result = Long.compareUnsigned(mostSigBits[a], mostSigBits[b]);
+			return (result != 0) ? result : Long.compareUnsigned(leastSigBits[a], leastSigBits[b]);
+		}
+		result = Long.compare(mostSigBits[a], mostSigBits[b]);
+		return (result != 0) ? result : Long.compare(leastSigBits[a], leastSigBits[b]);
+	}
+
+	/**
+	 * Bottom-up merge sort of the index permutation.
+	 */
+	private int[] sort() {
+		int n = keys.length;
+		int[] src = new int[n];
+		int[] dst = new int[n];
+		for (int i = 0; i < n; i++) {
+			src[i] = i;
+		}
+
+		for (int width = 1; width < n; width *= 2) {
+			for (int lo = 0; lo < n; lo += 2 * width) {
+				int mid = Math.min(lo + width, n);
+				int hi = Math.min(lo + 2 * width, n);
+				int left = lo;
+				int right = mid;
+				for (int k = lo; k < hi; k++) {
+					if (left < mid && (right >= hi || compare(src[left], src[right]) <= 0)) {
+						dst[k] = src[left++];
+					} else {
+						dst[k] = src[right++];
+					}
+				}
+			}
+			int[] swap = src;
+			src = dst;
+			dst = swap;
+		}
+
+		return src;
+	}
+
+}
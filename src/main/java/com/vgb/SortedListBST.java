@@ -1,44 +1,75 @@
 package com.vgb;
 
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Stack;
 
 /**
- * A generic sorted list implementation using a Binary Search Tree (BST) that
- * maintains elements in order based on a provided Comparator
- * 
+ * A generic sorted list implementation using a self-balancing (AVL) Binary
+ * Search Tree that maintains elements in order based on a provided Comparator
+ * <p>
+ * Insertion and removal are iterative and keep the height of the tree within
+ * about 1.44 log2(n), so they run in O(log n) whatever order the elements
+ * arrive in. Elements that compare equal are kept in insertion order.
+ * </p>
+ * <p>
+ * Every node also records the size of its subtree, so positional access
+ * ({@link #get(int)}, {@link #indexOf(Object)}, {@link #rank(Object)}) is
+ * O(log n) as well, and {@link #subList(int, int)} pages through the list
+ * without walking it from the start.
+ * </p>
+ * <p>
+ * Large inputs should be loaded with {@link #of(Comparator, Collection)},
+ * {@link #fromSorted(Comparator, List)} or {@link #merge(SortedListBST,
+ * SortedListBST)}, which sort once and build a perfectly balanced tree in
+ * O(n) instead of inserting one element at a time.
+ * </p>
+ *
  * @param <T> The type of elements stored in the list
  */
 public class SortedListBST<T> implements Iterable<T> {
+	/**
+	 * Inputs at least this large are sorted with {@link Arrays#parallelSort}.
+	 */
+	static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
 	private class Node {
 		private T data;
 		private Node left;
 		private Node right;
+		private Node parent;
+		private int height;
+		private int size;
 
-		private Node(T data) {
+		private Node(T data, Node parent) {
 			this.data = data;
 			this.left = null;
 			this.right = null;
+			this.parent = parent;
+			this.height = 1;
+			this.size = 1;
 		}
 	}
 
 	private class BSTIterator implements Iterator<T> {
-		private Stack<Node> stack;
+		private Node next;
 
 		BSTIterator() {
-			stack = new Stack<>();
-			Node current = root;
-			while (current != null) {
-				stack.push(current);
-				current = current.left;
-			}
+			next = (root == null) ? null : leftmost(root);
+		}
+
+		BSTIterator(Node start) {
+			next = start;
 		}
 
 		@Override
 		public boolean hasNext() {
-			return !stack.isEmpty();
+			return next != null;
 		}
 
 		@Override
@@ -47,27 +78,20 @@ public class SortedListBST<T> implements Iterable<T> {
 				throw new NoSuchElementException();
 			}
 
-			Node node = stack.pop();
-			T result = node.data;
-			if (node.right != null) {
-				node = node.right;
-				while (node != null) {
-					stack.push(node);
-					node = node.left;
-				}
-			}
-
+			T result = next.data;
+			next = successor(next);
 			return result;
 		}
 	}
 
 	private Node root;
 	private int size;
+	private int modCount;
 	private final Comparator<T> comparator;
 
 	/**
 	 * Constructs a new sorted list with the specified comparator.
-	 * 
+	 *
 	 * @param comparator The comparator that defines the ordering of elements
 	 */
 	public SortedListBST(Comparator<T> comparator) {
@@ -78,7 +102,7 @@ public class SortedListBST<T> implements Iterable<T> {
 
 	/**
 	 * Adds an element to the list, maintaining the sorted order.
-	 * 
+	 *
 	 * @param element The element to add
 	 */
 	public void add(T element) {
@@ -86,36 +110,42 @@ public class SortedListBST<T> implements Iterable<T> {
 			throw new IllegalArgumentException("Cannot add null element to SortedListBST");
 		}
 
-		root = addRecursive(root, element);
-		size++;
-	}
-
-	/**
-	 * Helper method for recursive insertion into BST.
-	 * 
-	 * @param current The current node
-	 * @param element The element to add
-	 * @return The updated node
-	 */
-	private Node addRecursive(Node current, T element) {
-		if (current == null) {
-			return new Node(element);
+		if (root == null) {
+			root = new Node(element, null);
+			size++;
+			modCount++;
+			return;
 		}
 
-		int comparison = comparator.compare(element, current.data);
+		Node current = root;
+		Node parent = null;
+		int comparison = 0;
+		while (current != null) {
+			parent = current;
+			comparison = comparator.compare(element, current.data);
+			current = (comparison < 0) ? current.left : current.right;
+		}
 
+		Node node = new Node(element, parent);
 		if (comparison < 0) {
-			current.left = addRecursive(current.left, element);
+			parent.left = node;
 		} else {
-			current.right = addRecursive(current.right, element);
+			parent.right = node;
 		}
+		size++;
+		modCount++;
 
-		return current;
+		rebalanceFrom(parent);
 	}
 
 	/**
 	 * Adds all elements from the provided array to the list.
-	 * 
+	 * <p>
+	 * When the list is empty, or the array is at least as large as the list, the
+	 * array is sorted and merged with the current elements and the tree is
+	 * rebuilt in one pass. Otherwise the elements are inserted one at a time.
+	 * </p>
+	 *
 	 * @param elements Array of elements to add
 	 */
 	public void addAll(T[] elements) {
@@ -123,14 +153,176 @@ public class SortedListBST<T> implements Iterable<T> {
 			throw new IllegalArgumentException("Cannot add null array to SortedListBST");
 		}
 
-		for (T element : elements) {
-			add(element);
+		if (elements.length < size) {
+			for (T element : elements) {
+				add(element);
+			}
+			return;
 		}
+
+		Object[] added = sortedCopy(comparator, Arrays.asList(elements));
+		rebuild(isEmpty() ? added : mergeSorted(comparator, toArray(), added));
+	}
+
+	/**
+	 * Creates a list holding the given elements. The elements are sorted once
+	 * (in parallel for large inputs) and the tree is built directly in balanced
+	 * form.
+	 *
+	 * @param <T>        The type of elements stored in the list
+	 * @param comparator The comparator that defines the ordering of elements
+	 * @param elements   The elements, in any order
+	 * @return The new list
+	 */
+	public static <T> SortedListBST<T> of(Comparator<T> comparator, Collection<? extends T> elements) {
+		if (elements == null) {
+			throw new IllegalArgumentException("Cannot add null collection to SortedListBST");
+		}
+
+		SortedListBST<T> list = new SortedListBST<>(comparator);
+		list.rebuild(sortedCopy(comparator, elements));
+		return list;
+	}
+
+	/**
+	 * Creates a list from elements that are already in comparator order, in
+	 * O(n).
+	 *
+	 * @param <T>        The type of elements stored in the list
+	 * @param comparator The comparator that defines the ordering of elements
+	 * @param sorted     The elements in ascending comparator order
+	 * @return The new list
+	 * @throws IllegalArgumentException if the elements are not sorted
+	 */
+	public static <T> SortedListBST<T> fromSorted(Comparator<T> comparator, List<? extends T> sorted) {
+		if (sorted == null) {
+			throw new IllegalArgumentException("Cannot add null list to SortedListBST");
+		}
+
+		Object[] elements = sorted.toArray();
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] == null) {
+				throw new IllegalArgumentException("Cannot add null element to SortedListBST");
+			}
+			if (i > 0 && compare(comparator, elements[i - 1], elements[i]) > 0) {
+				throw new IllegalArgumentException("Elements are not in sorted order at index " + i);
+			}
+		}
+
+		SortedListBST<T> list = new SortedListBST<>(comparator);
+		list.rebuild(elements);
+		return list;
+	}
+
+	/**
+	 * Merges two lists that use the same comparator into a new list in
+	 * O(n + m). Neither input is modified. Elements that compare equal keep
+	 * their order, with those of the first list ahead of the second.
+	 *
+	 * @param <T>    The type of elements stored in the lists
+	 * @param first  A sorted list
+	 * @param second Another sorted list with the same comparator
+	 * @return A new list with the elements of both
+	 * @throws IllegalArgumentException if the lists use different comparators
+	 */
+	public static <T> SortedListBST<T> merge(SortedListBST<T> first, SortedListBST<T> second) {
+		if (!first.comparator.equals(second.comparator)) {
+			throw new IllegalArgumentException("Cannot merge lists with different comparators");
+		}
+
+		SortedListBST<T> list = new SortedListBST<>(first.comparator);
+		list.rebuild(mergeSorted(first.comparator, first.toArray(), second.toArray()));
+		return list;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> int compare(Comparator<T> comparator, Object a, Object b) {
+		return comparator.compare((T) a, (T) b);
+	}
+
+	/**
+	 * Copies and stably sorts the given elements, rejecting nulls.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Object[] sortedCopy(Comparator<T> comparator, Collection<? extends T> elements) {
+		T[] copy = (T[]) elements.toArray();
+		for (T element : copy) {
+			if (element == null) {
+				throw new IllegalArgumentException("Cannot add null element to SortedListBST");
+			}
+		}
+
+		if (copy.length >= PARALLEL_SORT_THRESHOLD) {
+			Arrays.parallelSort(copy, comparator);
+		} else {
+			Arrays.sort(copy, comparator);
+		}
+		return copy;
+	}
+
+	/**
+	 * Merges two sorted arrays, taking from the first on ties.
+	 */
+	private static <T> Object[] mergeSorted(Comparator<T> comparator, Object[] first, Object[] second) {
+		Object[] merged = new Object[first.length + second.length];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < first.length && j < second.length) {
+			merged[k++] = (compare(comparator, first[i], second[j]) <= 0) ? first[i++] : second[j++];
+		}
+		while (i < first.length) {
+			merged[k++] = first[i++];
+		}
+		while (j < second.length) {
+			merged[k++] = second[j++];
+		}
+		return merged;
+	}
+
+	/**
+	 * @return The elements in sorted order
+	 */
+	private Object[] toArray() {
+		Object[] elements = new Object[size];
+		int i = 0;
+		for (T element : this) {
+			elements[i++] = element;
+		}
+		return elements;
+	}
+
+	/**
+	 * Replaces the contents of the list with a perfectly balanced tree over the
+	 * given sorted elements.
+	 */
+	private void rebuild(Object[] sorted) {
+		root = build(sorted, 0, sorted.length, null);
+		size = sorted.length;
+		modCount++;
+	}
+
+	/**
+	 * Builds a balanced subtree over sorted[from, to), rooted at the middle
+	 * element. Recursion depth is log2(n).
+	 */
+	@SuppressWarnings("unchecked")
+	private Node build(Object[] sorted, int from, int to, Node parent) {
+		if (from >= to) {
+			return null;
+		}
+
+		int mid = (from + to) >>> 1;
+		Node node = new Node((T) sorted[mid], parent);
+		node.left = build(sorted, from, mid, node);
+		node.right = build(sorted, mid + 1, to, node);
+		update(node);
+		return node;
 	}
 
 	/**
 	 * Removes the specified element from the list if it exists.
-	 * 
+	 *
 	 * @param element The element to remove
 	 * @return true if the element was found and removed, false otherwise
 	 */
@@ -139,74 +331,195 @@ public class SortedListBST<T> implements Iterable<T> {
 			return false;
 		}
 
-		int originalSize = size;
-		root = removeRecursive(root, element);
+		Node node = find(element);
+		if (node == null) {
+			return false;
+		}
+
+		if (node.left != null && node.right != null) {
+			Node successor = leftmost(node.right);
+			node.data = successor.data;
+			node = successor;
+		}
 
-		return size < originalSize;
+		Node child = (node.left != null) ? node.left : node.right;
+		Node parent = node.parent;
+		if (child != null) {
+			child.parent = parent;
+		}
+		replaceChild(parent, node, child);
+		size--;
+		modCount++;
+
+		rebalanceFrom(parent);
+		return true;
 	}
 
 	/**
-	 * Helper method for recursive removal from BST.
-	 * 
-	 * @param current The current node
-	 * @param element The element to remove
-	 * @return The updated node
+	 * Finds a node whose element compares equal to the given element.
+	 *
+	 * @param element The element to look for
+	 * @return The matching node, or null if there is none
 	 */
-	private Node removeRecursive(Node current, T element) {
-		if (current == null) {
-			return null;
+	private Node find(T element) {
+		Node current = root;
+		while (current != null) {
+			int comparison = comparator.compare(element, current.data);
+			if (comparison == 0) {
+				return current;
+			}
+			current = (comparison < 0) ? current.left : current.right;
 		}
+		return null;
+	}
 
-		int comparison = comparator.compare(element, current.data);
+	/**
+	 * Walks from the given node up to the root, updating heights and rotating
+	 * wherever a subtree has become unbalanced.
+	 *
+	 * @param node The lowest node whose subtree changed
+	 */
+	private void rebalanceFrom(Node node) {
+		while (node != null) {
+			update(node);
+			int balance = height(node.left) - height(node.right);
+
+			if (balance > 1) {
+				if (height(node.left.left) < height(node.left.right)) {
+					rotateLeft(node.left);
+				}
+				node = rotateRight(node);
+			} else if (balance < -1) {
+				if (height(node.right.right) < height(node.right.left)) {
+					rotateRight(node.right);
+				}
+				node = rotateLeft(node);
+			}
+
+			node = node.parent;
+		}
+	}
 
-		if (comparison == 0) {
+	private Node rotateLeft(Node node) {
+		Node pivot = node.right;
 
-			if (current.left == null && current.right == null) {
-				size--;
-				return null;
-			}
+		node.right = pivot.left;
+		if (pivot.left != null) {
+			pivot.left.parent = node;
+		}
 
-			if (current.left == null) {
-				size--;
-				return current.right;
-			}
+		pivot.parent = node.parent;
+		replaceChild(node.parent, node, pivot);
 
-			if (current.right == null) {
-				size--;
-				return current.left;
-			}
+		pivot.left = node;
+		node.parent = pivot;
 
-			T successor = findMin(current.right);
-			current.data = successor;
-			current.right = removeRecursive(current.right, successor);
-			return current;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+
+	private Node rotateRight(Node node) {
+		Node pivot = node.left;
+
+		node.left = pivot.right;
+		if (pivot.right != null) {
+			pivot.right.parent = node;
 		}
 
-		if (comparison < 0) {
-			current.left = removeRecursive(current.left, element);
+		pivot.parent = node.parent;
+		replaceChild(node.parent, node, pivot);
+
+		pivot.right = node;
+		node.parent = pivot;
+
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+
+	/**
+	 * Points the parent (or the root) at a new child in place of an old one.
+	 */
+	private void replaceChild(Node parent, Node oldChild, Node newChild) {
+		if (parent == null) {
+			root = newChild;
+		} else if (parent.left == oldChild) {
+			parent.left = newChild;
 		} else {
-			current.right = removeRecursive(current.right, element);
+			parent.right = newChild;
 		}
+	}
+
+	private void update(Node node) {
+		node.height = 1 + Math.max(height(node.left), height(node.right));
+		node.size = 1 + size(node.left) + size(node.right);
+	}
+
+	private int height(Node node) {
+		return (node == null) ? 0 : node.height;
+	}
 
-		return current;
+	private int size(Node node) {
+		return (node == null) ? 0 : node.size;
 	}
 
 	/**
-	 * Finds the minimum value in a subtree.
-	 * 
+	 * Finds the leftmost (smallest) node of a subtree.
+	 *
 	 * @param node The root of the subtree
-	 * @return The minimum value
+	 * @return The leftmost node
 	 */
-	private T findMin(Node node) {
+	private Node leftmost(Node node) {
 		while (node.left != null) {
 			node = node.left;
 		}
-		return node.data;
+		return node;
+	}
+
+	/**
+	 * Finds the in-order successor of a node.
+	 *
+	 * @param node A node in the tree
+	 * @return The next node in sorted order, or null for the last node
+	 */
+	private Node successor(Node node) {
+		if (node.right != null) {
+			return leftmost(node.right);
+		}
+
+		Node parent = node.parent;
+		while (parent != null && node == parent.right) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent;
+	}
+
+	/**
+	 * Finds the node at the given in-order position using the subtree sizes.
+	 *
+	 * @param index A valid index
+	 * @return The node at that index
+	 */
+	private Node nodeAt(int index) {
+		Node current = root;
+		while (true) {
+			int leftSize = size(current.left);
+			if (index < leftSize) {
+				current = current.left;
+			} else if (index == leftSize) {
+				return current;
+			} else {
+				index -= leftSize + 1;
+				current = current.right;
+			}
+		}
 	}
 
 	/**
 	 * Returns the element at the specified index in in-order traversal.
-	 * 
+	 *
 	 * @param index The index of the element to return
 	 * @return The element at the specified index
 	 * @throws IndexOutOfBoundsException if the index is out of range
@@ -216,17 +529,131 @@ public class SortedListBST<T> implements Iterable<T> {
 			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
 		}
 
-		Iterator<T> it = iterator();
-		for (int i = 0; i < index; i++) {
-			it.next();
+		return nodeAt(index).data;
+	}
+
+	/**
+	 * Returns the number of elements that sort strictly before the given element.
+	 * The element does not have to be in the list.
+	 *
+	 * @param element The element to rank
+	 * @return The index the element would be inserted at ahead of any equal
+	 *         elements
+	 */
+	public int rank(T element) {
+		int rank = 0;
+		Node current = root;
+		while (current != null) {
+			if (comparator.compare(element, current.data) <= 0) {
+				current = current.left;
+			} else {
+				rank += size(current.left) + 1;
+				current = current.right;
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Returns the index of the first element that compares equal to the given
+	 * element.
+	 *
+	 * @param element The element to look for
+	 * @return Its index, or -1 if the list has no equal element
+	 */
+	public int indexOf(T element) {
+		if (element == null) {
+			return -1;
+		}
+
+		int index = rank(element);
+		if (index < size && comparator.compare(element, nodeAt(index).data) == 0) {
+			return index;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns a read-only view of the elements from {@code fromIndex}
+	 * (inclusive) to {@code toIndex} (exclusive). Iterating the view starts at
+	 * {@code fromIndex} directly, so printing one page of a report costs
+	 * O(log n + page size). The view fails with a
+	 * {@link ConcurrentModificationException} once this list is modified.
+	 *
+	 * @param fromIndex Index of the first element of the view
+	 * @param toIndex   Index after the last element of the view
+	 * @return The view
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public List<T> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+		}
+
+		return new SubList(fromIndex, toIndex);
+	}
+
+	private class SubList extends AbstractList<T> {
+		private final int offset;
+		private final int length;
+		private final int expectedModCount;
+
+		SubList(int fromIndex, int toIndex) {
+			this.offset = fromIndex;
+			this.length = toIndex - fromIndex;
+			this.expectedModCount = SortedListBST.this.modCount;
+		}
+
+		private void checkForModification() {
+			if (SortedListBST.this.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public T get(int index) {
+			checkForModification();
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+			}
+			return nodeAt(offset + index).data;
+		}
+
+		@Override
+		public int size() {
+			checkForModification();
+			return length;
 		}
 
-		return it.next();
+		@Override
+		public Iterator<T> iterator() {
+			checkForModification();
+			BSTIterator nodes = new BSTIterator(length == 0 ? null : nodeAt(offset));
+
+			return new Iterator<T>() {
+				private int remaining = length;
+
+				@Override
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+
+				@Override
+				public T next() {
+					checkForModification();
+					if (remaining == 0) {
+						throw new NoSuchElementException();
+					}
+					remaining--;
+					return nodes.next();
+				}
+			};
+		}
 	}
 
 	/**
 	 * Returns the first element in the list (smallest according to comparator).
-	 * 
+	 *
 	 * @return The first element
 	 * @throws NoSuchElementException if the list is empty
 	 */
@@ -235,17 +662,12 @@ public class SortedListBST<T> implements Iterable<T> {
 			throw new NoSuchElementException("The list is empty");
 		}
 
-		Node current = root;
-		while (current.left != null) {
-			current = current.left;
-		}
-
-		return current.data;
+		return leftmost(root).data;
 	}
 
 	/**
 	 * Returns the last element in the list (largest according to comparator).
-	 * 
+	 *
 	 * @return The last element
 	 * @throws NoSuchElementException if the list is empty
 	 */
@@ -264,7 +686,7 @@ public class SortedListBST<T> implements Iterable<T> {
 
 	/**
 	 * Returns the number of elements in the list.
-	 * 
+	 *
 	 * @return The number of elements
 	 */
 	public int size() {
@@ -273,24 +695,34 @@ public class SortedListBST<T> implements Iterable<T> {
 
 	/**
 	 * Returns whether the list is empty.
-	 * 
+	 *
 	 * @return true if the list is empty, false otherwise
 	 */
 	public boolean isEmpty() {
 		return size == 0;
 	}
 
+	/**
+	 * Returns the height of the underlying tree, 0 for an empty list.
+	 *
+	 * @return The number of nodes on the longest root to leaf path
+	 */
+	public int height() {
+		return height(root);
+	}
+
 	/**
 	 * Removes all elements from the list.
 	 */
 	public void clear() {
 		root = null;
 		size = 0;
+		modCount++;
 	}
 
 	/**
 	 * Returns an iterator over the elements in the list in sorted order.
-	 * 
+	 *
 	 * @return An iterator over the elements
 	 */
 	@Override
@@ -300,7 +732,7 @@ public class SortedListBST<T> implements Iterable<T> {
 
 	/**
 	 * Returns a string representation of the list.
-	 * 
+	 *
 	 * @return A string representation of the list
 	 */
 	@Override
@@ -318,4 +750,4 @@ public class SortedListBST<T> implements Iterable<T> {
 		sb.append("]");
 		return sb.toString();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,661 @@
+package com.vgb.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.Address;
+import com.vgb.Company;
+import com.vgb.Equipment;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.Item;
+import com.vgb.Lease;
+import com.vgb.Material;
+import com.vgb.Person;
+import com.vgb.Rental;
+
+/**
+ * Imports persons, emails, companies, items, invoices and invoice items in
+ * batches.
+ * <p>
+ * Foreign keys are resolved in memory: the surrogate keys of the rows the
+ * input names or refers to that are already in the database are read with a
+ * few {@code IN (...)} queries per table, and the keys of new rows are read
+ * back from each batch's generated keys, so no row needs a lookup of its own
+ * and the work grows with the import rather than with the database. Rows are
+ * sent with {@code addBatch}/{@code executeBatch} and every batch is committed
+ * as its own transaction. A batch that fails is rolled back and replayed row
+ * by row behind savepoints, so a bad row is reported in the
+ * {@link ImportResult} while the rest of its batch is still imported.
+ * </p>
+ * <p>
+ * Batching only saves round trips if the driver rewrites a batch into
+ * multi-row inserts, which MySQL Connector/J does only when the connection
+ * URL sets {@code rewriteBatchedStatements=true} (as {@link ConnectionFactory}
+ * does); generated keys are still returned for rewritten insert batches.
+ * Connections from elsewhere should set it too.
+ * </p>
+ * <p>
+ * As with the single row methods in {@code InvoiceData}, rows whose UUID is
+ * already in the database are left alone. Emails are inserted for the persons
+ * the import inserts, and invoice items, which have no natural key, are
+ * always inserted.
+ * </p>
+ *
+ * <pre>
+ * try (Connection conn = ConnectionFactory.getConnection()) {
+ * 	ImportResult result = new BulkImporter(1000).importAll(conn, persons, companies, items, invoices, lines);
+ * }
+ * </pre>
+ */
+public class BulkImporter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BulkImporter.class);
+
+	/**
+	 * Rows sent per batch when no batch size is given.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	/**
+	 * Most keys looked up by one {@code IN (...)} query.
+	 */
+	static final int KEY_CHUNK_SIZE = 1000;
+
+	private static final String PERSON_KEYS = "SELECT personId, uuid FROM Person WHERE uuid IN ";
+	private static final String STATE_KEYS = "SELECT stateId, stateCode FROM State WHERE stateCode IN ";
+	private static final String ZIP_KEYS = "SELECT zipId, zip FROM ZipCode WHERE zip IN ";
+	private static final String ADDRESS_KEYS = """
+			SELECT a.addressId, a.street, a.city, s.stateCode, z.zip
+			FROM Address a
+			JOIN State s ON a.stateId = s.stateId
+			JOIN ZipCode z ON a.zipId = z.zipId
+			WHERE (a.street, a.city, s.stateCode, z.zip) IN \
+			""";
+	private static final String COMPANY_KEYS = "SELECT companyId, uuid FROM Company WHERE uuid IN ";
+	private static final String ITEM_KEYS = "SELECT itemId, uuid FROM Item WHERE uuid IN ";
+	private static final String INVOICE_KEYS = "SELECT invoiceId, uuid FROM Invoice WHERE uuid IN ";
+
+	private static final String INSERT_PERSON = """
+			INSERT INTO Person (uuid, firstName, lastName, phoneNumber)
+			VALUES (?, ?, ?, ?)
+			""";
+	private static final String INSERT_EMAIL = "INSERT INTO Email (address, personId) VALUES (?, ?)";
+	private static final String INSERT_STATE = "INSERT INTO State (stateCode) VALUES (?)";
+	private static final String INSERT_ZIP = "INSERT INTO ZipCode (zip) VALUES (?)";
+	private static final String INSERT_ADDRESS = """
+			INSERT INTO Address (street, city, stateId, zipId)
+			VALUES (?, ?, ?, ?)
+			""";
+	private static final String INSERT_COMPANY = """
+			INSERT INTO Company (uuid, companyName, addressId, personId)
+			VALUES (?, ?, ?, ?)
+			""";
+	private static final String INSERT_ITEM = """
+			INSERT INTO Item (uuid, itemName, itemType, itemPrice, model, unit, unitPrice, customerId)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+			""";
+	private static final String INSERT_INVOICE = """
+			INSERT INTO Invoice (uuid, companyId, salesPersonId, invoiceDate)
+			VALUES (?, ?, ?, ?)
+			""";
+	private static final String INSERT_INVOICE_ITEM = """
+			INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, startDate, endDate, numberOfHours,
+				quantity, price)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+			""";
+
+	/**
+	 * Reads one row of a key query.
+	 */
+	@FunctionalInterface
+	private interface KeyReader {
+		void read(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * Sets the parameters of an insert from one row.
+	 */
+	@FunctionalInterface
+	private interface Binder<T> {
+		void bind(PreparedStatement ps, T row) throws SQLException;
+	}
+
+	private final int batchSize;
+	private final ImportResult result = new ImportResult();
+	private String table;
+
+	private final Map<UUID, Integer> personIds = new HashMap<>();
+	private final Map<String, Integer> stateIds = new HashMap<>();
+	private final Map<String, Integer> zipIds = new HashMap<>();
+	private final Map<String, Integer> addressIds = new HashMap<>();
+	private final Map<UUID, Integer> companyIds = new HashMap<>();
+	private final Map<UUID, Integer> itemIds = new HashMap<>();
+	private final Map<UUID, Integer> invoiceIds = new HashMap<>();
+
+	/**
+	 * Creates an importer sending {@link #DEFAULT_BATCH_SIZE} rows per batch.
+	 */
+	public BulkImporter() {
+		this(DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param batchSize Rows sent and committed per batch
+	 */
+	public BulkImporter(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Imports the given entities using the given connection. Entities may
+	 * refer to each other or to rows already in the database; a row whose
+	 * references cannot be resolved is reported as a failure. Null entries
+	 * are ignored. The connection is left open for the caller to close.
+	 *
+	 * @param conn         The connection to import with
+	 * @param persons      Persons to import, with their emails
+	 * @param companies    Companies to import, with their addresses
+	 * @param items        Catalog items to import
+	 * @param invoices     Invoices to import
+	 * @param invoiceItems Invoice lines to import
+	 * @return What was imported and which rows failed
+	 * @throws SQLException If the import cannot continue, for example because
+	 *                      the connection was lost. Batches committed before
+	 *                      then stay in the database and are counted in
+	 *                      {@link #getResult()}.
+	 */
+	public ImportResult importAll(Connection conn, Collection<Person> persons, Collection<Company> companies,
+			Collection<Item> items, Collection<Invoice> invoices, Collection<InvoiceItem> invoiceItems)
+			throws SQLException {
+		long start = System.nanoTime();
+		boolean autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		try {
+			loadKeys(conn, persons, companies, items, invoices, invoiceItems);
+			importPersons(conn, persons);
+			importAddresses(conn, companies);
+			importCompanies(conn, companies);
+			importItems(conn, items);
+			importInvoices(conn, invoices);
+			importInvoiceItems(conn, invoiceItems);
+		} catch (SQLException e) {
+			result.failed(table, null, "Import stopped: " + e.getMessage());
+			try {
+				conn.rollback();
+			} catch (SQLException rollback) {
+				e.addSuppressed(rollback);
+			}
+			throw e;
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+
+		LOGGER.info("Imported in {} ms: {}", (System.nanoTime() - start) / 1_000_000, result);
+		return result;
+	}
+
+	/**
+	 * @return What has been imported so far
+	 */
+	public ImportResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Reads the keys of the rows that the input names or refers to and that
+	 * are already in the database.
+	 */
+	private void loadKeys(Connection conn, Collection<Person> persons, Collection<Company> companies,
+			Collection<Item> items, Collection<Invoice> invoices, Collection<InvoiceItem> invoiceItems)
+			throws SQLException {
+		table = "keys";
+		Set<UUID> personUuids = new LinkedHashSet<>();
+		Set<UUID> companyUuids = new LinkedHashSet<>();
+		Set<UUID> itemUuids = new LinkedHashSet<>();
+		Set<UUID> invoiceUuids = new LinkedHashSet<>();
+		Set<String> states = new LinkedHashSet<>();
+		Set<String> zips = new LinkedHashSet<>();
+		Map<String, Address> addresses = new LinkedHashMap<>();
+
+		for (Person person : persons) {
+			if (person != null) {
+				personUuids.add(person.getUuid());
+			}
+		}
+		for (Company company : companies) {
+			if (company == null) {
+				continue;
+			}
+			companyUuids.add(company.getUuid());
+			if (company.getContact() != null) {
+				personUuids.add(company.getContact().getUuid());
+			}
+			Address address = company.getAddress();
+			if (address != null) {
+				states.add(address.getState());
+				zips.add(address.getZip());
+				addresses.put(addressKey(address), address);
+			}
+		}
+		for (Item item : items) {
+			if (item != null) {
+				itemUuids.add(item.getUUID());
+				if (item.getCustomer() != null) {
+					companyUuids.add(item.getCustomer().getUuid());
+				}
+			}
+		}
+		for (Invoice invoice : invoices) {
+			if (invoice != null) {
+				invoiceUuids.add(invoice.getInvoiceUUID());
+				if (invoice.getCustomer() != null) {
+					companyUuids.add(invoice.getCustomer().getUuid());
+				}
+				if (invoice.getSalesperson() != null) {
+					personUuids.add(invoice.getSalesperson().getUuid());
+				}
+			}
+		}
+		for (InvoiceItem line : invoiceItems) {
+			if (line != null && line.getInvoice() != null) {
+				invoiceUuids.add(line.getInvoice().getInvoiceUUID());
+			}
+			if (line != null && line.getItem() != null) {
+				itemUuids.add(line.getItem().getUUID());
+			}
+		}
+
+		loadUuidKeys(conn, PERSON_KEYS, personUuids, personIds);
+		loadUuidKeys(conn, COMPANY_KEYS, companyUuids, companyIds);
+		loadUuidKeys(conn, ITEM_KEYS, itemUuids, itemIds);
+		loadUuidKeys(conn, INVOICE_KEYS, invoiceUuids, invoiceIds);
+		loadKeys(conn, STATE_KEYS, states, state -> new String[] { state },
+				rs -> stateIds.put(rs.getString(2), rs.getInt(1)));
+		loadKeys(conn, ZIP_KEYS, zips, zip -> new String[] { zip }, rs -> zipIds.put(rs.getString(2), rs.getInt(1)));
+		loadKeys(conn, ADDRESS_KEYS, addresses.values(),
+				address -> new String[] { address.getStreet(), address.getCity(), address.getState(), address.getZip() },
+				rs -> addressIds.put(addressKey(rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)),
+						rs.getInt(1)));
+	}
+
+	private static void loadUuidKeys(Connection conn, String query, Collection<UUID> uuids, Map<UUID, Integer> ids)
+			throws SQLException {
+		loadKeys(conn, query, uuids, uuid -> new String[] { uuid.toString() },
+				rs -> ids.put(UUID.fromString(rs.getString(2)), rs.getInt(1)));
+	}
+
+	/**
+	 * Runs a key query for the given values in chunks of at most
+	 * {@link #KEY_CHUNK_SIZE}, appending an {@code IN} list of one placeholder
+	 * (or one row of placeholders) per value. Values with a null part are
+	 * skipped, since they cannot match a row.
+	 *
+	 * @param params The parameters a value binds, the same number for every
+	 *               value
+	 */
+	private static <T> void loadKeys(Connection conn, String query, Collection<T> values,
+			Function<T, String[]> params, KeyReader reader) throws SQLException {
+		List<String[]> keys = new ArrayList<>();
+		for (T value : values) {
+			String[] key = (value == null) ? null : params.apply(value);
+			if (key != null && !Arrays.asList(key).contains(null)) {
+				keys.add(key);
+			}
+		}
+
+		for (int from = 0; from < keys.size(); from += KEY_CHUNK_SIZE) {
+			List<String[]> chunk = keys.subList(from, Math.min(keys.size(), from + KEY_CHUNK_SIZE));
+			int width = chunk.get(0).length;
+			String placeholder = (width == 1) ? "?" : "(" + String.join(", ", Collections.nCopies(width, "?")) + ")";
+			String sql = query + "(" + String.join(", ", Collections.nCopies(chunk.size(), placeholder)) + ")";
+			try (PreparedStatement ps = conn.prepareStatement(sql)) {
+				int index = 1;
+				for (String[] key : chunk) {
+					for (String param : key) {
+						ps.setString(index++, param);
+					}
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						reader.read(rs);
+					}
+				}
+			}
+		}
+	}
+
+	private static String addressKey(String street, String city, String state, String zip) {
+		return street + '\n' + city + '\n' + state + '\n' + zip;
+	}
+
+	private static String addressKey(Address address) {
+		return addressKey(address.getStreet(), address.getCity(), address.getState(), address.getZip());
+	}
+
+	private void importPersons(Connection conn, Collection<Person> persons) throws SQLException {
+		Map<UUID, Person> added = new LinkedHashMap<>();
+		for (Person person : persons) {
+			if (person != null && !personIds.containsKey(person.getUuid())) {
+				added.putIfAbsent(person.getUuid(), person);
+			}
+		}
+
+		insert(conn, "Person", INSERT_PERSON, persons, Person::getUuid, personIds, person -> null, (ps, person) -> {
+			ps.setString(1, person.getUuid().toString());
+			ps.setString(2, person.getFirstName());
+			ps.setString(3, person.getLastName());
+			ps.setString(4, person.getPhone());
+		});
+
+		List<Map.Entry<Integer, String>> emails = new ArrayList<>();
+		for (Person person : added.values()) {
+			Integer personId = personIds.get(person.getUuid());
+			if (personId != null && person.getEmails() != null) {
+				for (String email : person.getEmails()) {
+					emails.add(Map.entry(personId, email));
+				}
+			}
+		}
+		insert(conn, "Email", INSERT_EMAIL, emails, Map.Entry::getValue, null, email -> null, (ps, email) -> {
+			ps.setString(1, email.getValue());
+			ps.setInt(2, email.getKey());
+		});
+	}
+
+	private void importAddresses(Connection conn, Collection<Company> companies) throws SQLException {
+		Set<String> states = new LinkedHashSet<>();
+		Set<String> zips = new LinkedHashSet<>();
+		List<Address> addresses = new ArrayList<>();
+		for (Company company : companies) {
+			if (company != null && company.getAddress() != null && !companyIds.containsKey(company.getUuid())) {
+				Address address = company.getAddress();
+				states.add(address.getState());
+				zips.add(address.getZip());
+				addresses.add(address);
+			}
+		}
+
+		insert(conn, "State", INSERT_STATE, states, state -> state, stateIds,
+				state -> state == null ? "No state code" : null, (ps, state) -> ps.setString(1, state));
+		insert(conn, "ZipCode", INSERT_ZIP, zips, zip -> zip, zipIds, zip -> zip == null ? "No zip code" : null,
+				(ps, zip) -> ps.setString(1, zip));
+		insert(conn, "Address", INSERT_ADDRESS, addresses, BulkImporter::addressKey, addressIds, address -> {
+			if (!stateIds.containsKey(address.getState())) {
+				return "State " + address.getState() + " could not be imported";
+			}
+			return zipIds.containsKey(address.getZip()) ? null : "Zip code " + address.getZip() + " could not be imported";
+		}, (ps, address) -> {
+			ps.setString(1, address.getStreet());
+			ps.setString(2, address.getCity());
+			ps.setInt(3, stateIds.get(address.getState()));
+			ps.setInt(4, zipIds.get(address.getZip()));
+		});
+	}
+
+	private void importCompanies(Connection conn, Collection<Company> companies) throws SQLException {
+		insert(conn, "Company", INSERT_COMPANY, companies, Company::getUuid, companyIds, company -> {
+			if (company.getContact() == null || !personIds.containsKey(company.getContact().getUuid())) {
+				return "Contact does not exist";
+			}
+			if (company.getAddress() == null || !addressIds.containsKey(addressKey(company.getAddress()))) {
+				return "Address does not exist";
+			}
+			return null;
+		}, (ps, company) -> {
+			ps.setString(1, company.getUuid().toString());
+			ps.setString(2, company.getName());
+			ps.setInt(3, addressIds.get(addressKey(company.getAddress())));
+			ps.setInt(4, personIds.get(company.getContact().getUuid()));
+		});
+	}
+
+	private void importItems(Connection conn, Collection<Item> items) throws SQLException {
+		insert(conn, "Item", INSERT_ITEM, items, Item::getUUID, itemIds, item -> {
+			if (item.getCustomer() != null && !companyIds.containsKey(item.getCustomer().getUuid())) {
+				return "Customer " + item.getCustomer().getUuid() + " does not exist";
+			}
+			return null;
+		}, (ps, item) -> {
+			ps.setString(1, item.getUUID().toString());
+			ps.setString(2, item.getName());
+			ps.setDouble(4, item.getPrice());
+			ps.setNull(5, Types.VARCHAR);
+			ps.setNull(6, Types.VARCHAR);
+			ps.setNull(7, Types.DOUBLE);
+			if (item instanceof Equipment) {
+				ps.setString(3, "E");
+				ps.setString(5, ((Equipment) item).getModelName());
+			} else if (item instanceof Material) {
+				ps.setString(3, "M");
+				ps.setString(6, ((Material) item).getUnit());
+				ps.setDouble(7, item.getPrice());
+			} else {
+				ps.setString(3, "C");
+			}
+			if (item.getCustomer() == null) {
+				ps.setNull(8, Types.INTEGER);
+			} else {
+				ps.setInt(8, companyIds.get(item.getCustomer().getUuid()));
+			}
+		});
+	}
+
+	private void importInvoices(Connection conn, Collection<Invoice> invoices) throws SQLException {
+		insert(conn, "Invoice", INSERT_INVOICE, invoices, Invoice::getInvoiceUUID, invoiceIds, invoice -> {
+			if (invoice.getCustomer() == null || !companyIds.containsKey(invoice.getCustomer().getUuid())) {
+				return "Customer does not exist";
+			}
+			if (invoice.getSalesperson() == null || !personIds.containsKey(invoice.getSalesperson().getUuid())) {
+				return "Salesperson does not exist";
+			}
+			return invoice.getInvoiceDate() == null ? "No invoice date" : null;
+		}, (ps, invoice) -> {
+			ps.setString(1, invoice.getInvoiceUUID().toString());
+			ps.setInt(2, companyIds.get(invoice.getCustomer().getUuid()));
+			ps.setInt(3, personIds.get(invoice.getSalesperson().getUuid()));
+			ps.setString(4, invoice.getInvoiceDate().toString());
+		});
+	}
+
+	private void importInvoiceItems(Connection conn, Collection<InvoiceItem> invoiceItems) throws SQLException {
+		insert(conn, "InvoiceItem", INSERT_INVOICE_ITEM, invoiceItems, BulkImporter::lineKey, null,
+				this::checkLine, (ps, line) -> {
+					Item item = line.getItem();
+					ps.setString(1, UUID.randomUUID().toString());
+					ps.setInt(2, invoiceIds.get(line.getInvoice().getInvoiceUUID()));
+					ps.setString(3, String.valueOf(item.getLineType().getCode()));
+					ps.setInt(4, itemIds.get(item.getUUID()));
+					ps.setNull(5, Types.VARCHAR);
+					ps.setNull(6, Types.VARCHAR);
+					ps.setNull(7, Types.DOUBLE);
+					ps.setNull(8, Types.DOUBLE);
+					ps.setNull(9, Types.DOUBLE);
+					switch (item.getLineType()) {
+					case LEASE:
+						ps.setString(5, ((Lease) item).getStartDate().toString());
+						ps.setString(6, ((Lease) item).getEndDate().toString());
+						break;
+					case RENTAL:
+						ps.setDouble(7, ((Rental) item).getHours());
+						break;
+					case MATERIAL:
+						ps.setDouble(8, ((Material) item).getQuantity());
+						break;
+					case CONTRACT:
+						ps.setDouble(9, item.getPrice());
+						break;
+					default:
+						break;
+					}
+				});
+	}
+
+	/**
+	 * Identifies an invoice line in failures by its invoice and item.
+	 */
+	private static String lineKey(InvoiceItem line) {
+		UUID invoice = line.getInvoice() == null ? null : line.getInvoice().getInvoiceUUID();
+		UUID item = line.getItem() == null ? null : line.getItem().getUUID();
+		return invoice + "/" + item;
+	}
+
+	private String checkLine(InvoiceItem line) {
+		if (line.getInvoice() == null || !invoiceIds.containsKey(line.getInvoice().getInvoiceUUID())) {
+			return "Invoice does not exist";
+		}
+		Item item = line.getItem();
+		if (item == null || !itemIds.containsKey(item.getUUID())) {
+			return "Item does not exist";
+		}
+		if (item instanceof Lease && (((Lease) item).getStartDate() == null || ((Lease) item).getEndDate() == null)) {
+			return "Lease dates cannot be null";
+		}
+		if (item instanceof Rental && ((Rental) item).getHours() == 0) {
+			return "Number of hours for rental cannot be 0";
+		}
+		return null;
+	}
+
+	/**
+	 * Inserts rows in batches, skipping rows whose key is already known and
+	 * reporting rows that fail their check.
+	 *
+	 * @param ids   Surrogate keys by natural key, filled with the generated
+	 *              keys of inserted rows; null for tables whose rows are
+	 *              always inserted
+	 * @param check Returns why a row cannot be inserted, or null if it can
+	 */
+	private <K, T> void insert(Connection conn, String table, String sql, Iterable<T> rows, Function<T, K> keyOf,
+			Map<K, Integer> ids, Function<T, String> check, Binder<T> binder) throws SQLException {
+		this.table = table;
+		int generatedKeys = (ids == null) ? Statement.NO_GENERATED_KEYS : Statement.RETURN_GENERATED_KEYS;
+		try (PreparedStatement ps = conn.prepareStatement(sql, generatedKeys)) {
+			List<T> batch = new ArrayList<>(batchSize);
+			Set<K> pending = new HashSet<>();
+			for (T row : rows) {
+				if (row == null) {
+					continue;
+				}
+				K key = keyOf.apply(row);
+				if (ids != null && (ids.containsKey(key) || pending.contains(key))) {
+					result.existing(table);
+					continue;
+				}
+				String problem = check.apply(row);
+				if (problem != null) {
+					result.failed(table, key, problem);
+					continue;
+				}
+				if (ids != null) {
+					pending.add(key);
+				}
+				batch.add(row);
+				if (batch.size() == batchSize) {
+					flush(conn, ps, batch, keyOf, ids, binder);
+					batch.clear();
+					pending.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				flush(conn, ps, batch, keyOf, ids, binder);
+			}
+		}
+	}
+
+	/**
+	 * Sends and commits one batch, replaying it row by row if it fails.
+	 */
+	private <K, T> void flush(Connection conn, PreparedStatement ps, List<T> batch, Function<T, K> keyOf,
+			Map<K, Integer> ids, Binder<T> binder) throws SQLException {
+		try {
+			for (T row : batch) {
+				binder.bind(ps, row);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			List<Integer> keys = (ids == null) ? null : generatedKeys(ps, batch.size());
+			conn.commit();
+
+			if (ids != null) {
+				for (int i = 0; i < batch.size(); i++) {
+					ids.put(keyOf.apply(batch.get(i)), keys.get(i));
+				}
+			}
+			result.inserted(table, batch.size());
+		} catch (SQLException e) {
+			LOGGER.debug("Batch of {} {} rows failed, retrying row by row", batch.size(), table, e);
+			conn.rollback();
+			ps.clearBatch();
+			replay(conn, ps, batch, keyOf, ids, binder);
+		}
+	}
+
+	/**
+	 * Inserts a failed batch one row at a time, rolling back to a savepoint
+	 * for each row that fails, and commits the rows that succeed.
+	 */
+	private <K, T> void replay(Connection conn, PreparedStatement ps, List<T> batch, Function<T, K> keyOf,
+			Map<K, Integer> ids, Binder<T> binder) throws SQLException {
+		Map<K, Integer> added = new HashMap<>();
+		int count = 0;
+		for (T row : batch) {
+			Savepoint savepoint = conn.setSavepoint();
+			try {
+				binder.bind(ps, row);
+				ps.executeUpdate();
+				if (ids != null) {
+					added.put(keyOf.apply(row), generatedKeys(ps, 1).get(0));
+				}
+				count++;
+			} catch (SQLException e) {
+				conn.rollback(savepoint);
+				result.failed(table, keyOf.apply(row), e.getMessage());
+			}
+		}
+		conn.commit();
+
+		if (ids != null) {
+			ids.putAll(added);
+		}
+		result.inserted(table, count);
+	}
+
+	private static List<Integer> generatedKeys(PreparedStatement ps, int expected) throws SQLException {
+		List<Integer> keys = new ArrayList<>(expected);
+		try (ResultSet rs = ps.getGeneratedKeys()) {
+			while (rs.next()) {
+				keys.add(rs.getInt(1));
+			}
+		}
+		if (keys.size() != expected) {
+			throw new SQLException("Expected " + expected + " generated keys but got " + keys.size());
+		}
+		return keys;
+	}
+
+}
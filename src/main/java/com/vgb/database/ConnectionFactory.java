@@ -7,20 +7,40 @@ import java.sql.SQLException;
 /**
  * Utility class for managing database connections. Handles connection creation
  * and safe closure with logging.
+ * <p>
+ * Connections are borrowed from a shared {@link ConnectionPool};
+ * {@link #closeConnection(Connection)} (or {@code close()}) hands them back to
+ * the pool instead of closing the physical connection.
+ * </p>
  */
 
 public abstract class ConnectionFactory {
 
-	private static final String URL = "jdbc:mysql://nuros.unl.edu/rsamarasinghe2";
+	/**
+	 * {@code rewriteBatchedStatements} makes Connector/J send a batch of
+	 * inserts as multi-row statements instead of one round trip per row.
+	 */
+	private static final String URL = "jdbc:mysql://nuros.unl.edu/rsamarasinghe2?rewriteBatchedStatements=true";
 	private static final String USERNAME = "rsamarasinghe2";
 	private static final String PASSWORD = "mohmao4Coaha";
 
+	private static final int MAX_POOL_SIZE = 10;
+	private static final long BORROW_TIMEOUT_MILLIS = 30_000;
+	private static final long IDLE_TIMEOUT_MILLIS = 10 * 60_000;
+	private static final long MAX_LIFETIME_MILLIS = 30 * 60_000;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private static final ConnectionPool POOL = new ConnectionPool(
+			() -> DriverManager.getConnection(ConnectionFactory.URL, ConnectionFactory.USERNAME,
+					ConnectionFactory.PASSWORD),
+			MAX_POOL_SIZE, BORROW_TIMEOUT_MILLIS, IDLE_TIMEOUT_MILLIS, MAX_LIFETIME_MILLIS,
+			VALIDATION_TIMEOUT_SECONDS);
+
 	public static Connection getConnection() throws SQLException {
 		Connection connection = null;
 		try {
 
-			connection = DriverManager.getConnection(ConnectionFactory.URL, ConnectionFactory.USERNAME,
-					ConnectionFactory.PASSWORD);
+			connection = POOL.getConnection();
 
 		} catch (SQLException e) {
 
@@ -40,4 +60,11 @@ public abstract class ConnectionFactory {
 		}
 	}
 
+	/**
+	 * @return Counters of the shared connection pool
+	 */
+	public static PoolStats getPoolStats() {
+		return POOL.getStats();
+	}
+
 }
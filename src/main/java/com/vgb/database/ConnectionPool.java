@@ -0,0 +1,372 @@
+package com.vgb.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of physical database connections.
+ * <p>
+ * Borrowers wait in FIFO order for at most the borrow timeout. Idle connections
+ * are validated before they are handed out, and are retired once they have been
+ * idle longer than the idle timeout or open longer than the maximum lifetime.
+ * </p>
+ * <p>
+ * Borrowed connections are handed out as wrappers: calling {@code close()} on
+ * them closes any statements still open and returns the physical connection to
+ * the pool instead of closing it.
+ * </p>
+ */
+public class ConnectionPool implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+	/**
+	 * Opens new physical connections for the pool.
+	 */
+	@FunctionalInterface
+	public interface ConnectionSource {
+		Connection open() throws SQLException;
+	}
+
+	/**
+	 * A physical connection together with its bookkeeping.
+	 */
+	private static class PooledConnection {
+		private final Connection connection;
+		private final long createdAt;
+		private long lastReturned;
+
+		private PooledConnection(Connection connection, long createdAt) {
+			this.connection = connection;
+			this.createdAt = createdAt;
+			this.lastReturned = createdAt;
+		}
+	}
+
+	private final ConnectionSource source;
+	private final int maxSize;
+	private final long borrowTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final long maxLifetimeMillis;
+	private final int validationTimeoutSeconds;
+	private final LongSupplier clock;
+
+	private final Semaphore permits;
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger waiters = new AtomicInteger();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private volatile boolean closed;
+
+	/**
+	 * Creates a pool
+	 *
+	 * @param source                   Opens the physical connections
+	 * @param maxSize                  Maximum number of connections, borrowed or
+	 *                                 idle
+	 * @param borrowTimeoutMillis      How long a borrower waits for a free
+	 *                                 connection
+	 * @param idleTimeoutMillis        How long a connection may sit idle before
+	 *                                 it is closed
+	 * @param maxLifetimeMillis        How long a physical connection may be kept
+	 *                                 open
+	 * @param validationTimeoutSeconds Timeout passed to
+	 *                                 {@link Connection#isValid(int)} on borrow
+	 */
+	public ConnectionPool(ConnectionSource source, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+			long maxLifetimeMillis, int validationTimeoutSeconds) {
+		this(source, maxSize, borrowTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis, validationTimeoutSeconds,
+				System::currentTimeMillis);
+	}
+
+	ConnectionPool(ConnectionSource source, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+			long maxLifetimeMillis, int validationTimeoutSeconds, LongSupplier clock) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least 1");
+		}
+		this.source = source;
+		this.maxSize = maxSize;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.maxLifetimeMillis = maxLifetimeMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		this.clock = clock;
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	/**
+	 * Borrows a connection, waiting up to the borrow timeout for one to become
+	 * free.
+	 *
+	 * @return A pooled connection, returned to the pool by {@code close()}
+	 * @throws SQLTimeoutException If no connection became free in time
+	 * @throws SQLException        If a new physical connection could not be opened
+	 */
+	public Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+
+		long start = System.nanoTime();
+		boolean acquired;
+		waiters.incrementAndGet();
+		try {
+			acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection", e);
+		} finally {
+			waiters.decrementAndGet();
+		}
+		long waited = System.nanoTime() - start;
+		totalWaitNanos.addAndGet(waited);
+		maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+		if (!acquired) {
+			timeoutCount.incrementAndGet();
+			throw new SQLTimeoutException(
+					"Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+		}
+
+		try {
+			PooledConnection pooled = takeIdle();
+			if (pooled == null) {
+				pooled = new PooledConnection(source.open(), clock.getAsLong());
+				createdCount.incrementAndGet();
+			}
+			active.incrementAndGet();
+			borrowCount.incrementAndGet();
+			return wrap(pooled);
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Takes the most recently used idle connection that is still within its
+	 * lifetime and passes validation. Connections that fail are closed.
+	 */
+	private PooledConnection takeIdle() {
+		while (true) {
+			PooledConnection pooled;
+			synchronized (idle) {
+				pooled = idle.pollFirst();
+			}
+			if (pooled == null) {
+				return null;
+			}
+
+			long now = clock.getAsLong();
+			if (isExpired(pooled, now) || now - pooled.lastReturned > idleTimeoutMillis) {
+				closePhysical(pooled);
+				continue;
+			}
+
+			try {
+				if (pooled.connection.isValid(validationTimeoutSeconds)) {
+					return pooled;
+				}
+			} catch (SQLException e) {
+				LOGGER.debug("Validation of pooled connection failed", e);
+			}
+			LOGGER.info("Discarding invalid pooled connection");
+			closePhysical(pooled);
+		}
+	}
+
+	/**
+	 * Gives a borrowed connection back. Connections with open transactions are
+	 * rolled back first.
+	 */
+	private void release(PooledConnection pooled) {
+		active.decrementAndGet();
+		try {
+			boolean reusable = !closed && !isExpired(pooled, clock.getAsLong()) && !pooled.connection.isClosed();
+			if (reusable && !pooled.connection.getAutoCommit()) {
+				pooled.connection.rollback();
+				pooled.connection.setAutoCommit(true);
+			}
+
+			if (reusable) {
+				pooled.lastReturned = clock.getAsLong();
+				synchronized (idle) {
+					idle.offerFirst(pooled);
+				}
+			} else {
+				closePhysical(pooled);
+			}
+		} catch (SQLException e) {
+			LOGGER.warn("Could not reset returned connection, closing it", e);
+			closePhysical(pooled);
+		} finally {
+			permits.release();
+		}
+		evictIdle();
+	}
+
+	/**
+	 * Closes idle connections that have been idle for too long or have reached
+	 * their maximum lifetime.
+	 */
+	public void evictIdle() {
+		long now = clock.getAsLong();
+		List<PooledConnection> evicted = new ArrayList<>();
+		synchronized (idle) {
+			idle.removeIf(p -> {
+				boolean stale = isExpired(p, now) || now - p.lastReturned > idleTimeoutMillis;
+				if (stale) {
+					evicted.add(p);
+				}
+				return stale;
+			});
+		}
+		evicted.forEach(this::closePhysical);
+	}
+
+	private boolean isExpired(PooledConnection pooled, long now) {
+		return now - pooled.createdAt >= maxLifetimeMillis;
+	}
+
+	private void closePhysical(PooledConnection pooled) {
+		try {
+			pooled.connection.close();
+		} catch (SQLException e) {
+			LOGGER.debug("Error closing physical connection", e);
+		}
+	}
+
+	/**
+	 * @return A snapshot of the pool counters
+	 */
+	public PoolStats getStats() {
+		int idleCount;
+		synchronized (idle) {
+			idleCount = idle.size();
+		}
+		return new PoolStats(maxSize, active.get(), idleCount, waiters.get(), borrowCount.get(),
+				createdCount.get(), timeoutCount.get(), totalWaitNanos.get(), maxWaitNanos.get());
+	}
+
+	/**
+	 * Closes every idle connection and refuses further borrows. Borrowed
+	 * connections are closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		List<PooledConnection> drained;
+		synchronized (idle) {
+			drained = new ArrayList<>(idle);
+			idle.clear();
+		}
+		drained.forEach(this::closePhysical);
+	}
+
+	private Connection wrap(PooledConnection pooled) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new Handle(pooled));
+	}
+
+	/**
+	 * Routes calls on a borrowed connection to the physical connection until the
+	 * borrower closes it.
+	 */
+	private class Handle implements InvocationHandler {
+		private final PooledConnection pooled;
+		private final List<Statement> statements = new ArrayList<>();
+		private volatile boolean returned;
+
+		private Handle(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				returnToPool();
+				return null;
+			case "isClosed":
+				return returned || pooled.connection.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Pooled" + pooled.connection;
+			default:
+				break;
+			}
+
+			if (returned) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+
+			Object result;
+			try {
+				result = method.invoke(pooled.connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+
+			if (result instanceof Statement) {
+				trackStatement((Statement) result);
+			}
+			return result;
+		}
+
+		private synchronized void trackStatement(Statement statement) throws SQLException {
+			if (statements.size() >= 64) {
+				statements.removeIf(s -> {
+					try {
+						return s.isClosed();
+					} catch (SQLException e) {
+						return true;
+					}
+				});
+			}
+			statements.add(statement);
+		}
+
+		private synchronized void returnToPool() {
+			if (returned) {
+				return;
+			}
+			returned = true;
+
+			for (Statement statement : statements) {
+				try {
+					statement.close();
+				} catch (SQLException e) {
+					LOGGER.debug("Error closing leaked statement", e);
+				}
+			}
+			statements.clear();
+			release(pooled);
+		}
+	}
+
+}
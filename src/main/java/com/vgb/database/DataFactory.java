@@ -4,35 +4,180 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Runs read queries on a connection given by the caller and streams the mapped
+ * rows.
+ * <p>
+ * Statements are prepared forward-only and read-only with
+ * {@link #STREAMING_FETCH_SIZE}, which makes MySQL Connector/J stream rows
+ * instead of buffering the whole result. The query's statement and result set
+ * are always released: by the time {@link #forEach} returns, or when the
+ * {@link Stream} returned by {@link #stream} is closed or exhausted. The
+ * connection stays open for the caller to close.
+ * </p>
+ * <p>
+ * A connection cannot run other statements while it is streaming a result, so
+ * when the mapper is handed the query's own connection for its nested lookups
+ * the rows are fetched buffered instead. Callers that want to stream and still
+ * let the mapper look rows up must hand it a second connection.
+ * </p>
+ */
+public abstract class DataFactory {
 
-public abstract class DataFactory  {
-	
 	private static final Logger LOGGER = LoggerFactory.getLogger(DataFactory.class);
-	
-	
-	protected static ResultSet runQuery(String query){
-		
-		Connection conn = null;
-		ResultSet rs = null;
-		try {
-			
-			conn = ConnectionFactory.getConnection();
-			
-			PreparedStatement ps = conn.prepareStatement(query);
-			rs = ps.executeQuery();
-			
-		}catch (SQLException e) {
-            LOGGER.error("Error loading table from database", e);
-            throw new RuntimeException("Failed to load table from database", e);
-        }
-		
-	
-		return rs;
-		
+
+	/**
+	 * Fetch size that switches MySQL Connector/J to row-by-row streaming.
+	 */
+	public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+	/**
+	 * Fetch size that lets the driver buffer the whole result, so the
+	 * connection stays free for other statements.
+	 */
+	private static final int BUFFERED_FETCH_SIZE = 0;
+
+	/**
+	 * Open query resources, released together exactly once.
+	 */
+	private static class Cursor implements AutoCloseable {
+		private PreparedStatement ps;
+		private ResultSet rs;
+		private boolean released;
+
+		private Cursor(Connection conn, String query, int fetchSize) throws SQLException {
+			try {
+				ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				try {
+					ps.setFetchSize(fetchSize);
+				} catch (SQLException e) {
+					LOGGER.debug("Driver rejected fetch size {}", fetchSize, e);
+				}
+				rs = ps.executeQuery();
+			} catch (SQLException e) {
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (released) {
+				return;
+			}
+			released = true;
+
+			try {
+				if (rs != null) {
+					rs.close();
+				}
+			} catch (SQLException e) {
+				LOGGER.warn("Error closing result set", e);
+			}
+			try {
+				if (ps != null) {
+					ps.close();
+				}
+			} catch (SQLException e) {
+				LOGGER.warn("Error closing statement", e);
+			}
+		}
+	}
+
+	/**
+	 * @return The fetch size to use, buffered if the mapper shares the query's
+	 *         connection
+	 */
+	private static int fetchSize(Connection conn, Connection mapperConn, int fetchSize) {
+		return (conn == mapperConn) ? BUFFERED_FETCH_SIZE : fetchSize;
+	}
+
+	/**
+	 * Runs a query and hands every mapped row to the given action. The
+	 * statement and result set are released before this method returns.
+	 *
+	 * @param <T>        Type of the mapped rows
+	 * @param conn       Connection to run the query on, left open
+	 * @param query      The SQL query to run
+	 * @param mapper     Maps a single row
+	 * @param mapperConn Connection passed on to the mapper for nested lookups;
+	 *                   may be {@code conn}
+	 * @param action     Called once per row, in result order
+	 * @throws SQLException If the query or a mapper fails
+	 */
+	public static <T> void forEach(Connection conn, String query, DataMapper<T> mapper, Connection mapperConn,
+			Consumer<? super T> action) throws SQLException {
+		try (Cursor cursor = new Cursor(conn, query, fetchSize(conn, mapperConn, STREAMING_FETCH_SIZE))) {
+			while (cursor.rs.next()) {
+				action.accept(mapper.map(cursor.rs, mapperConn));
+			}
+		}
+	}
+
+	/**
+	 * Runs a query and returns its mapped rows as a lazily evaluated stream. The
+	 * stream must be closed, ideally with try-with-resources, before the
+	 * connection is; it also releases its statement and result set as soon as
+	 * the last row has been read or a mapper fails.
+	 *
+	 * @param <T>        Type of the mapped rows
+	 * @param conn       Connection to run the query on, left open
+	 * @param query      The SQL query to run
+	 * @param mapper     Maps a single row
+	 * @param mapperConn Connection passed on to the mapper for nested lookups;
+	 *                   may be {@code conn}
+	 * @return The mapped rows in result order
+	 * @throws SQLException If the query cannot be started
+	 */
+	public static <T> Stream<T> stream(Connection conn, String query, DataMapper<T> mapper, Connection mapperConn)
+			throws SQLException {
+		return stream(conn, query, mapper, mapperConn, STREAMING_FETCH_SIZE);
+	}
+
+	/**
+	 * Same as {@link #stream(Connection, String, DataMapper, Connection)} with
+	 * an explicit fetch size, for drivers that do not understand
+	 * {@link #STREAMING_FETCH_SIZE}.
+	 */
+	public static <T> Stream<T> stream(Connection conn, String query, DataMapper<T> mapper, Connection mapperConn,
+			int fetchSize) throws SQLException {
+		Cursor cursor = new Cursor(conn, query, fetchSize(conn, mapperConn, fetchSize));
+
+		Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+				Spliterator.ORDERED) {
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				if (cursor.released) {
+					return false;
+				}
+				try {
+					if (!cursor.rs.next()) {
+						cursor.close();
+						return false;
+					}
+					action.accept(mapper.map(cursor.rs, mapperConn));
+					return true;
+				} catch (SQLException e) {
+					cursor.close();
+					LOGGER.error("Error streaming rows from database", e);
+					throw new RuntimeException("Failed to load table from database", e);
+				} catch (RuntimeException e) {
+					cursor.close();
+					throw e;
+				}
+			}
+		};
+
+		return StreamSupport.stream(rows, false).onClose(cursor::close);
 	}
 
 }
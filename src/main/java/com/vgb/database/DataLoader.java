@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -20,11 +21,30 @@ import com.vgb.Invoice;
 /**
  * DataLoader class for loading entity data from the database
  * Handles Person, Address, Company, Item, Invoice and InvoiceItem entities
+ * <p>
+ * Each load runs inside an {@link EntityCache} session, so rows referenced by
+ * many others (companies, persons, items, invoices) are only built once.
+ * <p>
+ * A load runs its query and the mapper's nested lookups on the same
+ * connection, so it holds a single pool slot.
  */
 public class DataLoader {
     
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(DataLoader.class);
+
+    private final ConnectionPool.ConnectionSource connections;
+
+    public DataLoader() {
+        this(ConnectionFactory::getConnection);
+    }
+
+    /**
+     * @param connections Where loads without a connection of their own borrow one
+     */
+    DataLoader(ConnectionPool.ConnectionSource connections) {
+        this.connections = connections;
+    }
    
     
     /**
@@ -35,40 +55,36 @@ public class DataLoader {
      * Example : UUID, Company
      * @param query The SQL query that will load the required the tables from the DB
      * @param mapper The factory class required to create the relevant POJOs
+     * @param conn Connection the query and the mapper's nested lookups run on, or null to borrow one for this load
      * @return Required Map to be used in ReportUtils
      */
     public <T> Map<UUID,T> loadData(String query, DataMapper<T> mapper, Connection conn) {
     	
-    	try {
-    	    conn = ConnectionFactory.getConnection();
-    	    }catch (SQLException e) {
-    	    	LOGGER.error("Bad Connection", e);
-    	    }
+    	boolean ownsConnection = (conn == null);
+    	if (ownsConnection) {
+    		try {
+    			conn = connections.open();
+    		}catch (SQLException e) {
+    			LOGGER.error("Bad Connection", e);
+    			return new HashMap<>();
+    		}
+    	}
     	
         Map<UUID, T> results = new HashMap<>();
+        EntityCache cache = EntityCache.open();
         try {
-        	ResultSet rs = DataFactory.runQuery(query);
-        	
-            while (rs.next()) {
-            	
-            	UUID uuid = UUID.fromString(rs.getString("uuid"));
-                results.put(uuid, mapper.map(rs, conn));
-            }
-            
-            rs.close();
+        	DataFactory.forEach(conn, query,
+        			(rs, c) -> new AbstractMap.SimpleEntry<>(UUID.fromString(rs.getString("uuid")), mapper.map(rs, c)),
+        			conn, row -> results.put(row.getKey(), row.getValue()));
         } catch (SQLException e) {
             LOGGER.error("Error loading data", e);
+        } finally {
+            cache.close();
+            if (ownsConnection) {
+            	ConnectionFactory.closeConnection(conn);
+            }
         }
         
-    	try {
-			if(!conn.isClosed()) {
-			ConnectionFactory.closeConnection(conn);
-			}
-		} catch (SQLException e) {
-			LOGGER.error("Closing connection no no :(",e);
-			e.printStackTrace();
-		}
-        
         return results;
     }
     
@@ -83,7 +99,7 @@ public class DataLoader {
      * @param <T>    The type of the items
      * @param query  The SQL query to execute.
      * @param mapper The mapper used to convert each row into an object of type {@code T}.
-     * @param conn   The database connection
+     * @param conn   The connection the query and the mapper run on; closed afterwards
      * @return A map grouping {@code T} items under their corresponding {@code Invoice}.
      * @throws SQLException If a database access error occurs.
      */
@@ -91,23 +107,15 @@ public class DataLoader {
     	 
     	    Map<Invoice, List<T>> results = new HashMap<>();
 
+    	    EntityCache cache = EntityCache.open();
     	    try {
-   	        
-    	        ResultSet rs = DataFactory.runQuery(query);
-
-    	        while (rs.next()) {
-    	        	
-    	        	
-    	            Invoice invoice = IDLoader.loadInvoiceById(rs.getInt("invoiceId"), conn) ;
-    	            T item = mapper.map(rs, conn);
-
-    	            results.computeIfAbsent(invoice, k -> new ArrayList<>()).add(item);
-    	        }
-
-    	        rs.close();
+    	        DataFactory.forEach(conn, query,
+    	        		(rs, c) -> new AbstractMap.SimpleEntry<>(IDLoader.loadInvoiceById(rs.getInt("invoiceId"), c), mapper.map(rs, c)),
+    	        		conn, row -> results.computeIfAbsent(row.getKey(), k -> new ArrayList<>()).add(row.getValue()));
     	    } catch (SQLException e) {
     	        LOGGER.error("Error grouping data", e);
     	    } finally {
+    	        cache.close();
     	        try {
     	            if (conn != null && !conn.isClosed()) {
     	                ConnectionFactory.closeConnection(conn);
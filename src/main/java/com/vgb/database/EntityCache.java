@@ -0,0 +1,157 @@
+package com.vgb.database;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Identity map for a single load session.
+ * <p>
+ * While a session is open on the current thread, {@link IDLoader} and the
+ * {@link DataMapper} implementations look entities up by table and primary key
+ * before querying the database, so each row is built once per load and shared
+ * by reference. Sessions nest: opening a session while one is already active
+ * joins the outer session, and only the outermost {@link #close()} ends it.
+ * </p>
+ *
+ * <pre>
+ * EntityCache cache = EntityCache.open();
+ * try {
+ * 	Invoice invoice = IDLoader.loadInvoiceById(id, conn);
+ * } finally {
+ * 	cache.close();
+ * }
+ * </pre>
+ */
+public class EntityCache implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EntityCache.class);
+
+	private static final ThreadLocal<EntityCache> CURRENT = new ThreadLocal<>();
+
+	private final Map<String, Map<Object, Object>> entities = new HashMap<>();
+	private final Map<String, Long> hits = new HashMap<>();
+	private final Map<String, Long> misses = new HashMap<>();
+	private int depth;
+
+	private EntityCache() {
+		this.depth = 0;
+	}
+
+	/**
+	 * Opens a load session on the current thread, or joins the one that is
+	 * already open.
+	 *
+	 * @return The active session
+	 */
+	public static EntityCache open() {
+		EntityCache cache = CURRENT.get();
+		if (cache == null) {
+			cache = new EntityCache();
+			CURRENT.set(cache);
+		}
+		cache.depth++;
+		return cache;
+	}
+
+	/**
+	 * @return The session open on the current thread, or null if there is none
+	 */
+	public static EntityCache current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Looks up an entity and counts the lookup as a hit or a miss.
+	 *
+	 * @param <T>   Type of the cached entity
+	 * @param table Table the entity was loaded from
+	 * @param key   Primary key of the row
+	 * @return The cached entity, or null if it has not been loaded yet
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String table, Object key) {
+		Map<Object, Object> rows = entities.get(table);
+		Object entity = (rows == null) ? null : rows.get(key);
+
+		if (entity == null) {
+			misses.merge(table, 1L, Long::sum);
+		} else {
+			hits.merge(table, 1L, Long::sum);
+		}
+		return (T) entity;
+	}
+
+	/**
+	 * Registers a loaded entity. Null entities are not cached.
+	 *
+	 * @param table  Table the entity was loaded from
+	 * @param key    Primary key of the row
+	 * @param entity The entity built from the row
+	 */
+	public void put(String table, Object key, Object entity) {
+		if (entity != null) {
+			entities.computeIfAbsent(table, k -> new HashMap<>()).put(key, entity);
+		}
+	}
+
+	/**
+	 * @return Number of lookups answered from the cache
+	 */
+	public long getHits() {
+		return hits.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * @return Number of lookups that had to go to the database
+	 */
+	public long getMisses() {
+		return misses.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * @param table Table name
+	 * @return Number of lookups for the table answered from the cache
+	 */
+	public long getHits(String table) {
+		return hits.getOrDefault(table, 0L);
+	}
+
+	/**
+	 * @param table Table name
+	 * @return Number of lookups for the table that had to go to the database
+	 */
+	public long getMisses(String table) {
+		return misses.getOrDefault(table, 0L);
+	}
+
+	/**
+	 * @param table Table name
+	 * @return Number of distinct entities cached for the table
+	 */
+	public int size(String table) {
+		Map<Object, Object> rows = entities.get(table);
+		return (rows == null) ? 0 : rows.size();
+	}
+
+	/**
+	 * Leaves the session. The outermost close ends the session on this thread
+	 * and drops every cached entity.
+	 */
+	@Override
+	public void close() {
+		depth--;
+		if (depth > 0) {
+			return;
+		}
+
+		LOGGER.debug("Load session finished: {} hits, {} misses {}", getHits(), getMisses(), misses);
+		entities.clear();
+		if (CURRENT.get() == this) {
+			CURRENT.remove();
+		}
+	}
+
+}
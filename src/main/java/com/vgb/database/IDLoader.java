@@ -27,37 +27,59 @@ import com.vgb.factory.LoadPerson;
  * @param <T> The type of object being loaded. This type must be supported by the provided {@link DataMapper}.
  *
  * <p>This class delegates the mapping of the {@link ResultSet} to the {@link DataMapper} implementation
- * provided during instantiation.
+ * provided during instantiation. Loaders created with a table name consult the open
+ * {@link EntityCache} before querying, so repeated lookups of the same row share one object.
  */
 public class IDLoader <T> {
     private final DataMapper<T> mapper;
+    private final String table;
     private static final Logger LOGGER = LoggerFactory.getLogger(IDLoader.class);
     
 
     public IDLoader(DataMapper<T> mapper) {
+        this(null, mapper);
+    }
+    
+    /**
+     * Creates a loader whose lookups by primary key are shared through the {@link EntityCache}
+     * 
+     * @param table Table the primary keys belong to
+     * @param mapper Mapper used to build the entity
+     */
+    public IDLoader(String table, DataMapper<T> mapper) {
+        this.table = table;
         this.mapper = mapper;
     }
     
     public T loadById(String query, int id, Connection conn) {
+    	EntityCache cache = (table == null) ? null : EntityCache.current();
+    	if (cache != null) {
+    		T cached = cache.get(table, id);
+    		if (cached != null) {
+    			return cached;
+    		}
+    	}
+    	
     	T entity = null;
     	
     	
-    	try {
+    	try (PreparedStatement ps = conn.prepareStatement(query)) {
     		
-    		PreparedStatement ps = conn.prepareStatement(query);
             ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-    		
-            if(rs.next()) {
-    			entity = mapper.map(rs, conn);
-    		}
-            rs.close();
-            ps.close();
+            try (ResultSet rs = ps.executeQuery()) {
+            	if(rs.next()) {
+            		entity = mapper.map(rs, conn);
+            	}
+            }
     		
     	}catch(SQLException e) {
     		LOGGER.error("Something bad happening loading generic by ID :(", e);
     	}
     	
+    	if (cache != null) {
+    		cache.put(table, id, entity);
+    	}
+    	
     	return entity;
     	
     }
@@ -67,18 +89,15 @@ public class IDLoader <T> {
     	T entity = null;
     	
     	
-    	try {
+    	try (PreparedStatement ps = conn.prepareStatement(query)) {
     		
-    		PreparedStatement ps = conn.prepareStatement(query);
             ps.setInt(1, invoiceId);
             ps.setInt(2, invoiceItemId);
-            ResultSet rs = ps.executeQuery();
-    		
-            if(rs.next()) {
-    			entity = mapper.map(rs, conn);
-    		}
-            rs.close();
-            ps.close();
+            try (ResultSet rs = ps.executeQuery()) {
+            	if(rs.next()) {
+            		entity = mapper.map(rs, conn);
+            	}
+            }
     		
     	}catch(SQLException e) {
     		LOGGER.error("Something bad happening loading generic by ID :(", e);
@@ -91,17 +110,14 @@ public class IDLoader <T> {
     public T loadById(String query, UUID uuid, Connection conn) {
     	T entity = null;
     	
-    	try {
+    	try (PreparedStatement ps = conn.prepareStatement(query)) {
     		
-    		PreparedStatement ps = conn.prepareStatement(query);
             ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-    		
-            if(rs.next()) {
-    			entity = mapper.map(rs, conn);
-    		}
-            rs.close();
-            ps.close();
+            try (ResultSet rs = ps.executeQuery()) {
+            	if(rs.next()) {
+            		entity = mapper.map(rs, conn);
+            	}
+            }
     		
     	}catch(SQLException e) {
     		LOGGER.error("Something bad happening loading generic by ID :(", e);
@@ -125,7 +141,7 @@ public class IDLoader <T> {
     public static Person loadPersonById(int id, Connection conn) {
     	
     	Person p = null;
-    	IDLoader<Person> pLoader = new IDLoader<>(new LoadPerson());
+    	IDLoader<Person> pLoader = new IDLoader<>("Person", new LoadPerson());
     	p = pLoader.loadById("""
 				SELECT p.uuid, p.firstName, p.lastName, p.phoneNumber, e.address
             		FROM Person p JOIN Email e on e.personId = p.personId
@@ -140,7 +156,7 @@ public class IDLoader <T> {
     public static Address loadAddressById(int id, Connection conn) {
     	Address a = null;
     	
-    	IDLoader<Address> aLoader = new IDLoader<>(new LoadAddress());
+    	IDLoader<Address> aLoader = new IDLoader<>("Address", new LoadAddress());
     	
     	a = aLoader.loadById("""
           		SELECT a.addressId, a.street, a.city, s.stateCode, z.zip
@@ -154,6 +170,14 @@ public class IDLoader <T> {
     }
     
     public static Company loadCompanyById(int companyId, Connection conn) {
+    	EntityCache cache = EntityCache.current();
+    	if (cache != null) {
+    		Company cached = cache.get("Company", companyId);
+    		if (cached != null) {
+    			return cached;
+    		}
+    	}
+    	
     	Person contact = null;
     	Address address = null;
     	Company company = null;
@@ -166,9 +190,9 @@ public class IDLoader <T> {
     				FROM Company
     				WHERE companyId = ?
     				""";
-    		  PreparedStatement ps = conn.prepareStatement(query);
+    		  try (PreparedStatement ps = conn.prepareStatement(query)) {
               ps.setInt(1, companyId);
-              ResultSet rs = ps.executeQuery();
+              try (ResultSet rs = ps.executeQuery()) {
               if(rs.next()) {
               UUID uuid = UUID.fromString(rs.getString("uuid"));
               String name = rs.getString("companyName");
@@ -183,17 +207,30 @@ public class IDLoader <T> {
               } else {
                   LOGGER.error( "No company found with companyId = " + companyId);
               }
+              }
+    		  }
               
               
               
     	}catch(SQLException e) {
     		LOGGER.error("COMPANY NOT LOADING BY ID", e);
     	}
+    	
+    	if (cache != null) {
+    		cache.put("Company", companyId, company);
+    	}
             return company;
             
     }
     
     public static Invoice loadInvoiceById(int id, Connection conn) {
+    	EntityCache cache = EntityCache.current();
+    	if (cache != null) {
+    		Invoice cached = cache.get("Invoice", id);
+    		if (cached != null) {
+    			return cached;
+    		}
+    	}
   
     	UUID uuid = null;
     	Company customer = null;
@@ -205,9 +242,9 @@ public class IDLoader <T> {
     				FROM Invoice i 
     				WHERE invoiceId = ?
     				""";
-    		PreparedStatement ps = conn.prepareStatement(query);
+    		try (PreparedStatement ps = conn.prepareStatement(query)) {
     		ps.setInt(1,id);
-    		ResultSet rs = ps.executeQuery();
+    		try (ResultSet rs = ps.executeQuery()) {
     		
     		if(rs.next()) {
     		uuid = UUID.fromString(rs.getString("i.uuid"));
@@ -225,12 +262,18 @@ public class IDLoader <T> {
     				throw new RuntimeException(e);
     			}
     		}	
+    		}
+    		}
     	}catch(SQLException e) {
     		LOGGER.error("Bad Connection invoice by id", e);
     	}
     
     	
-    	return new Invoice(uuid, customer, salesPerson, invoiceDate);
+    	Invoice invoice = new Invoice(uuid, customer, salesPerson, invoiceDate);
+    	if (cache != null) {
+    		cache.put("Invoice", id, invoice);
+    	}
+    	return invoice;
     }
     
 }
@@ -0,0 +1,108 @@
+package com.vgb.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk import: how many rows each table received, how many were
+ * already in the database, and every row that could not be imported.
+ */
+public class ImportResult {
+
+	/**
+	 * A row that was not imported.
+	 */
+	public static final class Failure {
+		private final String table;
+		private final String key;
+		private final String message;
+
+		private Failure(String table, String key, String message) {
+			this.table = table;
+			this.key = key;
+			this.message = message;
+		}
+
+		/**
+		 * @return The table the row was meant for
+		 */
+		public String getTable() {
+			return table;
+		}
+
+		/**
+		 * @return The UUID or natural key of the row, or null for rows without
+		 *         one
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * @return Why the row was not imported
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return table + " " + key + ": " + message;
+		}
+	}
+
+	private final Map<String, Integer> inserted = new LinkedHashMap<>();
+	private final Map<String, Integer> existing = new LinkedHashMap<>();
+	private final List<Failure> failures = new ArrayList<>();
+
+	void inserted(String table, int count) {
+		inserted.merge(table, count, Integer::sum);
+	}
+
+	void existing(String table) {
+		existing.merge(table, 1, Integer::sum);
+	}
+
+	void failed(String table, Object key, String message) {
+		failures.add(new Failure(table, key == null ? null : key.toString(), message));
+	}
+
+	/**
+	 * @param table A table name
+	 * @return Number of rows inserted into the table
+	 */
+	public int getInserted(String table) {
+		return inserted.getOrDefault(table, 0);
+	}
+
+	/**
+	 * @param table A table name
+	 * @return Number of rows skipped because the table already had them
+	 */
+	public int getExisting(String table) {
+		return existing.getOrDefault(table, 0);
+	}
+
+	/**
+	 * @return Every row that could not be imported, in import order
+	 */
+	public List<Failure> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * @return True if every row was imported or already present
+	 */
+	public boolean isComplete() {
+		return failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "inserted " + inserted + ", existing " + existing + ", " + failures.size() + " failed";
+	}
+
+}
@@ -0,0 +1,277 @@
+package com.vgb.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.Address;
+import com.vgb.Company;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.Item;
+import com.vgb.Person;
+import com.vgb.factory.LoadAddress;
+import com.vgb.factory.LoadInvoiceItem;
+import com.vgb.factory.LoadItem;
+import com.vgb.factory.LoadPerson;
+
+/**
+ * Loads the complete invoice graph (addresses, persons, emails, companies,
+ * items, invoices and invoice items) with one set based query per table.
+ * <p>
+ * Rows are joined in memory by their surrogate keys, so the number of queries
+ * stays the same no matter how many invoices are in the database. Every entity
+ * is built once and shared by reference between the invoices that use it.
+ * </p>
+ * <p>
+ * Persons are built exactly as {@link IDLoader#loadPersonById} builds them:
+ * from the first row of a join with their emails, so a person carries one
+ * email row and a person without any email is not loaded at all. Invoices
+ * without any items are mapped to a list holding a single {@code null}, just
+ * like the {@code LEFT JOIN} in {@link DataLoader#groupData}.
+ * </p>
+ */
+public class InvoiceGraphLoader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InvoiceGraphLoader.class);
+
+	private static final String ADDRESS_QUERY = """
+			SELECT a.addressId, a.street, a.city, s.stateCode, z.zip
+			FROM Address a
+			JOIN State s ON a.stateId = s.stateId
+			JOIN ZipCode z ON a.zipId = z.zipId
+			""";
+
+	private static final String PERSON_QUERY = """
+			SELECT p.personId, p.uuid, p.firstName, p.lastName, p.phoneNumber, e.address
+			FROM Person p JOIN Email e ON e.personId = p.personId
+			""";
+
+	private static final String COMPANY_QUERY = """
+			SELECT companyId, uuid, companyName, personId, addressId
+			FROM Company
+			""";
+
+	private static final String ITEM_QUERY = """
+			SELECT itemId, uuid, itemName, itemPrice, itemType, model, unit, unitPrice, customerId
+			FROM Item
+			""";
+
+	private static final String INVOICE_QUERY = """
+			SELECT invoiceId, uuid, companyId, salesPersonId, invoiceDate
+			FROM Invoice
+			ORDER BY invoiceId
+			""";
+
+	private static final String INVOICE_ITEM_QUERY = """
+			SELECT invoiceItemId, invoiceId, itemId, typeEquipment, price, startDate, endDate, quantity, numberOfHours
+			FROM InvoiceItem
+			ORDER BY invoiceId, invoiceItemId
+			""";
+
+	/**
+	 * Number of queries a single {@link #load(Connection)} issues.
+	 */
+	public static final int QUERY_COUNT = 6;
+
+	private final Map<Integer, Address> addresses = new HashMap<>();
+	private final Map<Integer, Person> persons = new HashMap<>();
+	private final Map<Integer, Company> companies = new HashMap<>();
+	private final Map<Integer, Item> items = new HashMap<>();
+	private final Map<Integer, Invoice> invoices = new LinkedHashMap<>();
+	private final Map<Invoice, List<InvoiceItem>> invoiceItems = new LinkedHashMap<>();
+
+	/**
+	 * Loads the invoice graph using the given connection. The connection is
+	 * left open for the caller to close.
+	 *
+	 * @param conn The connection to run the queries on
+	 * @return Every invoice mapped to its invoice items
+	 * @throws SQLException If any of the queries fail
+	 */
+	public Map<Invoice, List<InvoiceItem>> load(Connection conn) throws SQLException {
+		loadAddresses(conn);
+		loadPersons(conn);
+		loadCompanies(conn);
+		loadItems(conn);
+		loadInvoices(conn);
+		loadInvoiceItems(conn);
+		for (Map.Entry<Invoice, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
+			entry.getKey().setInvoiceItems(entry.getValue());
+			entry.setValue(entry.getKey().getInvoiceItems());
+		}
+		register(EntityCache.current());
+
+		LOGGER.info("Loaded {} invoices and {} companies using {} queries", invoices.size(), companies.size(),
+				QUERY_COUNT);
+
+		return invoiceItems;
+	}
+
+	/**
+	 * @return Every invoice mapped to its read only list of invoice items, in
+	 *         invoice order
+	 */
+	public Map<Invoice, List<InvoiceItem>> getInvoiceItems() {
+		return invoiceItems;
+	}
+
+	/**
+	 * @return Every company keyed by its UUID, including companies without
+	 *         invoices
+	 */
+	public Map<UUID, Company> getCompanies() {
+		Map<UUID, Company> result = new HashMap<>();
+		for (Company company : companies.values()) {
+			result.put(company.getUuid(), company);
+		}
+		return result;
+	}
+
+	/**
+	 * @return Every person keyed by their UUID
+	 */
+	public Map<UUID, Person> getPersons() {
+		Map<UUID, Person> result = new HashMap<>();
+		for (Person person : persons.values()) {
+			result.put(person.getUuid(), person);
+		}
+		return result;
+	}
+
+	/**
+	 * @return Every catalog item keyed by its UUID
+	 */
+	public Map<UUID, Item> getItems() {
+		Map<UUID, Item> result = new HashMap<>();
+		for (Item item : items.values()) {
+			if (item != null) {
+				result.put(item.getUUID(), item);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Shares the loaded entities with the open load session, if any.
+	 */
+	private void register(EntityCache cache) {
+		if (cache == null) {
+			return;
+		}
+		addresses.forEach((id, address) -> cache.put("Address", id, address));
+		persons.forEach((id, person) -> cache.put("Person", id, person));
+		companies.forEach((id, company) -> cache.put("Company", id, company));
+		items.forEach((id, item) -> cache.put("Item", id, item));
+		invoices.forEach((id, invoice) -> cache.put("Invoice", id, invoice));
+	}
+
+	private void loadAddresses(Connection conn) throws SQLException {
+		LoadAddress mapper = new LoadAddress();
+
+		try (PreparedStatement ps = conn.prepareStatement(ADDRESS_QUERY); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				addresses.put(rs.getInt("addressId"), mapper.map(rs, conn));
+			}
+		}
+	}
+
+	private void loadPersons(Connection conn) throws SQLException {
+		LoadPerson mapper = new LoadPerson();
+
+		try (PreparedStatement ps = conn.prepareStatement(PERSON_QUERY); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				int personId = rs.getInt("personId");
+				if (!persons.containsKey(personId)) {
+					persons.put(personId, mapper.map(rs, conn));
+				}
+			}
+		}
+	}
+
+	private void loadCompanies(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(COMPANY_QUERY); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				int companyId = rs.getInt("companyId");
+				UUID uuid = UUID.fromString(rs.getString("uuid"));
+
+				Person contact = null;
+				int personId = rs.getInt("personId");
+				if (!rs.wasNull()) {
+					contact = persons.get(personId);
+				}
+				Address address = addresses.get(rs.getInt("addressId"));
+
+				companies.put(companyId, new Company(uuid, rs.getString("companyName"), contact, address));
+			}
+		}
+	}
+
+	private void loadItems(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(ITEM_QUERY); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				Company customer = null;
+				int customerId = rs.getInt("customerId");
+				if (!rs.wasNull()) {
+					customer = companies.get(customerId);
+				}
+
+				items.put(rs.getInt("itemId"), LoadItem.buildItem(rs, customer));
+			}
+		}
+	}
+
+	private void loadInvoices(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(INVOICE_QUERY); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				UUID uuid = UUID.fromString(rs.getString("uuid"));
+				Company customer = companies.get(rs.getInt("companyId"));
+				Person salesPerson = persons.get(rs.getInt("salesPersonId"));
+				LocalDate invoiceDate = LocalDate.parse(rs.getString("invoiceDate"));
+
+				invoices.put(rs.getInt("invoiceId"), new Invoice(uuid, customer, salesPerson, invoiceDate));
+			}
+		}
+	}
+
+	private void loadInvoiceItems(Connection conn) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(INVOICE_ITEM_QUERY); ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				Invoice invoice = invoices.get(rs.getInt("invoiceId"));
+				if (invoice == null) {
+					LOGGER.warn("Invoice item {} references a missing invoice", rs.getInt("invoiceItemId"));
+					continue;
+				}
+
+				Item item = items.get(rs.getInt("itemId"));
+				String typeEquipment = rs.getString("typeEquipment");
+				if (item == null || typeEquipment == null || typeEquipment.isEmpty()) {
+					continue;
+				}
+
+				invoiceItems.computeIfAbsent(invoice, k -> new ArrayList<>())
+						.add(LoadInvoiceItem.buildInvoiceItem(invoice, item, rs));
+			}
+		}
+
+		for (Invoice invoice : invoices.values()) {
+			invoiceItems.computeIfAbsent(invoice, k -> {
+				List<InvoiceItem> empty = new ArrayList<>();
+				empty.add(null);
+				return empty;
+			});
+		}
+	}
+
+}
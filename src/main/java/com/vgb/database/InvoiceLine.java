@@ -0,0 +1,154 @@
+package com.vgb.database;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.vgb.LineType;
+
+/**
+ * One line of an invoice that is about to be written: the item it is for, its
+ * {@link LineType} and the values that type of line carries. Lines are made
+ * with the factory method for their type.
+ */
+public final class InvoiceLine {
+
+	private final LineType type;
+	private final UUID itemUuid;
+	private final LocalDate start;
+	private final LocalDate end;
+	private final double hours;
+	private final int quantity;
+	private final double amount;
+
+	private InvoiceLine(LineType type, UUID itemUuid, LocalDate start, LocalDate end, double hours, int quantity,
+			double amount) {
+		this.type = type;
+		this.itemUuid = itemUuid;
+		this.start = start;
+		this.end = end;
+		this.hours = hours;
+		this.quantity = quantity;
+		this.amount = amount;
+	}
+
+	/**
+	 * @param equipmentUuid The purchased equipment
+	 * @return A purchase line
+	 */
+	public static InvoiceLine purchase(UUID equipmentUuid) {
+		return new InvoiceLine(LineType.PURCHASE, equipmentUuid, null, null, 0, 0, 0);
+	}
+
+	/**
+	 * @param equipmentUuid The leased equipment
+	 * @param start         First day of the lease
+	 * @param end           Last day of the lease
+	 * @return A lease line
+	 */
+	public static InvoiceLine lease(UUID equipmentUuid, LocalDate start, LocalDate end) {
+		return new InvoiceLine(LineType.LEASE, equipmentUuid, start, end, 0, 0, 0);
+	}
+
+	/**
+	 * @param equipmentUuid The rented equipment
+	 * @param hours         Hours the equipment is rented for
+	 * @return A rental line
+	 */
+	public static InvoiceLine rental(UUID equipmentUuid, double hours) {
+		return new InvoiceLine(LineType.RENTAL, equipmentUuid, null, null, hours, 0, 0);
+	}
+
+	/**
+	 * @param materialUuid The material
+	 * @param quantity     Number of units
+	 * @return A material line
+	 */
+	public static InvoiceLine material(UUID materialUuid, int quantity) {
+		return new InvoiceLine(LineType.MATERIAL, materialUuid, null, null, 0, quantity, 0);
+	}
+
+	/**
+	 * @param contractUuid The contract
+	 * @param amount       Amount billed for the contract
+	 * @return A contract line
+	 */
+	public static InvoiceLine contract(UUID contractUuid, double amount) {
+		return new InvoiceLine(LineType.CONTRACT, contractUuid, null, null, 0, 0, amount);
+	}
+
+	public LineType getType() {
+		return type;
+	}
+
+	public UUID getItemUuid() {
+		return itemUuid;
+	}
+
+	public LocalDate getStartDate() {
+		return start;
+	}
+
+	public LocalDate getEndDate() {
+		return end;
+	}
+
+	public double getHours() {
+		return hours;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return The {@code Item.itemType} code of the items this type of line
+	 *         can be for
+	 */
+	char getItemType() {
+		switch (type) {
+		case MATERIAL:
+			return 'M';
+		case CONTRACT:
+			return 'C';
+		default:
+			return 'E';
+		}
+	}
+
+	/**
+	 * @return Why the line cannot be written, or null if its values are valid
+	 */
+	String check() {
+		if (itemUuid == null) {
+			return "Item UUID cannot be null";
+		}
+		switch (type) {
+		case LEASE:
+			if (start == null || end == null) {
+				return "Lease dates cannot be null";
+			}
+			if (end.isBefore(start)) {
+				return "Lease cannot end before it starts";
+			}
+			return null;
+		case RENTAL:
+			return (hours > 0) ? null : "Number of hours for rental must be positive";
+		case MATERIAL:
+			return (quantity > 0) ? null : "Quantity must be positive";
+		case CONTRACT:
+			return (amount >= 0) ? null : "Contract amount cannot be negative";
+		default:
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + itemUuid;
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.vgb.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of writing an invoice with its lines: whether the invoice was
+ * written and, for every line in the order given, what became of it.
+ */
+public class InvoiceWriteResult {
+
+	/**
+	 * What became of a line.
+	 */
+	public enum Status {
+		/** The line was inserted with the invoice. */
+		INSERTED,
+		/** The line is invalid, so nothing was written. */
+		INVALID,
+		/** The line is valid but was not written because the invoice was not. */
+		NOT_WRITTEN
+	}
+
+	/**
+	 * The outcome of one line.
+	 */
+	public static final class LineResult {
+		private final InvoiceLine line;
+		private Status status = Status.NOT_WRITTEN;
+		private String message;
+		private UUID uuid;
+
+		private LineResult(InvoiceLine line) {
+			this.line = line;
+		}
+
+		/**
+		 * @return The line as it was given
+		 */
+		public InvoiceLine getLine() {
+			return line;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return Why the line is invalid, or null
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * @return UUID of the inserted InvoiceItem row, or null if the line
+		 *         was not inserted
+		 */
+		public UUID getUuid() {
+			return uuid;
+		}
+
+		@Override
+		public String toString() {
+			return line + ": " + status + (message == null ? "" : " (" + message + ")");
+		}
+	}
+
+	private final List<LineResult> lines;
+	private boolean written;
+	private String message;
+
+	InvoiceWriteResult(List<InvoiceLine> lines) {
+		this.lines = new ArrayList<>(lines.size());
+		for (InvoiceLine line : lines) {
+			this.lines.add(new LineResult(line));
+		}
+	}
+
+	/**
+	 * @param lines   The invoice's lines
+	 * @param message Why the invoice could not be written
+	 * @return The result of an invoice that was not written because the
+	 *         database failed
+	 */
+	public static InvoiceWriteResult failed(List<InvoiceLine> lines, String message) {
+		InvoiceWriteResult result = new InvoiceWriteResult(lines);
+		result.rejected(message);
+		return result;
+	}
+
+	void invalid(int line, String message) {
+		LineResult result = lines.get(line);
+		result.status = Status.INVALID;
+		result.message = message;
+	}
+
+	void inserted(int line, UUID uuid) {
+		LineResult result = lines.get(line);
+		result.status = Status.INSERTED;
+		result.uuid = uuid;
+	}
+
+	void rejected(String message) {
+		this.message = message;
+	}
+
+	void written() {
+		this.written = true;
+	}
+
+	/**
+	 * @return True if the invoice and all of its lines were inserted
+	 */
+	public boolean isWritten() {
+		return written;
+	}
+
+	/**
+	 * @return Why the invoice was not written, or null if it was
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return The outcome of every line, in the order the lines were given
+	 */
+	public List<LineResult> getLines() {
+		return Collections.unmodifiableList(lines);
+	}
+
+	@Override
+	public String toString() {
+		return (written ? "written" : "not written: " + message) + ", lines " + lines;
+	}
+
+}
@@ -0,0 +1,294 @@
+package com.vgb.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.database.KeyCache.Table;
+
+/**
+ * Writes an invoice together with its lines as a single transaction on a
+ * single connection.
+ * <p>
+ * Everything is validated before anything is written: the header's customer
+ * and salesperson must exist, and every line must carry valid values for its
+ * type and refer to an existing item of the matching kind. The items of all
+ * lines are looked up with one query. If the invoice is valid its header is
+ * inserted and its lines are sent as one batch, then the transaction is
+ * committed; otherwise nothing is written and the {@link InvoiceWriteResult}
+ * tells which lines are at fault. An invoice whose UUID already exists is
+ * left alone, so a capture that is retried after a lost reply does not add
+ * its lines twice.
+ * </p>
+ * <p>
+ * The lines only go to the database in one round trip if the connection URL
+ * sets {@code rewriteBatchedStatements=true}, as {@link ConnectionFactory}
+ * does.
+ * </p>
+ */
+public class InvoiceWriter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InvoiceWriter.class);
+
+	private static final String INSERT_INVOICE = """
+			INSERT INTO Invoice (uuid, companyId, salesPersonId, invoiceDate)
+			VALUES (?, ?, ?, ?)
+			""";
+	private static final String INSERT_INVOICE_ITEM = """
+			INSERT INTO InvoiceItem (uuid, invoiceId, typeEquipment, itemId, startDate, endDate, numberOfHours,
+				quantity, price)
+			VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+			""";
+
+	/**
+	 * The key and kind of a catalog item.
+	 */
+	private static final class ItemKey {
+		private final int id;
+		private final char type;
+
+		private ItemKey(int id, char type) {
+			this.id = id;
+			this.type = type;
+		}
+	}
+
+	private final KeyCache keys;
+
+	/**
+	 * @param keys Cache used to resolve the customer and salesperson, and
+	 *             filled with the keys of the items and the new invoice
+	 */
+	public InvoiceWriter(KeyCache keys) {
+		this.keys = keys;
+	}
+
+	/**
+	 * Validates an invoice and its lines and, if they are all valid, writes
+	 * them in one transaction.
+	 *
+	 * @param conn            Connection to write on; its auto-commit mode is
+	 *                        restored afterwards
+	 * @param invoiceUuid
+	 * @param customerUuid
+	 * @param salesPersonUuid
+	 * @param date
+	 * @param lines           The invoice's lines
+	 * @return Whether the invoice was written and the outcome of each line
+	 * @throws SQLException If the database fails; nothing is written then
+	 */
+	public InvoiceWriteResult write(Connection conn, UUID invoiceUuid, UUID customerUuid, UUID salesPersonUuid,
+			LocalDate date, List<InvoiceLine> lines) throws SQLException {
+		InvoiceWriteResult result = new InvoiceWriteResult(lines);
+
+		String header = checkHeader(invoiceUuid, customerUuid, salesPersonUuid, date, lines);
+		boolean valid = header == null;
+		for (int i = 0; i < lines.size(); i++) {
+			String message = lines.get(i).check();
+			if (message != null) {
+				result.invalid(i, message);
+				valid = false;
+			}
+		}
+		if (header != null) {
+			result.rejected(header);
+			return result;
+		}
+		if (!valid) {
+			result.rejected("Invoice has invalid lines");
+			return result;
+		}
+
+		int companyId = keys.resolve(Table.COMPANY, customerUuid, conn);
+		if (companyId == 0) {
+			result.rejected("Customer does not exist: " + customerUuid);
+			return result;
+		}
+		int salesPersonId = keys.resolve(Table.PERSON, salesPersonUuid, conn);
+		if (salesPersonId == 0) {
+			result.rejected("Salesperson does not exist: " + salesPersonUuid);
+			return result;
+		}
+
+		Map<UUID, ItemKey> items = loadItems(conn, lines);
+		for (int i = 0; i < lines.size(); i++) {
+			InvoiceLine line = lines.get(i);
+			ItemKey item = items.get(line.getItemUuid());
+			if (item == null) {
+				result.invalid(i, "Item does not exist");
+				valid = false;
+			} else if (item.type != line.getItemType()) {
+				result.invalid(i, "Item of type " + item.type + " cannot be on a " + line.getType() + " line");
+				valid = false;
+			}
+		}
+		if (!valid) {
+			result.rejected("Invoice has invalid lines");
+			return result;
+		}
+
+		boolean autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		try {
+			int invoiceId = insertInvoice(conn, invoiceUuid, companyId, salesPersonId, date);
+			if (invoiceId == 0) {
+				conn.rollback();
+				result.rejected("Invoice already exists: " + invoiceUuid);
+				return result;
+			}
+			UUID[] lineUuids = insertLines(conn, invoiceId, lines, items);
+			conn.commit();
+
+			keys.put(Table.INVOICE, invoiceUuid, invoiceId);
+			for (int i = 0; i < lineUuids.length; i++) {
+				result.inserted(i, lineUuids[i]);
+			}
+			result.written();
+			return result;
+		} catch (SQLException e) {
+			result.rejected("Write failed: " + e.getMessage());
+			try {
+				conn.rollback();
+			} catch (SQLException rollback) {
+				e.addSuppressed(rollback);
+			}
+			throw e;
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+
+	private static String checkHeader(UUID invoiceUuid, UUID customerUuid, UUID salesPersonUuid, LocalDate date,
+			List<InvoiceLine> lines) {
+		if (invoiceUuid == null || customerUuid == null || salesPersonUuid == null) {
+			return "Invoice, customer and salesperson UUIDs cannot be null";
+		}
+		if (date == null) {
+			return "Invoice date cannot be null";
+		}
+		if (lines.isEmpty()) {
+			return "Invoice has no lines";
+		}
+		return null;
+	}
+
+	/**
+	 * Looks up the key and kind of every item on the lines with one query, and
+	 * caches the keys found.
+	 */
+	private Map<UUID, ItemKey> loadItems(Connection conn, List<InvoiceLine> lines) throws SQLException {
+		Set<UUID> uuids = new LinkedHashSet<>();
+		for (InvoiceLine line : lines) {
+			uuids.add(line.getItemUuid());
+		}
+		StringJoiner in = new StringJoiner(", ", "SELECT itemId, uuid, itemType FROM Item WHERE uuid IN (", ")");
+		for (int i = 0; i < uuids.size(); i++) {
+			in.add("?");
+		}
+
+		Map<UUID, ItemKey> items = new HashMap<>();
+		try (PreparedStatement ps = conn.prepareStatement(in.toString())) {
+			int i = 1;
+			for (UUID uuid : uuids) {
+				ps.setString(i++, uuid.toString());
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					UUID uuid = UUID.fromString(rs.getString("uuid"));
+					int id = rs.getInt("itemId");
+					items.put(uuid, new ItemKey(id, rs.getString("itemType").charAt(0)));
+					keys.put(Table.ITEM, uuid, id);
+				}
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * @return Key of the new invoice, or 0 if one with the UUID already exists
+	 */
+	private static int insertInvoice(Connection conn, UUID invoiceUuid, int companyId, int salesPersonId,
+			LocalDate date) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(INSERT_INVOICE, Statement.RETURN_GENERATED_KEYS)) {
+			ps.setString(1, invoiceUuid.toString());
+			ps.setInt(2, companyId);
+			ps.setInt(3, salesPersonId);
+			ps.setString(4, date.toString());
+			try {
+				ps.executeUpdate();
+			} catch (SQLException e) {
+				if (SqlErrors.isDuplicateKey(e)) {
+					return 0;
+				}
+				throw e;
+			}
+			try (ResultSet keys = ps.getGeneratedKeys()) {
+				if (!keys.next()) {
+					throw new SQLException("No key generated for invoice " + invoiceUuid);
+				}
+				return keys.getInt(1);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the lines as one batch.
+	 *
+	 * @return The UUIDs given to the lines' rows, in line order
+	 */
+	private static UUID[] insertLines(Connection conn, int invoiceId, List<InvoiceLine> lines,
+			Map<UUID, ItemKey> items) throws SQLException {
+		UUID[] uuids = new UUID[lines.size()];
+		try (PreparedStatement ps = conn.prepareStatement(INSERT_INVOICE_ITEM)) {
+			for (int i = 0; i < uuids.length; i++) {
+				InvoiceLine line = lines.get(i);
+				uuids[i] = UUID.randomUUID();
+				ps.setString(1, uuids[i].toString());
+				ps.setInt(2, invoiceId);
+				ps.setString(3, String.valueOf(line.getType().getCode()));
+				ps.setInt(4, items.get(line.getItemUuid()).id);
+				ps.setNull(5, Types.VARCHAR);
+				ps.setNull(6, Types.VARCHAR);
+				ps.setNull(7, Types.DOUBLE);
+				ps.setNull(8, Types.DOUBLE);
+				ps.setNull(9, Types.DOUBLE);
+				switch (line.getType()) {
+				case LEASE:
+					ps.setString(5, line.getStartDate().toString());
+					ps.setString(6, line.getEndDate().toString());
+					break;
+				case RENTAL:
+					ps.setDouble(7, line.getHours());
+					break;
+				case MATERIAL:
+					ps.setInt(8, line.getQuantity());
+					break;
+				case CONTRACT:
+					ps.setDouble(9, line.getAmount());
+					break;
+				default:
+					break;
+				}
+				ps.addBatch();
+			}
+			int[] counts = ps.executeBatch();
+			LOGGER.debug("Inserted {} lines for invoice {}", counts.length, invoiceId);
+		}
+		return uuids;
+	}
+
+}
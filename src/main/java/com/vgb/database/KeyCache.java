@@ -0,0 +1,186 @@
+package com.vgb.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread safe cache from UUIDs to surrogate keys for the tables
+ * that other rows refer to.
+ * <p>
+ * Writers record the generated key of every row they insert with
+ * {@link #put(Table, UUID, int)}, and {@link #resolve(Table, UUID, Connection)}
+ * answers from the cache, looking the key up in the database only on a miss.
+ * Each table keeps at most the given number of keys, evicting the least
+ * recently used ones; the keys are spread over independently locked segments
+ * so concurrent writers rarely wait for each other.
+ * </p>
+ * <p>
+ * Surrogate keys never change, so entries only go stale when rows are deleted;
+ * whoever deletes rows must {@link #clear()} the cache.
+ * </p>
+ */
+public class KeyCache {
+
+	/**
+	 * The tables whose keys are cached.
+	 */
+	public enum Table {
+		PERSON("Person", "personId"), COMPANY("Company", "companyId"), ITEM("Item", "itemId"),
+		INVOICE("Invoice", "invoiceId");
+
+		private final String lookup;
+
+		private Table(String name, String idColumn) {
+			this.lookup = "SELECT " + idColumn + " FROM " + name + " WHERE uuid = ?";
+		}
+	}
+
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * An access ordered map that drops its least recently used key when full.
+	 */
+	@SuppressWarnings("serial")
+	private static class Segment extends LinkedHashMap<UUID, Integer> {
+		private final int capacity;
+
+		private Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, Integer> eldest) {
+			return size() > capacity;
+		}
+	}
+
+	private final Segment[][] segments = new Segment[Table.values().length][SEGMENTS];
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param capacity Most keys kept per table
+	 */
+	public KeyCache(int capacity) {
+		if (capacity < SEGMENTS) {
+			throw new IllegalArgumentException("Capacity must be at least " + SEGMENTS + ": " + capacity);
+		}
+		for (Segment[] table : segments) {
+			for (int i = 0; i < SEGMENTS; i++) {
+				table[i] = new Segment(capacity / SEGMENTS);
+			}
+		}
+	}
+
+	private Segment segment(Table table, UUID uuid) {
+		int hash = uuid.hashCode();
+		return segments[table.ordinal()][(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	/**
+	 * Records the surrogate key of a row.
+	 *
+	 * @param table The row's table
+	 * @param uuid  The row's UUID
+	 * @param id    The row's surrogate key
+	 */
+	public void put(Table table, UUID uuid, int id) {
+		Segment segment = segment(table, uuid);
+		synchronized (segment) {
+			segment.put(uuid, id);
+		}
+	}
+
+	/**
+	 * @param table A table
+	 * @param uuid  A UUID
+	 * @return The cached surrogate key, or null if it is not cached
+	 */
+	public Integer get(Table table, UUID uuid) {
+		Segment segment = segment(table, uuid);
+		Integer id;
+		synchronized (segment) {
+			id = segment.get(uuid);
+		}
+		(id == null ? misses : hits).incrementAndGet();
+		return id;
+	}
+
+	/**
+	 * Returns the surrogate key of a row, looking it up on the given
+	 * connection if it is not cached. Keys that are found are cached; rows
+	 * that do not exist are not.
+	 *
+	 * @param table The row's table
+	 * @param uuid  The row's UUID
+	 * @param conn  Connection used on a miss
+	 * @return The surrogate key, or 0 if there is no such row
+	 * @throws SQLException If the lookup fails
+	 */
+	public int resolve(Table table, UUID uuid, Connection conn) throws SQLException {
+		Integer cached = get(table, uuid);
+		if (cached != null) {
+			return cached;
+		}
+		try (PreparedStatement ps = conn.prepareStatement(table.lookup)) {
+			ps.setString(1, uuid.toString());
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					return 0;
+				}
+				int id = rs.getInt(1);
+				put(table, uuid, id);
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * Drops every cached key.
+	 */
+	public void clear() {
+		for (Segment[] table : segments) {
+			for (Segment segment : table) {
+				synchronized (segment) {
+					segment.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param table A table
+	 * @return Number of keys cached for the table
+	 */
+	public int size(Table table) {
+		int size = 0;
+		for (Segment segment : segments[table.ordinal()]) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return Number of lookups answered from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return Number of lookups that were not cached
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.vgb.database;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of the counters of a {@link ConnectionPool}.
+ */
+public class PoolStats {
+
+	private final int maxSize;
+	private final int active;
+	private final int idle;
+	private final int waiters;
+	private final long borrowCount;
+	private final long createdCount;
+	private final long timeoutCount;
+	private final long totalWaitNanos;
+	private final long maxWaitNanos;
+
+	public PoolStats(int maxSize, int active, int idle, int waiters, long borrowCount, long createdCount,
+			long timeoutCount, long totalWaitNanos, long maxWaitNanos) {
+		super();
+		this.maxSize = maxSize;
+		this.active = active;
+		this.idle = idle;
+		this.waiters = waiters;
+		this.borrowCount = borrowCount;
+		this.createdCount = createdCount;
+		this.timeoutCount = timeoutCount;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return Connections currently borrowed
+	 */
+	public int getActive() {
+		return active;
+	}
+
+	/**
+	 * @return Open connections waiting in the pool
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * @return Threads currently waiting for a connection
+	 */
+	public int getWaiters() {
+		return waiters;
+	}
+
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+
+	/**
+	 * @return Physical connections opened since the pool was created
+	 */
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	/**
+	 * @return Borrows that gave up after the borrow timeout
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	public long getTotalWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+	}
+
+	public long getMaxWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("active=%d idle=%d max=%d waiters=%d borrows=%d created=%d timeouts=%d wait=%dms (max %dms)",
+				active, idle, maxSize, waiters, borrowCount, createdCount, timeoutCount, getTotalWaitMillis(),
+				getMaxWaitMillis());
+	}
+
+}
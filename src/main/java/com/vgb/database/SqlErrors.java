@@ -0,0 +1,29 @@
+package com.vgb.database;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * Classifies the errors MySQL reports, so every writer draws the same line
+ * between a row that already exists and a write that failed.
+ */
+public class SqlErrors {
+
+	/**
+	 * MySQL's error code for a duplicate primary or unique key.
+	 */
+	private static final int DUPLICATE_KEY = 1062;
+
+	/**
+	 * Tells whether an insert failed only because a row with the same primary
+	 * or unique key already exists. Every other error, such as a truncated
+	 * value or a missing foreign key, is not a duplicate.
+	 *
+	 * @param e The error an insert failed with
+	 * @return True if the error is a duplicate key
+	 */
+	public static boolean isDuplicateKey(SQLException e) {
+		return e instanceof SQLIntegrityConstraintViolationException && e.getErrorCode() == DUPLICATE_KEY;
+	}
+
+}
@@ -1,13 +1,8 @@
 package com.vgb.factory;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.UUID;
 
 import com.vgb.Address;
@@ -24,69 +19,63 @@ public class CompanyLoader {
 	
 	public static final String FILE_PATH = "data/Companies.csv";
 	
+	/**
+	 * Loads the companies, reading Persons.csv for their contacts.
+	 * 
+	 * @return Companies by UUID
+	 */
 	public static Map<UUID, Company> loadCompany(){
-		Map<UUID, Person> persons = PersonLoader.loadPerson();
+		return loadCompany(PersonLoader.loadPerson());
+	}
+	
+	/**
+	 * Loads the companies, taking their contacts from persons that are
+	 * already loaded.
+	 * 
+	 * @param persons Persons by UUID
+	 * @return Companies by UUID
+	 */
+	public static Map<UUID, Company> loadCompany(Map<UUID, Person> persons){
 		
 		Map<UUID, Company> companies = new HashMap<UUID, Company>();
 		
 		
-		String line = null;
-		
-		try(Scanner s = new Scanner(new File(FILE_PATH))){
+		try (CsvReader csv = CsvReader.open(FILE_PATH)) {
 			
-			s.nextLine();
+			csv.next();
 			
-			while (s.hasNext()) {
+			while (csv.next()) {
+				
+				Person contactPerson = null;
 				
-				line = s.nextLine();
+				UUID uuid;
+				UUID contactUuid;
 				
+				if (csv.isEmpty(0) || csv.isEmpty(1)) {
+					throw new IllegalArgumentException("Missing UUID in CSV record " + csv.getRecordNumber());
+				}
+				
+				try {
+					uuid = csv.getUuid(0);
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("Invalid UUID format: " + csv.getString(0));
+				}
 				
-				if(!line.trim().isEmpty()) {
-					
-					Company c = null;
-					Person contactPerson = null;
-					String parts[] = line.split(",");
-					
-					UUID uuid;
-					UUID contactUuid;
-					
-					String uuidStr = parts[0].trim();
-					String contactstr = parts[1].trim();
-			        if (uuidStr.isEmpty() || contactstr.isEmpty()) {
-			            throw new IllegalArgumentException("Missing UUID in CSV: " + Arrays.toString(parts));
-			        }
-					
-					try {
-					uuid = UUID.fromString(uuidStr);
-					}catch(IllegalArgumentException e) {
-						throw new IllegalArgumentException("Invalid UUID format: " + uuidStr);
-					}
-					
-					try {
-						contactUuid = UUID.fromString(contactstr);
-						contactPerson = persons.get(contactUuid);						
-						}catch(IllegalArgumentException e) {
-							throw new IllegalArgumentException("Invalid UUID format: " + contactstr);
-						}
-					
-					String name = parts[2].trim();
-					Address address = new Address(parts[3], parts[4], parts[5], parts[6]);
-					List<String> emails = new ArrayList<>();
-					
-					for (int x = 4; x < parts.length; x++) {
-				           if (!parts[x].trim().isEmpty()) {
-				                emails.add(parts[x].trim());
-				            }
-				        }
-					c = new Company(uuid, name, contactPerson, address);
-					companies.put(uuid,c);
+				try {
+					contactUuid = csv.getUuid(1);
+					contactPerson = persons.get(contactUuid);
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("Invalid UUID format: " + csv.getString(1));
 				}
 				
+				String name = csv.getString(2).trim();
+				Address address = new Address(csv.getString(3), csv.getString(4), csv.getString(5), csv.getString(6));
+				Company c = new Company(uuid, name, contactPerson, address);
+				companies.put(uuid, c);
 			}
-			s.close();
 			
-		} catch (FileNotFoundException e) {
-			throw new RuntimeException("Encountered Error on line " + line, e);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not read " + FILE_PATH, e);
 		}
 		
 		return companies;
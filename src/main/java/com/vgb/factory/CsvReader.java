@@ -0,0 +1,788 @@
+package com.vgb.factory;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Reads RFC 4180 CSV records from UTF-8 bytes with very little allocation.
+ * <p>
+ * Fields are separated by commas and records by {@code \n} or {@code \r\n}. A
+ * field may be enclosed in double quotes, in which case it can hold commas,
+ * line breaks and doubled quotes ({@code ""}). Empty lines are skipped and a
+ * leading byte order mark is ignored.
+ * </p>
+ * <p>
+ * The reader does not copy or decode a record. It remembers where each field
+ * starts and ends in its buffer, so a field is only turned into a String,
+ * UUID, double or LocalDate when a loader asks for it, and the typed parsers
+ * read the bytes directly:
+ * </p>
+ *
+ * <pre>
+ * try (CsvReader csv = CsvReader.open("data/Invoices.csv")) {
+ * 	csv.next(); // header
+ * 	while (csv.next()) {
+ * 		UUID uuid = csv.getUuid(0);
+ * 		LocalDate date = csv.getDate(3);
+ * 	}
+ * }
+ * </pre>
+ * <p>
+ * Large files are memory mapped a window at a time, small files and streams
+ * are read through a 64 KB buffer. Field positions, and any {@link Field}
+ * views, are only valid until the next call to {@link #next()}.
+ * </p>
+ */
+public final class CsvReader implements Closeable {
+
+	/**
+	 * Files of at least this many bytes are memory mapped by
+	 * {@link #open(Path)}.
+	 */
+	static final long MAP_THRESHOLD = 1 << 23;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long MAP_WINDOW = 1 << 28;
+
+	private static final byte[] HEX = new byte[128];
+	private static final double[] POW10 = new double[23];
+
+	static {
+		Arrays.fill(HEX, (byte) -1);
+		for (int i = 0; i < 10; i++) {
+			HEX['0' + i] = (byte) i;
+		}
+		for (int i = 0; i < 6; i++) {
+			HEX['a' + i] = (byte) (10 + i);
+			HEX['A' + i] = (byte) (10 + i);
+		}
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
+
+	private enum Status {
+		RECORD, NEED_MORE, END
+	}
+
+	private final Source source;
+	private ByteBuffer buffer;
+	private int position;
+	private boolean endOfInput;
+	private long recordNumber;
+
+	private int fieldCount;
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private boolean[] escaped = new boolean[16];
+	private byte[] scratch = new byte[256];
+
+	private CsvReader(Source source) throws IOException {
+		this.source = source;
+		this.buffer = ByteBuffer.allocate(0);
+		fill(0);
+		while (buffer.limit() < 3 && !endOfInput) {
+			fill(0);
+		}
+		if (buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+				&& buffer.get(2) == (byte) 0xBF) {
+			position = 3;
+		}
+	}
+
+	/**
+	 * Creates a reader over a stream. The stream is closed with the reader.
+	 *
+	 * @param in UTF-8 encoded CSV
+	 * @throws IOException If reading fails
+	 */
+	public CsvReader(InputStream in) throws IOException {
+		this(new StreamSource(in));
+	}
+
+	/**
+	 * Opens a CSV file, memory mapping it when it is large.
+	 *
+	 * @param path Path of the file
+	 * @return A reader positioned before the first record
+	 * @throws IOException If the file cannot be opened
+	 */
+	public static CsvReader open(String path) throws IOException {
+		return open(Paths.get(path));
+	}
+
+	/**
+	 * Opens a CSV file, memory mapping it when it is large.
+	 *
+	 * @param path Path of the file
+	 * @return A reader positioned before the first record
+	 * @throws IOException If the file cannot be opened
+	 */
+	public static CsvReader open(Path path) throws IOException {
+		if (Files.size(path) >= MAP_THRESHOLD) {
+			return map(path);
+		}
+		return new CsvReader(new FileInputStream(path.toFile()));
+	}
+
+	/**
+	 * Opens a CSV file and memory maps it. Files larger than 2 GB are mapped a
+	 * window at a time.
+	 *
+	 * @param path Path of the file
+	 * @return A reader positioned before the first record
+	 * @throws IOException If the file cannot be opened
+	 */
+	public static CsvReader map(Path path) throws IOException {
+		return map(path, MAP_WINDOW);
+	}
+
+	/**
+	 * Maps a file with the given window size, so tests can make records cross
+	 * windows.
+	 */
+	static CsvReader map(Path path, long window) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		return new CsvReader(new MappedSource(channel, 0, channel.size(), window));
+	}
+
+	/**
+	 * Memory maps part of a CSV file, so that several readers can parse one
+	 * file in parallel. Both offsets must be at the start of a record (or the
+	 * end of the file); {@link #recordStart(FileChannel, long)} finds one.
+	 *
+	 * @param path Path of the file
+	 * @param from Offset of the first byte to read
+	 * @param to   Offset just past the last byte to read
+	 * @return A reader over the records in that range
+	 * @throws IOException If the file cannot be opened
+	 */
+	public static CsvReader map(Path path, long from, long to) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		if (from < 0 || from > to || to > channel.size()) {
+			channel.close();
+			throw new IllegalArgumentException("Range " + from + ".." + to + " of file with " + channel.size() + " bytes");
+		}
+		return new CsvReader(new MappedSource(channel, from, to, MAP_WINDOW));
+	}
+
+	/**
+	 * Finds the first record that starts at or after an offset, assuming no
+	 * quoted field holds a line break.
+	 *
+	 * @param channel The file
+	 * @param offset  Offset to search from
+	 * @return Offset of the first byte after the next line break, the offset
+	 *         itself if it follows a line break, or the file size
+	 * @throws IOException If reading fails
+	 */
+	public static long recordStart(FileChannel channel, long offset) throws IOException {
+		if (offset <= 0) {
+			return 0;
+		}
+		long size = channel.size();
+		ByteBuffer bytes = ByteBuffer.allocate(4096);
+		long position = offset - 1;
+		while (position < size) {
+			bytes.clear();
+			int n = channel.read(bytes, position);
+			if (n <= 0) {
+				break;
+			}
+			for (int i = 0; i < n; i++) {
+				if (bytes.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += n;
+		}
+		return size;
+	}
+
+	/**
+	 * Advances to the next record.
+	 *
+	 * @return false when there are no more records
+	 * @throws IOException              If reading fails
+	 * @throws IllegalArgumentException If the CSV is malformed
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			Status status = parseRecord();
+			if (status == Status.NEED_MORE) {
+				fill(position);
+			} else if (status == Status.END) {
+				fieldCount = 0;
+				return false;
+			} else if (!isBlank()) {
+				recordNumber++;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Moves the unread bytes from {@code keep} to the front of the buffer and
+	 * reads more behind them.
+	 */
+	private void fill(int keep) throws IOException {
+		int kept = buffer.limit() - keep;
+		buffer = source.more(buffer, keep);
+		position = 0;
+		endOfInput = buffer.limit() == kept;
+	}
+
+	/**
+	 * Parses the record starting at the current position. Nothing is consumed
+	 * unless a whole record is in the buffer.
+	 */
+	private Status parseRecord() {
+		ByteBuffer buf = buffer;
+		int limit = buf.limit();
+		int p = position;
+
+		// Skip empty lines
+		while (p < limit && (buf.get(p) == '\n' || buf.get(p) == '\r')) {
+			p++;
+		}
+		if (p >= limit) {
+			if (endOfInput) {
+				position = p;
+				return Status.END;
+			}
+			return Status.NEED_MORE;
+		}
+
+		fieldCount = 0;
+		while (true) {
+			int start;
+			int end;
+			boolean hasEscapes = false;
+
+			if (p < limit && buf.get(p) == '"') {
+				start = p + 1;
+				int q = start;
+				while (true) {
+					if (q >= limit) {
+						if (endOfInput) {
+							throw new IllegalArgumentException(
+									"Unterminated quoted field in record " + (recordNumber + 1));
+						}
+						return Status.NEED_MORE;
+					}
+					if (buf.get(q) == '"') {
+						if (q + 1 >= limit && !endOfInput) {
+							return Status.NEED_MORE;
+						}
+						if (q + 1 < limit && buf.get(q + 1) == '"') {
+							hasEscapes = true;
+							q += 2;
+							continue;
+						}
+						break;
+					}
+					q++;
+				}
+				end = q;
+				p = q + 1;
+				if (p < limit) {
+					byte b = buf.get(p);
+					if (b != ',' && b != '\n' && b != '\r') {
+						throw new IllegalArgumentException(
+								"Unexpected character after quoted field in record " + (recordNumber + 1));
+					}
+				}
+			} else {
+				start = p;
+				while (p < limit) {
+					byte b = buf.get(p);
+					if (b == ',' || b == '\n' || b == '\r') {
+						break;
+					}
+					p++;
+				}
+				if (p >= limit && !endOfInput) {
+					return Status.NEED_MORE;
+				}
+				end = p;
+			}
+			addField(start, end, hasEscapes);
+
+			if (p >= limit) {
+				break;
+			}
+			byte b = buf.get(p);
+			if (b == ',') {
+				p++;
+			} else if (b == '\n') {
+				p++;
+				break;
+			} else {
+				if (p + 1 >= limit && !endOfInput) {
+					return Status.NEED_MORE;
+				}
+				p++;
+				if (p < limit && buf.get(p) == '\n') {
+					p++;
+				}
+				break;
+			}
+		}
+
+		position = p;
+		return Status.RECORD;
+	}
+
+	private void addField(int start, int end, boolean hasEscapes) {
+		if (fieldCount == starts.length) {
+			starts = Arrays.copyOf(starts, fieldCount * 2);
+			ends = Arrays.copyOf(ends, fieldCount * 2);
+			escaped = Arrays.copyOf(escaped, fieldCount * 2);
+		}
+		starts[fieldCount] = start;
+		ends[fieldCount] = end;
+		escaped[fieldCount] = hasEscapes;
+		fieldCount++;
+	}
+
+	/**
+	 * A record holding a single unquoted field of blanks is a blank line.
+	 */
+	private boolean isBlank() {
+		if (fieldCount != 1 || (starts[0] > 0 && buffer.get(starts[0] - 1) == '"')) {
+			return false;
+		}
+		for (int i = starts[0]; i < ends[0]; i++) {
+			byte b = buffer.get(i);
+			if (b != ' ' && b != '\t') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The number of records read so far, counting the header
+	 */
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * @return The number of fields in the current record
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= fieldCount) {
+			throw new IndexOutOfBoundsException(
+					"Field " + index + " of record " + recordNumber + " with " + fieldCount + " fields");
+		}
+	}
+
+	/**
+	 * Returns a view of a field of the current record. The view is only valid
+	 * until the next call to {@link #next()}.
+	 *
+	 * @param index Index of the field
+	 * @return A view of the field's bytes
+	 */
+	public Field field(int index) {
+		checkIndex(index);
+		return new Field(index);
+	}
+
+	/**
+	 * @param index Index of the field
+	 * @return true if the field is missing or empty
+	 */
+	public boolean isEmpty(int index) {
+		return index >= fieldCount || starts[index] == ends[index];
+	}
+
+	/**
+	 * @param index Index of the field
+	 * @return The field decoded as UTF-8, without its quotes
+	 */
+	public String getString(int index) {
+		checkIndex(index);
+		int start = starts[index];
+		int length = ends[index] - start;
+		if (escaped[index]) {
+			return new String(scratch, 0, unescape(index), StandardCharsets.UTF_8);
+		}
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = scratch(length);
+		buffer.get(start, bytes, 0, length);
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private byte[] scratch(int length) {
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		return scratch;
+	}
+
+	/**
+	 * Copies a quoted field into the scratch buffer with doubled quotes
+	 * collapsed and returns its length.
+	 */
+	private int unescape(int index) {
+		int start = starts[index];
+		int end = ends[index];
+		byte[] bytes = scratch(end - start);
+		int n = 0;
+		for (int i = start; i < end; i++) {
+			byte b = buffer.get(i);
+			bytes[n++] = b;
+			if (b == '"') {
+				i++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * @param index Index of the field
+	 * @return The first character of the field, or 0 if it is empty
+	 */
+	public char getChar(int index) {
+		checkIndex(index);
+		return starts[index] == ends[index] ? 0 : (char) (buffer.get(starts[index]) & 0xFF);
+	}
+
+	/**
+	 * Parses a field holding a UUID. Surrounding blanks are ignored.
+	 *
+	 * @param index Index of the field
+	 * @return The UUID
+	 * @throws IllegalArgumentException If the field is not a UUID
+	 */
+	public UUID getUuid(int index) {
+		checkIndex(index);
+		int start = trimStart(index);
+		int end = trimEnd(index, start);
+		if (end - start == 36 && !escaped[index] && buffer.get(start + 8) == '-' && buffer.get(start + 13) == '-'
+				&& buffer.get(start + 18) == '-' && buffer.get(start + 23) == '-') {
+			long time = hex(start, 8);
+			long mid = hex(start + 9, 4);
+			long high = hex(start + 14, 4);
+			long sequence = hex(start + 19, 4);
+			long node = hex(start + 24, 12);
+			if ((time | mid | high | sequence | node) >= 0) {
+				return new UUID(time << 32 | mid << 16 | high, sequence << 48 | node);
+			}
+		}
+		return UUID.fromString(getString(index).trim());
+	}
+
+	/**
+	 * Reads up to 15 hex digits, returning -1 if any is not a hex digit.
+	 */
+	private long hex(int start, int digits) {
+		long value = 0;
+		for (int i = start; i < start + digits; i++) {
+			byte b = buffer.get(i);
+			int digit = b < 0 ? -1 : HEX[b];
+			if (digit < 0) {
+				return -1;
+			}
+			value = value << 4 | digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Parses a field holding a decimal number. Plain decimals with up to 15
+	 * significant digits are parsed directly from the bytes; anything else
+	 * goes through {@link Double#parseDouble(String)}. Both give the same
+	 * result.
+	 *
+	 * @param index Index of the field
+	 * @return The number
+	 * @throws NumberFormatException If the field is not a number
+	 */
+	public double getDouble(int index) {
+		checkIndex(index);
+		int start = trimStart(index);
+		int end = trimEnd(index, start);
+		if (escaped[index] || start == end) {
+			return Double.parseDouble(getString(index));
+		}
+
+		int i = start;
+		boolean negative = false;
+		byte first = buffer.get(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int fraction = 0;
+		boolean dot = false;
+		boolean any = false;
+		for (; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b >= '0' && b <= '9') {
+				any = true;
+				if (dot) {
+					fraction++;
+				}
+				if (mantissa == 0 && b == '0') {
+					continue;
+				}
+				if (++digits > 15) {
+					return Double.parseDouble(getString(index));
+				}
+				mantissa = mantissa * 10 + (b - '0');
+			} else if (b == '.' && !dot) {
+				dot = true;
+			} else {
+				return Double.parseDouble(getString(index));
+			}
+		}
+		if (!any || fraction >= POW10.length) {
+			return Double.parseDouble(getString(index));
+		}
+
+		// The mantissa and the power of ten are both exact doubles, so the
+		// quotient is correctly rounded just as Double.parseDouble is
+		double value = fraction == 0 ? mantissa : mantissa / POW10[fraction];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses a field holding an ISO date ({@code yyyy-MM-dd}). Surrounding
+	 * blanks are ignored.
+	 *
+	 * @param index Index of the field
+	 * @return The date
+	 * @throws java.time.DateTimeException If the field is not a valid date
+	 */
+	public LocalDate getDate(int index) {
+		checkIndex(index);
+		int start = trimStart(index);
+		int end = trimEnd(index, start);
+		if (end - start == 10 && buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-') {
+			int year = digits(start, 4);
+			int month = digits(start + 5, 2);
+			int day = digits(start + 8, 2);
+			if (year >= 0 && month >= 0 && day >= 0) {
+				return LocalDate.of(year, month, day);
+			}
+		}
+		return LocalDate.parse(getString(index).trim());
+	}
+
+	private int digits(int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private int trimStart(int index) {
+		int start = starts[index];
+		while (start < ends[index] && buffer.get(start) == ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	private int trimEnd(int index, int start) {
+		int end = ends[index];
+		while (end > start && buffer.get(end - 1) == ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	@Override
+	public void close() throws IOException {
+		source.close();
+	}
+
+	/**
+	 * A view of one field of the current record. It does not copy the field's
+	 * bytes and is only valid until the reader moves to the next record.
+	 */
+	public final class Field {
+		private final int index;
+
+		private Field(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * @return The number of bytes in the field, as stored
+		 */
+		public int length() {
+			return ends[index] - starts[index];
+		}
+
+		/**
+		 * @return true if the field is empty
+		 */
+		public boolean isEmpty() {
+			return length() == 0;
+		}
+
+		/**
+		 * @param i Offset into the field
+		 * @return The byte at that offset, as stored
+		 */
+		public byte byteAt(int i) {
+			if (i < 0 || i >= length()) {
+				throw new IndexOutOfBoundsException("Offset " + i + " of field with " + length() + " bytes");
+			}
+			return buffer.get(starts[index] + i);
+		}
+
+		/**
+		 * Compares the field with ASCII text without decoding it.
+		 *
+		 * @param text ASCII text
+		 * @return true if the field holds exactly that text
+		 */
+		public boolean contentEquals(String text) {
+			if (escaped[index]) {
+				return getString(index).equals(text);
+			}
+			if (text.length() != length()) {
+				return false;
+			}
+			for (int i = 0; i < text.length(); i++) {
+				if (buffer.get(starts[index] + i) != text.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public UUID asUuid() {
+			return getUuid(index);
+		}
+
+		public double asDouble() {
+			return getDouble(index);
+		}
+
+		public LocalDate asDate() {
+			return getDate(index);
+		}
+
+		@Override
+		public String toString() {
+			return getString(index);
+		}
+	}
+
+	/**
+	 * Where the bytes come from.
+	 */
+	private interface Source extends Closeable {
+		/**
+		 * Returns a buffer that starts with the bytes of {@code current} from
+		 * {@code keep} up to its limit, followed by more input if there is
+		 * any. {@code current} may no longer be used afterwards.
+		 */
+		ByteBuffer more(ByteBuffer current, int keep) throws IOException;
+	}
+
+	/**
+	 * Reads a stream into a heap buffer that grows when a record does not fit.
+	 */
+	private static final class StreamSource implements Source {
+		private final InputStream in;
+		private byte[] bytes = new byte[BUFFER_SIZE];
+
+		private StreamSource(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public ByteBuffer more(ByteBuffer current, int keep) throws IOException {
+			int kept = current.limit() - keep;
+			if (kept == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			if (kept > 0 && keep > 0) {
+				System.arraycopy(bytes, keep, bytes, 0, kept);
+			}
+			int n = in.read(bytes, kept, bytes.length - kept);
+			return ByteBuffer.wrap(bytes, 0, kept + Math.max(n, 0));
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Maps a range of a file a window at a time. A record that runs past the
+	 * end of a window is re-read from the start of the next one.
+	 */
+	private static final class MappedSource implements Source {
+		private final FileChannel channel;
+		private final long end;
+		private long window;
+		private long base;
+
+		private MappedSource(FileChannel channel, long from, long to, long window) {
+			this.channel = channel;
+			this.base = from;
+			this.end = to;
+			this.window = window;
+		}
+
+		@Override
+		public ByteBuffer more(ByteBuffer current, int keep) throws IOException {
+			long from = base + keep;
+			int kept = current.limit() - keep;
+			if (base + current.limit() >= end) {
+				base = from;
+				return current.slice(keep, kept);
+			}
+			if (kept >= window) {
+				if (window >= Integer.MAX_VALUE) {
+					throw new IOException("CSV record larger than 2 GB at byte " + from);
+				}
+				window = Math.min(window * 2, Integer.MAX_VALUE);
+			}
+			base = from;
+			return channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(window, end - from));
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+}
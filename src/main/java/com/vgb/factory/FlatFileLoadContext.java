@@ -0,0 +1,125 @@
+package com.vgb.factory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.Company;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.InvoiceLoader;
+import com.vgb.Item;
+import com.vgb.Person;
+import com.vgb.ReportSession;
+
+/**
+ * Loads all flat files, parsing each one exactly once, and shares the
+ * resolved maps between the loaders that depend on them.
+ * <p>
+ * The files depend on each other as follows:
+ * </p>
+ *
+ * <pre>
+ * Persons.csv ──► Companies.csv ──► Items.csv ───────┐
+ *      │                │                            ▼
+ *      └────────────────┴─────────► Invoices.csv ──► InvoiceItems.csv
+ * </pre>
+ * <p>
+ * Each file is loaded as soon as the files it depends on are done, so
+ * Items.csv and Invoices.csv load in parallel. Every stage receives the same
+ * map instances, so an invoice's customer, a contract's customer and the
+ * company in {@link #getCompanies()} are the same object.
+ * </p>
+ */
+public class FlatFileLoadContext {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FlatFileLoadContext.class);
+
+	private final CompletableFuture<Map<UUID, Person>> persons;
+	private final CompletableFuture<Map<UUID, Company>> companies;
+	private final CompletableFuture<Map<UUID, Item>> items;
+	private final CompletableFuture<Map<UUID, Invoice>> invoices;
+	private final CompletableFuture<Map<UUID, List<InvoiceItem>>> invoiceItems;
+
+	private FlatFileLoadContext(Executor executor) {
+		long start = System.nanoTime();
+		persons = CompletableFuture.supplyAsync(PersonLoader::loadPerson, executor);
+		companies = persons.thenApplyAsync(CompanyLoader::loadCompany, executor);
+		items = companies.thenApplyAsync(ItemLoader::loadItem, executor);
+		invoices = persons.thenCombineAsync(companies, InvoiceLoader::loadInvoice, executor);
+		invoiceItems = invoices.thenCombineAsync(items, InvoiceItemLoader::loadInvoiceItem, executor);
+		invoiceItems.thenRun(() -> LOGGER.debug("Loaded flat files in {} ms", (System.nanoTime() - start) / 1_000_000));
+	}
+
+	/**
+	 * Starts loading the flat files on the common fork join pool.
+	 *
+	 * @return The context; its getters wait for the files they need
+	 */
+	public static FlatFileLoadContext load() {
+		return load(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Starts loading the flat files on the given executor.
+	 *
+	 * @param executor Runs the loaders
+	 * @return The context; its getters wait for the files they need
+	 */
+	public static FlatFileLoadContext load(Executor executor) {
+		return new FlatFileLoadContext(executor);
+	}
+
+	/**
+	 * Waits for a stage, rethrowing the loader's own exception if it failed.
+	 */
+	private static <T> T join(CompletableFuture<T> stage) {
+		try {
+			return stage.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	public Map<UUID, Person> getPersons() {
+		return join(persons);
+	}
+
+	public Map<UUID, Company> getCompanies() {
+		return join(companies);
+	}
+
+	public Map<UUID, Item> getItems() {
+		return join(items);
+	}
+
+	public Map<UUID, Invoice> getInvoices() {
+		return join(invoices);
+	}
+
+	public Map<UUID, List<InvoiceItem>> getInvoiceItems() {
+		return join(invoiceItems);
+	}
+
+	/**
+	 * Builds a report session from the flat files. As with the database,
+	 * invoices without any items are mapped to a list holding a single
+	 * {@code null}.
+	 *
+	 * @return A session over the flat file contents
+	 */
+	public ReportSession getReportSession() {
+		return ReportSession.of(getInvoices(), getInvoiceItems(), getCompanies());
+	}
+
+}
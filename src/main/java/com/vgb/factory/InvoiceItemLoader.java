@@ -1,13 +1,11 @@
 package com.vgb.factory;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.UUID;
 
 import com.vgb.Contract;
@@ -27,111 +25,91 @@ public class InvoiceItemLoader {
 
 	public static final String FILE_PATH = "data/InvoiceItems.csv";
 
+	/**
+	 * Loads the invoice items, reading every other flat file exactly once
+	 * through a {@link FlatFileLoadContext}.
+	 *
+	 * @return Invoice items by invoice UUID
+	 */
 	public static Map<UUID, List<InvoiceItem>> loadInvoiceItem() {
+		return FlatFileLoadContext.load().getInvoiceItems();
+	}
 
-		Map<UUID, Invoice> invoices = InvoiceLoader.loadInvoice();
-		Map<UUID, Item> items = ItemLoader.loadItem();
+	/**
+	 * Loads the invoice items, taking invoices and items from maps that are
+	 * already loaded.
+	 *
+	 * @param invoices Invoices by UUID
+	 * @param items    Items by UUID
+	 * @return Invoice items by invoice UUID
+	 */
+	public static Map<UUID, List<InvoiceItem>> loadInvoiceItem(Map<UUID, Invoice> invoices, Map<UUID, Item> items) {
 
 		Map<UUID, List<InvoiceItem>> invoiceItems = new HashMap<>();
-		String line = null;
-		try (Scanner s = new Scanner(new File(FILE_PATH))) {
-			s.nextLine();
-
-			while (s.hasNext()) {
-
-				line = s.nextLine();
-
-				if (!line.trim().isEmpty()) {
-					InvoiceItem invItem = null;
-					String parts[] = line.split(",");
-					UUID invoiceuuid = null;
-					UUID itemUuid = null;
-
-					String invoiceidstr = parts[0];
-					String itemuuidstr = parts[1];
-					char fields = parts[2].charAt(0);
-
-					LocalDate startDate = null;
-					LocalDate endDate = null;
-
-					Invoice invoice = null;
-					Item item = null;
-
-					double hours = 0.0, contractPrice = 0.0, quantity = 0.0;
-
-					itemUuid = UUID.fromString(itemuuidstr);
-
-					invoiceuuid = UUID.fromString(invoiceidstr);
-
-					if (parts.length == 5) {
-						startDate = LocalDate.parse(parts[3]);
-						endDate = LocalDate.parse(parts[4]);
-
-						if (fields == 'L') {
-							item = items.get(itemUuid);
-
-							invoice = invoices.get(invoiceuuid);
-							Equipment e = (Equipment) item;
-							Lease l = new Lease(e, startDate, endDate);
-
-							invItem = new InvoiceItem(invoice, l);
-
-						}
-
-					} else if (parts.length == 4) {
-						if (fields == 'M') {
-
-							quantity = Double.parseDouble(parts[3]);
-
-							item = items.get(itemUuid);
-							invoice = invoices.get(invoiceuuid);
-
-							Material m = new Material((Material) item, quantity);
-
-							invItem = new InvoiceItem(invoice, m);
-
-						} else if (fields == 'C') {
-
-							contractPrice = Double.parseDouble(parts[3]);
-							item = items.get(itemUuid);
-							invoice = invoices.get(invoiceuuid);
-
-							Contract c = new Contract((Contract) item, contractPrice);
-
-							invItem = new InvoiceItem(invoice, c);
-
-						} else if (fields == 'R') {
-							hours = Double.parseDouble(parts[3]);
-
-							item = items.get(itemUuid);
-							invoice = invoices.get(invoiceuuid);
-
-							Rental r = new Rental((Equipment) item, hours);
-							invItem = new InvoiceItem(invoice, r);
-						}
-
-					} else if (parts.length == 3) {
-						if (fields == 'P') {
-							item = (Equipment) items.get(itemUuid);
-							invoice = invoices.get(invoiceuuid);
-
-							invItem = new InvoiceItem(invoice, item);
-						}
-					}
-					if (!invoiceItems.containsKey(invoiceuuid)) {
-						invoiceItems.put(invoiceuuid, new ArrayList<>());
-					}
-
-					invoiceItems.get(invoiceuuid).add(invItem);
-				}
+		try (CsvReader csv = CsvReader.open(FILE_PATH)) {
+			csv.next();
 
+			while (csv.next()) {
+				addInvoiceItem(csv, invoices, items, invoiceItems);
 			}
-			s.close();
 
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return invoiceItems;
 	}
 
+	/**
+	 * Builds an invoice item from the reader's current record and appends it
+	 * to its invoice's list.
+	 *
+	 * @param csv          Reader positioned on an invoice item record
+	 * @param invoices     Invoices by UUID
+	 * @param items        Items by UUID
+	 * @param invoiceItems Invoice items by invoice UUID, added to
+	 */
+	static void addInvoiceItem(CsvReader csv, Map<UUID, Invoice> invoices, Map<UUID, Item> items,
+			Map<UUID, List<InvoiceItem>> invoiceItems) {
+		InvoiceItem invItem = null;
+		UUID invoiceuuid = csv.getUuid(0);
+		UUID itemUuid = csv.getUuid(1);
+		char fields = csv.getChar(2);
+
+		Invoice invoice = invoices.get(invoiceuuid);
+		Item item = items.get(itemUuid);
+
+		// Rows end with a trailing comma, so they are told apart by
+		// their type rather than their number of fields
+		if (fields == 'L') {
+			LocalDate startDate = csv.getDate(3);
+			LocalDate endDate = csv.getDate(4);
+
+			Lease l = new Lease((Equipment) item, startDate, endDate);
+			invItem = new InvoiceItem(invoice, l);
+
+		} else if (fields == 'M') {
+			double quantity = csv.getDouble(3);
+
+			Material m = new Material((Material) item, quantity);
+			invItem = new InvoiceItem(invoice, m);
+
+		} else if (fields == 'C') {
+			double contractPrice = csv.getDouble(3);
+
+			Contract c = new Contract((Contract) item, contractPrice);
+			invItem = new InvoiceItem(invoice, c);
+
+		} else if (fields == 'R') {
+			double hours = csv.getDouble(3);
+
+			Rental r = new Rental((Equipment) item, hours);
+			invItem = new InvoiceItem(invoice, r);
+
+		} else if (fields == 'P') {
+			invItem = new InvoiceItem(invoice, (Equipment) item);
+		}
+
+		invoiceItems.computeIfAbsent(invoiceuuid, k -> new ArrayList<>()).add(invItem);
+	}
+
 }
@@ -3,7 +3,6 @@ package com.vgb.factory;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.UUID;
 
 import com.vgb.Company;
@@ -12,8 +11,7 @@ import com.vgb.Equipment;
 import com.vgb.Item;
 import com.vgb.Material;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * Utility class for loading and constructing Items from a flat file
@@ -22,69 +20,77 @@ public class ItemLoader {
 
 	public static final String FILE_PATH = "data/Items.csv";
 	
+	/**
+	 * Loads the items, reading Companies.csv for the contract customers.
+	 * 
+	 * @return Items by UUID
+	 */
 	public static Map<UUID,Item> loadItem(){
-		
-		Map<UUID, Company> company = CompanyLoader.loadCompany();	
+		return loadItem(CompanyLoader.loadCompany());
+	}
+	
+	/**
+	 * Loads the items, taking the contract customers from companies that are
+	 * already loaded.
+	 * 
+	 * @param company Companies by UUID
+	 * @return Items by UUID
+	 */
+	public static Map<UUID,Item> loadItem(Map<UUID, Company> company){
 		
 		Map<UUID,Item> items = new HashMap<UUID,Item>();
 		
 		
 		
-		try(Scanner s = new Scanner(new File(FILE_PATH))){
+		try (CsvReader csv = CsvReader.open(FILE_PATH)) {
 			
-			s.nextLine();
+			csv.next();
 			Item item = null;
 			Company customer = null;
 			
-			while (s.hasNext()) {
-				String line = s.nextLine();
-				if(!line.trim().isEmpty()) {
+			while (csv.next()) {
+				
+				if (csv.getFieldCount() < 4) {
+					throw new IllegalArgumentException("Invalid line format in record " + csv.getRecordNumber());
+				}
+				
+				UUID uuid = csv.getUuid(0);
+				char type = csv.getChar(1);
+				String name = csv.getString(2);
+				double price = 0.0, costPerUnit = 0.0; 
+				UUID customerUUID;
+				
+				if (type == 'E') {
 					
-					String parts[] = line.split(",");
+					String modelName = csv.getString(3);
+					price = csv.getDouble(4);
 					
-					if (parts.length < 4) {
-					    throw new IllegalArgumentException("Invalid line format: " + line);
-					}
+					item = new Equipment(uuid, name, modelName, price);
+				} else if (type == 'M') {
 					
-					UUID uuid = UUID.fromString(parts[0]);
-					String name = parts[2];
-					String field = parts[3];
-					double price = 0.0, costPerUnit = 0.0; 
-					UUID customerUUID;
+					String unit = csv.getString(3);
+					costPerUnit = csv.getDouble(4);
 					
-					if(parts[1].equals("E")) {
-						
-						String modelName = field;
-						price = Double.parseDouble(parts[4]);
-						
-						item = new Equipment(uuid, name, modelName, price);
-					} else if(parts[1].equals("M")) {
-						
-						String unit = parts[3];
-						costPerUnit = Double.parseDouble(parts[4]);
-						
-						item = new Material(uuid, name, unit, costPerUnit);
-					}else if(parts[1].equals("C")) {
-						
-						try {
-							customerUUID = UUID.fromString(field);
-							}catch(IllegalArgumentException e) {
-								throw new IllegalArgumentException("Invalid UUID format: " + field);
-							}
-						customer = company.get(customerUUID);
-						
-						if (parts.length > 4) {
-						price = Double.parseDouble(parts[4]);
-						}
-						item = new Contract(uuid, name, price, customer);
-						 
-						
-					}	
-					items.put(uuid, item);
+					item = new Material(uuid, name, unit, costPerUnit);
+				} else if (type == 'C') {
+					
+					try {
+						customerUUID = csv.getUuid(3);
+					} catch (IllegalArgumentException e) {
+						throw new IllegalArgumentException("Invalid UUID format: " + csv.getString(3));
+					}
+					customer = company.get(customerUUID);
+					
+					if (!csv.isEmpty(4)) {
+						price = csv.getDouble(4);
+					}
+					item = new Contract(uuid, name, price, customer);
 					
 				}
-				}
-		} catch (FileNotFoundException e) {
+				items.put(uuid, item);
+				
+			}
+		} catch (IOException e) {
 			System.err.print("Something went wrong");
 			e.printStackTrace();
 		}
@@ -34,12 +34,12 @@ import com.vgb.database.IDLoader;
  */
 public class LoadInvoiceItem implements DataMapper<InvoiceItem>{
 
+	private final IDLoader<Item> service = new IDLoader<>("Item", new LoadItem());
+	private final IDLoader<Invoice> invoiceLoader = new IDLoader<>("Invoice", new LoadInvoice());
+
 	@Override
 	public InvoiceItem map(ResultSet rs, Connection conn) throws SQLException {
 
-	    LoadItem mapper = new LoadItem();
-	    IDLoader<Item> service = new IDLoader<>(mapper);
-	    
 	    int itemId = rs.getInt("itemId");
         if (rs.wasNull()) {
             return null;
@@ -50,7 +50,6 @@ public class LoadInvoiceItem implements DataMapper<InvoiceItem>{
             return null;
         }
 	    
-	    char EQType = typeEquipment.charAt(0);
 	    Item item = service.loadById(
 	        """
 	    		SELECT 
@@ -69,9 +68,6 @@ public class LoadInvoiceItem implements DataMapper<InvoiceItem>{
 	    
 	    
 
-	    LoadInvoice map = new LoadInvoice();
-	    IDLoader<Invoice> invoiceLoader = new IDLoader<>(map);
-
 	    Invoice inv = invoiceLoader.loadById(
 	        """
 	    		SELECT invoiceId,
@@ -84,6 +80,23 @@ public class LoadInvoiceItem implements DataMapper<InvoiceItem>{
 	        rs.getInt("invoiceId"), conn
 	    );
 	    
+	    return buildInvoiceItem(inv, item, rs);
+	}
+
+	/**
+	 * Wraps an already loaded {@link Item} into the line type given by the
+	 * {@code typeEquipment} column of the current row.
+	 * 
+	 * @param inv  The invoice the line belongs to
+	 * @param item The catalog item referenced by the line
+	 * @param rs   Result set positioned on an InvoiceItem row
+	 * @return The mapped invoice item
+	 * @throws SQLException If the line type is unknown
+	 */
+	public static InvoiceItem buildInvoiceItem(Invoice inv, Item item, ResultSet rs) throws SQLException {
+
+	    char EQType = rs.getString("typeEquipment").charAt(0);
+
 	    switch (EQType) {
 	        case 'L':
 	            LocalDate startDate = LocalDate.parse(rs.getString("startDate"));
@@ -33,11 +33,38 @@ public class LoadItem implements DataMapper<Item> {
 
 	DataLoader dl = new DataLoader();
 
-	IDLoader<Company> cLoader = new IDLoader<>(new LoadCompany());
+	IDLoader<Company> cLoader = new IDLoader<>("Company", new LoadCompany());
 
 	@Override
 	public Item map(ResultSet rs, Connection conn) throws SQLException {
 
+		Company customer = null;
+
+		if ("C".equals(rs.getString("itemType"))) {
+			int customerId = rs.getInt("customerId");
+
+			if (!rs.wasNull()) {
+				customer = cLoader.loadById("""
+						SELECT c.uuid, c.companyName, c.personId, c.addressId
+						FROM Company c
+						WHERE companyId = ?
+						""", customerId, conn);
+			}
+		}
+
+		return buildItem(rs, customer);
+	}
+
+	/**
+	 * Builds an {@link Item} from the current row without touching the database.
+	 * The customer of a contract has to be resolved by the caller.
+	 * 
+	 * @param rs       Result set positioned on an Item row
+	 * @param customer The contract's customer, ignored for other item types
+	 * @return The mapped item, or null for an unknown item type
+	 */
+	public static Item buildItem(ResultSet rs, Company customer) throws SQLException {
+
 		UUID uuid = UUID.fromString(rs.getString("uuid"));
 		String name = rs.getString("itemName");
 		double price = rs.getDouble("itemPrice");
@@ -59,18 +86,6 @@ public class LoadItem implements DataMapper<Item> {
 		}
 
 		case "C": {
-
-			int customerId = rs.getInt("customerId");
-			Company customer = null;
-
-			if (!rs.wasNull()) {
-				customer = cLoader.loadById("""
-						SELECT c.uuid, c.companyName, c.personId, c.addressId
-						FROM Company c
-						WHERE companyId = ?
-						""", customerId, conn);
-			}
-
 			item = new Contract(uuid, name, price, customer);
 			break;
 		}
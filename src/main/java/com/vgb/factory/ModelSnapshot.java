@@ -0,0 +1,650 @@
+package com.vgb.factory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.Address;
+import com.vgb.Company;
+import com.vgb.Contract;
+import com.vgb.Equipment;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.Item;
+import com.vgb.Lease;
+import com.vgb.LineType;
+import com.vgb.Material;
+import com.vgb.Money;
+import com.vgb.Person;
+import com.vgb.Rental;
+import com.vgb.ReportSession;
+
+/**
+ * A loaded model (persons, companies, items, invoices and invoice items) that
+ * can be saved to a compact binary file and mapped back in a fraction of the
+ * time it takes to parse the flat files or query the database.
+ * <p>
+ * The file starts with a magic number and a format version and ends with a
+ * CRC32 of everything before it. In between are a table of every distinct
+ * string followed by one table per entity type, in dependency order. Entities
+ * refer to each other by their position in the earlier tables and to strings
+ * by their position in the string table. UUIDs are stored as two longs, dates
+ * as epoch days and prices as cents; a price that is not a whole number of
+ * cents is stored as its exact double instead.
+ * </p>
+ * <p>
+ * Reading builds the same object graph the loaders build: a line item is
+ * created from its catalog item exactly as {@link InvoiceItemLoader} does, and
+ * every entity is shared by reference. {@code null} entries in the invoice
+ * item lists are left out.
+ * </p>
+ */
+public class ModelSnapshot {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ModelSnapshot.class);
+
+	/**
+	 * "VGBS" in ASCII.
+	 */
+	private static final int MAGIC = 0x56474253;
+
+	/**
+	 * Increased whenever the layout changes; older files are not read.
+	 */
+	static final int VERSION = 1;
+
+	private static final int NONE = -1;
+	private static final int NO_DATE = Integer.MIN_VALUE;
+
+	/**
+	 * Marks a price that is stored as double bits rather than cents.
+	 */
+	private static final long NOT_CENTS = Long.MIN_VALUE;
+
+	private static final byte EQUIPMENT = 'E';
+	private static final byte MATERIAL = 'M';
+	private static final byte CONTRACT = 'C';
+
+	private final Map<UUID, Person> persons;
+	private final Map<UUID, Company> companies;
+	private final Map<UUID, Item> items;
+	private final Map<UUID, Invoice> invoices;
+	private final Map<UUID, List<InvoiceItem>> invoiceItems;
+
+	/**
+	 * Creates a snapshot of loaded maps. Entities that are referred to but not
+	 * in the maps, such as the contact of a company, are saved as well.
+	 *
+	 * @param persons      Persons by UUID
+	 * @param companies    Companies by UUID
+	 * @param items        Catalog items by UUID
+	 * @param invoices     Invoices by UUID
+	 * @param invoiceItems Invoice items by invoice UUID
+	 */
+	public ModelSnapshot(Map<UUID, Person> persons, Map<UUID, Company> companies, Map<UUID, Item> items,
+			Map<UUID, Invoice> invoices, Map<UUID, List<InvoiceItem>> invoiceItems) {
+		this.persons = persons;
+		this.companies = companies;
+		this.items = items;
+		this.invoices = invoices;
+		this.invoiceItems = invoiceItems;
+	}
+
+	/**
+	 * Creates a snapshot of everything the flat files hold.
+	 *
+	 * @param context A flat file load; waits for it to finish
+	 * @return The snapshot
+	 */
+	public static ModelSnapshot of(FlatFileLoadContext context) {
+		return new ModelSnapshot(context.getPersons(), context.getCompanies(), context.getItems(),
+				context.getInvoices(), context.getInvoiceItems());
+	}
+
+	/**
+	 * Creates a snapshot of a report session, for example one loaded from the
+	 * database. The session has no item catalog, so catalog items are rebuilt
+	 * from the invoice items that use them.
+	 *
+	 * @param session The session
+	 * @return The snapshot
+	 */
+	public static ModelSnapshot of(ReportSession session) {
+		Map<UUID, Invoice> invoices = new LinkedHashMap<>();
+		Map<UUID, List<InvoiceItem>> invoiceItems = new LinkedHashMap<>();
+		for (Map.Entry<Invoice, List<InvoiceItem>> entry : session.getInvoiceItems().entrySet()) {
+			UUID uuid = entry.getKey().getInvoiceUUID();
+			invoices.put(uuid, entry.getKey());
+			for (InvoiceItem invoiceItem : entry.getValue()) {
+				if (invoiceItem != null) {
+					invoiceItems.computeIfAbsent(uuid, k -> new ArrayList<>()).add(invoiceItem);
+				}
+			}
+		}
+		return new ModelSnapshot(new LinkedHashMap<>(), session.getCompanies(), new LinkedHashMap<>(), invoices,
+				invoiceItems);
+	}
+
+	public Map<UUID, Person> getPersons() {
+		return persons;
+	}
+
+	public Map<UUID, Company> getCompanies() {
+		return companies;
+	}
+
+	public Map<UUID, Item> getItems() {
+		return items;
+	}
+
+	public Map<UUID, Invoice> getInvoices() {
+		return invoices;
+	}
+
+	public Map<UUID, List<InvoiceItem>> getInvoiceItems() {
+		return invoiceItems;
+	}
+
+	/**
+	 * @return A report session over the snapshot
+	 */
+	public ReportSession getReportSession() {
+		return ReportSession.of(invoices, invoiceItems, companies);
+	}
+
+	/**
+	 * Reads a snapshot if the file exists and is valid. Otherwise the model is
+	 * loaded and the snapshot (re)written. Whether the file is still up to date
+	 * is the caller's concern; delete it to force a reload.
+	 *
+	 * @param file   The snapshot file
+	 * @param loader Loads the model when there is no usable snapshot
+	 * @return The snapshot
+	 */
+	public static ModelSnapshot readOrLoad(Path file, Supplier<ModelSnapshot> loader) {
+		if (Files.isRegularFile(file)) {
+			try {
+				return read(file);
+			} catch (IOException | RuntimeException e) {
+				LOGGER.warn("Ignoring unusable snapshot {}: {}", file, e.getMessage());
+			}
+		}
+
+		ModelSnapshot snapshot = loader.get();
+		try {
+			snapshot.write(file);
+		} catch (IOException e) {
+			LOGGER.warn("Could not write snapshot {}", file, e);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Assigns each distinct entity or string its position in a table.
+	 */
+	private static final class Table<T> {
+		private final Map<T, Integer> positions;
+		private final List<T> entries = new ArrayList<>();
+
+		private Table(Map<T, Integer> positions) {
+			this.positions = positions;
+		}
+
+		private int add(T entry) {
+			if (entry == null) {
+				return NONE;
+			}
+			Integer position = positions.get(entry);
+			if (position == null) {
+				position = entries.size();
+				positions.put(entry, position);
+				entries.add(entry);
+			}
+			return position;
+		}
+
+		private int indexOf(T entry) {
+			return (entry == null) ? NONE : positions.get(entry);
+		}
+	}
+
+	/**
+	 * Returns the catalog item a line item was made from, rebuilding it when
+	 * the catalog does not have it.
+	 */
+	private Item catalogItem(Item line, Map<UUID, Item> rebuilt) {
+		Item item = items.get(line.getUUID());
+		if (item != null) {
+			return item;
+		}
+		return rebuilt.computeIfAbsent(line.getUUID(), uuid -> {
+			if (line instanceof Equipment) {
+				Equipment equipment = (Equipment) line;
+				return new Equipment(uuid, line.getName(), equipment.getModelName(), line.getPrice());
+			} else if (line instanceof Material) {
+				return new Material(uuid, line.getName(), ((Material) line).getUnit(), line.getPrice());
+			}
+			return new Contract(uuid, line.getName(), line.getPrice(), line.getCustomer());
+		});
+	}
+
+	/**
+	 * Writes the snapshot. The file is written next to its final name and then
+	 * moved into place, so readers never see half a snapshot.
+	 *
+	 * @param file The snapshot file
+	 * @throws IOException If writing fails
+	 */
+	public void write(Path file) throws IOException {
+		long start = System.nanoTime();
+
+		// Number every entity first, so that each table only refers back
+		Table<Person> personTable = new Table<>(new IdentityHashMap<>());
+		Table<Company> companyTable = new Table<>(new IdentityHashMap<>());
+		Table<Item> itemTable = new Table<>(new IdentityHashMap<>());
+		Table<Invoice> invoiceTable = new Table<>(new IdentityHashMap<>());
+		Map<UUID, Item> rebuilt = new LinkedHashMap<>();
+
+		persons.values().forEach(personTable::add);
+		for (Company company : companies.values()) {
+			personTable.add(company.getContact());
+		}
+		for (Invoice invoice : invoices.values()) {
+			personTable.add(invoice.getSalesperson());
+		}
+		companies.values().forEach(companyTable::add);
+		for (Item item : items.values()) {
+			companyTable.add(item.getCustomer());
+		}
+		for (Invoice invoice : invoices.values()) {
+			companyTable.add(invoice.getCustomer());
+			invoiceTable.add(invoice);
+		}
+		items.values().forEach(itemTable::add);
+		for (List<InvoiceItem> list : invoiceItems.values()) {
+			for (InvoiceItem invoiceItem : list) {
+				if (invoiceItem == null) {
+					continue;
+				}
+				Item item = catalogItem(invoiceItem.getItem(), rebuilt);
+				itemTable.add(item);
+				companyTable.add(item.getCustomer());
+				invoiceTable.add(invoiceItem.getInvoice());
+			}
+		}
+		for (Invoice invoice : invoiceTable.entries) {
+			personTable.add(invoice.getSalesperson());
+			companyTable.add(invoice.getCustomer());
+		}
+		for (Company company : companyTable.entries) {
+			personTable.add(company.getContact());
+		}
+
+		Table<String> strings = new Table<>(new HashMap<>());
+		for (Person person : personTable.entries) {
+			strings.add(person.getFirstName());
+			strings.add(person.getLastName());
+			strings.add(person.getPhone());
+			if (person.getEmails() != null) {
+				person.getEmails().forEach(strings::add);
+			}
+		}
+		for (Company company : companyTable.entries) {
+			strings.add(company.getName());
+			Address address = company.getAddress();
+			if (address != null) {
+				strings.add(address.getStreet());
+				strings.add(address.getCity());
+				strings.add(address.getState());
+				strings.add(address.getZip());
+			}
+		}
+		for (Item item : itemTable.entries) {
+			strings.add(item.getName());
+			if (item instanceof Equipment) {
+				strings.add(((Equipment) item).getModelName());
+			} else if (item instanceof Material) {
+				strings.add(((Material) item).getUnit());
+			}
+		}
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		CRC32 crc = new CRC32();
+		long lines = 0;
+		try (OutputStream os = Files.newOutputStream(temp);
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new CheckedOutputStream(os, crc), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			out.writeInt(strings.entries.size());
+			for (String string : strings.entries) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			out.writeInt(personTable.entries.size());
+			for (Person person : personTable.entries) {
+				writeUuid(out, person.getUuid());
+				out.writeInt(strings.indexOf(person.getFirstName()));
+				out.writeInt(strings.indexOf(person.getLastName()));
+				out.writeInt(strings.indexOf(person.getPhone()));
+				List<String> emails = person.getEmails();
+				out.writeInt((emails == null) ? NONE : emails.size());
+				if (emails != null) {
+					for (String email : emails) {
+						out.writeInt(strings.indexOf(email));
+					}
+				}
+			}
+
+			out.writeInt(companyTable.entries.size());
+			for (Company company : companyTable.entries) {
+				writeUuid(out, company.getUuid());
+				out.writeInt(strings.indexOf(company.getName()));
+				out.writeInt(personTable.indexOf(company.getContact()));
+				Address address = company.getAddress();
+				out.writeBoolean(address != null);
+				if (address != null) {
+					out.writeInt(strings.indexOf(address.getStreet()));
+					out.writeInt(strings.indexOf(address.getCity()));
+					out.writeInt(strings.indexOf(address.getState()));
+					out.writeInt(strings.indexOf(address.getZip()));
+				}
+			}
+
+			out.writeInt(itemTable.entries.size());
+			for (Item item : itemTable.entries) {
+				boolean catalog = items.get(item.getUUID()) == item;
+				out.writeBoolean(catalog);
+				writeUuid(out, item.getUUID());
+				out.writeInt(strings.indexOf(item.getName()));
+				writeMoney(out, item.getPrice());
+				if (item instanceof Equipment) {
+					out.writeByte(EQUIPMENT);
+					out.writeInt(strings.indexOf(((Equipment) item).getModelName()));
+				} else if (item instanceof Material) {
+					out.writeByte(MATERIAL);
+					out.writeInt(strings.indexOf(((Material) item).getUnit()));
+				} else {
+					out.writeByte(CONTRACT);
+					out.writeInt(companyTable.indexOf(item.getCustomer()));
+				}
+			}
+
+			out.writeInt(invoiceTable.entries.size());
+			for (Invoice invoice : invoiceTable.entries) {
+				out.writeBoolean(invoices.get(invoice.getInvoiceUUID()) == invoice);
+				writeUuid(out, invoice.getInvoiceUUID());
+				out.writeInt(companyTable.indexOf(invoice.getCustomer()));
+				out.writeInt(personTable.indexOf(invoice.getSalesperson()));
+				writeDate(out, invoice.getInvoiceDate());
+			}
+
+			out.writeInt(invoiceItems.size());
+			for (Map.Entry<UUID, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
+				writeUuid(out, entry.getKey());
+				out.writeInt((int) entry.getValue().stream().filter(Objects::nonNull).count());
+				for (InvoiceItem invoiceItem : entry.getValue()) {
+					if (invoiceItem == null) {
+						continue;
+					}
+					Item line = invoiceItem.getItem();
+					out.writeInt(invoiceTable.indexOf(invoiceItem.getInvoice()));
+					out.writeInt(itemTable.indexOf(catalogItem(line, rebuilt)));
+					LineType type = line.getLineType();
+					out.writeByte(type.getCode());
+					if (type == LineType.LEASE) {
+						writeDate(out, ((Lease) line).getStartDate());
+						writeDate(out, ((Lease) line).getEndDate());
+					} else if (type == LineType.RENTAL) {
+						out.writeDouble(((Rental) line).getHours());
+					} else if (type == LineType.MATERIAL) {
+						out.writeDouble(((Material) line).getQuantity());
+					} else if (type == LineType.CONTRACT) {
+						writeMoney(out, line.getPrice());
+					}
+					lines++;
+				}
+			}
+
+			out.flush();
+			out.writeInt((int) crc.getValue());
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		LOGGER.info("Wrote snapshot {} with {} invoices and {} invoice items in {} ms", file,
+				invoiceTable.entries.size(), lines, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+		if (uuid == null) {
+			throw new IllegalArgumentException("Cannot write an entity without a UUID to a snapshot");
+		}
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+		out.writeInt((date == null) ? NO_DATE : Math.toIntExact(date.toEpochDay()));
+	}
+
+	private static void writeMoney(DataOutputStream out, double amount) throws IOException {
+		long cents = (Double.isFinite(amount) && Math.abs(amount) < 1e13) ? Money.toCents(amount) : NOT_CENTS;
+		if (cents != NOT_CENTS && Money.toDollars(cents) == amount) {
+			out.writeLong(cents);
+		} else {
+			out.writeLong(NOT_CENTS);
+			out.writeDouble(amount);
+		}
+	}
+
+	/**
+	 * Maps a snapshot file and rebuilds the model from it. Every map holds its
+	 * entities in the order they were written, so reports that follow the
+	 * invoice order come out as they did before the snapshot was taken.
+	 *
+	 * @param file The snapshot file
+	 * @return The snapshot
+	 * @throws IOException If the file cannot be read, is corrupt or was written
+	 *                     by another format version
+	 */
+	public static ModelSnapshot read(Path file) throws IOException {
+		long start = System.nanoTime();
+		ByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot " + file + " is larger than 2 GB");
+			}
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (in.limit() < 12 || in.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a snapshot");
+		}
+		if (in.getInt(4) != VERSION) {
+			throw new IOException("Snapshot " + file + " has version " + in.getInt(4) + ", expected " + VERSION);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(in.duplicate().limit(in.limit() - 4));
+		if ((int) crc.getValue() != in.getInt(in.limit() - 4)) {
+			throw new IOException("Snapshot " + file + " is corrupt");
+		}
+		in.position(8);
+		in.limit(in.limit() - 4);
+
+		try {
+			ModelSnapshot snapshot = decode(in);
+			LOGGER.info("Read snapshot {} with {} invoices in {} ms", file, snapshot.invoices.size(),
+					(System.nanoTime() - start) / 1_000_000);
+			return snapshot;
+		} catch (RuntimeException e) {
+			throw new IOException("Snapshot " + file + " is malformed", e);
+		}
+	}
+
+	private static ModelSnapshot decode(ByteBuffer in) {
+		String[] strings = new String[in.getInt()];
+		byte[] bytes = new byte[256];
+		for (int i = 0; i < strings.length; i++) {
+			int length = in.getInt();
+			if (bytes.length < length) {
+				bytes = new byte[Math.max(length, bytes.length * 2)];
+			}
+			in.get(bytes, 0, length);
+			strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+		}
+
+		Person[] personTable = new Person[in.getInt()];
+		Map<UUID, Person> persons = new LinkedHashMap<>(capacity(personTable.length));
+		for (int i = 0; i < personTable.length; i++) {
+			UUID uuid = readUuid(in);
+			String firstName = string(strings, in.getInt());
+			String lastName = string(strings, in.getInt());
+			String phone = string(strings, in.getInt());
+			int emailCount = in.getInt();
+			List<String> emails = null;
+			if (emailCount != NONE) {
+				emails = new ArrayList<>(emailCount);
+				for (int e = 0; e < emailCount; e++) {
+					emails.add(string(strings, in.getInt()));
+				}
+			}
+			personTable[i] = new Person(uuid, firstName, lastName, phone, emails);
+			persons.put(uuid, personTable[i]);
+		}
+
+		Company[] companyTable = new Company[in.getInt()];
+		Map<UUID, Company> companies = new LinkedHashMap<>(capacity(companyTable.length));
+		for (int i = 0; i < companyTable.length; i++) {
+			UUID uuid = readUuid(in);
+			String name = string(strings, in.getInt());
+			Person contact = entity(personTable, in.getInt());
+			Address address = null;
+			if (in.get() != 0) {
+				address = new Address(string(strings, in.getInt()), string(strings, in.getInt()),
+						string(strings, in.getInt()), string(strings, in.getInt()));
+			}
+			companyTable[i] = new Company(uuid, name, contact, address);
+			companies.put(uuid, companyTable[i]);
+		}
+
+		Item[] itemTable = new Item[in.getInt()];
+		Map<UUID, Item> items = new LinkedHashMap<>(capacity(itemTable.length));
+		for (int i = 0; i < itemTable.length; i++) {
+			boolean catalog = in.get() != 0;
+			UUID uuid = readUuid(in);
+			String name = string(strings, in.getInt());
+			double price = readMoney(in);
+			byte type = in.get();
+			if (type == EQUIPMENT) {
+				itemTable[i] = new Equipment(uuid, name, string(strings, in.getInt()), price);
+			} else if (type == MATERIAL) {
+				itemTable[i] = new Material(uuid, name, string(strings, in.getInt()), price);
+			} else if (type == CONTRACT) {
+				itemTable[i] = new Contract(uuid, name, price, entity(companyTable, in.getInt()));
+			} else {
+				throw new IllegalStateException("Unknown item type " + type);
+			}
+			if (catalog) {
+				items.put(uuid, itemTable[i]);
+			}
+		}
+
+		Invoice[] invoiceTable = new Invoice[in.getInt()];
+		Map<UUID, Invoice> invoices = new LinkedHashMap<>(capacity(invoiceTable.length));
+		for (int i = 0; i < invoiceTable.length; i++) {
+			boolean listed = in.get() != 0;
+			UUID uuid = readUuid(in);
+			Company customer = entity(companyTable, in.getInt());
+			Person salesperson = entity(personTable, in.getInt());
+			invoiceTable[i] = new Invoice(uuid, customer, salesperson, readDate(in));
+			if (listed) {
+				invoices.put(uuid, invoiceTable[i]);
+			}
+		}
+
+		int invoiceCount = in.getInt();
+		Map<UUID, List<InvoiceItem>> invoiceItems = new LinkedHashMap<>(capacity(invoiceCount));
+		for (int i = 0; i < invoiceCount; i++) {
+			UUID uuid = readUuid(in);
+			int size = in.getInt();
+			List<InvoiceItem> list = new ArrayList<>(size);
+			for (int j = 0; j < size; j++) {
+				Invoice invoice = entity(invoiceTable, in.getInt());
+				Item item = entity(itemTable, in.getInt());
+				LineType type = LineType.fromCode((char) in.get());
+				Item line;
+				if (type == LineType.LEASE) {
+					line = new Lease((Equipment) item, readDate(in), readDate(in));
+				} else if (type == LineType.RENTAL) {
+					line = new Rental((Equipment) item, in.getDouble());
+				} else if (type == LineType.MATERIAL) {
+					line = new Material((Material) item, in.getDouble());
+				} else if (type == LineType.CONTRACT) {
+					line = new Contract((Contract) item, readMoney(in));
+				} else {
+					line = item;
+				}
+				list.add(new InvoiceItem(invoice, line));
+			}
+			invoiceItems.put(uuid, list);
+		}
+
+		if (in.hasRemaining()) {
+			throw new IllegalStateException(in.remaining() + " unexpected bytes at the end");
+		}
+		return new ModelSnapshot(persons, companies, items, invoices, invoiceItems);
+	}
+
+	private static int capacity(int size) {
+		return (int) Math.min(Integer.MAX_VALUE, size * 4L / 3 + 1);
+	}
+
+	private static String string(String[] strings, int index) {
+		return (index == NONE) ? null : strings[index];
+	}
+
+	private static <T> T entity(T[] table, int index) {
+		return (index == NONE) ? null : table[index];
+	}
+
+	private static UUID readUuid(ByteBuffer in) {
+		return new UUID(in.getLong(), in.getLong());
+	}
+
+	private static LocalDate readDate(ByteBuffer in) {
+		int epochDay = in.getInt();
+		return (epochDay == NO_DATE) ? null : LocalDate.ofEpochDay(epochDay);
+	}
+
+	private static double readMoney(ByteBuffer in) {
+		long cents = in.getLong();
+		return (cents == NOT_CENTS) ? in.getDouble() : Money.toDollars(cents);
+	}
+
+}
@@ -0,0 +1,238 @@
+package com.vgb.factory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.Company;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.InvoiceLoader;
+import com.vgb.Item;
+import com.vgb.Person;
+
+/**
+ * Loads large Invoices.csv and InvoiceItems.csv exports on several threads.
+ * <p>
+ * The file is cut into byte ranges that each start just after a line break,
+ * and every range is parsed by its own memory mapped {@link CsvReader} on a
+ * {@link ForkJoinPool}. The per-range maps are merged pairwise in file order,
+ * so the items of an invoice stay in the order of their lines. The result is
+ * the same as {@link InvoiceLoader#loadInvoice(Map, Map)} and
+ * {@link InvoiceItemLoader#loadInvoiceItem(Map, Map)}.
+ * </p>
+ * <p>
+ * Ranges are found by looking for line breaks, so a quoted field must not
+ * hold one; the invoice exports never quote.
+ * </p>
+ */
+public class ParallelCsvLoader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelCsvLoader.class);
+
+	/**
+	 * Ranges are never cut smaller than this, so small files are read by a
+	 * single task.
+	 */
+	static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * Ranges per thread, so that a slow range does not hold up the others.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Parses the records of one range into a partial result.
+	 */
+	private interface RecordParser<T> {
+		void parse(CsvReader csv, T result);
+	}
+
+	/**
+	 * Combines two partial results, the second from later in the file, into
+	 * the first.
+	 */
+	private interface Merger<T> {
+		T merge(T first, T second);
+	}
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a loader running on the common fork join pool.
+	 */
+	public ParallelCsvLoader() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a loader running on the given pool.
+	 *
+	 * @param pool The pool to parse on; its parallelism decides the number of
+	 *             ranges
+	 */
+	public ParallelCsvLoader(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Loads the invoices of an Invoices.csv file.
+	 *
+	 * @param file    The file, with a header line
+	 * @param persons Persons by UUID
+	 * @param company Companies by UUID
+	 * @return Invoices by UUID
+	 */
+	public Map<UUID, Invoice> loadInvoices(Path file, Map<UUID, Person> persons, Map<UUID, Company> company) {
+		return load(file, HashMap::new, (csv, invoices) -> InvoiceLoader.addInvoice(csv, persons, company, invoices),
+				(first, second) -> {
+					first.putAll(second);
+					return first;
+				});
+	}
+
+	/**
+	 * Loads the invoice items of an InvoiceItems.csv file.
+	 *
+	 * @param file     The file, with a header line
+	 * @param invoices Invoices by UUID
+	 * @param items    Items by UUID
+	 * @return Invoice items by invoice UUID, each list in file order
+	 */
+	public Map<UUID, List<InvoiceItem>> loadInvoiceItems(Path file, Map<UUID, Invoice> invoices,
+			Map<UUID, Item> items) {
+		return load(file, HashMap::new,
+				(csv, invoiceItems) -> InvoiceItemLoader.addInvoiceItem(csv, invoices, items, invoiceItems),
+				ParallelCsvLoader::mergeInvoiceItems);
+	}
+
+	private static Map<UUID, List<InvoiceItem>> mergeInvoiceItems(Map<UUID, List<InvoiceItem>> first,
+			Map<UUID, List<InvoiceItem>> second) {
+		if (first.size() < second.size()) {
+			// Merge the smaller map into the larger one, keeping file order
+			for (Map.Entry<UUID, List<InvoiceItem>> entry : first.entrySet()) {
+				List<InvoiceItem> later = second.get(entry.getKey());
+				if (later == null) {
+					second.put(entry.getKey(), entry.getValue());
+				} else {
+					List<InvoiceItem> merged = new ArrayList<>(entry.getValue().size() + later.size());
+					merged.addAll(entry.getValue());
+					merged.addAll(later);
+					second.put(entry.getKey(), merged);
+				}
+			}
+			return second;
+		}
+		for (Map.Entry<UUID, List<InvoiceItem>> entry : second.entrySet()) {
+			List<InvoiceItem> earlier = first.get(entry.getKey());
+			if (earlier == null) {
+				first.put(entry.getKey(), entry.getValue());
+			} else {
+				earlier.addAll(entry.getValue());
+			}
+		}
+		return first;
+	}
+
+	private <T> T load(Path file, Supplier<T> empty, RecordParser<T> parser, Merger<T> merger) {
+		long start = System.nanoTime();
+		long[] bounds;
+		try {
+			bounds = split(file, pool.getParallelism() * CHUNKS_PER_THREAD);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + file, e);
+		}
+
+		T result = pool.invoke(new ChunkTask<>(file, bounds, 0, bounds.length - 1, empty, parser, merger));
+		LOGGER.debug("Parsed {} in {} ranges on {} threads in {} ms", file, bounds.length - 1,
+				pool.getParallelism(), (System.nanoTime() - start) / 1_000_000);
+		return result;
+	}
+
+	/**
+	 * Cuts the file after its header line into at most {@code chunks} ranges,
+	 * each starting at a record.
+	 *
+	 * @return Offsets of the range boundaries, first the end of the header and
+	 *         last the file size
+	 */
+	static long[] split(Path file, int chunks) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long header = CsvReader.recordStart(channel, 1);
+			int count = (int) Math.max(1, Math.min(chunks, (size - header) / MIN_CHUNK_SIZE));
+
+			List<Long> bounds = new ArrayList<>();
+			bounds.add(header);
+			for (int i = 1; i < count; i++) {
+				long bound = CsvReader.recordStart(channel, header + (size - header) * i / count);
+				if (bound > bounds.get(bounds.size() - 1) && bound < size) {
+					bounds.add(bound);
+				}
+			}
+			bounds.add(size);
+			return bounds.stream().mapToLong(Long::longValue).toArray();
+		}
+	}
+
+	/**
+	 * Parses the ranges {@code from} to {@code to} (exclusive), splitting them
+	 * in halves until a single range is left.
+	 */
+	@SuppressWarnings("serial")
+	private static final class ChunkTask<T> extends RecursiveTask<T> {
+		private final Path file;
+		private final long[] bounds;
+		private final int from;
+		private final int to;
+		private final Supplier<T> empty;
+		private final RecordParser<T> parser;
+		private final Merger<T> merger;
+
+		private ChunkTask(Path file, long[] bounds, int from, int to, Supplier<T> empty,
+				RecordParser<T> parser, Merger<T> merger) {
+			this.file = file;
+			this.bounds = bounds;
+			this.from = from;
+			this.to = to;
+			this.empty = empty;
+			this.parser = parser;
+			this.merger = merger;
+		}
+
+		@Override
+		protected T compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				ChunkTask<T> second = new ChunkTask<>(file, bounds, middle, to, empty, parser, merger);
+				second.fork();
+				T first = new ChunkTask<>(file, bounds, from, middle, empty, parser, merger).compute();
+				return merger.merge(first, second.join());
+			}
+
+			T result = empty.get();
+			try (CsvReader csv = CsvReader.map(file, bounds[from], bounds[to])) {
+				while (csv.next()) {
+					parser.parse(csv, result);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not read " + file, e);
+			}
+			return result;
+		}
+	}
+
+}
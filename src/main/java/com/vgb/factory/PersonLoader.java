@@ -1,13 +1,10 @@
 package com.vgb.factory;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.UUID;
 
 import com.vgb.Person;
@@ -28,55 +25,44 @@ public class PersonLoader {
 			Map<UUID, Person> persons = new HashMap<UUID,Person>();
 			
 			
-			String line = null;
-			
-			try(Scanner s = new Scanner(new File(FILE_PATH))){
-				
-				s.nextLine();
+			try (CsvReader csv = CsvReader.open(FILE_PATH)) {
 				
+				csv.next();
 				
-				while (s.hasNext()) {
+				while (csv.next()) {
 					
-					line = s.nextLine();
+					UUID uuid;
 					
+					if (csv.isEmpty(0)) {
+						throw new IllegalArgumentException("Missing UUID in CSV record " + csv.getRecordNumber());
+					}
 					
-					if(!line.trim().isEmpty()) {
-						
-						Person p = null;
-						String parts[] = line.split(",");
-						
-						UUID uuid;
-						
-						String uuidStr = parts[0].trim();
-				        if (uuidStr.isEmpty()) {
-				            throw new IllegalArgumentException("Missing UUID in CSV: " + Arrays.toString(parts));
-				        }
-						
-						try {
-						uuid = UUID.fromString(uuidStr);
-						}catch(IllegalArgumentException e) {
-							throw new IllegalArgumentException("Invalid UUID format: " + uuidStr);
-						}
-						
-						String firstName = parts[1].trim();
-						String lastName = parts[2].trim();
-						String phone = parts[3].trim();
-						List<String> emails = new ArrayList<>();
-						
-						for (int x = 4; x < parts.length; x++) {
-					           if (!parts[x].trim().isEmpty()) {
-					                emails.add(parts[x].trim());
-					            }
-					        }
-						p = new Person(uuid, firstName, lastName, phone, emails);
-						persons.put(uuid,p);
+					try {
+						uuid = csv.getUuid(0);
+					} catch (IllegalArgumentException e) {
+						throw new IllegalArgumentException("Invalid UUID format: " + csv.getString(0));
 					}
 					
+					String firstName = csv.getString(1).trim();
+					String lastName = csv.getString(2).trim();
+					String phone = csv.getString(3).trim();
+					List<String> emails = new ArrayList<>();
+					
+					// Several addresses are quoted into one field, older files
+					// spread them over the trailing fields instead
+					for (int x = 4; x < csv.getFieldCount(); x++) {
+						for (String email : csv.getString(x).split(",")) {
+							if (!email.trim().isEmpty()) {
+								emails.add(email.trim());
+							}
+						}
+					}
+					Person p = new Person(uuid, firstName, lastName, phone, emails);
+					persons.put(uuid, p);
 				}
-				s.close();
 				
-			} catch (FileNotFoundException e) {
-				throw new RuntimeException("Encountered Error on line " + line, e);
+			} catch (IOException e) {
+				throw new RuntimeException("Could not read " + FILE_PATH, e);
 			}
 			
 			return persons;
@@ -0,0 +1,161 @@
+package com.vgb;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the throughput of {@link ConcurrentSortedList} with a
+ * {@link SortedListBST} guarded by a single lock, for a live "invoices by
+ * total" ordering with mixed writers and readers.
+ * <p>
+ * Each operation is an add (40%), a remove (40%) or a read of the top 20
+ * invoices (20%). Run with the thread counts to measure as arguments, for
+ * example {@code java com.vgb.ConcurrentSortedListBenchmark 1 2 4 8}.
+ * </p>
+ */
+public class ConcurrentSortedListBenchmark {
+
+	private static final int INVOICES = 200_000;
+	private static final int TOP = 20;
+	private static final long RUN_MILLIS = 2_000;
+	private static final int ROUNDS = 3;
+
+	/**
+	 * The operations a benchmark thread performs.
+	 */
+	private interface Target {
+		void add(Invoice invoice);
+
+		void remove(Invoice invoice);
+
+		void readTop();
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int[] threadCounts = (args.length == 0) ? new int[] { 1, 2, 4, 8 }
+				: Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+		Map<Invoice, List<InvoiceItem>> invoiceItems = InvoiceSortBenchmark.generate(INVOICES, new Random(42));
+		Invoice[] invoices = invoiceItems.keySet().toArray(new Invoice[0]);
+		InvoiceComparators.InvoiceByTotalComparator comparator = new InvoiceComparators.InvoiceByTotalComparator(
+				invoiceItems);
+
+		for (int threads : threadCounts) {
+			double locked = 0;
+			double concurrent = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				locked = Math.max(locked, run(threads, invoices, synchronizedTarget(comparator, invoices)));
+				concurrent = Math.max(concurrent, run(threads, invoices, concurrentTarget(comparator, invoices)));
+			}
+
+			System.out.printf("%2d threads: synchronized SortedListBST %,12.0f ops/s | ConcurrentSortedList %,12.0f ops/s (%.1fx)%n",
+					threads, locked, concurrent, concurrent / locked);
+		}
+	}
+
+	private static Target synchronizedTarget(InvoiceComparators.InvoiceByTotalComparator comparator,
+			Invoice[] invoices) {
+		SortedListBST<Invoice> list = SortedListBST.of(comparator, Arrays.asList(invoices).subList(0, invoices.length / 2));
+
+		return new Target() {
+			@Override
+			public synchronized void add(Invoice invoice) {
+				list.add(invoice);
+			}
+
+			@Override
+			public synchronized void remove(Invoice invoice) {
+				list.remove(invoice);
+			}
+
+			@Override
+			public synchronized void readTop() {
+				Iterator<Invoice> it = list.iterator();
+				for (int i = 0; i < TOP && it.hasNext(); i++) {
+					it.next();
+				}
+			}
+		};
+	}
+
+	private static Target concurrentTarget(InvoiceComparators.InvoiceByTotalComparator comparator,
+			Invoice[] invoices) {
+		ConcurrentSortedList<Invoice> list = new ConcurrentSortedList<>(comparator);
+		for (int i = 0; i < invoices.length / 2; i++) {
+			list.add(invoices[i]);
+		}
+
+		return new Target() {
+			@Override
+			public void add(Invoice invoice) {
+				list.add(invoice);
+			}
+
+			@Override
+			public void remove(Invoice invoice) {
+				list.remove(invoice);
+			}
+
+			@Override
+			public void readTop() {
+				Iterator<Invoice> it = list.iterator();
+				for (int i = 0; i < TOP && it.hasNext(); i++) {
+					it.next();
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return Operations per second over all threads
+	 */
+	private static double run(int threads, Invoice[] invoices, Target target) throws InterruptedException {
+		LongAdder operations = new LongAdder();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		long[] deadline = new long[1];
+
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				long count = 0;
+				while ((count & 0xFF) != 0 || System.nanoTime() < deadline[0]) {
+					int op = random.nextInt(10);
+					Invoice invoice = invoices[random.nextInt(invoices.length)];
+					if (op < 4) {
+						target.add(invoice);
+					} else if (op < 8) {
+						target.remove(invoice);
+					} else {
+						target.readTop();
+					}
+					count++;
+				}
+				operations.add(count);
+			});
+			workers[t].start();
+		}
+
+		long begin = System.nanoTime();
+		deadline[0] = begin + RUN_MILLIS * 1_000_000;
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		return operations.sum() * 1e9 / (System.nanoTime() - begin);
+	}
+
+}
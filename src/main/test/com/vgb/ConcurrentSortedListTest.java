@@ -0,0 +1,121 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ConcurrentSortedList} from one and from several threads.
+ */
+public class ConcurrentSortedListTest {
+
+	/**
+	 * Single threaded behaviour matches {@link SortedListBST}.
+	 */
+	@Test
+	public void testMatchesSortedListBST() {
+		Comparator<String> byLength = Comparator.comparingInt(String::length);
+		ConcurrentSortedList<String> list = new ConcurrentSortedList<>(byLength);
+		SortedListBST<String> expected = new SortedListBST<>(byLength);
+		String[] words = { "b1", "a", "b2", "c", "b3", "ddd", "b4" };
+		list.addAll(words);
+		expected.addAll(words);
+
+		assertEquals(expected.toString(), list.toString());
+		assertTrue(list.remove("xx"));
+		assertEquals("[a, c, b2, b3, b4, ddd]", list.toString());
+		assertEquals(list.toString(), list.snapshot().toString());
+		assertEquals("b3", list.get(3));
+		assertEquals("a", list.getFirst());
+		assertEquals("ddd", list.getLast());
+		assertEquals(6, list.size());
+		assertFalse(list.remove("eeee"));
+		assertFalse(list.contains("eeee"));
+
+		list.clear();
+		assertTrue(list.isEmpty());
+		assertEquals(0, list.size());
+		assertThrows(NoSuchElementException.class, () -> list.getFirst());
+	}
+
+	/**
+	 * Writers add and remove while readers iterate; readers always see sorted
+	 * order and the final contents are exact.
+	 */
+	@Test
+	public void testConcurrentWritersAndReaders() throws Exception {
+		int writers = 4;
+		int perWriter = 20_000;
+		ConcurrentSortedList<Integer> list = new ConcurrentSortedList<>(Integer::compare);
+		ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+
+		List<Future<?>> writes = new ArrayList<>();
+		for (int w = 0; w < writers; w++) {
+			int offset = w;
+			writes.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < perWriter; i++) {
+					list.add(i * writers + offset);
+				}
+				// Remove the odd values again
+				for (int i = 1; i < perWriter; i += 2) {
+					assertTrue(list.remove(i * writers + offset));
+				}
+				return null;
+			}));
+		}
+
+		List<Future<Boolean>> reads = new ArrayList<>();
+		for (int r = 0; r < 2; r++) {
+			reads.add(pool.submit(() -> {
+				start.await();
+				boolean sorted = true;
+				while (writing.get()) {
+					int previous = Integer.MIN_VALUE;
+					for (int value : list) {
+						sorted &= previous <= value;
+						previous = value;
+					}
+				}
+				return sorted;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> write : writes) {
+			write.get(60, TimeUnit.SECONDS);
+		}
+		writing.set(false);
+		for (Future<Boolean> read : reads) {
+			assertTrue(read.get(60, TimeUnit.SECONDS));
+		}
+		pool.shutdown();
+
+		int expectedSize = writers * perWriter / 2;
+		assertEquals(expectedSize, list.size());
+		int index = 0;
+		for (int value : list) {
+			int i = value / writers;
+			assertEquals(0, i % 2);
+			index++;
+		}
+		assertEquals(expectedSize, index);
+	}
+
+}
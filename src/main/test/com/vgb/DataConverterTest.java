@@ -0,0 +1,218 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.vgb.factory.FlatFileLoadContext;
+
+/**
+ * Tests the streaming JSON and XML exports in {@link DataConverter}.
+ */
+public class DataConverterTest {
+
+	private static final FlatFileLoadContext CONTEXT = FlatFileLoadContext.load();
+
+	private static String utf8(ByteArrayOutputStream out) {
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Streaming a map pretty printed gives exactly what convertToJson builds in
+	 * memory.
+	 */
+	@Test
+	public void testStreamedMapMatchesConvertToJson() throws IOException {
+		for (Map<UUID, ?> data : List.of(CONTEXT.getPersons(), CONTEXT.getCompanies(), CONTEXT.getItems(),
+				CONTEXT.getInvoices())) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			DataConverter.writeJson(data, out, true, false);
+			assertEquals(DataConverter.convertToJson(data), utf8(out));
+		}
+	}
+
+	/**
+	 * Compact output holds the same JSON without any layout whitespace.
+	 */
+	@Test
+	public void testCompactOutput() throws IOException {
+		ByteArrayOutputStream pretty = new ByteArrayOutputStream();
+		ByteArrayOutputStream compact = new ByteArrayOutputStream();
+		DataConverter.writeJson(CONTEXT.getInvoices(), pretty, true, false);
+		DataConverter.writeJson(CONTEXT.getInvoices(), compact, false, false);
+
+		assertFalse(utf8(compact).contains("\n"));
+		assertTrue(compact.size() < pretty.size());
+		assertEquals(JsonParser.parseString(utf8(pretty)), JsonParser.parseString(utf8(compact)));
+	}
+
+	/**
+	 * Gzipped output decompresses to the plain output, and the caller's stream
+	 * stays open for more data.
+	 */
+	@Test
+	public void testGzipRoundTrip() throws IOException {
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		DataConverter.writeJson(CONTEXT.getCompanies(), plain, false, false);
+		DataConverter.writeJson(CONTEXT.getCompanies(), gzipped, false, true);
+		gzipped.write('!');
+
+		byte[] bytes = gzipped.toByteArray();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 1))) {
+			assertEquals(utf8(plain), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Every invoice item is written with its invoice and item nested.
+	 */
+	@Test
+	public void testInvoiceItemsNestItemData() throws IOException {
+		ReportSession session = CONTEXT.getReportSession();
+		long expected = session.getInvoiceItems().values().stream().flatMap(List::stream).filter(Objects::nonNull)
+				.count();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataConverter.writeInvoiceItemsJson(session, out, false, false);
+		JsonArray array = JsonParser.parseString(utf8(out)).getAsJsonArray();
+
+		assertEquals(expected, array.size());
+		for (JsonElement element : array) {
+			JsonObject invoiceItem = element.getAsJsonObject();
+			assertTrue(invoiceItem.getAsJsonObject("invoice").has("invoiceUUID"));
+			assertTrue(invoiceItem.getAsJsonObject("item").has("uuid"));
+		}
+	}
+
+	/**
+	 * Entities are pulled from the iterator one at a time, so a generated
+	 * sequence never has to exist as a collection.
+	 */
+	@Test
+	public void testLazyIterator() throws IOException {
+		int count = 100_000;
+		Iterator<Person> persons = new Iterator<Person>() {
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			@Override
+			public Person next() {
+				next++;
+				return new Person(new UUID(0, next), "First" + next, "Last" + next, "555-0100", List.of());
+			}
+		};
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataConverter.writeJson(persons, out, false, false);
+		JsonArray array = JsonParser.parseString(utf8(out)).getAsJsonArray();
+
+		assertEquals(count, array.size());
+		assertEquals("Last" + count, array.get(count - 1).getAsJsonObject().get("lastName").getAsString());
+	}
+
+	/**
+	 * Streaming a map without shared objects gives exactly what convertToXml
+	 * builds in memory.
+	 */
+	@Test
+	public void testStreamedXmlMatchesConvertToXml() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataConverter.writeXml(CONTEXT.getPersons(), out, true, false);
+		assertEquals(DataConverter.convertToXml(CONTEXT.getPersons()), utf8(out));
+	}
+
+	/**
+	 * Entities are written one element each under the data root.
+	 */
+	@Test
+	public void testXmlEntities() throws IOException {
+		ReportSession session = CONTEXT.getReportSession();
+		long expected = session.getInvoiceItems().values().stream().flatMap(List::stream).filter(Objects::nonNull)
+				.count();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataConverter.writeInvoiceItemsXml(session, out, false, false);
+		String xml = utf8(out);
+
+		assertTrue(xml.startsWith("<data>"));
+		assertTrue(xml.endsWith("</data>"));
+		assertEquals(expected, xml.split("<invoiceUUID>", -1).length - 1);
+	}
+
+	/**
+	 * Gzipped XML decompresses to the plain output.
+	 */
+	@Test
+	public void testXmlGzipRoundTrip() throws IOException {
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		DataConverter.writeXml(CONTEXT.getItems(), plain, true, false);
+		DataConverter.writeXml(CONTEXT.getItems(), gzipped, true, true);
+
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.toByteArray()))) {
+			assertEquals(utf8(plain), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Exports running on several threads at once each produce the same output
+	 * as a single export.
+	 */
+	@Test
+	public void testConcurrentExports() throws Exception {
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		DataConverter.writeXml(CONTEXT.getInvoices(), xml, true, false);
+		DataConverter.writeJson(CONTEXT.getInvoices(), json, true, false);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> exports = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				boolean asXml = i % 2 == 0;
+				exports.add(executor.submit(() -> {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					if (asXml) {
+						DataConverter.writeXml(CONTEXT.getInvoices(), out, true, false);
+					} else {
+						DataConverter.writeJson(CONTEXT.getInvoices(), out, true, false);
+					}
+					return utf8(out);
+				}));
+			}
+			for (int i = 0; i < exports.size(); i++) {
+				assertEquals(utf8(i % 2 == 0 ? xml : json), exports.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
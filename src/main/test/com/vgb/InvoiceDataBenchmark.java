@@ -0,0 +1,130 @@
+package com.vgb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.vgb.database.ConnectionFactory;
+import com.vgb.database.InvoiceLine;
+
+/**
+ * Measures the write throughput of the single row writers in
+ * {@link InvoiceData}.
+ * <p>
+ * Each round adds new persons through the old check-then-insert pattern (one
+ * SELECT and one INSERT per row) and through {@link InvoiceData#addPerson},
+ * then writes the same persons again to time the "already exists" path,
+ * and finally adds an invoice with lines for each person, once through
+ * {@link InvoiceData#addInvoice} and the line methods and once through
+ * {@link InvoiceData#addInvoiceWithItems}.
+ * </p>
+ * <p>
+ * Run with {@code java com.vgb.InvoiceDataBenchmark [rows]} against a local
+ * database configured in {@link ConnectionFactory}. The benchmark inserts
+ * rows with random UUIDs and does not remove them.
+ * </p>
+ */
+public class InvoiceDataBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws SQLException {
+		int rows = (args.length == 0) ? 2_000 : Integer.parseInt(args[0]);
+
+		for (int round = 1; round <= ROUNDS; round++) {
+			List<UUID> baseline = randomUuids(rows);
+			List<UUID> persons = randomUuids(rows);
+
+			long start = System.nanoTime();
+			for (UUID uuid : baseline) {
+				checkThenInsertPerson(uuid);
+			}
+			report(round, "check then insert, new", rows, start);
+
+			start = System.nanoTime();
+			for (UUID uuid : persons) {
+				InvoiceData.addPerson(uuid, "Bench", "Mark", "555-0100");
+			}
+			report(round, "addPerson, new", rows, start);
+
+			start = System.nanoTime();
+			for (UUID uuid : baseline) {
+				checkThenInsertPerson(uuid);
+			}
+			report(round, "check then insert, existing", rows, start);
+
+			start = System.nanoTime();
+			for (UUID uuid : persons) {
+				InvoiceData.addPerson(uuid, "Bench", "Mark", "555-0100");
+			}
+			report(round, "addPerson, existing", rows, start);
+
+			UUID company = UUID.randomUUID();
+			UUID equipment = UUID.randomUUID();
+			InvoiceData.addCompany(company, persons.get(0), "Bench Co", round + " Bench St", "Lincoln", "NE", "68508");
+			InvoiceData.addEquipment(equipment, "Bench Loader", "BL-1", 10_000);
+
+			start = System.nanoTime();
+			for (UUID salesperson : persons) {
+				UUID invoice = UUID.randomUUID();
+				InvoiceData.addInvoice(invoice, company, salesperson, LocalDate.of(2025, 1, 1));
+				InvoiceData.addEquipmentPurchaseToInvoice(invoice, equipment);
+				InvoiceData.addEquipmentRentalToInvoice(invoice, equipment, 8);
+			}
+			report(round, "invoice with two lines", rows * 3, start);
+
+			start = System.nanoTime();
+			for (UUID salesperson : persons) {
+				InvoiceData.addInvoiceWithItems(UUID.randomUUID(), company, salesperson, LocalDate.of(2025, 1, 1),
+						List.of(InvoiceLine.purchase(equipment), InvoiceLine.rental(equipment, 8)));
+			}
+			report(round, "addInvoiceWithItems, two lines", rows * 3, start);
+		}
+	}
+
+	private static List<UUID> randomUuids(int count) {
+		List<UUID> uuids = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			uuids.add(UUID.randomUUID());
+		}
+		return uuids;
+	}
+
+	/**
+	 * The write pattern the writers used before: a lookup, then an insert
+	 * only if the row was not found.
+	 */
+	private static void checkThenInsertPerson(UUID uuid) throws SQLException {
+		try (Connection conn = ConnectionFactory.getConnection()) {
+			try (PreparedStatement check = conn.prepareStatement("SELECT uuid FROM Person WHERE uuid = ?")) {
+				check.setString(1, uuid.toString());
+				try (ResultSet rs = check.executeQuery()) {
+					if (rs.next()) {
+						return;
+					}
+				}
+			}
+			try (PreparedStatement insert = conn.prepareStatement("""
+					INSERT INTO Person (uuid, firstName, lastName, phoneNumber)
+					VALUES (?, ?, ?, ?)
+					""")) {
+				insert.setString(1, uuid.toString());
+				insert.setString(2, "Bench");
+				insert.setString(3, "Mark");
+				insert.setString(4, "555-0100");
+				insert.executeUpdate();
+			}
+		}
+	}
+
+	private static void report(int round, String label, int writes, long start) {
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("round %d  %-30s %8.0f writes/s%n", round, label, writes / seconds);
+	}
+
+}
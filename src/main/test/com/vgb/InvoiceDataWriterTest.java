@@ -0,0 +1,304 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import com.vgb.database.FakeJdbc;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Tests the single row writers of {@link InvoiceData} against a stand-in
+ * database that keeps its tables in maps, without a MySQL server.
+ */
+public class InvoiceDataWriterTest {
+
+	/**
+	 * A stand-in for the tables the writers touch. It answers the statements
+	 * the writers send the way MySQL would, including duplicate key errors.
+	 */
+	private static class FakeSchema implements FakeJdbc.Database {
+		private final Map<String, Integer> persons = new HashMap<>();
+		private final Map<String, Integer> companies = new HashMap<>();
+		private final Map<String, Integer> states = new HashMap<>();
+		private final Map<String, Integer> zips = new HashMap<>();
+		private final Map<String, Integer> addresses = new HashMap<>();
+		private final Map<String, Integer> items = new HashMap<>();
+		private final Map<String, Integer> invoices = new HashMap<>();
+		private final List<Object[]> emails = new ArrayList<>();
+		private final List<Object[]> lines = new ArrayList<>();
+		private final Map<String, SQLException> failures = new HashMap<>();
+		private int nextKey = 1;
+
+		private static SQLException duplicate(Object key) {
+			return new SQLIntegrityConstraintViolationException("Duplicate entry '" + key + "'", "23000", 1062);
+		}
+
+		private int add(Map<String, Integer> table, String key) throws SQLException {
+			if (table.containsKey(key)) {
+				throw duplicate(key);
+			}
+			table.put(key, nextKey);
+			return nextKey++;
+		}
+
+		private static String address(Object street, Object city, Object stateId, Object zipId) {
+			return street + "|" + city + "|" + stateId + "|" + zipId;
+		}
+
+		@Override
+		public FakeJdbc.Rows query(String sql, Object[] params) {
+			Map<String, Integer> table;
+			if (sql.contains("FROM Person")) {
+				table = persons;
+			} else if (sql.contains("FROM Company")) {
+				table = companies;
+			} else if (sql.contains("FROM Item")) {
+				table = items;
+			} else {
+				table = invoices;
+			}
+			Integer id = table.get(params[1]);
+			return (id == null) ? FakeJdbc.Rows.empty() : FakeJdbc.Rows.of("id", new Object[] { id });
+		}
+
+		@Override
+		public int update(String sql, Object[] params) throws SQLException {
+			for (Map.Entry<String, SQLException> failure : failures.entrySet()) {
+				if (sql.contains(failure.getKey())) {
+					throw failure.getValue();
+				}
+			}
+			if (sql.contains("INTO Person")) {
+				return add(persons, (String) params[1]);
+			} else if (sql.contains("INTO Email")) {
+				emails.add(new Object[] { params[1], params[2] });
+				return nextKey++;
+			} else if (sql.contains("INTO State")) {
+				return states.containsKey(params[1]) ? 0 : add(states, (String) params[1]);
+			} else if (sql.contains("INTO ZipCode")) {
+				return zips.containsKey(params[1]) ? 0 : add(zips, (String) params[1]);
+			} else if (sql.contains("INTO Address")) {
+				Integer stateId = states.get(params[3]);
+				Integer zipId = zips.get(params[4]);
+				if (stateId == null || zipId == null) {
+					return 0;
+				}
+				String key = address(params[1], params[2], stateId, zipId);
+				return addresses.containsKey(key) ? 0 : add(addresses, key);
+			} else if (sql.contains("INTO Company")) {
+				// INSERT ... SELECT: no address, no row, no duplicate error
+				String key = address(params[4], params[5], states.get(params[6]), zips.get(params[7]));
+				return addresses.containsKey(key) ? add(companies, (String) params[1]) : 0;
+			} else if (sql.contains("INTO Item")) {
+				return add(items, (String) params[1]);
+			} else if (sql.contains("INTO InvoiceItem")) {
+				lines.add(params);
+				return nextKey++;
+			} else if (sql.contains("INTO Invoice")) {
+				return add(invoices, (String) params[1]);
+			}
+			throw new SQLException("Unexpected update: " + sql);
+		}
+	}
+
+	private final FakeSchema db = new FakeSchema();
+	private final FakeJdbc jdbc = new FakeJdbc(db);
+	private final ListAppender<ILoggingEvent> log = new ListAppender<>();
+	private final Logger logger = (Logger) LoggerFactory.getLogger(InvoiceData.class);
+
+	@BeforeEach
+	public void setUp() {
+		InvoiceData.setConnectionSource(jdbc::connection);
+		log.start();
+		logger.addAppender(log);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		logger.detachAppender(log);
+		InvoiceData.setConnectionSource(null);
+	}
+
+	private boolean logged(String text) {
+		for (ILoggingEvent event : log.list) {
+			if (event.getFormattedMessage().contains(text)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private long statements(String text) {
+		return jdbc.getPrepared().stream().filter(sql -> sql.contains(text)).count();
+	}
+
+	@Test
+	public void testDuplicatePersonIsSkipped() {
+		UUID person = UUID.randomUUID();
+		InvoiceData.addPerson(person, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addPerson(person, "Ada", "Lovelace", "555-0100");
+
+		assertEquals(1, db.persons.size());
+		assertTrue(logged("Person already exists"));
+		assertEquals(0, jdbc.getOpenCount());
+	}
+
+	@Test
+	public void testOtherErrorsAreNotReportedAsExisting() {
+		db.failures.put("INTO Person", new SQLException("Data too long for column 'phoneNumber'", "22001", 1406));
+		InvoiceData.addPerson(UUID.randomUUID(), "Ada", "Lovelace", "555-0100-0100-0100");
+
+		assertFalse(logged("already exists"));
+		assertTrue(logged("Error occurred adding person"));
+	}
+
+	@Test
+	public void testEmailsMayRepeat() {
+		UUID person = UUID.randomUUID();
+		InvoiceData.addPerson(person, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addEmail(person, "ada@example.com");
+		InvoiceData.addEmail(person, "ada@example.com");
+
+		assertEquals(2, db.emails.size());
+		assertEquals(db.persons.get(person.toString()), db.emails.get(0)[1]);
+		// The person's key came from the insert, not a lookup
+		assertEquals(0, statements("SELECT personId"));
+	}
+
+	@Test
+	public void testAddCompanyCreatesStateZipAndAddress() {
+		UUID contact = UUID.randomUUID();
+		UUID company = UUID.randomUUID();
+		InvoiceData.addPerson(contact, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addCompany(company, contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+
+		assertTrue(db.companies.containsKey(company.toString()));
+		assertEquals(1, db.states.size());
+		assertEquals(1, db.zips.size());
+		assertEquals(1, db.addresses.size());
+		// First attempt finds no address, the retry after adding it succeeds
+		assertEquals(2, statements("INSERT INTO Company"));
+		assertEquals(1, statements("SELECT uuid FROM Company"));
+	}
+
+	@Test
+	public void testAddCompanyReusesAddress() {
+		UUID contact = UUID.randomUUID();
+		InvoiceData.addPerson(contact, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addCompany(UUID.randomUUID(), contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+		int before = jdbc.getPrepared().size();
+		InvoiceData.addCompany(UUID.randomUUID(), contact, "Looms Ltd", "1 Main St", "Lincoln", "NE", "68508");
+
+		assertEquals(2, db.companies.size());
+		assertEquals(1, db.addresses.size());
+		assertEquals(1, jdbc.getPrepared().size() - before);
+	}
+
+	@Test
+	public void testDuplicateCompanyIsSkipped() {
+		UUID contact = UUID.randomUUID();
+		UUID company = UUID.randomUUID();
+		InvoiceData.addPerson(contact, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addCompany(company, contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+		int before = jdbc.getPrepared().size();
+		InvoiceData.addCompany(company, contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+
+		assertEquals(1, db.companies.size());
+		assertTrue(logged("Company already exist"));
+		// The insert and the check that explains it, but no address writes
+		assertEquals(2, jdbc.getPrepared().size() - before);
+	}
+
+	@Test
+	public void testAddCompanyWithUnknownContact() {
+		UUID contact = UUID.randomUUID();
+		InvoiceData.addCompany(UUID.randomUUID(), contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+
+		assertTrue(db.companies.isEmpty());
+		assertTrue(db.addresses.isEmpty());
+		assertTrue(logged("Contact does not exist under UUID: " + contact));
+	}
+
+	@Test
+	public void testInvoiceAndLinesUseCachedKeys() {
+		UUID contact = UUID.randomUUID();
+		UUID company = UUID.randomUUID();
+		UUID equipment = UUID.randomUUID();
+		UUID material = UUID.randomUUID();
+		UUID invoice = UUID.randomUUID();
+		InvoiceData.addPerson(contact, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addCompany(company, contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+		InvoiceData.addEquipment(equipment, "Loader", "L-1", 40_000);
+		InvoiceData.addMaterial(material, "Gravel", "ton", 12.5);
+		InvoiceData.addInvoice(invoice, company, contact, LocalDate.of(2025, 3, 1));
+		InvoiceData.addEquipmentLeaseToInvoice(invoice, equipment, LocalDate.of(2025, 1, 1),
+				LocalDate.of(2025, 6, 30));
+		InvoiceData.addMaterialToInvoice(invoice, material, 4);
+
+		assertEquals(2, db.lines.size());
+		Object[] lease = db.lines.get(0);
+		assertEquals(db.invoices.get(invoice.toString()), lease[2]);
+		assertEquals("L", lease[3]);
+		assertEquals(db.items.get(equipment.toString()), lease[4]);
+		assertEquals("2025-06-30", lease[6]);
+		assertEquals(4, db.lines.get(1)[5]);
+		assertEquals(0, statements("WHERE uuid = ?"));
+	}
+
+	@Test
+	public void testDuplicateInvoiceIsSkipped() {
+		UUID contact = UUID.randomUUID();
+		UUID company = UUID.randomUUID();
+		UUID invoice = UUID.randomUUID();
+		InvoiceData.addPerson(contact, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addCompany(company, contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+		InvoiceData.addInvoice(invoice, company, contact, LocalDate.of(2025, 3, 1));
+		InvoiceData.addInvoice(invoice, company, contact, LocalDate.of(2025, 3, 1));
+
+		assertEquals(1, db.invoices.size());
+		assertTrue(logged("Invoice with UUID " + invoice + " already exists"));
+	}
+
+	@Test
+	public void testForeignKeyErrorIsNotReportedAsExisting() {
+		UUID contact = UUID.randomUUID();
+		UUID company = UUID.randomUUID();
+		InvoiceData.addPerson(contact, "Ada", "Lovelace", "555-0100");
+		InvoiceData.addCompany(company, contact, "Engines Ltd", "1 Main St", "Lincoln", "NE", "68508");
+		db.failures.put("INTO Invoice", new SQLIntegrityConstraintViolationException(
+				"Cannot add or update a child row: a foreign key constraint fails", "23000", 1452));
+		InvoiceData.addInvoice(UUID.randomUUID(), company, contact, LocalDate.of(2025, 3, 1));
+
+		assertFalse(logged("already exists"));
+		assertTrue(logged("Failed to add Invoice to database"));
+	}
+
+	@Test
+	public void testDuplicateItemIsSkipped() {
+		UUID equipment = UUID.randomUUID();
+		InvoiceData.addEquipment(equipment, "Loader", "L-1", 40_000);
+		InvoiceData.addEquipment(equipment, "Loader", "L-1", 40_000);
+
+		assertEquals(1, db.items.size());
+		assertTrue(logged("Equipment Already exists"));
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the streaming report writers produce the same text as the String
+ * returning methods.
+ */
+public class InvoiceReportTest {
+
+	private ReportSession session;
+
+	@BeforeEach
+	public void setUp() {
+		Person person = new Person(UUID.randomUUID(), "Jane", "Smith", "555-5678", new ArrayList<>());
+		Map<UUID, Company> companies = new HashMap<>();
+		Map<Invoice, List<InvoiceItem>> invoiceItems = new LinkedHashMap<>();
+
+		for (int i = 0; i < 20; i++) {
+			Company company = new Company(UUID.randomUUID(), "Company " + (i % 7), person,
+					new Address(i + " Main St", "Lincoln", "NE", "68508"));
+			companies.put(company.getUuid(), company);
+
+			Invoice invoice = new Invoice(UUID.randomUUID(), company, person, LocalDate.of(2025, 1, 1 + i));
+			Equipment equipment = new Equipment(UUID.randomUUID(), "Loader", "LD-" + i, 1000.0 + i * 37.5);
+			List<InvoiceItem> items = new ArrayList<>();
+			items.add(new InvoiceItem(invoice, equipment));
+			items.add(new InvoiceItem(invoice, new Rental(equipment, i + 1)));
+			items.add(new InvoiceItem(invoice,
+					new Material(new Material(UUID.randomUUID(), "Nails", "box", 3.15), i + 2)));
+			items.add(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Paving", 500.0 * i, company)));
+			invoiceItems.put(invoice, items);
+		}
+
+		session = new ReportSession(invoiceItems, companies);
+	}
+
+	@Test
+	public void testWritersMatchStrings() throws IOException {
+		StringWriter summaries = new StringWriter();
+		InvoiceReport.writeAllSummaryReports(session, summaries);
+		assertEquals(InvoiceReport.printAllSummaryReports(session), summaries.toString());
+
+		StringWriter invoices = new StringWriter();
+		InvoiceReport.writeInvoice(session, invoices);
+		assertEquals(InvoiceReport.printInvoice(session), invoices.toString());
+
+		StringWriter companies = new StringWriter();
+		ReportUtils.companySummary(session, companies);
+		assertEquals(ReportUtils.companySummary(session), companies.toString());
+	}
+
+	@Test
+	public void testStreamsMatchStrings() throws IOException {
+		ByteArrayOutputStream summaries = new ByteArrayOutputStream();
+		InvoiceReport.streamAllSummaryReports(session, summaries);
+		assertEquals(InvoiceReport.printAllSummaryReports(session), summaries.toString(StandardCharsets.UTF_8));
+
+		ByteArrayOutputStream invoices = new ByteArrayOutputStream();
+		InvoiceReport.streamInvoice(session, invoices);
+		assertEquals(InvoiceReport.printInvoice(session), invoices.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testPagesShareOneSortedTree() {
+		SortedListBST<Invoice> sorted = session.getInvoicesByTotal();
+		String first = InvoiceReport.printInvoiceSummaryByTotal(session, 1, 8);
+		String last = InvoiceReport.printInvoiceSummaryByTotal(session, 3, 8);
+
+		assertSame(sorted, session.getInvoicesByTotal());
+		assertTrue(first.contains("page 1 of 3"));
+		assertTrue(last.contains("page 3 of 3"));
+		SortedListBST<Invoice> fresh = ReportUtils.getInvoicesByTotal(session);
+		assertEquals(new ArrayList<>(fresh.subList(0, fresh.size())), new ArrayList<>(sorted.subList(0, sorted.size())));
+	}
+
+	@Test
+	public void testWriteFailuresPropagate() {
+		Writer failing = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				throw new IOException("disk full");
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		assertThrows(IOException.class, () -> InvoiceReport.writeInvoice(session, failing));
+	}
+
+}
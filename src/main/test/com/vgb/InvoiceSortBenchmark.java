@@ -0,0 +1,90 @@
+package com.vgb;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares sorting invoices by total with totals recomputed on every
+ * comparison, with the precomputing comparator and with {@link SortKeys}.
+ * <p>
+ * Run with the invoice counts to measure as arguments, for example
+ * {@code java -Xmx4g com.vgb.InvoiceSortBenchmark 100000 1000000}.
+ * </p>
+ */
+public class InvoiceSortBenchmark {
+
+	private static final int ITEMS_PER_INVOICE = 3;
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) {
+		int[] sizes = (args.length == 0) ? new int[] { 100_000, 1_000_000 }
+				: Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+		for (int size : sizes) {
+			Map<Invoice, List<InvoiceItem>> invoiceItems = generate(size, new Random(42));
+			Invoice[] invoices = invoiceItems.keySet().toArray(new Invoice[0]);
+
+			Comparator<Invoice> recomputing = (inv1, inv2) -> {
+				int result = Double.compare(inv2.grandTotal(invoiceItems.get(inv2)),
+						inv1.grandTotal(invoiceItems.get(inv1)));
+				return (result == 0) ? inv1.getInvoiceUUID().compareTo(inv2.getInvoiceUUID()) : result;
+			};
+
+			long legacy = Long.MAX_VALUE;
+			long precomputed = Long.MAX_VALUE;
+			long keys = Long.MAX_VALUE;
+			for (int round = 0; round < ROUNDS; round++) {
+				Invoice[] copy = invoices.clone();
+				long start = System.nanoTime();
+				Arrays.sort(copy, recomputing);
+				legacy = Math.min(legacy, System.nanoTime() - start);
+
+				copy = invoices.clone();
+				start = System.nanoTime();
+				Arrays.sort(copy, new InvoiceComparators.InvoiceByTotalComparator(invoiceItems));
+				precomputed = Math.min(precomputed, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				SortKeys<Invoice> sorted = SortKeys.invoicesByTotal(invoiceItems);
+				keys = Math.min(keys, System.nanoTime() - start);
+
+				if (!sorted.get(0).equals(copy[0])) {
+					throw new IllegalStateException("Sort orders differ");
+				}
+			}
+
+			System.out.printf("%,10d invoices: recomputing %6d ms | precomputed comparator %6d ms (%.1fx) | "
+					+ "sort keys %6d ms (%.1fx)%n", size, legacy / 1_000_000, precomputed / 1_000_000,
+					(double) legacy / precomputed, keys / 1_000_000, (double) legacy / keys);
+		}
+	}
+
+	static Map<Invoice, List<InvoiceItem>> generate(int size, Random random) {
+		Person person = new Person(UUID.randomUUID(), "Bench", "Mark", "555-0000", new ArrayList<>());
+		Company company = new Company(UUID.randomUUID(), "Benchmark Co", person,
+				new Address("1 Main St", "Lincoln", "NE", "68508"));
+
+		Map<Invoice, List<InvoiceItem>> invoiceItems = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			Invoice invoice = new Invoice(new UUID(random.nextLong(), random.nextLong()), company, person,
+					LocalDate.of(2025, 1, 1));
+			List<InvoiceItem> items = new ArrayList<>(ITEMS_PER_INVOICE);
+			for (int j = 0; j < ITEMS_PER_INVOICE; j++) {
+				double price = random.nextInt(1_000_000) / 100.0;
+				Item item = (j % 2 == 0) ? new Equipment(UUID.randomUUID(), "Equipment", "EQ", price)
+						: new Material(new Material(UUID.randomUUID(), "Material", "unit", price), 1 + random.nextInt(20));
+				items.add(new InvoiceItem(invoice, item));
+			}
+			invoiceItems.put(invoice, items);
+		}
+		return invoiceItems;
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the single pass {@link InvoiceTotals} and its cache on {@link Invoice}.
+ */
+public class InvoiceTotalsTest {
+
+	private Company customer;
+	private Invoice invoice;
+
+	@BeforeEach
+	public void setUp() {
+		Person person = new Person(UUID.randomUUID(), "Jane", "Smith", "555-5678", new ArrayList<>());
+		customer = new Company(UUID.randomUUID(), "ABC Corporation", person,
+				new Address("123 Business St", "Metropolis", "NY", "10001"));
+		invoice = new Invoice(UUID.randomUUID(), customer, person, LocalDate.of(2025, 4, 1));
+	}
+
+	/**
+	 * One pass gives the same sums as the separate totals and counts each kind
+	 * of line.
+	 */
+	@Test
+	public void testSinglePass() {
+		Equipment equipment = new Equipment(UUID.randomUUID(), "Heavy Machinery", "HM-2000", 5000.00);
+		List<InvoiceItem> items = new ArrayList<>();
+		items.add(new InvoiceItem(invoice, equipment));
+		items.add(new InvoiceItem(invoice, new Rental(equipment, 10)));
+		items.add(new InvoiceItem(invoice, new Lease(equipment, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31))));
+		items.add(new InvoiceItem(invoice,
+				new Material(new Material(UUID.randomUUID(), "Steel", "kg", 25.00), 100)));
+		items.add(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Maintenance", 2500.00, customer)));
+		items.add(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Cleanup", 300.00, customer)));
+		items.add(null);
+
+		invoice.setInvoiceItems(items);
+		InvoiceTotals totals = invoice.getTotals();
+
+		long subTotal = 0;
+		long taxes = 0;
+		long total = 0;
+		for (InvoiceItem item : items) {
+			if (item != null) {
+				subTotal += item.getItem().getSubTotalCents();
+				taxes += item.getItem().getTaxesCents();
+				total += item.getItem().getTotalCents();
+			}
+		}
+		assertEquals(subTotal, totals.getSubTotalCents());
+		assertEquals(taxes, totals.getTaxesCents());
+		assertEquals(total, totals.getTotalCents());
+		assertEquals(invoice.grandTotal(items), totals.getTotal(), 0.0);
+		assertEquals(1, totals.getLineCount(LineType.PURCHASE));
+		assertEquals(1, totals.getLineCount(LineType.RENTAL));
+		assertEquals(1, totals.getLineCount(LineType.LEASE));
+		assertEquals(1, totals.getLineCount(LineType.MATERIAL));
+		assertEquals(2, totals.getLineCount(LineType.CONTRACT));
+		assertEquals(6, totals.getLineCount());
+	}
+
+	/**
+	 * The totals are cached until the items change.
+	 */
+	@Test
+	public void testCacheInvalidation() {
+		assertSame(InvoiceTotals.EMPTY, invoice.getTotals());
+
+		invoice.addInvoiceItem(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Survey", 1000.00, customer)));
+		InvoiceTotals first = invoice.getTotals();
+		assertEquals(100000, first.getTotalCents());
+		assertSame(first, invoice.getTotals());
+		assertEquals(first.getTotalCents(), invoice.grandTotalCents(invoice.getInvoiceItems().subList(0, 1)));
+
+		invoice.addInvoiceItem(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Design", 250.50, customer)));
+		assertEquals(125050, invoice.getTotals().getTotalCents());
+
+		invoice.setInvoiceItems(new ArrayList<>());
+		assertEquals(0, invoice.getTotals().getTotalCents());
+
+		assertThrows(UnsupportedOperationException.class, () -> invoice.getInvoiceItems().add(null));
+	}
+
+	/**
+	 * The invoice keeps a copy of the items it is given, so the caller's list
+	 * can neither go stale against the cache nor be immutable.
+	 */
+	@Test
+	public void testItemsAreCopied() {
+		List<InvoiceItem> items = new ArrayList<>();
+		items.add(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Survey", 1000.00, customer)));
+		invoice.setInvoiceItems(items);
+		assertEquals(100000, invoice.grandTotalCents(invoice.getInvoiceItems()));
+
+		items.add(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Design", 250.50, customer)));
+		assertEquals(1, invoice.getInvoiceItems().size());
+		assertEquals(100000, invoice.getTotals().getTotalCents());
+		assertEquals(125050, invoice.grandTotalCents(items));
+
+		invoice.setInvoiceItems(List.of(items.get(0)));
+		invoice.addInvoiceItem(items.get(1));
+		assertEquals(125050, invoice.getTotals().getTotalCents());
+	}
+
+	/**
+	 * A session hands out the invoices' own read only lists, which share the
+	 * cached totals.
+	 */
+	@Test
+	public void testSessionListsAreTheInvoicesOwn() {
+		List<InvoiceItem> items = new ArrayList<>();
+		items.add(new InvoiceItem(invoice, new Contract(UUID.randomUUID(), "Survey", 1000.00, customer)));
+		Map<Invoice, List<InvoiceItem>> invoiceItems = new LinkedHashMap<>();
+		invoiceItems.put(invoice, items);
+
+		ReportSession session = new ReportSession(invoiceItems, new HashMap<>());
+		List<InvoiceItem> sessionItems = session.getInvoiceItems().get(invoice);
+		assertSame(invoice.getInvoiceItems(), sessionItems);
+		assertNotSame(items, sessionItems);
+		assertThrows(UnsupportedOperationException.class, () -> sessionItems.add(null));
+
+		InvoiceTotals totals = invoice.getTotals();
+		assertEquals(totals.getTotalCents(), invoice.grandTotalCents(sessionItems));
+		assertSame(totals, invoice.getTotals());
+	}
+
+}
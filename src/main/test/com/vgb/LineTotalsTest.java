@@ -0,0 +1,86 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every line item is priced exactly once however many reports
+ * read it.
+ */
+public class LineTotalsTest {
+
+	/**
+	 * Equipment that counts how often it is priced.
+	 */
+	private static class CountingEquipment extends Equipment {
+		private static int pricings;
+
+		CountingEquipment(double price) {
+			super(UUID.randomUUID(), "Counted", "CT", price);
+		}
+
+		@Override
+		protected LineTotals calculateTotals() {
+			pricings++;
+			return super.calculateTotals();
+		}
+	}
+
+	@Test
+	public void testEachLineIsPricedOnce() {
+		CountingEquipment.pricings = 0;
+
+		Person person = new Person(UUID.randomUUID(), "Line", "Totals", "555-0000", new ArrayList<>());
+		Company company = new Company(UUID.randomUUID(), "Line Totals Co", person,
+				new Address("1 Main St", "Lincoln", "NE", "68508"));
+
+		int lines = 0;
+		Map<Invoice, List<InvoiceItem>> invoiceItems = new HashMap<>();
+		for (int i = 0; i < 50; i++) {
+			Invoice invoice = new Invoice(UUID.randomUUID(), company, person, LocalDate.of(2025, 1, 1));
+			List<InvoiceItem> items = new ArrayList<>();
+			for (int j = 0; j <= i % 4; j++) {
+				items.add(new InvoiceItem(invoice, new CountingEquipment(100.0 * (i + j))));
+				lines++;
+			}
+			invoiceItems.put(invoice, items);
+		}
+		assertEquals(lines, CountingEquipment.pricings);
+
+		Map<UUID, Company> companies = new HashMap<>();
+		companies.put(company.getUuid(), company);
+		ReportSession session = new ReportSession(invoiceItems, companies);
+		InvoiceReport.printAllSummaryReports(session);
+		InvoiceReport.printInvoice(session);
+
+		assertEquals(lines, CountingEquipment.pricings);
+	}
+
+	/**
+	 * The stored amounts are the ones the item formulas give.
+	 */
+	@Test
+	public void testStoredAmounts() {
+		Lease lease = new Lease(new Equipment(UUID.randomUUID(), "Crane", "C-1", 95125.00), LocalDate.of(2024, 1, 1),
+				LocalDate.of(2026, 6, 1));
+		LineTotals totals = lease.getLineTotals();
+
+		assertEquals(lease.getSubTotal(), totals.getSubTotal(), 0.0);
+		assertEquals(1500.00, totals.getTaxes(), 0.0);
+		assertEquals(Money.toCents(totals.getSubTotal() + 1500.00), totals.getTotalCents());
+
+		Rental rental = new Rental(UUID.randomUUID(), "Loader", "L-2", 50000.00, 25);
+		assertEquals(1250.00, rental.getSubTotal(), 0.0);
+		assertEquals(54.75, rental.getTaxes(), 0.0);
+		assertEquals(130475, rental.getTotalCents());
+	}
+
+}
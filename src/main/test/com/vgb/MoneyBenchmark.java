@@ -0,0 +1,84 @@
+package com.vgb;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures allocation and throughput of invoice total calculation with the
+ * old BigDecimal rounding and double sums against {@link Money}.
+ * <p>
+ * Run with {@code java com.vgb.MoneyBenchmark [invoices]}. Allocation is read
+ * from the HotSpot per-thread allocation counter.
+ * </p>
+ */
+public class MoneyBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private static double legacyRound(double value) {
+		return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+	}
+
+	/**
+	 * Equipment and material totals as computed before, with BigDecimal rounding
+	 * and a double sum.
+	 */
+	private static double legacyGrandTotal(List<InvoiceItem> items) {
+		double total = 0.0;
+		for (InvoiceItem invoiceItem : items) {
+			Item item = invoiceItem.getItem();
+			double rate = (item instanceof Material) ? 0.0715 : 0.0525;
+			double tax = legacyRound(item.getSubTotal() * rate);
+			total += legacyRound(item.getSubTotal() + tax);
+		}
+		return total;
+	}
+
+	public static void main(String[] args) {
+		int size = (args.length == 0) ? 200_000 : Integer.parseInt(args[0]);
+		Map<Invoice, List<InvoiceItem>> invoiceItems = InvoiceSortBenchmark.generate(size, new Random(42));
+		long lines = invoiceItems.values().stream().mapToLong(List::size).sum();
+		long threadId = Thread.currentThread().getId();
+
+		long legacyNanos = Long.MAX_VALUE;
+		long legacyBytes = Long.MAX_VALUE;
+		long moneyNanos = Long.MAX_VALUE;
+		long moneyBytes = Long.MAX_VALUE;
+		double legacySum = 0;
+		long centsSum = 0;
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long bytes = THREADS.getThreadAllocatedBytes(threadId);
+			long start = System.nanoTime();
+			legacySum = 0;
+			for (List<InvoiceItem> items : invoiceItems.values()) {
+				legacySum += legacyGrandTotal(items);
+			}
+			legacyNanos = Math.min(legacyNanos, System.nanoTime() - start);
+			legacyBytes = Math.min(legacyBytes, THREADS.getThreadAllocatedBytes(threadId) - bytes);
+
+			bytes = THREADS.getThreadAllocatedBytes(threadId);
+			start = System.nanoTime();
+			centsSum = 0;
+			for (Map.Entry<Invoice, List<InvoiceItem>> entry : invoiceItems.entrySet()) {
+				centsSum += entry.getKey().grandTotalCents(entry.getValue());
+			}
+			moneyNanos = Math.min(moneyNanos, System.nanoTime() - start);
+			moneyBytes = Math.min(moneyBytes, THREADS.getThreadAllocatedBytes(threadId) - bytes);
+		}
+
+		System.out.printf("%,d lines%n", lines);
+		System.out.printf("BigDecimal + double: %6d ms, %,14d bytes (%.1f bytes/line), sum %.2f%n",
+				legacyNanos / 1_000_000, legacyBytes, (double) legacyBytes / lines, legacySum);
+		System.out.printf("Money cents:         %6d ms, %,14d bytes (%.1f bytes/line), sum %.2f%n",
+				moneyNanos / 1_000_000, moneyBytes, (double) moneyBytes / lines, Money.toDollars(centsSum));
+	}
+
+}
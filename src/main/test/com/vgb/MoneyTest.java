@@ -0,0 +1,72 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link Money} rounds exactly like the BigDecimal code it
+ * replaces.
+ */
+public class MoneyTest {
+
+	private static long bigDecimalCents(double value) {
+		return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+	}
+
+	private static void assertRoundsLikeBigDecimal(double value) {
+		assertEquals(bigDecimalCents(value), Money.toCents(value), "cents of " + value);
+		assertEquals(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue(), Money.round(value),
+				"rounding of " + value);
+	}
+
+	/**
+	 * Half cents round away from zero as they print, even when the double is
+	 * just below the half.
+	 */
+	@Test
+	public void testHalfCents() {
+		double[] values = { 0.005, 0.015, 0.125, 1.005, 2.675, 1.115, 8.345, 1234567.895, 99999999999.995, -1.005,
+				-2.675, -0.004, -0.0, 0.0, 0.994999, 0.995 };
+		for (double value : values) {
+			assertRoundsLikeBigDecimal(value);
+		}
+		assertEquals(101, Money.toCents(1.005));
+		assertEquals(-268, Money.toCents(-2.675));
+	}
+
+	/**
+	 * Random amounts and the tax products the items compute.
+	 */
+	@Test
+	public void testRandomAmounts() {
+		Random random = new Random(2025);
+		double[] rates = { 0.0525, 0.0438, 0.0715, 0.001, 1.5 / 5 / 365.0 };
+		for (int i = 0; i < 1_000_000; i++) {
+			double price = random.nextInt(100_000_000) / 100.0;
+			assertRoundsLikeBigDecimal(price);
+			assertRoundsLikeBigDecimal(price * rates[i % rates.length]);
+			assertRoundsLikeBigDecimal(random.nextDouble() * Math.pow(10, random.nextInt(12)));
+			assertRoundsLikeBigDecimal((2 * random.nextInt(1_000_000) + 1) / 200.0);
+		}
+	}
+
+	/**
+	 * Amounts too large for the fast path still round correctly, and non-finite
+	 * amounts are rejected as before.
+	 */
+	@Test
+	public void testLargeAndInvalidAmounts() {
+		assertRoundsLikeBigDecimal(12345678901234.565);
+		assertRoundsLikeBigDecimal(-1e15);
+		assertEquals(12345, Money.toCents(Money.toDollars(12345)));
+		assertThrows(NumberFormatException.class, () -> Money.toCents(Double.NaN));
+		assertThrows(NumberFormatException.class, () -> Money.toCents(Double.POSITIVE_INFINITY));
+	}
+
+}
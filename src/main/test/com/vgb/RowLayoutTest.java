@@ -0,0 +1,111 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link RowLayout} renders exactly what String.format does.
+ */
+public class RowLayoutTest {
+
+	private static final RowLayout ROW = RowLayout.compile("%-40s %-30s $%10.2f\n");
+	private static final RowLayout NUMBERS = RowLayout.compile("%s|%12s|%20s|%-8s|%d|%-20d|%8.2f");
+
+	private static double randomAmount(Random random) {
+		switch (random.nextInt(6)) {
+		case 0:
+			return random.nextInt(100_000_000) / 100.0;
+		case 1:
+			return random.nextInt(1_000_000) / 100.0 * 0.0525;
+		case 2:
+			return random.nextDouble() * Math.pow(10, random.nextInt(16) - 4);
+		case 3:
+			return (2 * random.nextInt(100_000) + 1) / 200.0;
+		case 4:
+			return -random.nextInt(100_000_000) / 100.0;
+		default:
+			return random.nextInt(1000) * 0.1;
+		}
+	}
+
+	@Test
+	public void testMatchesStringFormat() {
+		Random random = new Random(99);
+		for (int i = 0; i < 200_000; i++) {
+			UUID uuid = new UUID(random.nextLong(), random.nextLong());
+			String name = "Customer " + random.nextInt(1000);
+			double amount = randomAmount(random);
+			assertEquals(String.format(Locale.US, "%-40s %-30s $%10.2f\n", uuid, name, amount),
+					ROW.row().uuid(uuid).text(name).money(amount).toString());
+
+			double a = randomAmount(random);
+			double b = randomAmount(random);
+			double c = randomAmount(random);
+			long n = random.nextLong() >> random.nextInt(64);
+			int m = random.nextInt();
+			double d = randomAmount(random);
+			assertEquals(String.format(Locale.US, "%s|%12s|%20s|%-8s|%d|%-20d|%8.2f", a, b, c, "x", n, m, d),
+					NUMBERS.row().number(a).number(b).number(c).text("x").integer(n).integer(m).money(d).toString());
+		}
+	}
+
+	@Test
+	public void testSpecialValues() {
+		double[] values = { 0.0, -0.0, 1.005, 0.125, -0.001, 0.001, 1e-5, 9999999.99, 1e7, 12345678.5, -2.675,
+				Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE, 1e20 };
+		for (double value : values) {
+			assertEquals(String.format(Locale.US, "%s|%12s|%20s|%-8s|%d|%-20d|%8.2f", value, value, value, null,
+					Long.MIN_VALUE, 0L, value),
+					NUMBERS.row().number(value).number(value).number(value).text(null).integer(Long.MIN_VALUE)
+							.integer(0).money(value).toString(),
+					"value " + value);
+		}
+	}
+
+	@Test
+	public void testAppendAndMisuse() throws IOException {
+		UUID uuid = UUID.randomUUID();
+		StringWriter out = new StringWriter();
+		ROW.row().uuid(uuid).text("Name").money(1.5).appendTo(out);
+		StringBuilder sb = new StringBuilder();
+		ROW.row().uuid(uuid).text("Name").money(1.5).appendTo(sb);
+		assertEquals(String.format("%-40s %-30s $%10.2f\n", uuid, "Name", 1.5), out.toString());
+		assertEquals(out.toString(), sb.toString());
+
+		assertThrows(IllegalArgumentException.class, () -> ROW.row().money(1.0));
+		assertThrows(IllegalStateException.class, () -> ROW.row().uuid(uuid).toString());
+		assertThrows(IllegalArgumentException.class, () -> RowLayout.compile("%x"));
+		assertThrows(IllegalArgumentException.class, () -> RowLayout.compile("%.3f"));
+	}
+
+	/**
+	 * Item descriptions match the String.format patterns they replaced.
+	 */
+	@Test
+	public void testItemDescriptions() {
+		Equipment equipment = new Equipment(UUID.randomUUID(), "Loader", "LD500X", 142000.00);
+		assertEquals(String.format("%s (Purchase) \n %s-%s \n %70s $%s $%s $%s", equipment.getUUID(),
+				equipment.getModelName(), equipment.getName(), " ", equipment.getSubTotal(), equipment.getTaxes(),
+				equipment.getTotal()), equipment.toString());
+
+		Rental rental = new Rental(equipment, 12.5);
+		assertEquals(String.format("\n %s (Rental) %s-%s \n %s hours @ %s/per hour \n %70s $%s $%s $%s \n",
+				rental.getUUID(), rental.getName(), rental.getModelName(), rental.getHours(), rental.calculateRate(),
+				" ", rental.getSubTotal(), rental.getTaxes(), rental.getTotal()), rental.toString());
+
+		Material material = new Material(new Material(UUID.randomUUID(), "Nails", "box", 0.1), 3);
+		assertEquals(String.format("\n %s (Material) %s \n %20s @ $ %s/per %s \n %70s $%s $%s $%s \n ",
+				material.getUUID(), material.getName(), material.getQuantity(), material.getPrice(),
+				material.getUnit(), " ", material.getSubTotal(), material.getTaxes(), material.getTotal()),
+				material.toString());
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link SortKeys} reproduces the full order of the comparators in
+ * {@link InvoiceComparators}, including the UUID tie-break between equal
+ * totals.
+ */
+public class SortKeysTest {
+
+	private static final int SIZE = 2_000;
+
+	private final Random random = new Random(7);
+	private final Person person = new Person(UUID.randomUUID(), "Jane", "Smith", "555-5678", new ArrayList<>());
+
+	/**
+	 * @return A UUID with any sign in either half, so signed and unsigned
+	 *         orders differ
+	 */
+	private UUID uuid() {
+		return new UUID(random.nextLong(), random.nextLong());
+	}
+
+	@Test
+	public void testInvoicesMatchComparator() {
+		Company company = new Company(uuid(), "Acme", person, new Address("1 Main St", "Lincoln", "NE", "68508"));
+		Map<Invoice, List<InvoiceItem>> invoiceItems = new LinkedHashMap<>();
+		for (int i = 0; i < SIZE; i++) {
+			Invoice invoice = new Invoice(uuid(), company, person, LocalDate.of(2025, 1, 1));
+			List<InvoiceItem> items = new ArrayList<>();
+			// Few distinct prices, so most totals are tied
+			Equipment equipment = new Equipment(uuid(), "Loader", "LD", 1000.0 * random.nextInt(8));
+			items.add(new InvoiceItem(invoice, equipment));
+			invoiceItems.put(invoice, items);
+		}
+		Invoice empty = new Invoice(uuid(), company, person, LocalDate.of(2025, 1, 2));
+		invoiceItems.put(empty, null);
+
+		List<Invoice> expected = new ArrayList<>(invoiceItems.keySet());
+		expected.sort(new InvoiceComparators.InvoiceByTotalComparator(invoiceItems));
+
+		assertEquals(expected, SortKeys.invoicesByTotal(invoiceItems).toList());
+
+		invoiceItems.remove(empty);
+		expected.remove(empty);
+		SortedListBST<Invoice> sorted = ReportUtils.getInvoicesByTotal(new ReportSession(invoiceItems, new HashMap<>()));
+		assertEquals(expected, new ArrayList<>(sorted.subList(0, sorted.size())));
+	}
+
+	@Test
+	public void testCompaniesMatchComparator() {
+		Map<Company, Double> companyTotals = new HashMap<>();
+		for (int i = 0; i < SIZE; i++) {
+			Company company = new Company(uuid(), "Company " + i, person,
+					new Address(i + " Main St", "Lincoln", "NE", "68508"));
+			companyTotals.put(company, 250.0 * random.nextInt(6));
+		}
+
+		List<Company> expected = new ArrayList<>(companyTotals.keySet());
+		expected.sort(new InvoiceComparators.CompanyByTotalComparator(companyTotals));
+
+		assertEquals(expected, SortKeys.companiesByTotal(companyTotals).toList());
+		SortedListBST<Company> sorted = ReportUtils.getCompaniesByTotal(companyTotals);
+		assertEquals(expected, new ArrayList<>(sorted.subList(0, sorted.size())));
+	}
+
+}
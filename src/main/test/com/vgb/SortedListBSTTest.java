@@ -0,0 +1,246 @@
+package com.vgb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ordering and balance of the {@link SortedListBST}.
+ */
+public class SortedListBSTTest {
+
+	/**
+	 * Largest height an AVL tree of the given size can have.
+	 */
+	private static int maxHeight(int size) {
+		return (int) Math.floor(1.4405 * (Math.log(size + 2) / Math.log(2)) - 0.3277);
+	}
+
+	private static List<Integer> toList(SortedListBST<Integer> list) {
+		List<Integer> result = new ArrayList<>();
+		for (Integer i : list) {
+			result.add(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Ascending and descending inserts used to degrade the tree into a linked
+	 * list; the height must stay logarithmic.
+	 */
+	@Test
+	public void testSortedInsertsStayBalanced() {
+		int n = 100_000;
+		SortedListBST<Integer> ascending = new SortedListBST<>(Integer::compare);
+		SortedListBST<Integer> descending = new SortedListBST<>(Integer::compare);
+		for (int i = 0; i < n; i++) {
+			ascending.add(i);
+			descending.add(n - i);
+		}
+
+		assertEquals(n, ascending.size());
+		assertEquals(n, descending.size());
+		assertTrue(ascending.height() <= maxHeight(n), "height " + ascending.height());
+		assertTrue(descending.height() <= maxHeight(n), "height " + descending.height());
+		assertEquals(0, ascending.getFirst().intValue());
+		assertEquals(n - 1, ascending.getLast().intValue());
+		assertEquals(1, descending.getFirst().intValue());
+		assertEquals(n, descending.getLast().intValue());
+	}
+
+	/**
+	 * Random adds and removes checked against a sorted ArrayList.
+	 */
+	@Test
+	public void testRandomAddRemoveMatchesSortedList() {
+		Random random = new Random(7);
+		SortedListBST<Integer> list = new SortedListBST<>(Integer::compare);
+		List<Integer> expected = new ArrayList<>();
+
+		for (int i = 0; i < 20_000; i++) {
+			int value = random.nextInt(500);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(Integer.valueOf(value)), list.remove(value));
+			} else {
+				list.add(value);
+				expected.add(value);
+			}
+		}
+
+		Collections.sort(expected);
+		assertEquals(expected, toList(list));
+		assertEquals(expected.size(), list.size());
+		assertTrue(list.height() <= maxHeight(list.size()), "height " + list.height());
+	}
+
+	/**
+	 * Removing every element in order, including the root, leaves an empty
+	 * list.
+	 */
+	@Test
+	public void testRemoveAll() {
+		SortedListBST<Integer> list = new SortedListBST<>(Integer::compare);
+		for (int i = 0; i < 1_000; i++) {
+			list.add(i);
+		}
+		for (int i = 999; i >= 0; i -= 2) {
+			assertTrue(list.remove(i));
+		}
+		for (int i = 0; i < 1_000; i += 2) {
+			assertTrue(list.remove(i));
+		}
+
+		assertTrue(list.isEmpty());
+		assertEquals(0, list.height());
+		assertFalse(list.remove(0));
+		assertFalse(list.iterator().hasNext());
+		assertThrows(NoSuchElementException.class, () -> list.getFirst());
+		assertThrows(NoSuchElementException.class, () -> list.getLast());
+	}
+
+	/**
+	 * Elements that compare equal come out in the order they were added.
+	 */
+	@Test
+	public void testEqualElementsKeepInsertionOrder() {
+		SortedListBST<String> list = new SortedListBST<>(Comparator.comparingInt(String::length));
+		String[] words = { "b1", "a", "b2", "c", "b3", "b4", "ddd", "b5" };
+		list.addAll(words);
+
+		assertEquals("[a, c, b1, b2, b3, b4, b5, ddd]", list.toString());
+		assertEquals("b3", list.get(4));
+		assertThrows(IndexOutOfBoundsException.class, () -> list.get(8));
+	}
+
+	/**
+	 * get, rank and indexOf agree with a sorted ArrayList after random adds and
+	 * removes.
+	 */
+	@Test
+	public void testPositionalAccess() {
+		Random random = new Random(11);
+		SortedListBST<Integer> list = new SortedListBST<>(Integer::compare);
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) {
+			int value = random.nextInt(2_000);
+			list.add(value);
+			expected.add(value);
+		}
+		for (int i = 0; i < 1_000; i++) {
+			Integer value = random.nextInt(2_000);
+			assertEquals(expected.remove(value), list.remove(value));
+		}
+		Collections.sort(expected);
+
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), list.get(i));
+		}
+		for (int value = -1; value <= 2_000; value++) {
+			int rank = 0;
+			while (rank < expected.size() && expected.get(rank) < value) {
+				rank++;
+			}
+			assertEquals(rank, list.rank(value));
+			assertEquals(expected.indexOf(value), list.indexOf(value));
+		}
+	}
+
+	/**
+	 * Sub lists page through the list and fail once the list changes.
+	 */
+	@Test
+	public void testSubList() {
+		SortedListBST<Integer> list = new SortedListBST<>(Integer::compare);
+		for (int i = 99; i >= 0; i--) {
+			list.add(i);
+		}
+
+		List<Integer> page = list.subList(40, 50);
+		assertEquals(10, page.size());
+		assertEquals(40, page.get(0).intValue());
+		assertEquals("[40, 41, 42, 43, 44, 45, 46, 47, 48, 49]", page.toString());
+		assertTrue(list.subList(100, 100).isEmpty());
+		assertThrows(IndexOutOfBoundsException.class, () -> list.subList(90, 101));
+		assertThrows(IndexOutOfBoundsException.class, () -> page.get(10));
+
+		list.add(1_000);
+		assertThrows(ConcurrentModificationException.class, () -> page.get(0));
+	}
+
+	/**
+	 * Bulk built lists are sorted, perfectly balanced and still accept single
+	 * adds and removes.
+	 */
+	@Test
+	public void testBulkBuild() {
+		int n = 3 * SortedListBST.PARALLEL_SORT_THRESHOLD;
+		List<Integer> values = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			values.add(i / 2);
+		}
+		Collections.shuffle(values, new Random(3));
+
+		SortedListBST<Integer> list = SortedListBST.of(Integer::compare, values);
+		Collections.sort(values);
+		assertEquals(values, toList(list));
+		assertEquals(32 - Integer.numberOfLeadingZeros(n), list.height());
+
+		SortedListBST<Integer> sorted = SortedListBST.fromSorted(Integer::compare, values);
+		assertEquals(values, toList(sorted));
+		assertEquals(values.get(n / 2), sorted.get(n / 2));
+
+		list.add(-1);
+		assertTrue(list.remove(n / 4));
+		assertEquals(-1, list.getFirst().intValue());
+		assertEquals(n, list.size());
+
+		assertThrows(IllegalArgumentException.class, () -> SortedListBST.fromSorted(Integer::compare, List.of(2, 1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> SortedListBST.of(Integer::compare, Collections.singletonList((Integer) null)));
+	}
+
+	/**
+	 * Merging keeps every element of both lists, first list first on ties.
+	 */
+	@Test
+	public void testMerge() {
+		Comparator<String> byLength = Comparator.comparingInt(String::length);
+		SortedListBST<String> monday = SortedListBST.of(byLength, List.of("ccc", "a", "bb"));
+		SortedListBST<String> tuesday = SortedListBST.of(byLength, List.of("BB", "dddd", "A"));
+
+		SortedListBST<String> merged = SortedListBST.merge(monday, tuesday);
+		assertEquals("[a, A, bb, BB, ccc, dddd]", merged.toString());
+		assertEquals(3, monday.size());
+		assertEquals(3, tuesday.size());
+
+		SortedListBST<String> other = new SortedListBST<>(Comparator.comparingInt(String::length));
+		assertThrows(IllegalArgumentException.class, () -> SortedListBST.merge(monday, other));
+	}
+
+	/**
+	 * A large addAll into a non-empty list merges instead of inserting one by
+	 * one, with existing elements ahead of equal new ones.
+	 */
+	@Test
+	public void testAddAllMerges() {
+		SortedListBST<String> list = new SortedListBST<>(Comparator.comparingInt(String::length));
+		list.add("x");
+		list.add("yyy");
+		list.addAll(new String[] { "zzz", "w", "vv" });
+
+		assertEquals("[x, w, vv, yyy, zzz]", list.toString());
+		assertEquals(3, list.height());
+	}
+
+}
@@ -0,0 +1,335 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.Address;
+import com.vgb.Company;
+import com.vgb.Contract;
+import com.vgb.Equipment;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.Item;
+import com.vgb.Lease;
+import com.vgb.Material;
+import com.vgb.Person;
+
+/**
+ * Tests the bulk importer against an in-memory stand-in database that hands
+ * out generated keys and supports savepoints.
+ */
+public class BulkImporterTest {
+
+	private static final Pattern TABLE = Pattern.compile("(?:INTO|FROM) (\\w+)");
+
+	/**
+	 * A stand-in database. Inserted rows are stored as their generated key
+	 * followed by their parameters, and become visible on commit.
+	 */
+	private static class FakeDatabase implements FakeJdbc.Database {
+		private final Map<String, List<Object[]>> keyRows = new HashMap<>();
+		private final Map<String, List<Object[]>> committed = new HashMap<>();
+		private final List<String> pendingTables = new ArrayList<>();
+		private final List<Object[]> pendingRows = new ArrayList<>();
+		private Predicate<Object[]> failing = row -> false;
+		private int nextKey = 1;
+
+		private static String table(String sql) {
+			Matcher matcher = TABLE.matcher(sql);
+			matcher.find();
+			return matcher.group(1);
+		}
+
+		private List<Object[]> rows(String table) {
+			return committed.getOrDefault(table, List.of());
+		}
+
+		/**
+		 * Answers a key query with the stored key rows whose natural key is
+		 * among the parameters.
+		 */
+		@Override
+		public FakeJdbc.Rows query(String sql, Object[] params) {
+			List<Object> keys = Arrays.asList(params);
+			List<Object[]> rows = new ArrayList<>();
+			for (Object[] row : keyRows.getOrDefault(table(sql), List.of())) {
+				if (keys.contains(row[1])) {
+					rows.add(row);
+				}
+			}
+			return new FakeJdbc.Rows(List.of(), rows);
+		}
+
+		@Override
+		public int update(String sql, Object[] params) throws SQLException {
+			if (failing.test(params)) {
+				throw new SQLException("Rejected " + Arrays.toString(params));
+			}
+			Object[] row = params.clone();
+			row[0] = nextKey;
+			pendingTables.add(table(sql));
+			pendingRows.add(row);
+			return nextKey++;
+		}
+
+		@Override
+		public void commit() {
+			for (int i = 0; i < pendingRows.size(); i++) {
+				committed.computeIfAbsent(pendingTables.get(i), t -> new ArrayList<>()).add(pendingRows.get(i));
+			}
+			pendingTables.clear();
+			pendingRows.clear();
+		}
+
+		@Override
+		public int setSavepoint() {
+			return pendingRows.size();
+		}
+
+		@Override
+		public void rollback() {
+			rollback(0);
+		}
+
+		@Override
+		public void rollback(int savepoint) {
+			pendingTables.subList(savepoint, pendingTables.size()).clear();
+			pendingRows.subList(savepoint, pendingRows.size()).clear();
+		}
+	}
+
+	private final FakeDatabase db = new FakeDatabase();
+	private final FakeJdbc jdbc = new FakeJdbc(db);
+
+	private static Person person(int n, String... emails) {
+		return new Person(new UUID(1, n), "First" + n, "Last" + n, "555-010" + n, List.of(emails));
+	}
+
+	private static Company company(int n, Person contact) {
+		return new Company(new UUID(2, n), "Company" + n, contact, new Address(n + " Main St", "Lincoln", "NE", "68508"));
+	}
+
+	/**
+	 * @return The generated key of the committed row whose first parameter is
+	 *         the given value
+	 */
+	private int keyOf(String table, Object firstParam) {
+		for (Object[] row : db.rows(table)) {
+			if (firstParam.equals(row[1])) {
+				return (Integer) row[0];
+			}
+		}
+		throw new AssertionError("No " + table + " row for " + firstParam);
+	}
+
+	/**
+	 * Every foreign key is filled from the generated keys of rows inserted
+	 * earlier in the same import.
+	 */
+	@Test
+	public void testImportResolvesKeys() throws SQLException {
+		Person contact = person(1, "a@example.com", "b@example.com");
+		Person salesperson = person(2);
+		Company customer = company(1, contact);
+		Equipment equipment = new Equipment(new UUID(3, 1), "Excavator", "X-1", 95_000);
+		Material material = new Material(new UUID(3, 2), "Gravel", "ton", 12.5);
+		Contract contract = new Contract(new UUID(3, 3), "Paving", 0, customer);
+		Invoice invoice = new Invoice(new UUID(4, 1), customer, salesperson, LocalDate.of(2025, 3, 1));
+		List<InvoiceItem> lines = List.of(
+				new InvoiceItem(invoice, new Lease(equipment, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 30))),
+				new InvoiceItem(invoice, new Material(material, 40)),
+				new InvoiceItem(invoice, new Contract(contract, 12_000)));
+
+		ImportResult result = new BulkImporter(2).importAll(jdbc.connection(), List.of(contact, salesperson),
+				List.of(customer), List.of(equipment, material, contract), List.of(invoice), lines);
+
+		assertTrue(result.isComplete(), result.getFailures().toString());
+		assertEquals(2, result.getInserted("Person"));
+		assertEquals(2, result.getInserted("Email"));
+		assertEquals(1, result.getInserted("Address"));
+		assertEquals(3, result.getInserted("Item"));
+		assertEquals(3, result.getInserted("InvoiceItem"));
+		assertTrue(jdbc.isAutoCommit(), "Auto-commit should be restored");
+
+		int contactId = keyOf("Person", contact.getUuid().toString());
+		int customerId = keyOf("Company", customer.getUuid().toString());
+		Object[] companyRow = db.rows("Company").get(0);
+		assertEquals(keyOf("Address", "1 Main St"), ((Integer) companyRow[3]).intValue());
+		assertEquals(contactId, ((Integer) companyRow[4]).intValue());
+		for (Object[] email : db.rows("Email")) {
+			assertEquals(contactId, ((Integer) email[2]).intValue());
+		}
+		Object[] contractRow = db.rows("Item").get(2);
+		assertEquals("C", contractRow[3]);
+		assertEquals(customerId, ((Integer) contractRow[8]).intValue());
+
+		int invoiceId = keyOf("Invoice", invoice.getInvoiceUUID().toString());
+		List<Object[]> lineRows = db.rows("InvoiceItem");
+		assertEquals(Arrays.asList("L", "M", "C"), Arrays.asList(lineRows.get(0)[3], lineRows.get(1)[3], lineRows.get(2)[3]));
+		for (Object[] line : lineRows) {
+			assertEquals(invoiceId, ((Integer) line[2]).intValue());
+		}
+		assertEquals("2025-06-30", lineRows.get(0)[6]);
+		assertEquals(40.0, ((Double) lineRows.get(1)[8]).doubleValue());
+		assertEquals(12_000.0, ((Double) lineRows.get(2)[9]).doubleValue());
+	}
+
+	/**
+	 * Rows are sent in batches of the configured size.
+	 */
+	@Test
+	public void testBatchSize() throws SQLException {
+		List<Person> persons = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			persons.add(person(i));
+		}
+
+		ImportResult result = new BulkImporter(10).importAll(jdbc.connection(), persons, List.of(), List.of(), List.of(),
+				List.of());
+
+		assertEquals(25, result.getInserted("Person"));
+		assertEquals(3, jdbc.getBatches());
+		assertEquals(25, db.rows("Person").size());
+	}
+
+	/**
+	 * Rows already in the database, or repeated in the input, are skipped and
+	 * their existing keys are used for references.
+	 */
+	@Test
+	public void testExistingRowsAreSkipped() throws SQLException {
+		Person existing = person(1, "old@example.com");
+		Person added = person(2, "new@example.com");
+		db.keyRows.put("Person", List.<Object[]>of(new Object[] { 77, existing.getUuid().toString() }));
+
+		ImportResult result = new BulkImporter().importAll(jdbc.connection(), List.of(existing, added, added),
+				List.of(company(1, existing)), List.of(), List.of(), List.of());
+
+		assertTrue(result.isComplete());
+		assertEquals(1, result.getInserted("Person"));
+		assertEquals(2, result.getExisting("Person"));
+		assertEquals(1, db.rows("Email").size());
+		assertEquals("new@example.com", db.rows("Email").get(0)[1]);
+		assertEquals(77, ((Integer) db.rows("Company").get(0)[4]).intValue());
+	}
+
+	/**
+	 * Only the keys the input names or refers to are looked up, in chunks.
+	 */
+	@Test
+	public void testKeysAreLoadedForInputOnly() throws SQLException {
+		Person existing = person(1);
+		db.keyRows.put("Person", List.<Object[]>of(new Object[] { 77, existing.getUuid().toString() },
+				new Object[] { 78, new UUID(9, 99).toString() }));
+		List<Person> persons = new ArrayList<>(List.of(existing));
+		for (int i = 2; i <= BulkImporter.KEY_CHUNK_SIZE + 1; i++) {
+			persons.add(person(i));
+		}
+
+		ImportResult result = new BulkImporter().importAll(jdbc.connection(), persons, List.of(), List.of(),
+				List.of(), List.of());
+
+		assertEquals(1, result.getExisting("Person"));
+		assertEquals(BulkImporter.KEY_CHUNK_SIZE, result.getInserted("Person"));
+		List<String> keyQueries = new ArrayList<>();
+		for (String sql : jdbc.getPrepared()) {
+			if (sql.startsWith("SELECT")) {
+				keyQueries.add(sql);
+			}
+		}
+		assertEquals(2, keyQueries.size(), keyQueries.toString());
+		assertTrue(keyQueries.get(0).contains("FROM Person WHERE uuid IN (?, ?"));
+		assertTrue(keyQueries.get(1).endsWith("IN (?)"));
+		assertEquals(0, jdbc.getOpenCount());
+	}
+
+	/**
+	 * Addresses are looked up by their full natural key.
+	 */
+	@Test
+	public void testExistingAddressIsReused() throws SQLException {
+		Person contact = person(1);
+		Company customer = company(1, contact);
+		db.keyRows.put("State", List.<Object[]>of(new Object[] { 5, "NE" }));
+		db.keyRows.put("ZipCode", List.<Object[]>of(new Object[] { 6, "68508" }));
+		db.keyRows.put("Address", List.<Object[]>of(new Object[] { 9, "1 Main St", "Lincoln", "NE", "68508" }));
+
+		ImportResult result = new BulkImporter().importAll(jdbc.connection(), List.of(contact), List.of(customer),
+				List.of(), List.of(), List.of());
+
+		assertTrue(result.isComplete());
+		assertEquals(0, result.getInserted("Address"));
+		assertEquals(9, ((Integer) db.rows("Company").get(0)[3]).intValue());
+		String addressQuery = jdbc.getPrepared().stream().filter(sql -> sql.contains("FROM Address")).findFirst()
+				.orElseThrow();
+		assertTrue(addressQuery.contains("(a.street, a.city, s.stateCode, z.zip) IN ((?, ?, ?, ?))"), addressQuery);
+	}
+
+	/**
+	 * A row the database rejects is reported, the rest of its batch is still
+	 * committed, and rows referring to it are reported in turn.
+	 */
+	@Test
+	public void testFailedRowDoesNotAbortBatch() throws SQLException {
+		Person good = person(1);
+		Person bad = new Person(new UUID(1, 2), "Bad", "Row", "555-0102", List.of());
+		Person other = person(3);
+		db.failing = row -> "Bad".equals(row[2]);
+
+		ImportResult result = new BulkImporter(3).importAll(jdbc.connection(), List.of(good, bad, other),
+				List.of(company(1, bad), company(2, other)), List.of(), List.of(), List.of());
+
+		assertEquals(2, result.getInserted("Person"));
+		assertEquals(2, db.rows("Person").size());
+		assertEquals(1, result.getInserted("Company"));
+
+		List<ImportResult.Failure> failures = result.getFailures();
+		assertEquals(2, failures.size());
+		assertEquals("Person", failures.get(0).getTable());
+		assertEquals(bad.getUuid().toString(), failures.get(0).getKey());
+		assertEquals("Company", failures.get(1).getTable());
+		assertEquals("Contact does not exist", failures.get(1).getMessage());
+	}
+
+	/**
+	 * References to rows that are neither in the database nor in the import
+	 * are reported without sending anything.
+	 */
+	@Test
+	public void testUnresolvedReferences() throws SQLException {
+		Company customer = company(1, person(1));
+		Item item = new Equipment(new UUID(3, 1), "Loader", "L-2", 40_000);
+		Invoice invoice = new Invoice(new UUID(4, 1), customer, person(2), LocalDate.of(2025, 3, 1));
+
+		ImportResult result = new BulkImporter().importAll(jdbc.connection(), List.of(), List.of(), List.of(),
+				List.of(invoice), Arrays.asList(new InvoiceItem(invoice, item), null));
+
+		assertFalse(result.isComplete());
+		assertEquals(2, result.getFailures().size());
+		assertEquals("Customer does not exist", result.getFailures().get(0).getMessage());
+		assertEquals("Invoice does not exist", result.getFailures().get(1).getMessage());
+		assertEquals(0, jdbc.getBatches());
+	}
+
+	@Test
+	public void testBatchSizeMustBePositive() {
+		assertThrows(IllegalArgumentException.class, () -> new BulkImporter(0));
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the connection pool against an in-memory stand-in database.
+ */
+public class ConnectionPoolTest {
+
+	private final List<FakeJdbc> opened = new ArrayList<>();
+	private final AtomicLong now = new AtomicLong();
+
+	private ConnectionPool pool(int maxSize, long borrowTimeout) {
+		return new ConnectionPool(() -> {
+			FakeJdbc fake = new FakeJdbc((sql, params) -> FakeJdbc.Rows.empty());
+			opened.add(fake);
+			return fake.connection();
+		}, maxSize, borrowTimeout, 1_000, 10_000, 1, now::get);
+	}
+
+	@BeforeEach
+	public void setUp() {
+		opened.clear();
+		now.set(0);
+	}
+
+	@Test
+	public void testReturnedConnectionIsReused() throws SQLException {
+		ConnectionPool pool = pool(2, 100);
+
+		Connection first = pool.getConnection();
+		first.close();
+		assertTrue(first.isClosed(), "Handle should report closed once returned");
+
+		Connection second = pool.getConnection();
+		assertNotSame(first, second);
+		assertEquals(1, opened.size(), "Physical connection should be reused");
+		assertFalse(opened.get(0).isClosed());
+
+		PoolStats stats = pool.getStats();
+		assertEquals(1, stats.getActive());
+		assertEquals(0, stats.getIdle());
+		assertEquals(2, stats.getBorrowCount());
+		assertEquals(1, stats.getCreatedCount());
+		second.close();
+	}
+
+	@Test
+	public void testCloseIsIdempotentAndBlocksFurtherUse() throws SQLException {
+		ConnectionPool pool = pool(1, 100);
+
+		Connection conn = pool.getConnection();
+		conn.close();
+		conn.close();
+
+		assertEquals(0, pool.getStats().getActive());
+		assertEquals(1, pool.getStats().getIdle());
+		assertThrows(SQLException.class, () -> conn.createStatement());
+	}
+
+	@Test
+	public void testBorrowTimesOutWhenExhausted() throws SQLException {
+		ConnectionPool pool = pool(1, 50);
+
+		Connection held = pool.getConnection();
+		assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+		assertEquals(1, pool.getStats().getTimeoutCount());
+
+		held.close();
+		pool.getConnection().close();
+	}
+
+	@Test
+	public void testWaiterGetsReturnedConnection() throws Exception {
+		ConnectionPool pool = pool(1, 5_000);
+		Connection held = pool.getConnection();
+
+		Thread returner = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			ConnectionFactory.closeConnection(held);
+		});
+		returner.start();
+
+		Connection conn = pool.getConnection();
+		returner.join();
+		assertEquals(1, opened.size());
+		assertTrue(pool.getStats().getMaxWaitMillis() > 0);
+		conn.close();
+	}
+
+	@Test
+	public void testInvalidConnectionIsReplacedOnBorrow() throws SQLException {
+		ConnectionPool pool = pool(1, 100);
+
+		pool.getConnection().close();
+		opened.get(0).setValid(false);
+
+		pool.getConnection().close();
+		assertEquals(2, opened.size());
+		assertTrue(opened.get(0).isClosed(), "Invalid connection should be closed");
+	}
+
+	@Test
+	public void testIdleTimeoutAndMaxLifetime() throws SQLException {
+		ConnectionPool pool = pool(2, 100);
+
+		pool.getConnection().close();
+		now.set(1_500);
+		pool.getConnection().close();
+		assertEquals(2, opened.size(), "Connection idle past the timeout should be replaced");
+		assertTrue(opened.get(0).isClosed());
+
+		Connection conn = pool.getConnection();
+		now.set(20_000);
+		conn.close();
+		assertTrue(opened.get(1).isClosed(), "Connection past its lifetime should not return to the pool");
+		assertEquals(0, pool.getStats().getIdle());
+	}
+
+	@Test
+	public void testReturnClosesStatementsAndRollsBack() throws SQLException {
+		ConnectionPool pool = pool(1, 100);
+
+		Connection conn = pool.getConnection();
+		conn.setAutoCommit(false);
+		conn.createStatement();
+		conn.close();
+
+		FakeJdbc fake = opened.get(0);
+		assertTrue(fake.isStatementClosed(0), "Leaked statement should be closed");
+		assertEquals(1, fake.getRollbacks());
+		assertTrue(fake.isAutoCommit());
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the query cursor releases its statement and result set however
+ * the rows are consumed, and leaves the caller's connection open.
+ */
+public class DataFactoryTest {
+
+	private static final String QUERY = "SELECT name FROM Thing";
+
+	private final FakeJdbc jdbc = new FakeJdbc((sql, params) -> FakeJdbc.Rows.of("name", new Object[] { "a" },
+			new Object[] { "b" }, new Object[] { "c" }));
+	private final Connection conn = jdbc.connection();
+
+	@Test
+	public void testForEachReleasesOnNormalEnd() throws SQLException {
+		List<String> names = new ArrayList<>();
+		DataFactory.forEach(conn, QUERY, (rs, c) -> rs.getString("name"), null, names::add);
+
+		assertEquals(List.of("a", "b", "c"), names);
+		assertEquals(0, jdbc.getOpenCount());
+		assertFalse(jdbc.isClosed());
+	}
+
+	@Test
+	public void testForEachReleasesOnMapperFailure() {
+		assertThrows(SQLException.class, () -> DataFactory.forEach(conn, QUERY, (rs, c) -> {
+			if (rs.getString("name").equals("b")) {
+				throw new SQLException("Bad row");
+			}
+			return rs.getString("name");
+		}, null, name -> {
+		}));
+
+		assertEquals(0, jdbc.getOpenCount());
+		assertFalse(jdbc.isClosed());
+	}
+
+	@Test
+	public void testStreamReleasesWhenExhausted() throws SQLException {
+		List<String> names = DataFactory.stream(conn, QUERY, (rs, c) -> rs.getString("name"), null).toList();
+
+		assertEquals(List.of("a", "b", "c"), names);
+		assertEquals(0, jdbc.getOpenCount());
+	}
+
+	@Test
+	public void testStreamReleasesOnEarlyClose() throws SQLException {
+		try (Stream<String> names = DataFactory.stream(conn, QUERY, (rs, c) -> rs.getString("name"), null)) {
+			assertEquals("a", names.findFirst().get());
+			assertEquals(2, jdbc.getOpenCount());
+		}
+
+		assertEquals(0, jdbc.getOpenCount());
+		assertFalse(jdbc.isClosed());
+	}
+
+	@Test
+	public void testStreamReleasesOnMapperFailure() throws SQLException {
+		try (Stream<String> names = DataFactory.stream(conn, QUERY, (rs, c) -> {
+			throw new SQLException("Bad row");
+		}, null)) {
+			RuntimeException e = assertThrows(RuntimeException.class, () -> names.toList());
+			assertEquals("Bad row", e.getCause().getMessage());
+			assertEquals(0, jdbc.getOpenCount());
+		}
+
+		try (Stream<String> names = DataFactory.stream(conn, QUERY, (rs, c) -> {
+			throw new IllegalStateException("Bad mapper");
+		}, null)) {
+			assertThrows(IllegalStateException.class, () -> names.toList());
+			assertEquals(0, jdbc.getOpenCount());
+		}
+	}
+
+	@Test
+	public void testSharedConnectionIsBuffered() throws SQLException {
+		DataFactory.forEach(conn, QUERY, (rs, c) -> {
+			assertSame(conn, c);
+			return rs.getString("name");
+		}, conn, name -> {
+		});
+		assertEquals(0, jdbc.getFetchSize().intValue());
+
+		DataFactory.forEach(conn, QUERY, (rs, c) -> rs.getString("name"), null, name -> {
+		});
+		assertEquals(Integer.MIN_VALUE, jdbc.getFetchSize().intValue());
+	}
+
+}
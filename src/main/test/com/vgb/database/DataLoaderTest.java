@@ -0,0 +1,74 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a load borrows one connection for its query and the mapper's
+ * lookups, and gives it back however the load ends.
+ */
+public class DataLoaderTest {
+
+	private static final String QUERY = "SELECT uuid, name FROM Thing";
+
+	private final UUID first = UUID.randomUUID();
+	private final UUID second = UUID.randomUUID();
+	private final FakeJdbc jdbc = new FakeJdbc((sql, params) -> FakeJdbc.Rows.of("uuid, name",
+			new Object[] { first.toString(), "a" }, new Object[] { second.toString(), "b" }));
+	private int borrowed;
+
+	private DataLoader loader() {
+		return new DataLoader(() -> {
+			borrowed++;
+			return jdbc.connection();
+		});
+	}
+
+	@Test
+	public void testLoadHoldsOneConnection() {
+		Map<UUID, String> names = loader().loadData(QUERY, (rs, c) -> {
+			assertFalse(c.isClosed());
+			return rs.getString("name");
+		}, null);
+
+		assertEquals(2, names.size());
+		assertEquals("b", names.get(second));
+		assertEquals(1, borrowed);
+		assertEquals(0, jdbc.getOpenCount());
+		assertTrue(jdbc.isClosed());
+	}
+
+	@Test
+	public void testLoadReleasesOnMapperFailure() {
+		Map<UUID, String> names = loader().loadData(QUERY, (rs, c) -> {
+			throw new SQLException("Bad row");
+		}, null);
+
+		assertTrue(names.isEmpty());
+		assertEquals(0, jdbc.getOpenCount());
+		assertTrue(jdbc.isClosed());
+	}
+
+	@Test
+	public void testCallersConnectionIsShared() {
+		Connection conn = jdbc.connection();
+		loader().loadData(QUERY, (rs, c) -> {
+			assertSame(conn, c);
+			return rs.getString("name");
+		}, conn);
+
+		assertEquals(0, borrowed);
+		assertEquals(0, jdbc.getOpenCount());
+		assertFalse(jdbc.isClosed());
+	}
+
+}
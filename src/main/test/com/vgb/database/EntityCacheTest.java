@@ -0,0 +1,102 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the per-load identity map: hit and miss counts, and sharing of
+ * entities across nested sessions and the rows of one load.
+ */
+public class EntityCacheTest {
+
+	@Test
+	public void testCountsHitsAndMisses() {
+		EntityCache cache = EntityCache.open();
+		try {
+			Object company = new Object();
+			assertNull(cache.get("Company", 1));
+			cache.put("Company", 1, company);
+			assertSame(company, cache.get("Company", 1));
+			assertSame(company, cache.get("Company", 1));
+			assertNull(cache.get("Person", 1));
+			cache.put("Person", 2, null);
+			assertNull(cache.get("Person", 2));
+
+			assertEquals(2, cache.getHits());
+			assertEquals(3, cache.getMisses());
+			assertEquals(2, cache.getHits("Company"));
+			assertEquals(1, cache.getMisses("Company"));
+			assertEquals(0, cache.getHits("Person"));
+			assertEquals(2, cache.getMisses("Person"));
+			assertEquals(1, cache.size("Company"));
+			assertEquals(0, cache.size("Person"));
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testNestedOpenSharesEntities() {
+		Object item = new Object();
+		EntityCache outer = EntityCache.open();
+		try {
+			EntityCache inner = EntityCache.open();
+			try {
+				assertSame(outer, inner);
+				inner.put("Item", 7, item);
+			} finally {
+				inner.close();
+			}
+
+			assertSame(outer, EntityCache.current());
+			assertSame(item, outer.get("Item", 7));
+			assertEquals(1, outer.getHits());
+		} finally {
+			outer.close();
+		}
+
+		assertNull(EntityCache.current());
+		EntityCache next = EntityCache.open();
+		try {
+			assertNotSame(outer, next);
+			assertNull(next.get("Item", 7));
+		} finally {
+			next.close();
+		}
+	}
+
+	@Test
+	public void testRowsOfALoadShareEntities() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		FakeJdbc jdbc = new FakeJdbc((sql, params) -> FakeJdbc.Rows.of("uuid, companyId",
+				new Object[] { first.toString(), 1 }, new Object[] { second.toString(), 1 }));
+		EntityCache[] session = new EntityCache[1];
+
+		Map<UUID, List<Object>> rows = new DataLoader(jdbc::connection).loadData("SELECT uuid, companyId FROM Thing",
+				(rs, c) -> {
+					session[0] = EntityCache.current();
+					int companyId = rs.getInt("companyId");
+					Object company = session[0].get("Company", companyId);
+					if (company == null) {
+						company = new Object();
+						session[0].put("Company", companyId, company);
+					}
+					return List.of(company);
+				}, null);
+
+		assertSame(rows.get(first).get(0), rows.get(second).get(0));
+		assertEquals(1, session[0].getHits("Company"));
+		assertEquals(1, session[0].getMisses("Company"));
+		assertNull(EntityCache.current());
+	}
+
+}
@@ -0,0 +1,384 @@
+package com.vgb.database;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An in-memory stand-in for a JDBC connection, shared by the tests that talk
+ * to the database.
+ * <p>
+ * The connection, its statements and their result sets are proxies that
+ * record what was prepared, bound, committed, rolled back and closed, and
+ * hand every query and update to a {@link Database} that the test supplies.
+ * Parameters are passed to the database as an array indexed from 1, with
+ * {@code setNull} binding null.
+ * </p>
+ */
+public class FakeJdbc {
+
+	/**
+	 * Answers the statements run on a {@link FakeJdbc} connection.
+	 */
+	public interface Database {
+
+		/**
+		 * @param sql    The query
+		 * @param params Bound parameters, indexed from 1
+		 * @return The rows of the result
+		 * @throws SQLException To fail the query
+		 */
+		Rows query(String sql, Object[] params) throws SQLException;
+
+		/**
+		 * Runs an insert, update or delete. In a batch this is called once
+		 * per row, and an exception fails the batch with a
+		 * {@link BatchUpdateException}.
+		 *
+		 * @param sql    The statement
+		 * @param params Bound parameters, indexed from 1
+		 * @return The generated key of the inserted row, 0 if no row was
+		 *         changed, or any positive number for statements without a
+		 *         generated key
+		 * @throws SQLException To fail the statement
+		 */
+		default int update(String sql, Object[] params) throws SQLException {
+			throw new SQLException("Unexpected update: " + sql);
+		}
+
+		default void commit() {
+		}
+
+		default void rollback() {
+		}
+
+		/**
+		 * @return Id of a new savepoint
+		 */
+		default int setSavepoint() {
+			return 0;
+		}
+
+		default void rollback(int savepoint) {
+		}
+	}
+
+	/**
+	 * The rows of a query result.
+	 */
+	public static final class Rows {
+		private final List<String> columns;
+		private final List<Object[]> rows;
+
+		/**
+		 * @param columns Column names, for access by label
+		 * @param rows    The rows
+		 */
+		public Rows(List<String> columns, List<Object[]> rows) {
+			this.columns = columns;
+			this.rows = rows;
+		}
+
+		/**
+		 * @param columns Comma separated column names
+		 * @param rows    The rows
+		 * @return A result with the given rows
+		 */
+		public static Rows of(String columns, Object[]... rows) {
+			return new Rows(Arrays.asList(columns.split("\\s*,\\s*")), Arrays.asList(rows));
+		}
+
+		/**
+		 * @return A result without rows
+		 */
+		public static Rows empty() {
+			return new Rows(List.of(), List.of());
+		}
+
+		private int column(Object indexOrLabel) throws SQLException {
+			if (indexOrLabel instanceof Integer) {
+				return (Integer) indexOrLabel - 1;
+			}
+			int column = columns.indexOf(indexOrLabel);
+			if (column < 0) {
+				throw new SQLException("Unknown column: " + indexOrLabel);
+			}
+			return column;
+		}
+	}
+
+	private final Database database;
+	private final List<String> prepared = new ArrayList<>();
+	private final List<boolean[]> statements = new ArrayList<>();
+	private final List<boolean[]> resultSets = new ArrayList<>();
+	private boolean autoCommit = true;
+	private boolean closed;
+	private boolean valid = true;
+	private int commits;
+	private int rollbacks;
+	private int batches;
+	private Integer fetchSize;
+
+	/**
+	 * @param database Answers the statements
+	 */
+	public FakeJdbc(Database database) {
+		this.database = database;
+	}
+
+	/**
+	 * @return A connection backed by this fake; every call returns a new
+	 *         proxy over the same state
+	 */
+	public Connection connection() {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "prepareStatement":
+						prepared.add((String) args[0]);
+						return statement((String) args[0]);
+					case "createStatement":
+						return statement(null);
+					case "getAutoCommit":
+						return autoCommit;
+					case "setAutoCommit":
+						autoCommit = (Boolean) args[0];
+						return null;
+					case "commit":
+						commits++;
+						database.commit();
+						return null;
+					case "rollback":
+						rollbacks++;
+						if (args == null) {
+							database.rollback();
+						} else {
+							database.rollback(((Savepoint) args[0]).getSavepointId());
+						}
+						return null;
+					case "setSavepoint":
+						int id = database.setSavepoint();
+						return Proxy.newProxyInstance(Savepoint.class.getClassLoader(),
+								new Class<?>[] { Savepoint.class },
+								(s, m, a) -> m.getName().equals("getSavepointId") ? id : null);
+					case "releaseSavepoint":
+						return null;
+					case "close":
+						closed = true;
+						return null;
+					case "isClosed":
+						return closed;
+					case "isValid":
+						return valid && !closed;
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					case "toString":
+						return "FakeJdbc connection";
+					default:
+						return null;
+					}
+				});
+	}
+
+	private PreparedStatement statement(String sql) {
+		boolean[] statementClosed = new boolean[1];
+		statements.add(statementClosed);
+		Object[][] params = { new Object[32] };
+		List<Object[]> batch = new ArrayList<>();
+		List<Object[]> keys = new ArrayList<>();
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+					String name = method.getName();
+					if (name.startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer) {
+						int index = (Integer) args[0];
+						if (index >= params[0].length) {
+							params[0] = Arrays.copyOf(params[0], 2 * index);
+						}
+						params[0][index] = name.equals("setNull") ? null : args[1];
+						return null;
+					}
+					switch (name) {
+					case "executeQuery":
+						return resultSet(database.query(sql == null ? (String) args[0] : sql, params[0].clone()));
+					case "executeUpdate":
+					case "execute":
+						keys.clear();
+						int key = database.update(sql == null ? (String) args[0] : sql, params[0].clone());
+						if (key > 0) {
+							keys.add(new Object[] { key });
+						}
+						return name.equals("execute") ? (Object) false : (Object) (key > 0 ? 1 : 0);
+					case "addBatch":
+						batch.add(params[0].clone());
+						return null;
+					case "clearBatch":
+						batch.clear();
+						return null;
+					case "setFetchSize":
+						fetchSize = (Integer) args[0];
+						return null;
+					case "clearParameters":
+						Arrays.fill(params[0], null);
+						return null;
+					case "executeBatch":
+						batches++;
+						keys.clear();
+						int[] counts = new int[batch.size()];
+						try {
+							for (int i = 0; i < counts.length; i++) {
+								int generated = database.update(sql, batch.get(i));
+								counts[i] = generated > 0 ? 1 : 0;
+								if (generated > 0) {
+									keys.add(new Object[] { generated });
+								}
+							}
+						} catch (SQLException e) {
+							throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(),
+									Arrays.copyOf(counts, keys.size()), e);
+						} finally {
+							batch.clear();
+						}
+						return counts;
+					case "getGeneratedKeys":
+						return resultSet(new Rows(List.of("GENERATED_KEY"), new ArrayList<>(keys)));
+					case "close":
+						statementClosed[0] = true;
+						return null;
+					case "isClosed":
+						return statementClosed[0];
+					default:
+						return null;
+					}
+				});
+	}
+
+	private ResultSet resultSet(Rows rows) {
+		boolean[] resultClosed = new boolean[1];
+		resultSets.add(resultClosed);
+		int[] position = { -1 };
+		Object[] last = new Object[1];
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "next":
+						if (resultClosed[0]) {
+							throw new SQLException("Result set is closed");
+						}
+						return ++position[0] < rows.rows.size();
+					case "getInt":
+					case "getDouble":
+					case "getString":
+					case "getObject":
+						Object value = rows.rows.get(position[0])[rows.column(args[0])];
+						last[0] = value;
+						return convert(method.getName(), value);
+					case "wasNull":
+						return last[0] == null;
+					case "close":
+						resultClosed[0] = true;
+						return null;
+					case "isClosed":
+						return resultClosed[0];
+					default:
+						return null;
+					}
+				});
+	}
+
+	private static Object convert(String getter, Object value) {
+		switch (getter) {
+		case "getInt":
+			return (value == null) ? 0 : ((Number) value).intValue();
+		case "getDouble":
+			return (value == null) ? 0.0 : ((Number) value).doubleValue();
+		case "getString":
+			return (value == null) ? null : value.toString();
+		default:
+			return value;
+		}
+	}
+
+	/**
+	 * @return The SQL of every statement prepared so far, in order
+	 */
+	public List<String> getPrepared() {
+		return prepared;
+	}
+
+	/**
+	 * @return Number of statements, prepared or plain, opened so far
+	 */
+	public int getStatementCount() {
+		return statements.size();
+	}
+
+	/**
+	 * @return Number of statements and result sets not closed yet
+	 */
+	public int getOpenCount() {
+		int open = 0;
+		for (boolean[] closed : statements) {
+			open += closed[0] ? 0 : 1;
+		}
+		for (boolean[] closed : resultSets) {
+			open += closed[0] ? 0 : 1;
+		}
+		return open;
+	}
+
+	/**
+	 * @return True if the statement opened at the given position was closed
+	 */
+	public boolean isStatementClosed(int statement) {
+		return statements.get(statement)[0];
+	}
+
+	public boolean isAutoCommit() {
+		return autoCommit;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @param valid Whether {@link Connection#isValid(int)} reports the
+	 *              connection as usable
+	 */
+	public void setValid(boolean valid) {
+		this.valid = valid;
+	}
+
+	public int getCommits() {
+		return commits;
+	}
+
+	public int getRollbacks() {
+		return rollbacks;
+	}
+
+	/**
+	 * @return The fetch size last set on a statement, or null if none was
+	 */
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * @return Number of {@code executeBatch} calls
+	 */
+	public int getBatches() {
+		return batches;
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.Company;
+import com.vgb.Contract;
+import com.vgb.Equipment;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.Lease;
+import com.vgb.Material;
+import com.vgb.Person;
+import com.vgb.Rental;
+
+/**
+ * Tests that the invoice graph is assembled in memory from its fixed set of
+ * queries, against a stand-in database holding one row set per table.
+ */
+public class InvoiceGraphLoaderTest {
+
+	private static final UUID JANE = new UUID(1, 1);
+	private static final UUID SAM = new UUID(1, 3);
+	private static final UUID FIRST = new UUID(4, 1);
+	private static final UUID SECOND = new UUID(4, 2);
+
+	private final FakeJdbc jdbc = new FakeJdbc((sql, params) -> {
+		if (sql.contains("FROM Address")) {
+			return FakeJdbc.Rows.of("addressId, street, city, stateCode, zip",
+					new Object[] { 1, "1 Main St", "Lincoln", "NE", "68508" });
+		}
+		if (sql.contains("FROM Person")) {
+			// Jane has two emails, person 2 has none and is left out by the join
+			return FakeJdbc.Rows.of("personId, uuid, firstName, lastName, phoneNumber, address",
+					new Object[] { 1, JANE.toString(), "Jane", "Smith", "555-1234", "jane@a.com" },
+					new Object[] { 1, JANE.toString(), "Jane", "Smith", "555-1234", "jane@b.com" },
+					new Object[] { 3, SAM.toString(), "Sam", "Lee", "555-9876", "sam@a.com" });
+		}
+		if (sql.contains("FROM Company")) {
+			return FakeJdbc.Rows.of("companyId, uuid, companyName, personId, addressId",
+					new Object[] { 1, new UUID(2, 1).toString(), "Acme", 1, 1 },
+					new Object[] { 2, new UUID(2, 2).toString(), "Bolt", 2, 1 },
+					new Object[] { 3, new UUID(2, 3).toString(), "Crane", null, 1 });
+		}
+		if (sql.contains("FROM Item")) {
+			return FakeJdbc.Rows.of("itemId, uuid, itemName, itemPrice, itemType, model, unit, unitPrice, customerId",
+					new Object[] { 1, new UUID(3, 1).toString(), "Loader", 10000.0, "E", "LD-1", null, null, null },
+					new Object[] { 2, new UUID(3, 2).toString(), "Nails", null, "M", null, "box", 3.15, null },
+					new Object[] { 3, new UUID(3, 3).toString(), "Paving", null, "C", null, null, null, 1 });
+		}
+		if (sql.contains("FROM InvoiceItem")) {
+			return FakeJdbc.Rows.of(
+					"invoiceItemId, invoiceId, itemId, typeEquipment, price, startDate, endDate, quantity, numberOfHours",
+					new Object[] { 1, 1, 1, "P", null, null, null, null, null },
+					new Object[] { 2, 1, 1, "L", null, "2025-01-01", "2026-01-01", null, null },
+					new Object[] { 3, 1, 1, "R", null, null, null, null, 5.0 },
+					new Object[] { 4, 1, 2, "M", null, null, null, 10, null },
+					new Object[] { 5, 1, 3, "C", 2500.0, null, null, null, null },
+					new Object[] { 6, 9, 1, "P", null, null, null, null, null });
+		}
+		if (sql.contains("FROM Invoice")) {
+			return FakeJdbc.Rows.of("invoiceId, uuid, companyId, salesPersonId, invoiceDate",
+					new Object[] { 1, FIRST.toString(), 1, 3, "2025-03-01" },
+					new Object[] { 2, SECOND.toString(), 2, 2, "2025-03-02" });
+		}
+		throw new SQLException("Unexpected query: " + sql);
+	});
+
+	@Test
+	public void testAssemblesGraphWithFixedQueries() throws SQLException {
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
+		Map<Invoice, List<InvoiceItem>> invoiceItems = loader.load(jdbc.connection());
+
+		assertEquals(InvoiceGraphLoader.QUERY_COUNT, jdbc.getPrepared().size());
+		assertEquals(0, jdbc.getOpenCount());
+		assertEquals(2, invoiceItems.size());
+
+		List<Invoice> invoices = new ArrayList<>(invoiceItems.keySet());
+		Invoice first = invoices.get(0);
+		assertEquals(FIRST, first.getInvoiceUUID());
+		assertEquals("Acme", first.getCustomer().getName());
+		assertEquals("Lincoln", first.getCustomer().getAddress().getCity());
+		assertEquals(SAM, first.getSalesperson().getUuid());
+
+		List<InvoiceItem> items = invoiceItems.get(first);
+		assertEquals(5, items.size());
+		assertTrue(items.get(0).getItem() instanceof Equipment);
+		assertTrue(items.get(1).getItem() instanceof Lease);
+		assertTrue(items.get(2).getItem() instanceof Rental);
+		assertTrue(items.get(3).getItem() instanceof Material);
+		assertTrue(items.get(4).getItem() instanceof Contract);
+		assertSame(first, items.get(0).getInvoice());
+		assertEquals(items, first.getInvoiceItems());
+
+		Invoice second = invoices.get(1);
+		assertEquals(Collections.singletonList(null), invoiceItems.get(second));
+	}
+
+	/**
+	 * Persons are built like the per-row path did: one email row each, and a
+	 * person without emails is not found.
+	 */
+	@Test
+	public void testPersonsMatchPerRowLoading() throws SQLException {
+		InvoiceGraphLoader loader = new InvoiceGraphLoader();
+		loader.load(jdbc.connection());
+
+		Map<UUID, Person> persons = loader.getPersons();
+		assertEquals(2, persons.size());
+		assertEquals(List.of("jane@a.com"), persons.get(JANE).getEmails());
+
+		Map<UUID, Company> companies = loader.getCompanies();
+		assertEquals(3, companies.size());
+		assertSame(persons.get(JANE), companies.get(new UUID(2, 1)).getContact());
+		assertNull(companies.get(new UUID(2, 2)).getContact());
+		assertNull(companies.get(new UUID(2, 3)).getContact());
+
+		Invoice second = loader.getInvoiceItems().keySet().stream()
+				.filter(invoice -> invoice.getInvoiceUUID().equals(SECOND)).findFirst().get();
+		assertNull(second.getSalesperson());
+		assertSame(companies.get(new UUID(2, 2)), second.getCustomer());
+	}
+
+	@Test
+	public void testEntitiesAreSharedWithTheLoadSession() throws SQLException {
+		EntityCache cache = EntityCache.open();
+		try {
+			InvoiceGraphLoader loader = new InvoiceGraphLoader();
+			loader.load(jdbc.connection());
+
+			assertSame(loader.getPersons().get(JANE), cache.get("Person", 1));
+			assertSame(loader.getCompanies().get(new UUID(2, 1)), cache.get("Company", 1));
+			assertEquals(2, cache.size("Invoice"));
+		} finally {
+			cache.close();
+		}
+	}
+
+}
@@ -0,0 +1,263 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.database.InvoiceWriteResult.LineResult;
+import com.vgb.database.InvoiceWriteResult.Status;
+
+/**
+ * Tests writing an invoice with its lines against a stand-in database that
+ * records statements, batches and transaction boundaries.
+ */
+public class InvoiceWriterTest {
+
+	private static final LocalDate DATE = LocalDate.of(2025, 3, 1);
+
+	/**
+	 * A stand-in database holding companies, persons and items by UUID.
+	 */
+	private static class FakeDatabase implements FakeJdbc.Database {
+		private final Map<String, Integer> companies = new HashMap<>();
+		private final Map<String, Integer> persons = new HashMap<>();
+		private final Map<String, Object[]> items = new HashMap<>();
+		private final Set<String> invoices = new HashSet<>();
+		private SQLException invoiceFailure;
+		private final List<Object[]> lines = new ArrayList<>();
+		private final List<Object[]> pending = new ArrayList<>();
+		private boolean failBatch;
+
+		@Override
+		public FakeJdbc.Rows query(String sql, Object[] params) {
+			List<Object[]> rows = new ArrayList<>();
+			if (sql.contains("FROM Item")) {
+				for (Object param : params) {
+					if (param != null && items.containsKey(param)) {
+						Object[] item = items.get(param);
+						rows.add(new Object[] { item[0], param, item[1] });
+					}
+				}
+				return new FakeJdbc.Rows(List.of("itemId", "uuid", "itemType"), rows);
+			}
+			Map<String, Integer> table = sql.contains("FROM Company") ? companies : persons;
+			if (table.containsKey(params[1])) {
+				rows.add(new Object[] { table.get(params[1]) });
+			}
+			return new FakeJdbc.Rows(List.of("id"), rows);
+		}
+
+		@Override
+		public int update(String sql, Object[] params) throws SQLException {
+			if (sql.contains("INTO Invoice ")) {
+				if (invoiceFailure != null) {
+					throw invoiceFailure;
+				}
+				if (!invoices.add((String) params[1])) {
+					throw new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+				}
+				return 100 + invoices.size();
+			}
+			if (failBatch) {
+				throw new SQLException("Rejected");
+			}
+			pending.add(Arrays.copyOfRange(params, 1, 10));
+			return 1;
+		}
+
+		@Override
+		public void commit() {
+			lines.addAll(pending);
+			pending.clear();
+		}
+
+		@Override
+		public void rollback() {
+			pending.clear();
+		}
+	}
+
+	private final FakeDatabase db = new FakeDatabase();
+	private final FakeJdbc jdbc = new FakeJdbc(db);
+	private final UUID customer = UUID.randomUUID();
+	private final UUID salesperson = UUID.randomUUID();
+	private final UUID equipment = UUID.randomUUID();
+	private final UUID material = UUID.randomUUID();
+	private final UUID contract = UUID.randomUUID();
+
+	public InvoiceWriterTest() {
+		db.companies.put(customer.toString(), 1);
+		db.persons.put(salesperson.toString(), 2);
+		db.items.put(equipment.toString(), new Object[] { 10, "E" });
+		db.items.put(material.toString(), new Object[] { 11, "M" });
+		db.items.put(contract.toString(), new Object[] { 12, "C" });
+	}
+
+	private List<InvoiceLine> allTypes() {
+		return List.of(InvoiceLine.purchase(equipment),
+				InvoiceLine.lease(equipment, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)),
+				InvoiceLine.rental(equipment, 12.5), InvoiceLine.material(material, 30),
+				InvoiceLine.contract(contract, 2500.0));
+	}
+
+	@Test
+	public void testWritesHeaderAndLinesInOneTransaction() throws SQLException {
+		UUID invoice = UUID.randomUUID();
+		InvoiceWriteResult result = new InvoiceWriter(new KeyCache(64)).write(jdbc.connection(), invoice, customer,
+				salesperson, DATE, allTypes());
+
+		assertTrue(result.isWritten());
+		assertNull(result.getMessage());
+		for (LineResult line : result.getLines()) {
+			assertEquals(Status.INSERTED, line.getStatus());
+			assertNotNull(line.getUuid());
+		}
+		assertEquals(1, jdbc.getBatches());
+		assertEquals(1, jdbc.getCommits());
+		assertEquals(0, jdbc.getRollbacks());
+		assertTrue(jdbc.isAutoCommit());
+
+		assertEquals(5, db.lines.size());
+		Object[] lease = db.lines.get(1);
+		assertEquals(101, lease[1]);
+		assertEquals("L", lease[2]);
+		assertEquals(10, lease[3]);
+		assertEquals("2025-01-01", lease[4]);
+		assertEquals("2026-01-01", lease[5]);
+		assertEquals(12.5, ((Double) db.lines.get(2)[6]).doubleValue());
+		assertEquals(30, db.lines.get(3)[7]);
+		assertEquals(11, db.lines.get(3)[3]);
+		assertEquals(2500.0, ((Double) db.lines.get(4)[8]).doubleValue());
+		assertEquals(result.getLines().get(0).getUuid().toString(), db.lines.get(0)[0]);
+	}
+
+	@Test
+	public void testKeysAreCachedAcrossInvoices() throws SQLException {
+		KeyCache keys = new KeyCache(64);
+		InvoiceWriter writer = new InvoiceWriter(keys);
+		UUID first = UUID.randomUUID();
+		writer.write(jdbc.connection(), first, customer, salesperson, DATE, allTypes());
+		int statements = jdbc.getPrepared().size();
+		writer.write(jdbc.connection(), UUID.randomUUID(), customer, salesperson, DATE, allTypes());
+
+		// Only the item query, the header and the batch the second time
+		assertEquals(3, jdbc.getPrepared().size() - statements);
+		assertEquals(101, keys.get(KeyCache.Table.INVOICE, first).intValue());
+		assertEquals(12, keys.get(KeyCache.Table.ITEM, contract).intValue());
+	}
+
+	@Test
+	public void testInvalidLinesWriteNothing() throws SQLException {
+		List<InvoiceLine> lines = List.of(InvoiceLine.purchase(equipment), InvoiceLine.rental(equipment, 0),
+				InvoiceLine.lease(equipment, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1)),
+				InvoiceLine.material(material, 0), InvoiceLine.lease(equipment, null, DATE));
+		InvoiceWriteResult result = new InvoiceWriter(new KeyCache(64)).write(jdbc.connection(), UUID.randomUUID(),
+				customer, salesperson, DATE, lines);
+
+		assertFalse(result.isWritten());
+		assertEquals(Status.NOT_WRITTEN, result.getLines().get(0).getStatus());
+		for (int i = 1; i < lines.size(); i++) {
+			assertEquals(Status.INVALID, result.getLines().get(i).getStatus());
+			assertNotNull(result.getLines().get(i).getMessage());
+		}
+		assertTrue(jdbc.getPrepared().isEmpty());
+	}
+
+	@Test
+	public void testUnknownAndMismatchedItems() throws SQLException {
+		List<InvoiceLine> lines = List.of(InvoiceLine.purchase(equipment), InvoiceLine.material(equipment, 3),
+				InvoiceLine.contract(UUID.randomUUID(), 10.0));
+		InvoiceWriteResult result = new InvoiceWriter(new KeyCache(64)).write(jdbc.connection(), UUID.randomUUID(),
+				customer, salesperson, DATE, lines);
+
+		assertFalse(result.isWritten());
+		assertEquals(Status.NOT_WRITTEN, result.getLines().get(0).getStatus());
+		assertEquals(Status.INVALID, result.getLines().get(1).getStatus());
+		assertEquals("Item does not exist", result.getLines().get(2).getMessage());
+		assertTrue(db.invoices.isEmpty());
+		assertEquals(0, jdbc.getBatches());
+	}
+
+	@Test
+	public void testUnknownCustomer() throws SQLException {
+		InvoiceWriteResult result = new InvoiceWriter(new KeyCache(64)).write(jdbc.connection(), UUID.randomUUID(),
+				UUID.randomUUID(), salesperson, DATE, allTypes());
+
+		assertFalse(result.isWritten());
+		assertTrue(result.getMessage().startsWith("Customer does not exist"));
+		assertTrue(db.invoices.isEmpty());
+	}
+
+	@Test
+	public void testExistingInvoiceIsLeftAlone() throws SQLException {
+		UUID invoice = UUID.randomUUID();
+		db.invoices.add(invoice.toString());
+		InvoiceWriteResult result = new InvoiceWriter(new KeyCache(64)).write(jdbc.connection(), invoice, customer,
+				salesperson, DATE, allTypes());
+
+		assertFalse(result.isWritten());
+		assertTrue(result.getMessage().startsWith("Invoice already exists"));
+		assertEquals(0, jdbc.getBatches());
+		assertEquals(1, jdbc.getRollbacks());
+		assertTrue(jdbc.isAutoCommit());
+	}
+
+	/**
+	 * A stale cached customer key fails the header's foreign key; that is an
+	 * error, not an existing invoice.
+	 */
+	@Test
+	public void testForeignKeyErrorIsNotReportedAsExisting() {
+		db.invoiceFailure = new SQLIntegrityConstraintViolationException(
+				"Cannot add or update a child row: a foreign key constraint fails", "23000", 1452);
+
+		SQLException e = assertThrows(SQLException.class, () -> new InvoiceWriter(new KeyCache(64))
+				.write(jdbc.connection(), UUID.randomUUID(), customer, salesperson, DATE, allTypes()));
+		assertEquals(1452, e.getErrorCode());
+		assertEquals(0, jdbc.getBatches());
+		assertEquals(1, jdbc.getRollbacks());
+		assertTrue(jdbc.isAutoCommit());
+	}
+
+	@Test
+	public void testFailedBatchRollsBack() {
+		db.failBatch = true;
+		KeyCache keys = new KeyCache(64);
+		UUID invoice = UUID.randomUUID();
+
+		assertThrows(SQLException.class, () -> new InvoiceWriter(keys).write(jdbc.connection(), invoice, customer,
+				salesperson, DATE, allTypes()));
+		assertEquals(0, jdbc.getCommits());
+		assertEquals(1, jdbc.getRollbacks());
+		assertTrue(jdbc.isAutoCommit());
+		assertNull(keys.get(KeyCache.Table.INVOICE, invoice));
+	}
+
+	@Test
+	public void testInvoiceWithoutLines() throws SQLException {
+		InvoiceWriteResult result = new InvoiceWriter(new KeyCache(64)).write(jdbc.connection(), UUID.randomUUID(),
+				customer, salesperson, DATE, List.of());
+
+		assertFalse(result.isWritten());
+		assertEquals("Invoice has no lines", result.getMessage());
+		assertTrue(jdbc.getPrepared().isEmpty());
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.database.KeyCache.Table;
+
+/**
+ * Tests the UUID to surrogate key cache against a stand-in connection that
+ * answers key lookups from a map.
+ */
+public class KeyCacheTest {
+
+	private final Map<String, Integer> rows = new HashMap<>();
+	private final FakeJdbc jdbc = new FakeJdbc((sql, params) -> rows.containsKey(params[1])
+			? FakeJdbc.Rows.of("id", new Object[] { rows.get(params[1]) })
+			: FakeJdbc.Rows.empty());
+
+	private Connection connection() {
+		return jdbc.connection();
+	}
+
+	@Test
+	public void testResolveLooksUpOnlyOnMiss() throws SQLException {
+		KeyCache cache = new KeyCache(64);
+		UUID uuid = UUID.randomUUID();
+		rows.put(uuid.toString(), 42);
+		Connection conn = connection();
+
+		assertEquals(42, cache.resolve(Table.COMPANY, uuid, conn));
+		assertEquals(42, cache.resolve(Table.COMPANY, uuid, conn));
+		assertEquals(1, jdbc.getPrepared().size());
+		assertTrue(jdbc.getPrepared().get(0).contains("FROM Company"));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testMissingRowsAreNotCached() throws SQLException {
+		KeyCache cache = new KeyCache(64);
+		UUID uuid = UUID.randomUUID();
+		Connection conn = connection();
+
+		assertEquals(0, cache.resolve(Table.PERSON, uuid, conn));
+		rows.put(uuid.toString(), 7);
+		assertEquals(7, cache.resolve(Table.PERSON, uuid, conn));
+		assertEquals(2, jdbc.getPrepared().size());
+		assertEquals(0, jdbc.getOpenCount());
+	}
+
+	@Test
+	public void testTablesAreSeparate() {
+		KeyCache cache = new KeyCache(64);
+		UUID uuid = UUID.randomUUID();
+		cache.put(Table.ITEM, uuid, 3);
+
+		assertEquals(3, cache.get(Table.ITEM, uuid).intValue());
+		assertNull(cache.get(Table.INVOICE, uuid));
+	}
+
+	@Test
+	public void testSizeIsBounded() {
+		KeyCache cache = new KeyCache(64);
+		for (int i = 0; i < 10_000; i++) {
+			cache.put(Table.INVOICE, UUID.randomUUID(), i + 1);
+		}
+		assertTrue(cache.size(Table.INVOICE) <= 64);
+		assertEquals(0, cache.size(Table.PERSON));
+	}
+
+	@Test
+	public void testRecentlyUsedKeysSurvive() {
+		KeyCache cache = new KeyCache(160);
+		UUID kept = UUID.randomUUID();
+		cache.put(Table.PERSON, kept, 1);
+		for (int i = 0; i < 10_000; i++) {
+			cache.get(Table.PERSON, kept);
+			cache.put(Table.PERSON, UUID.randomUUID(), i + 2);
+		}
+		assertEquals(1, cache.get(Table.PERSON, kept).intValue());
+		assertTrue(cache.size(Table.PERSON) <= 160);
+	}
+
+	@Test
+	public void testClear() {
+		KeyCache cache = new KeyCache(64);
+		UUID uuid = UUID.randomUUID();
+		cache.put(Table.PERSON, uuid, 1);
+		cache.clear();
+
+		assertNull(cache.get(Table.PERSON, uuid));
+		assertEquals(0, cache.size(Table.PERSON));
+	}
+
+	@Test
+	public void testConcurrentPuts() throws InterruptedException {
+		KeyCache cache = new KeyCache(100_000);
+		AtomicInteger next = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 1_000; i++) {
+					cache.put(Table.ITEM, UUID.randomUUID(), next.incrementAndGet());
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(8_000, cache.size(Table.ITEM));
+	}
+
+	@Test
+	public void testCapacityTooSmall() {
+		assertThrows(IllegalArgumentException.class, () -> new KeyCache(1));
+	}
+
+}
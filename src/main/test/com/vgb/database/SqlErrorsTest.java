@@ -0,0 +1,27 @@
+package com.vgb.database;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that only a duplicate key counts as a row that already exists.
+ */
+public class SqlErrorsTest {
+
+	@Test
+	public void testOnlyDuplicateKeysAreDuplicates() {
+		assertTrue(SqlErrors.isDuplicateKey(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062)));
+		assertFalse(SqlErrors.isDuplicateKey(
+				new SQLIntegrityConstraintViolationException("a foreign key constraint fails", "23000", 1452)));
+		assertFalse(SqlErrors.isDuplicateKey(new SQLIntegrityConstraintViolationException("cannot be null", "23000", 1048)));
+		assertFalse(SqlErrors.isDuplicateKey(new SQLDataException("Data too long", "22001", 1406)));
+		assertFalse(SqlErrors.isDuplicateKey(new SQLException("Duplicate entry", "23000", 1062)));
+	}
+
+}
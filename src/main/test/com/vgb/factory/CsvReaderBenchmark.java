@@ -0,0 +1,121 @@
+package com.vgb.factory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.UUID;
+
+/**
+ * Measures reading an invoice item export with {@code Scanner} and
+ * {@code String.split}, as the loaders used to, against {@link CsvReader}.
+ * <p>
+ * Run with {@code java com.vgb.factory.CsvReaderBenchmark [lines]}. The file
+ * is written to the temp directory and deleted afterwards.
+ * </p>
+ */
+public class CsvReaderBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	private static Path generate(int lines) throws IOException {
+		Path file = Files.createTempFile("InvoiceItems", ".csv");
+		Random random = new Random(42);
+		char[] types = { 'P', 'L', 'R', 'M', 'C' };
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("invoiceUUID,itemUUID,fields\n");
+			for (int i = 0; i < lines; i++) {
+				char type = types[i % types.length];
+				out.write(new UUID(random.nextLong(), random.nextLong()) + ","
+						+ new UUID(random.nextLong(), random.nextLong()) + "," + type + ",");
+				if (type == 'L') {
+					LocalDate start = LocalDate.ofEpochDay(19_000 + random.nextInt(1_000));
+					out.write(start + "," + start.plusDays(random.nextInt(900)) + ",");
+				} else if (type != 'P') {
+					out.write(random.nextInt(100_000) / 100.0 + ",");
+				}
+				out.write('\n');
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Parses every field the way InvoiceItemLoader used to.
+	 */
+	private static long scanner(Path file) throws IOException {
+		long checksum = 0;
+		try (Scanner s = new Scanner(file.toFile())) {
+			s.nextLine();
+			while (s.hasNext()) {
+				String[] parts = s.nextLine().split(",");
+				checksum += UUID.fromString(parts[0]).hashCode() + UUID.fromString(parts[1]).hashCode();
+				if (parts.length == 5) {
+					checksum += LocalDate.parse(parts[3]).toEpochDay() + LocalDate.parse(parts[4]).toEpochDay();
+				} else if (parts.length == 4) {
+					checksum += (long) Double.parseDouble(parts[3]);
+				}
+			}
+		}
+		return checksum;
+	}
+
+	private static long csvReader(CsvReader csv) throws IOException {
+		long checksum = 0;
+		try (csv) {
+			csv.next();
+			while (csv.next()) {
+				checksum += csv.getUuid(0).hashCode() + csv.getUuid(1).hashCode();
+				char type = csv.getChar(2);
+				if (type == 'L') {
+					checksum += csv.getDate(3).toEpochDay() + csv.getDate(4).toEpochDay();
+				} else if (type != 'P') {
+					checksum += (long) csv.getDouble(3);
+				}
+			}
+		}
+		return checksum;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int lines = (args.length == 0) ? 1_000_000 : Integer.parseInt(args[0]);
+		Path file = generate(lines);
+		double megabytes = Files.size(file) / 1e6;
+
+		try {
+			long scannerNanos = Long.MAX_VALUE;
+			long streamNanos = Long.MAX_VALUE;
+			long mappedNanos = Long.MAX_VALUE;
+			long[] checksums = new long[3];
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				checksums[0] = scanner(file);
+				scannerNanos = Math.min(scannerNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				checksums[1] = csvReader(new CsvReader(Files.newInputStream(file)));
+				streamNanos = Math.min(streamNanos, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				checksums[2] = csvReader(CsvReader.map(file));
+				mappedNanos = Math.min(mappedNanos, System.nanoTime() - start);
+			}
+
+			System.out.printf("%,d lines, %.1f MB in %s%n", lines, megabytes, file.getParent() + File.separator);
+			System.out.printf("Scanner + split:    %6d ms, %7.1f MB/s, checksum %d%n", scannerNanos / 1_000_000,
+					megabytes * 1e9 / scannerNanos, checksums[0]);
+			System.out.printf("CsvReader stream:   %6d ms, %7.1f MB/s, checksum %d%n", streamNanos / 1_000_000,
+					megabytes * 1e9 / streamNanos, checksums[1]);
+			System.out.printf("CsvReader mapped:   %6d ms, %7.1f MB/s, checksum %d%n", mappedNanos / 1_000_000,
+					megabytes * 1e9 / mappedNanos, checksums[2]);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
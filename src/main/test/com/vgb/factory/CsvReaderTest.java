@@ -0,0 +1,178 @@
+package com.vgb.factory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.Person;
+
+/**
+ * Tests the {@link CsvReader} against RFC 4180 and the JDK parsers it
+ * replaces.
+ */
+public class CsvReaderTest {
+
+	/**
+	 * Hands out one byte per read, so every record crosses a buffer refill.
+	 */
+	private static InputStream trickle(String csv) {
+		return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+	}
+
+	private static List<List<String>> readAll(CsvReader csv) throws IOException {
+		List<List<String>> records = new ArrayList<>();
+		while (csv.next()) {
+			List<String> record = new ArrayList<>();
+			for (int i = 0; i < csv.getFieldCount(); i++) {
+				record.add(csv.getString(i));
+			}
+			records.add(record);
+		}
+		csv.close();
+		return records;
+	}
+
+	private static final String SAMPLE = "﻿id,name,notes\r\n" + "1,\"Doyle, Baillie\",\"a,b\"\r\n" + "\r\n"
+			+ "2,plain,\"say \"\"hi\"\"\"\n" + "   \n" + "3,\"multi\nline\",\n" + "4,Zoë,\"\"";
+
+	/**
+	 * Quoted fields, doubled quotes, line breaks, trailing commas, blank lines
+	 * and a byte order mark, read whole and one byte at a time.
+	 */
+	@Test
+	public void testRfc4180() throws IOException {
+		List<List<String>> expected = List.of(List.of("id", "name", "notes"), List.of("1", "Doyle, Baillie", "a,b"),
+				List.of("2", "plain", "say \"hi\""), List.of("3", "multi\nline", ""), List.of("4", "Zoë", ""));
+
+		assertEquals(expected, readAll(new CsvReader(new ByteArrayInputStream(SAMPLE.getBytes(StandardCharsets.UTF_8)))));
+		assertEquals(expected, readAll(new CsvReader(trickle(SAMPLE))));
+
+		// Mapping windows shorter than a record are grown until it fits
+		Path file = Files.createTempFile("csv", ".csv");
+		try {
+			Files.write(file, SAMPLE.getBytes(StandardCharsets.UTF_8));
+			assertEquals(expected, readAll(CsvReader.map(file, 4)));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Large files are memory mapped and read the same as through a stream.
+	 */
+	@Test
+	public void testMappedMatchesStream() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		Random random = new Random(5);
+		while (sb.length() < CsvReader.MAP_THRESHOLD) {
+			sb.append(new UUID(random.nextLong(), random.nextLong())).append(",\"x, ").append(random.nextInt())
+					.append("\",").append(random.nextInt(100_000) / 100.0).append('\n');
+		}
+		Path file = Files.createTempFile("csv", ".csv");
+		try {
+			Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+			List<List<String>> mapped = readAll(CsvReader.open(file));
+			List<List<String>> streamed = readAll(new CsvReader(Files.newInputStream(file)));
+			assertEquals(streamed, mapped);
+			assertEquals(streamed, readAll(CsvReader.map(file, 4_000)));
+			assertEquals(sb.toString().split("\n").length, mapped.size());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * The typed parsers agree with UUID.fromString, Double.parseDouble and
+	 * LocalDate.parse.
+	 */
+	@Test
+	public void testTypedFields() throws IOException {
+		Random random = new Random(9);
+		StringBuilder sb = new StringBuilder();
+		List<String> doubles = new ArrayList<>();
+		List<UUID> uuids = new ArrayList<>();
+		List<LocalDate> dates = new ArrayList<>();
+		String[] odd = { "0", "-0", "1.", ".5", "1e3", "0.1", "123456789012345678", "000.000100", "-2.675", " 42 ",
+				"4.9E-324", "NaN", "0.30000000000000004" };
+		for (int i = 0; i < 20_000; i++) {
+			String value = (i < odd.length) ? odd[i]
+					: (i % 2 == 0) ? Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(10)))
+							: Long.toString(random.nextInt(100_000_000)) + "." + random.nextInt(100);
+			UUID uuid = new UUID(random.nextLong(), random.nextLong());
+			LocalDate date = LocalDate.ofEpochDay(random.nextInt(40_000));
+			doubles.add(value);
+			uuids.add(uuid);
+			dates.add(date);
+			sb.append(value).append(',').append(i % 3 == 0 ? uuid.toString().toUpperCase() : uuid).append(',')
+					.append(date).append('\n');
+		}
+
+		try (CsvReader csv = new CsvReader(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)))) {
+			for (int i = 0; i < doubles.size(); i++) {
+				assertTrue(csv.next());
+				assertEquals(Double.parseDouble(doubles.get(i).trim()), csv.getDouble(0), doubles.get(i));
+				assertEquals(uuids.get(i), csv.getUuid(1));
+				assertEquals(dates.get(i), csv.getDate(2));
+				assertEquals(uuids.get(i), csv.field(1).asUuid());
+			}
+			assertFalse(csv.next());
+		}
+
+		try (CsvReader csv = new CsvReader(new ByteArrayInputStream(
+				"abc,g2345678-e89b-12d3-a456-426614174000,2025-13-01,,x\"y\n".getBytes(StandardCharsets.UTF_8)))) {
+			assertTrue(csv.next());
+			assertThrows(NumberFormatException.class, () -> csv.getDouble(0));
+			assertThrows(IllegalArgumentException.class, () -> csv.getUuid(1));
+			assertThrows(java.time.DateTimeException.class, () -> csv.getDate(2));
+			assertTrue(csv.isEmpty(3));
+			assertTrue(csv.isEmpty(9));
+			assertTrue(csv.field(4).contentEquals("x\"y"));
+			assertThrows(IndexOutOfBoundsException.class, () -> csv.getString(5));
+		}
+	}
+
+	/**
+	 * Malformed quoting is reported instead of silently misread.
+	 */
+	@Test
+	public void testMalformedQuotes() throws IOException {
+		try (CsvReader csv = new CsvReader(trickle("a,\"open\n"))) {
+			assertThrows(IllegalArgumentException.class, () -> csv.next());
+		}
+		try (CsvReader csv = new CsvReader(trickle("\"a\"b,c\n"))) {
+			assertThrows(IllegalArgumentException.class, () -> csv.next());
+		}
+	}
+
+	/**
+	 * A quoted list of emails in Persons.csv is split into separate addresses.
+	 */
+	@Test
+	public void testPersonEmails() {
+		Map<UUID, Person> persons = PersonLoader.loadPerson();
+		Person person = persons.get(UUID.fromString("db0c8f6e-6754-43bd-957a-56e25db4bf58"));
+		assertEquals(List.of("bdoyle0@google.it", "bdoyle5@gmail.com"), person.getEmails());
+	}
+
+}
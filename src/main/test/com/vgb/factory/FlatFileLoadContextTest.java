@@ -0,0 +1,85 @@
+package com.vgb.factory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.Company;
+import com.vgb.Contract;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.InvoiceLoader;
+import com.vgb.Item;
+import com.vgb.ReportSession;
+
+/**
+ * Tests that the {@link FlatFileLoadContext} loads the same data as the
+ * individual loaders and shares every entity between its maps.
+ */
+public class FlatFileLoadContextTest {
+
+	/**
+	 * Customers, contacts, salespeople, contract customers and invoice item
+	 * items all come from the maps loaded by earlier stages.
+	 */
+	@Test
+	public void testStagesShareEntities() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			FlatFileLoadContext context = FlatFileLoadContext.load(executor);
+
+			for (Company company : context.getCompanies().values()) {
+				if (company.getContact() != null) {
+					assertSame(context.getPersons().get(company.getContact().getUuid()), company.getContact());
+				}
+			}
+			for (Item item : context.getItems().values()) {
+				if (item instanceof Contract && ((Contract) item).getCustomer() != null) {
+					Company customer = ((Contract) item).getCustomer();
+					assertSame(context.getCompanies().get(customer.getUuid()), customer);
+				}
+			}
+			for (Invoice invoice : context.getInvoices().values()) {
+				assertSame(context.getCompanies().get(invoice.getCustomer().getUuid()), invoice.getCustomer());
+				assertSame(context.getPersons().get(invoice.getSalesperson().getUuid()), invoice.getSalesperson());
+			}
+			for (Map.Entry<UUID, List<InvoiceItem>> entry : context.getInvoiceItems().entrySet()) {
+				for (InvoiceItem invoiceItem : entry.getValue()) {
+					assertSame(context.getInvoices().get(entry.getKey()), invoiceItem.getInvoice());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * The context loads what the loaders load on their own.
+	 */
+	@Test
+	public void testMatchesLoaders() {
+		FlatFileLoadContext context = FlatFileLoadContext.load();
+
+		assertEquals(PersonLoader.loadPerson().keySet(), context.getPersons().keySet());
+		assertEquals(CompanyLoader.loadCompany().keySet(), context.getCompanies().keySet());
+		assertEquals(ItemLoader.loadItem().keySet(), context.getItems().keySet());
+		Map<UUID, Invoice> invoices = InvoiceLoader.loadInvoice();
+		assertEquals(invoices.keySet(), context.getInvoices().keySet());
+
+		ReportSession session = context.getReportSession();
+		assertEquals(invoices.size(), session.getInvoiceItems().size());
+		for (Map.Entry<Invoice, List<InvoiceItem>> entry : session.getInvoiceItems().entrySet()) {
+			assertNotNull(entry.getValue());
+			assertEquals(entry.getKey().grandTotalCents(entry.getValue()), entry.getKey().getTotals().getTotalCents());
+		}
+	}
+
+}
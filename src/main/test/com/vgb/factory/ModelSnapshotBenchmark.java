@@ -0,0 +1,73 @@
+package com.vgb.factory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import com.vgb.InvoiceItem;
+
+/**
+ * Measures rebuilding the model from a generated InvoiceItems.csv against
+ * reading it back from a {@link ModelSnapshot}.
+ * <p>
+ * Run with {@code java com.vgb.factory.ModelSnapshotBenchmark [lines]} from
+ * the project directory. The first round of each shows what a cold start
+ * costs; both files are deleted afterwards.
+ * </p>
+ */
+public class ModelSnapshotBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws IOException {
+		int lines = (args.length == 0) ? 1_000_000 : Integer.parseInt(args[0]);
+		FlatFileLoadContext context = FlatFileLoadContext.load();
+		Path csvFile = ParallelCsvLoaderBenchmark.writeInvoiceItems(lines, context.getInvoices(), context.getItems(),
+				new Random(42));
+		Path snapshotFile = Files.createTempFile("model", ".snapshot");
+
+		try {
+			Map<UUID, List<InvoiceItem>> invoiceItems = new HashMap<>();
+			try (CsvReader csv = CsvReader.open(csvFile)) {
+				csv.next();
+				while (csv.next()) {
+					InvoiceItemLoader.addInvoiceItem(csv, context.getInvoices(), context.getItems(), invoiceItems);
+				}
+			}
+			new ModelSnapshot(context.getPersons(), context.getCompanies(), context.getItems(), context.getInvoices(),
+					invoiceItems).write(snapshotFile);
+			System.out.printf("%,d lines, CSV %.1f MB, snapshot %.1f MB%n", lines, Files.size(csvFile) / 1e6,
+					Files.size(snapshotFile) / 1e6);
+
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				ModelSnapshot snapshot = ModelSnapshot.read(snapshotFile);
+				long snapshotNanos = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				FlatFileLoadContext reloaded = FlatFileLoadContext.load();
+				Map<UUID, List<InvoiceItem>> parsed = new HashMap<>();
+				try (CsvReader csv = CsvReader.open(csvFile)) {
+					csv.next();
+					while (csv.next()) {
+						InvoiceItemLoader.addInvoiceItem(csv, reloaded.getInvoices(), reloaded.getItems(), parsed);
+					}
+				}
+				long csvNanos = System.nanoTime() - start;
+
+				System.out.printf("round %d: CSV %6d ms, snapshot %6d ms (%d and %d invoices)%n", round + 1,
+						csvNanos / 1_000_000, snapshotNanos / 1_000_000, parsed.size(),
+						snapshot.getInvoiceItems().size());
+			}
+		} finally {
+			Files.delete(csvFile);
+			Files.delete(snapshotFile);
+		}
+	}
+
+}
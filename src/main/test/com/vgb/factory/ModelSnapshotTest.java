@@ -0,0 +1,187 @@
+package com.vgb.factory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.Company;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.InvoiceReport;
+import com.vgb.Item;
+import com.vgb.Person;
+import com.vgb.ReportSession;
+
+/**
+ * Tests that a {@link ModelSnapshot} reads back the model it was written
+ * from, and refuses damaged files.
+ */
+public class ModelSnapshotTest {
+
+	private static void assertSameModel(ModelSnapshot expected, ModelSnapshot actual) {
+		assertEquals(expected.getPersons().keySet(), actual.getPersons().keySet());
+		for (Person person : expected.getPersons().values()) {
+			assertEquals(person.toString(), actual.getPersons().get(person.getUuid()).toString());
+		}
+		assertEquals(expected.getCompanies().keySet(), actual.getCompanies().keySet());
+		for (Company company : expected.getCompanies().values()) {
+			assertEquals(company.toString(), actual.getCompanies().get(company.getUuid()).toString());
+		}
+		assertEquals(expected.getItems().keySet(), actual.getItems().keySet());
+		for (Item item : expected.getItems().values()) {
+			assertEquals(item.toString(), actual.getItems().get(item.getUUID()).toString());
+		}
+		assertEquals(expected.getInvoices().keySet(), actual.getInvoices().keySet());
+		assertEquals(expected.getInvoiceItems().keySet(), actual.getInvoiceItems().keySet());
+		for (Map.Entry<UUID, List<InvoiceItem>> entry : expected.getInvoiceItems().entrySet()) {
+			List<InvoiceItem> lines = actual.getInvoiceItems().get(entry.getKey());
+			assertEquals(entry.getValue().size(), lines.size());
+			for (int i = 0; i < lines.size(); i++) {
+				assertEquals(entry.getValue().get(i).getItem().toString(), lines.get(i).getItem().toString());
+				assertEquals(entry.getValue().get(i).getItem().getTotalCents(), lines.get(i).getItem().getTotalCents());
+			}
+		}
+	}
+
+	/**
+	 * The flat files survive a round trip, entities are shared as they are
+	 * after a load, and the reports come out the same.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		ModelSnapshot loaded = ModelSnapshot.of(FlatFileLoadContext.load());
+		Path file = Files.createTempFile("model", ".snapshot");
+		try {
+			loaded.write(file);
+			ModelSnapshot read = ModelSnapshot.read(file);
+			assertSameModel(loaded, read);
+
+			for (Invoice invoice : read.getInvoices().values()) {
+				assertSame(read.getCompanies().get(invoice.getCustomer().getUuid()), invoice.getCustomer());
+				assertSame(read.getPersons().get(invoice.getSalesperson().getUuid()), invoice.getSalesperson());
+			}
+			for (Map.Entry<UUID, List<InvoiceItem>> entry : read.getInvoiceItems().entrySet()) {
+				for (InvoiceItem line : entry.getValue()) {
+					assertSame(read.getInvoices().get(entry.getKey()), line.getInvoice());
+				}
+			}
+
+			assertEquals(InvoiceReport.printAllSummaryReports(loaded.getReportSession()),
+					InvoiceReport.printAllSummaryReports(read.getReportSession()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * A session without an item catalog, as loaded from the database, is
+	 * saved with catalog items rebuilt from its lines.
+	 */
+	@Test
+	public void testSessionRoundTrip() throws IOException {
+		ModelSnapshot loaded = ModelSnapshot.of(FlatFileLoadContext.load().getReportSession());
+		Path file = Files.createTempFile("session", ".snapshot");
+		try {
+			loaded.write(file);
+			ModelSnapshot read = ModelSnapshot.read(file);
+			assertTrue(read.getItems().isEmpty());
+			assertEquals(loaded.getInvoiceItems().keySet(), read.getInvoiceItems().keySet());
+			assertEquals(InvoiceReport.printAllSummaryReports(loaded.getReportSession()),
+					InvoiceReport.printAllSummaryReports(read.getReportSession()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * A session whose invoices come in a given order, as the database loader
+	 * returns them by invoiceId, reads back in that order, so the unsorted
+	 * invoice report matches.
+	 */
+	@Test
+	public void testInvoiceOrderIsKept() throws IOException {
+		ReportSession loaded = FlatFileLoadContext.load().getReportSession();
+		List<Invoice> order = new ArrayList<>(loaded.getInvoiceItems().keySet());
+		order.sort(Comparator.comparing(Invoice::getInvoiceUUID).reversed());
+		Map<Invoice, List<InvoiceItem>> ordered = new LinkedHashMap<>();
+		for (Invoice invoice : order) {
+			ordered.put(invoice, loaded.getInvoiceItems().get(invoice));
+		}
+		ReportSession session = new ReportSession(ordered, loaded.getCompanies());
+
+		Path file = Files.createTempFile("ordered", ".snapshot");
+		try {
+			ModelSnapshot.of(session).write(file);
+			ModelSnapshot read = ModelSnapshot.read(file);
+
+			List<UUID> expected = new ArrayList<>();
+			for (Invoice invoice : order) {
+				expected.add(invoice.getInvoiceUUID());
+			}
+			assertEquals(expected, new ArrayList<>(read.getInvoices().keySet()));
+			assertEquals(InvoiceReport.printInvoice(session), InvoiceReport.printInvoice(read.getReportSession()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Damaged, truncated or foreign files are refused, and readOrLoad falls
+	 * back to loading and rewrites them.
+	 */
+	@Test
+	public void testDamagedFiles() throws IOException {
+		ModelSnapshot loaded = ModelSnapshot.of(FlatFileLoadContext.load());
+		Path file = Files.createTempFile("model", ".snapshot");
+		try {
+			loaded.write(file);
+			byte[] bytes = Files.readAllBytes(file);
+
+			byte[] flipped = bytes.clone();
+			flipped[bytes.length / 2] ^= 1;
+			Files.write(file, flipped);
+			assertThrows(IOException.class, () -> ModelSnapshot.read(file));
+
+			Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+			assertThrows(IOException.class, () -> ModelSnapshot.read(file));
+
+			byte[] version = bytes.clone();
+			version[7]++;
+			Files.write(file, version);
+			assertThrows(IOException.class, () -> ModelSnapshot.read(file));
+
+			Files.write(file, "uuid,name\n".getBytes());
+			assertThrows(IOException.class, () -> ModelSnapshot.read(file));
+
+			AtomicInteger loads = new AtomicInteger();
+			ModelSnapshot reloaded = ModelSnapshot.readOrLoad(file, () -> {
+				loads.incrementAndGet();
+				return loaded;
+			});
+			assertSame(loaded, reloaded);
+			assertSameModel(loaded, ModelSnapshot.readOrLoad(file, () -> {
+				loads.incrementAndGet();
+				return loaded;
+			}));
+			assertEquals(1, loads.get());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.vgb.factory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import com.vgb.Contract;
+import com.vgb.Equipment;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.Item;
+import com.vgb.Material;
+
+/**
+ * Measures {@link ParallelCsvLoader} on a generated InvoiceItems.csv with 1,
+ * 2, 4 and 8 threads against the single threaded loader.
+ * <p>
+ * Run with {@code java com.vgb.factory.ParallelCsvLoaderBenchmark [lines]}
+ * from the project directory; the rows refer to the invoices and items in
+ * {@code data/}. The file is written to the temp directory and deleted
+ * afterwards.
+ * </p>
+ */
+public class ParallelCsvLoaderBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	/**
+	 * Writes an InvoiceItems.csv whose rows refer to the given invoices and
+	 * items, with a row type matching each item.
+	 */
+	static Path writeInvoiceItems(int lines, Map<UUID, Invoice> invoices, Map<UUID, Item> items, Random random)
+			throws IOException {
+		List<UUID> invoiceUuids = new ArrayList<>(invoices.keySet());
+		List<Item> itemList = new ArrayList<>(items.values());
+		Path file = Files.createTempFile("InvoiceItems", ".csv");
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			out.write("invoiceUUID,itemUUID,fields\n");
+			for (int i = 0; i < lines; i++) {
+				Item item = itemList.get(random.nextInt(itemList.size()));
+				out.write(invoiceUuids.get(random.nextInt(invoiceUuids.size())) + "," + item.getUUID() + ",");
+				if (item instanceof Material) {
+					out.write("M," + random.nextInt(500) + ",");
+				} else if (item instanceof Contract) {
+					out.write("C," + random.nextInt(1_000_000) / 100.0 + ",");
+				} else if (item instanceof Equipment && i % 3 == 0) {
+					out.write("P,");
+				} else if (item instanceof Equipment && i % 3 == 1) {
+					LocalDate start = LocalDate.ofEpochDay(19_000 + random.nextInt(1_000));
+					out.write("L," + start + "," + start.plusDays(1 + random.nextInt(900)) + ",");
+				} else {
+					out.write("R," + random.nextInt(400) + ",");
+				}
+				out.write('\n');
+			}
+		}
+		return file;
+	}
+
+	private static Map<UUID, List<InvoiceItem>> sequential(Path file, Map<UUID, Invoice> invoices,
+			Map<UUID, Item> items) throws IOException {
+		Map<UUID, List<InvoiceItem>> invoiceItems = new HashMap<>();
+		try (CsvReader csv = CsvReader.open(file)) {
+			csv.next();
+			while (csv.next()) {
+				InvoiceItemLoader.addInvoiceItem(csv, invoices, items, invoiceItems);
+			}
+		}
+		return invoiceItems;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int lines = (args.length == 0) ? 2_000_000 : Integer.parseInt(args[0]);
+		FlatFileLoadContext context = FlatFileLoadContext.load();
+		Map<UUID, Invoice> invoices = context.getInvoices();
+		Map<UUID, Item> items = context.getItems();
+		Path file = writeInvoiceItems(lines, invoices, items, new Random(42));
+		double megabytes = Files.size(file) / 1e6;
+
+		try {
+			System.out.printf("%,d lines, %.1f MB, %d processors%n", lines, megabytes,
+					Runtime.getRuntime().availableProcessors());
+
+			long best = Long.MAX_VALUE;
+			int count = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				count = sequential(file, invoices, items).values().stream().mapToInt(List::size).sum();
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.printf("single threaded: %6d ms, %7.1f MB/s, %,d lines%n", best / 1_000_000,
+					megabytes * 1e9 / best, count);
+
+			for (int threads : new int[] { 1, 2, 4, 8 }) {
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				ParallelCsvLoader loader = new ParallelCsvLoader(pool);
+				best = Long.MAX_VALUE;
+				for (int round = 0; round < ROUNDS; round++) {
+					long start = System.nanoTime();
+					count = loader.loadInvoiceItems(file, invoices, items).values().stream().mapToInt(List::size)
+							.sum();
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				pool.shutdown();
+				System.out.printf("%d thread(s):     %6d ms, %7.1f MB/s, %,d lines%n", threads, best / 1_000_000,
+						megabytes * 1e9 / best, count);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.vgb.factory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.vgb.Company;
+import com.vgb.Invoice;
+import com.vgb.InvoiceItem;
+import com.vgb.InvoiceLoader;
+import com.vgb.Item;
+import com.vgb.Person;
+
+/**
+ * Tests that {@link ParallelCsvLoader} loads exactly what the single threaded
+ * loaders load, in the same order.
+ */
+public class ParallelCsvLoaderTest {
+
+	/**
+	 * A file several ranges long gives the same lists, line for line.
+	 */
+	@Test
+	public void testInvoiceItemsMatchSequential() throws IOException {
+		FlatFileLoadContext context = FlatFileLoadContext.load();
+		Map<UUID, Invoice> invoices = context.getInvoices();
+		Map<UUID, Item> items = context.getItems();
+		Path file = ParallelCsvLoaderBenchmark.writeInvoiceItems(60_000, invoices, items, new Random(17));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertTrue(ParallelCsvLoader.split(file, 16).length > 3);
+
+			Map<UUID, List<InvoiceItem>> expected = new HashMap<>();
+			try (CsvReader csv = CsvReader.open(file)) {
+				csv.next();
+				while (csv.next()) {
+					InvoiceItemLoader.addInvoiceItem(csv, invoices, items, expected);
+				}
+			}
+			Map<UUID, List<InvoiceItem>> actual = new ParallelCsvLoader(pool).loadInvoiceItems(file, invoices, items);
+
+			assertEquals(expected.keySet(), actual.keySet());
+			for (UUID uuid : expected.keySet()) {
+				List<InvoiceItem> expectedItems = expected.get(uuid);
+				List<InvoiceItem> actualItems = actual.get(uuid);
+				assertEquals(expectedItems.size(), actualItems.size());
+				for (int i = 0; i < expectedItems.size(); i++) {
+					assertSame(expectedItems.get(i).getInvoice(), actualItems.get(i).getInvoice());
+					assertEquals(expectedItems.get(i).getItem().toString(), actualItems.get(i).getItem().toString());
+				}
+			}
+		} finally {
+			pool.shutdown();
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Invoices load the same, and a file of just a header loads nothing.
+	 */
+	@Test
+	public void testInvoicesMatchSequential() throws IOException {
+		FlatFileLoadContext context = FlatFileLoadContext.load();
+		Map<UUID, Person> persons = context.getPersons();
+		Map<UUID, Company> companies = context.getCompanies();
+		List<UUID> personUuids = new ArrayList<>(persons.keySet());
+		List<UUID> companyUuids = new ArrayList<>(companies.keySet());
+
+		Random random = new Random(23);
+		Path file = Files.createTempFile("Invoices", ".csv");
+		try {
+			try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				out.write("Invoice UUID,Customer UUID,Salesperson UUID,Invoice Date\r\n");
+				for (int i = 0; i < 30_000; i++) {
+					out.write(new UUID(random.nextLong(), random.nextLong()) + ","
+							+ companyUuids.get(random.nextInt(companyUuids.size())) + ","
+							+ personUuids.get(random.nextInt(personUuids.size())) + ","
+							+ LocalDate.ofEpochDay(19_000 + random.nextInt(1_000)) + "\r\n");
+				}
+			}
+
+			Map<UUID, Invoice> expected = new HashMap<>();
+			try (CsvReader csv = CsvReader.open(file)) {
+				csv.next();
+				while (csv.next()) {
+					InvoiceLoader.addInvoice(csv, persons, companies, expected);
+				}
+			}
+			Map<UUID, Invoice> actual = new ParallelCsvLoader().loadInvoices(file, persons, companies);
+			assertEquals(30_000, actual.size());
+			for (Invoice invoice : expected.values()) {
+				Invoice loaded = actual.get(invoice.getInvoiceUUID());
+				assertSame(invoice.getCustomer(), loaded.getCustomer());
+				assertSame(invoice.getSalesperson(), loaded.getSalesperson());
+				assertEquals(invoice.getInvoiceDate(), loaded.getInvoiceDate());
+			}
+
+			Files.write(file, "Invoice UUID,Customer UUID,Salesperson UUID,Invoice Date\n".getBytes());
+			assertTrue(new ParallelCsvLoader().loadInvoices(file, persons, companies).isEmpty());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}